@@ -49,6 +49,7 @@ import org.jfree.chart.renderer.category.StandardBarPainter;
 import org.jfree.ui.RefineryUtilities;
 
 import com.googlecode.alv.chart.turnrundown.TurnrundownGantt;
+import com.googlecode.alv.creator.XMLLogCreator;
 import com.googlecode.alv.creator.util.FileAccessException;
 import com.googlecode.alv.creator.util.XMLAccessException;
 import com.googlecode.alv.creator.util.XMLLogReader;
@@ -60,9 +61,17 @@ import com.googlecode.alv.logdata.LogDataHolder;
 import com.googlecode.alv.parser.LogParser;
 import com.googlecode.alv.parser.MafiaLogParser;
 import com.googlecode.alv.parser.PreparsedLogParser;
+import com.googlecode.alv.util.ArchiveWriter;
+import com.googlecode.alv.util.CacheFingerprint;
+import com.googlecode.alv.util.CacheWarmer;
 import com.googlecode.alv.util.DataUtilities;
 import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.LogDataCache;
 import com.googlecode.alv.util.LogOutputFormat;
+import com.googlecode.alv.util.LogsCache;
+import com.googlecode.alv.util.facts.SearchField;
+import com.googlecode.alv.util.stats.AscensionAggregator;
+import com.googlecode.alv.util.stats.AscensionStatisticsReport;
 
 public final class LogVisualizer 
 {
@@ -118,6 +127,10 @@ public final class LogVisualizer
         BarRenderer.setDefaultBarPainter(new StandardBarPainter());
     }
 
+    private static final String CACHED_LOG_VARIANT = "cached log";
+
+    private static final String XML_LOG_VARIANT = "XML log";
+
     private final LogVisualizerGUI gui;
 
     private LogVisualizer() {
@@ -152,10 +165,32 @@ public final class LogVisualizer
                 loadLog(file, new PreparsedLogParser(file));
             }
 
+            public void loadCachedLog(final File file) 
+            {
+                try {
+                    LogDataHolder logData = LogDataCache.CACHE.get(file, CACHED_LOG_VARIANT);
+                    if (logData == null) {
+                        logData = LogsCache.CACHE.loadLog(file);
+                        LogDataCache.CACHE.put(file, CACHED_LOG_VARIANT, logData);
+                    }
+                    addLogGUI(file, logData);
+                } catch (final FileAccessException e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(gui,
+                                                  "A problem occurred while reading the cached log.",
+                                                  "Error occurred",
+                                                  JOptionPane.ERROR_MESSAGE);
+                }
+            }
+
             public void loadXMLLog(final File file) 
             {
                 try {
-                    final LogDataHolder logData = XMLLogReader.parseXMLLog(file);
+                    LogDataHolder logData = LogDataCache.CACHE.get(file, XML_LOG_VARIANT);
+                    if (logData == null) {
+                        logData = XMLLogReader.parseXMLLog(file);
+                        LogDataCache.CACHE.put(file, XML_LOG_VARIANT, logData);
+                    }
                     addLogGUI(file, logData);
                 } catch (final FileAccessException e) {
                     e.printStackTrace();
@@ -191,6 +226,10 @@ public final class LogVisualizer
             Settings.setBoolean("First program startup", false);
         }
 
+        // Bring the logs cache up to date while the user does other things.
+        if (Settings.getBoolean("Warm log cache"))
+            CacheWarmer.WARMER.start(new File(Settings.getString("Mafia logs location")));
+
         if (Settings.getBoolean("Check Updates"))
             new Thread(new Runnable() {
                 public void run() {
@@ -206,8 +245,18 @@ public final class LogVisualizer
 
     private void loadLog(final File file, final LogParser parser) 
     {
+        // Parsing results depend on the parser and its settings.
+        final String variant = parser.getClass().getName() + ";"
+                               + CacheFingerprint.getCurrentParserVersion();
+        final LogDataHolder cachedLogData = LogDataCache.CACHE.get(file, variant);
+        if (cachedLogData != null) {
+            addLogGUI(file, cachedLogData);
+            return;
+        }
+
         try {
             parser.parse();
+            LogDataCache.CACHE.put(file, variant, parser.getLogData());
             addLogGUI(file, parser.getLogData());
         } catch (final IOException e) {
             // If there was an IO error of some kind while reading the
@@ -290,14 +339,28 @@ public final class LogVisualizer
     {
         private final Matcher VALID_DATE = Pattern.compile("^[0-9]{8}$").matcher(""); 
         public boolean isParsing = false;
+        public boolean isWarmingCache = false;
+        public boolean isComputingStatistics = false;
+        public boolean isForcingOutput = false;
+        public boolean isExportingTables = false;
+        public boolean isExportingCachedTables = false;
+        public boolean isAppendingTables = false;
+        public File archiveFile = null;
+        public boolean isArchivingToStdout = false;
+        public ArchiveWriter.Format archiveFormat = null;
+        public String searchText = null;
+        public EnumSet<SearchField> searchFields = EnumSet.allOf(SearchField.class);
         public boolean hasError = false;
         public EnumSet<LogOutputFormat> formats = EnumSet.noneOf(LogOutputFormat.class);
+        public XMLLogCreator.OutputMode xmlMode = XMLLogCreator.OutputMode.INDENTED;
         public File srcDir = null;
         public File destDir = null;
         public int ascensionCount = Integer.MAX_VALUE;
         public int ascensionNumber = 0;
         public String playerName = null;
         public String date = null;
+        public EnumSet<AscensionAggregator.GroupBy> statisticsGrouping = EnumSet.noneOf(AscensionAggregator.GroupBy.class);
+        public AscensionStatisticsReport.Format statisticsFormat = AscensionStatisticsReport.Format.CSV;
         
         public ALVParameters(final String[] args)
         {
@@ -315,6 +378,92 @@ public final class LogVisualizer
                 case "--parse":
                     isParsing = true;
                     break;
+                case "-f":
+                case "--force":
+                    isForcingOutput = true;
+                    break;
+                case "--archive":
+                    arg++;
+                    if (args[arg].equals("-")) {
+                        isArchivingToStdout = true;
+                        archiveFormat = ArchiveWriter.Format.TAR;
+                        break;
+                    }
+                    archiveFile = new File(args[arg]);
+                    archiveFormat = ArchiveWriter.Format.fromFileName(args[arg]);
+                    if (archiveFormat == null) {
+                        System.out.println("Archives must be .zip or .tar files, or - for a tar stream to standard output");
+                        hasError = true;
+                        return;
+                    }
+                    break;
+                case "-w":
+                case "-warm":
+                case "--warm-cache":
+                    isWarmingCache = true;
+                    break;
+                case "-s":
+                case "-stats":
+                case "--stats":
+                    isComputingStatistics = true;
+                    break;
+                case "-e":
+                case "--export":
+                    isExportingTables = true;
+                    break;
+                case "--export-cached":
+                    isExportingCachedTables = true;
+                    break;
+                case "--append":
+                    isAppendingTables = true;
+                    break;
+                case "-g":
+                case "--group-by":
+                    arg++;
+                    for (String property : args[arg].split(",")) {
+                        switch (property.trim().toLowerCase()) {
+                        case "path":
+                            statisticsGrouping.add(AscensionAggregator.GroupBy.ASCENSION_PATH);
+                            break;
+                        case "class":
+                            statisticsGrouping.add(AscensionAggregator.GroupBy.CHARACTER_CLASS);
+                            break;
+                        case "mode":
+                            statisticsGrouping.add(AscensionAggregator.GroupBy.GAME_MODE);
+                            break;
+                        default:
+                            System.out.println("Ascensions can only be grouped by path, class and mode");
+                            hasError = true;
+                            return;
+                        }
+                    }
+                    break;
+                case "--search":
+                    arg++;
+                    searchText = args[arg];
+                    break;
+                case "--search-in":
+                    arg++;
+                    searchFields = EnumSet.noneOf(SearchField.class);
+                    for (String name : args[arg].split(",")) {
+                        final SearchField field = SearchField.fromString(name.trim());
+                        if (field == null) {
+                            System.out.println("Search fields must be area, encounter, item, skill or consumable");
+                            hasError = true;
+                            return;
+                        }
+                        searchFields.add(field);
+                    }
+                    break;
+                case "--stats-format":
+                    arg++;
+                    statisticsFormat = AscensionStatisticsReport.Format.fromString(args[arg]);
+                    if (statisticsFormat == null) {
+                        System.out.println("Statistics format must be csv or json");
+                        hasError = true;
+                        return;
+                    }
+                    break;
                 case "-html":
                 case "--html":
                     formats.add(LogOutputFormat.HTML_LOG);
@@ -327,6 +476,20 @@ public final class LogVisualizer
                 case "--xml":
                     formats.add(LogOutputFormat.XML_LOG);
                     break;
+                case "-compact":
+                case "--compact":
+                    formats.add(LogOutputFormat.XML_LOG);
+                    xmlMode = XMLLogCreator.OutputMode.COMPACT;
+                    break;
+                case "-gz":
+                case "--gzip":
+                    formats.add(LogOutputFormat.XML_LOG);
+                    xmlMode = XMLLogCreator.OutputMode.COMPRESSED;
+                    break;
+                case "-json":
+                case "--json":
+                    formats.add(LogOutputFormat.JSON_LOG);
+                    break;
                 case "-text":
                 case "--text":
                     formats.add(LogOutputFormat.TEXT_LOG);
@@ -392,14 +555,27 @@ public final class LogVisualizer
      */
     public static void main(final String[] args) 
     {
-        System.out.println("Ascension Log Visualizer build " + Settings.ALV_VERSION);
         ALVParameters params = new ALVParameters(args);
+        // The archive goes to standard output, so everything else has to go
+        // to standard error.
+        if (params.isArchivingToStdout)
+            System.setOut(System.err);
+        System.out.println("Ascension Log Visualizer build " + Settings.ALV_VERSION);
         if (params.hasError)
             return;
-        if (params.isParsing) {
+        if (params.isWarmingCache)
+            LogVisualizerCLI.runCLICacheWarming(params);
+        if (params.isParsing)
             LogVisualizerCLI.runCLIParsing(params);
-        }
-        else
+        if (params.isComputingStatistics)
+            LogVisualizerCLI.runCLIStatistics(params);
+        if (params.isExportingTables || params.isExportingCachedTables)
+            LogVisualizerCLI.runCLITableExport(params);
+        if (params.searchText != null)
+            LogVisualizerCLI.runCLISearch(params);
+        if (! params.isParsing && ! params.isWarmingCache && ! params.isComputingStatistics
+                && ! params.isExportingTables && ! params.isExportingCachedTables
+                && params.searchText == null)
             EventQueue.invokeLater(new Runnable() {
                 public void run() 
                 {
@@ -24,22 +24,56 @@
 
 package com.googlecode.alv;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
+import com.googlecode.alv.creator.util.FileAccessException;
 import com.googlecode.alv.gui.InternalMafiaLogParserDialog;
+import com.googlecode.alv.logdata.LogDataHolder;
 import com.googlecode.alv.logdata.turn.Encounter;
 import com.googlecode.alv.parser.MafiaLogIndex;
+import com.googlecode.alv.util.ArchiveWriter;
+import com.googlecode.alv.util.CacheWarmer;
+import com.googlecode.alv.util.Constants;
 import com.googlecode.alv.util.LogOutputFormat;
+import com.googlecode.alv.util.LogsCache;
 import com.googlecode.alv.util.Pair;
+import com.googlecode.alv.util.Sets;
+import com.googlecode.alv.util.facts.FactQuery;
+import com.googlecode.alv.util.facts.FactStore;
+import com.googlecode.alv.util.facts.TurnFact;
+import com.googlecode.alv.util.stats.AscensionAggregator;
+import com.googlecode.alv.util.stats.AscensionStatisticsReport;
+import com.googlecode.alv.util.stats.AscensionTablesExporter;
 
 /**
  * This class supports the command-line functionality of ALV.
  *
  */
 public final class LogVisualizerCLI {
+    /**
+     * Loads condensed mafia logs from the {@link LogsCache} if they are cached
+     * and unchanged, and parses them otherwise.
+     */
+    private static final AscensionAggregator.LogLoader CACHED_OR_PARSED_LOGS = new AscensionAggregator.LogLoader() {
+        @Override
+        public LogDataHolder load(
+                final File log)
+                throws IOException, FileAccessException {
+
+            return LogsCache.CACHE.loadOrParseLog(log);
+        }
+    };
+
     /**
      * Processes Mafia log files according to the given parameters. This function
      * selects the logs to process, and then hands them off to the
@@ -54,7 +88,6 @@ public final class LogVisualizerCLI {
         if (outputFormats.isEmpty()) {
             outputFormats = EnumSet.of(LogOutputFormat.TEXT_LOG);
         }
-        int numberToParse = params.ascensionCount;
         final File mafiaLogsDirectory = (params.srcDir == null)
                 ? new File(Settings.getString("Mafia logs location"))
                 : params.srcDir;
@@ -62,7 +95,10 @@ public final class LogVisualizerCLI {
                 ? new File(Settings.getString("Parsed logs saving location"))
                 : params.destDir;
 
-        if (!mafiaLogsDirectory.isDirectory() || !parsedLogsSavingDirectory.isDirectory()) {
+        // Archives replace the parsed logs directory.
+        final boolean isArchiving = params.archiveFormat != null;
+        if (!mafiaLogsDirectory.isDirectory()
+                || !isArchiving && !parsedLogsSavingDirectory.isDirectory()) {
             System.out.println("Please specify only existing directories.");
             return;
         }
@@ -86,25 +122,8 @@ public final class LogVisualizerCLI {
         }
 
         // Make sure we have only the necessary logs
-        File[] mafiaLogs = {};
-        final String playerName = params.playerName; // null if not supplied in command line
-        if (params.ascensionNumber > 0) {
-            // If ascension number is supplied and count is not, only do one ascension
-            if (numberToParse == Integer.MAX_VALUE) {
-                numberToParse = 1;
-            }
-            mafiaLogs = mafiaLogIndex.getAscensionsN(params.ascensionNumber, playerName,
-                    numberToParse);
-        } else if (params.date != null) {
-            // If ascension date is supplied and count is not, only do one ascension
-            if (numberToParse == Integer.MAX_VALUE) {
-                numberToParse = 1;
-            }
-            mafiaLogs = mafiaLogIndex.getAscensionsForDate(params.date, playerName, numberToParse);
-        } else if (params.ascensionCount > 0) {
-            // If neither ascension number nor date is supplied, do last n runs
-            mafiaLogs = mafiaLogIndex.getLastNMafiaLogs(params.ascensionCount, playerName);
-        }
+        final int numberToParse = getNumberOfAscensions(params);
+        final File[] mafiaLogs = selectMafiaLogs(params, mafiaLogIndex, numberToParse);
         // Make sure we have ANY logs
         if (mafiaLogs.length == 0) {
             System.out.println("No Mafia logs found for this request.");
@@ -113,14 +132,35 @@ public final class LogVisualizerCLI {
 
         // If the input seems to be correct, save the directories used.
         Settings.setString("Mafia logs location", mafiaLogsDirectory.getAbsolutePath());
-        Settings.setString("Parsed logs saving location",
-                parsedLogsSavingDirectory.getAbsolutePath());
+        if (!isArchiving) {
+            Settings.setString("Parsed logs saving location",
+                    parsedLogsSavingDirectory.getAbsolutePath());
+        }
 
         // Now, the actual parsing can start.
         try {
             System.out.println("Parsing, please wait.");
-            final List<Pair<String, Encounter>> errorFileList = LogsProcessor.createParsedLogs(
-                    mafiaLogs, parsedLogsSavingDirectory, outputFormats, numberToParse);
+            final List<Pair<String, Encounter>> errorFileList;
+            if (isArchiving) {
+                // Standard output itself, as System.out now goes to standard
+                // error.
+                final ArchiveWriter archive = new ArchiveWriter(params.isArchivingToStdout
+                        ? new FileOutputStream(FileDescriptor.out)
+                        : new FileOutputStream(params.archiveFile),
+                        params.archiveFormat);
+                try {
+                    errorFileList = LogsProcessor.createParsedLogs(mafiaLogs, archive, outputFormats,
+                            numberToParse, params.xmlMode);
+                } finally {
+                    archive.close();
+                }
+                System.out.println("Wrote " + archive.getEntryCount() + " parsed logs to "
+                        + (params.isArchivingToStdout ? "standard output"
+                                : params.archiveFile.getAbsolutePath()));
+            } else {
+                errorFileList = LogsProcessor.createParsedLogs(mafiaLogs, parsedLogsSavingDirectory,
+                        outputFormats, numberToParse, params.xmlMode, !params.isForcingOutput);
+            }
             System.out.println("Parsing finished.\n\n");
 
             // If there were error logs, give the user feedback on them.
@@ -144,4 +184,303 @@ public final class LogVisualizerCLI {
             e.printStackTrace();
         }
     }
+
+    /**
+     * @param params Parameters controlling the CLI
+     * @return The number of ascensions to process. If an ascension number or
+     *         date is supplied without a count, only that one ascension is
+     *         processed.
+     */
+    private static int getNumberOfAscensions(
+            final LogVisualizer.ALVParameters params) {
+
+        if ((params.ascensionNumber > 0 || params.date != null)
+                && params.ascensionCount == Integer.MAX_VALUE) {
+            return 1;
+        }
+
+        return params.ascensionCount;
+    }
+
+    /**
+     * Selects the Mafia logs of the ascensions asked for by the given parameters.
+     *
+     * @param params              Parameters controlling the CLI
+     * @param mafiaLogIndex       The index of the Mafia logs directory
+     * @param numberOfAscensions  The number of ascensions to select, see
+     *                            {@link #getNumberOfAscensions(LogVisualizer.ALVParameters)}
+     * @return The selected Mafia logs, which may be empty.
+     */
+    private static File[] selectMafiaLogs(
+            final LogVisualizer.ALVParameters params, final MafiaLogIndex mafiaLogIndex,
+            final int numberOfAscensions) {
+
+        final String playerName = params.playerName; // null if not supplied in command line
+        if (params.ascensionNumber > 0) {
+            return mafiaLogIndex.getAscensionsN(params.ascensionNumber, playerName,
+                    numberOfAscensions);
+        } else if (params.date != null) {
+            return mafiaLogIndex.getAscensionsForDate(params.date, playerName, numberOfAscensions);
+        } else if (params.ascensionCount > 0) {
+            // If neither ascension number nor date is supplied, do last n runs
+            return mafiaLogIndex.getLastNMafiaLogs(params.ascensionCount, playerName);
+        }
+
+        return new File[0];
+    }
+
+    /**
+     * Computes statistics over the ascensions selected by the given parameters
+     * (see {@link AscensionAggregator}) and writes them as a single report to the
+     * destination directory. Ascensions which are cached and unchanged are read
+     * from the {@link LogsCache}, all others are parsed. The ascensions are
+     * loaded in parallel, but only one per processor is held in memory at once.
+     *
+     * @param params Parameters controlling the CLI
+     */
+    public static void runCLIStatistics(
+            final LogVisualizer.ALVParameters params) {
+
+        final File mafiaLogsDirectory = (params.srcDir == null)
+                ? new File(Settings.getString("Mafia logs location"))
+                : params.srcDir;
+        final File reportDirectory = (params.destDir == null)
+                ? new File(Settings.getString("Parsed logs saving location"))
+                : params.destDir;
+
+        if (!mafiaLogsDirectory.isDirectory() || !reportDirectory.isDirectory()) {
+            System.out.println("Please specify only existing directories.");
+            return;
+        }
+
+        final MafiaLogIndex mafiaLogIndex;
+        try {
+            mafiaLogIndex = MafiaLogIndex.getMafiaLogIndex(mafiaLogsDirectory.getAbsolutePath());
+        } catch (final IOException e) {
+            System.out.println(e);
+            return;
+        }
+
+        final int numberOfAscensions = getNumberOfAscensions(params);
+        final File[] mafiaLogs = selectMafiaLogs(params, mafiaLogIndex, numberOfAscensions);
+        if (mafiaLogs.length == 0) {
+            System.out.println("No Mafia logs found for this request.");
+            return;
+        }
+
+        final File workDirectory = new File(Constants.TEMP_LOCATION, "statistics");
+        if (!workDirectory.exists()) {
+            workDirectory.mkdirs();
+        }
+        try {
+            System.out.println("Computing statistics, please wait.");
+            final File[] condensedMafiaLogs = LogsProcessor.createCondensedMafiaLogs(mafiaLogs,
+                    workDirectory);
+            Arrays.sort(condensedMafiaLogs, LogsCache.FILE_COMPARATOR);
+            final List<File> logs = Arrays.asList(condensedMafiaLogs).subList(0,
+                    Math.min(numberOfAscensions, condensedMafiaLogs.length));
+
+            final AscensionAggregator.Result result = AscensionAggregator.aggregate(logs,
+                    CACHED_OR_PARSED_LOGS,
+                    params.statisticsGrouping,
+                    Runtime.getRuntime().availableProcessors());
+
+            final File report = new File(reportDirectory,
+                    "ascension statistics" + params.statisticsFormat.getFileExtension());
+            final Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(report), "UTF-8"));
+            try {
+                AscensionStatisticsReport.write(result, params.statisticsFormat, writer);
+            } finally {
+                writer.close();
+            }
+            System.out.println("Wrote " + report.getAbsolutePath());
+
+            if (!result.getFailedLogs().isEmpty()) {
+                final StringBuilder str = new StringBuilder(100);
+                str.append("The following logs could not be parsed and are left out:\n\n");
+                for (final File log : result.getFailedLogs()) {
+                    str.append(log.getName() + "\n");
+                }
+
+                System.out.println(str);
+            }
+        } catch (final IOException e) {
+            System.out.println("There was a problem while computing the statistics.");
+            e.printStackTrace();
+        } finally {
+            for (final File f : workDirectory.listFiles()) {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Exports the data of the ascensions given by the parameters as CSV tables
+     * to the destination directory, see {@link AscensionTablesExporter}. Either
+     * all cached ascensions are exported, or the ascensions selected from the
+     * Mafia logs like for parsing. Only the ascensions of the given player are
+     * exported if a player name was supplied. When appending, ascensions already
+     * in the tables are left out.
+     *
+     * @param params Parameters controlling the CLI
+     */
+    public static void runCLITableExport(
+            final LogVisualizer.ALVParameters params) {
+
+        final File exportDirectory = (params.destDir == null)
+                ? new File(Settings.getString("Parsed logs saving location"))
+                : params.destDir;
+
+        final File workDirectory = new File(Constants.TEMP_LOCATION, "export");
+        try {
+            final AscensionTablesExporter.Result result;
+            if (params.isExportingCachedTables) {
+                if (!exportDirectory.isDirectory()) {
+                    System.out.println("Please specify only existing directories.");
+                    return;
+                }
+
+                System.out.println("Exporting the cached ascensions, please wait.");
+                result = AscensionTablesExporter.exportCachedLogs(params.playerName,
+                        exportDirectory, params.isAppendingTables);
+            } else {
+                final File mafiaLogsDirectory = (params.srcDir == null)
+                        ? new File(Settings.getString("Mafia logs location"))
+                        : params.srcDir;
+                if (!mafiaLogsDirectory.isDirectory() || !exportDirectory.isDirectory()) {
+                    System.out.println("Please specify only existing directories.");
+                    return;
+                }
+
+                final MafiaLogIndex mafiaLogIndex = MafiaLogIndex
+                        .getMafiaLogIndex(mafiaLogsDirectory.getAbsolutePath());
+                final int numberOfAscensions = getNumberOfAscensions(params);
+                final File[] mafiaLogs = selectMafiaLogs(params, mafiaLogIndex,
+                        numberOfAscensions);
+                if (mafiaLogs.length == 0) {
+                    System.out.println("No Mafia logs found for this request.");
+                    return;
+                }
+
+                if (!workDirectory.exists()) {
+                    workDirectory.mkdirs();
+                }
+                System.out.println("Exporting ascensions, please wait.");
+                final File[] condensedMafiaLogs = LogsProcessor
+                        .createCondensedMafiaLogs(mafiaLogs, workDirectory);
+                Arrays.sort(condensedMafiaLogs, LogsCache.FILE_COMPARATOR);
+                result = AscensionTablesExporter.export(
+                        Arrays.asList(condensedMafiaLogs).subList(0,
+                                Math.min(numberOfAscensions, condensedMafiaLogs.length)),
+                        CACHED_OR_PARSED_LOGS,
+                        exportDirectory,
+                        params.isAppendingTables,
+                        Runtime.getRuntime().availableProcessors());
+            }
+
+            System.out.println("Exported " + result.getExportedCount() + " ascensions to "
+                    + exportDirectory.getAbsolutePath()
+                    + (result.getSkippedCount() > 0
+                            ? ", " + result.getSkippedCount() + " were already exported."
+                            : "."));
+
+            if (!result.getFailedLogs().isEmpty()) {
+                final StringBuilder str = new StringBuilder(100);
+                str.append("The following logs could not be parsed and are left out:\n\n");
+                for (final File log : result.getFailedLogs()) {
+                    str.append(log.getName() + "\n");
+                }
+
+                System.out.println(str);
+            }
+        } catch (final IOException e) {
+            System.out.println("There was a problem while exporting the ascensions.");
+            e.printStackTrace();
+        } finally {
+            if (workDirectory.isDirectory()) {
+                for (final File f : workDirectory.listFiles()) {
+                    f.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches the turns of all cached ascensions for the words given by the
+     * parameters and prints the matching turns. Only the ascensions of the given
+     * player are searched if a player name was supplied. The search uses the
+     * inverted indices of the {@link FactStore}, which is brought up to date with
+     * the logs cache first.
+     *
+     * @param params Parameters controlling the CLI
+     */
+    public static void runCLISearch(
+            final LogVisualizer.ALVParameters params) {
+
+        FactStore.STORE.update();
+
+        final FactQuery query = params.playerName != null
+                ? FactQuery.ALL.withCharacter(params.playerName)
+                : FactQuery.ALL;
+        final Set<String> ascensions = Sets.newHashSet();
+        final int[] turnCount = new int[1];
+        final long start = System.currentTimeMillis();
+        FactStore.STORE.search(params.searchText, params.searchFields, query,
+                new FactStore.TurnFactHandler() {
+                    @Override
+                    public void handle(
+                            final TurnFact fact) {
+
+                        final String logName = fact.getAscension().getLogName();
+                        ascensions.add(logName);
+                        turnCount[0]++;
+                        System.out.println(logName + ": " + fact);
+                    }
+                });
+
+        System.out.println("Found " + turnCount[0] + " turns in " + ascensions.size()
+                + " of " + FactStore.STORE.getAscensionCount() + " cached ascensions in "
+                + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    /**
+     * Brings the logs cache up to date with the Mafia logs directory given by the
+     * parameters, so that the logs can later be visualised without waiting for
+     * them to be parsed. Only the logs of the given player are cached if a player
+     * name was supplied.
+     *
+     * @param params Parameters controlling the CLI
+     */
+    public static void runCLICacheWarming(
+            final LogVisualizer.ALVParameters params) {
+
+        final File mafiaLogsDirectory = (params.srcDir == null)
+                ? new File(Settings.getString("Mafia logs location"))
+                : params.srcDir;
+        if (!mafiaLogsDirectory.isDirectory()) {
+            System.out.println("Please specify only existing directories.");
+            return;
+        }
+
+        try {
+            System.out.println("Updating the log cache, please wait.");
+            final List<Pair<String, Encounter>> errorFileList = CacheWarmer.WARMER
+                    .warm(mafiaLogsDirectory, params.playerName);
+            System.out.println("Log cache updated.\n\n");
+
+            if (!errorFileList.isEmpty()) {
+                final StringBuilder str = new StringBuilder(100);
+                str.append("There were problems parsing the following logs:\n\n");
+                for (final Pair<String, Encounter> p : errorFileList) {
+                    str.append(p.getVar1() + ": " + p.getVar2().getTurnNumber() + "\n");
+                }
+
+                System.out.println(str);
+            }
+        } catch (final IOException e) {
+            System.out.println("There was a problem while updating the log cache.");
+            e.printStackTrace();
+        }
+    }
 }
@@ -25,34 +25,47 @@
 package com.googlecode.alv;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.googlecode.alv.creator.JSONLogCreator;
+import com.googlecode.alv.creator.RenderModel;
 import com.googlecode.alv.creator.TextLogCreator;
 import com.googlecode.alv.creator.XMLLogCreator;
 import com.googlecode.alv.logdata.LogDataHolder;
 import com.googlecode.alv.logdata.turn.Encounter;
 import com.googlecode.alv.parser.MafiaLogParser;
 import com.googlecode.alv.parser.UsefulPatterns;
+import com.googlecode.alv.util.ArchiveWriter;
+import com.googlecode.alv.util.CacheFingerprint;
 import com.googlecode.alv.util.Constants;
 import com.googlecode.alv.util.Lists;
 import com.googlecode.alv.util.LogOutputFormat;
 import com.googlecode.alv.util.LogsCache;
+import com.googlecode.alv.util.OutputManifest;
 import com.googlecode.alv.util.Pair;
 
 /**
@@ -83,16 +96,21 @@ public final class LogsProcessor {
 
         private final File[] mafiaLogs;
 
+        private final File destDir;
+
         private PrintWriter currentCondensedLogWriter;
 
         /**
          * @param mafiaLogs The mafia logs which should be turned into parsed ascension
          *                  logs.
-         * @throws NullPointerException     if mafiaLogs is {@code null}
+         * @param destDir   The directory in which the condensed mafia logs should be
+         *                  stored.
+         * @throws NullPointerException     if mafiaLogs or destDir is {@code null}
          * @throws IllegalArgumentException if mafiaLogs does not contain any elements
          */
         CondensedMafiaLogsCreator(
-                final File[] mafiaLogs) {
+                final File[] mafiaLogs,
+                final File destDir) {
 
             if (mafiaLogs == null) {
                 throw new NullPointerException("The File array mafiaLogs must not be null.");
@@ -100,11 +118,15 @@ public final class LogsProcessor {
             if (mafiaLogs.length == 0) {
                 throw new IllegalArgumentException("The File array mafiaLogs must not be empty.");
             }
+            if (destDir == null) {
+                throw new NullPointerException("The directory destDir must not be null.");
+            }
 
             // Sort array in case it isn't already in the proper order, which is
             // oldest mafia log first.
             Arrays.sort(mafiaLogs, LogsCache.FILE_COMPARATOR);
             this.mafiaLogs = mafiaLogs;
+            this.destDir = destDir;
         }
 
         /**
@@ -125,8 +147,9 @@ public final class LogsProcessor {
          * added to the player snapshot in which this date change was noticed.
          * <p>
          * Please note that the condensed mafia logs created by this method are stored
-         * in the directory for temporal data as denoted by
-         * {@link Constants#TEMP_LOCATION}. These files should be deleted after use.
+         * in the directory given to the constructor, usually the directory for
+         * temporal data as denoted by {@link Constants#TEMP_LOCATION}. These files
+         * should be deleted after use.
          *
          * @return The condensed mafia logs.
          * @throws IOException if there was a problem while accessing the given mafia
@@ -239,7 +262,7 @@ public final class LogsProcessor {
 
             scanner.close();
 
-            final File currentCondensedFile = new File(Constants.TEMP_LOCATION, fileName);
+            final File currentCondensedFile = new File(destDir, fileName);
             currentCondensedLogWriter = new PrintWriter(currentCondensedFile.getAbsolutePath());
             return currentCondensedFile;
         }
@@ -284,7 +307,35 @@ public final class LogsProcessor {
             final File[] mafiaLogs)
             throws IOException {
 
-        return new CondensedMafiaLogsCreator(mafiaLogs).condense();
+        return createCondensedMafiaLogs(mafiaLogs, Constants.TEMP_LOCATION);
+    }
+
+    /**
+     * Creates and returns condensed mafia logs which hold single ascensions from
+     * start to end in a single file, see {@link #createCondensedMafiaLogs(File[])}.
+     * Instead of the directory for temporary data, the condensed mafia logs are
+     * stored in the given directory, which allows background tasks to condense
+     * logs without getting in the way of other users of the temporary directory.
+     * Again, it is the responsibility of the programmer using this method to
+     * delete these files as soon as they are not needed anymore.
+     *
+     * @param mafiaLogs The mafia logs which should be condensed into mafia logs
+     *                  which each hold a single ascension.
+     * @param destDir   The directory in which the condensed mafia logs should be
+     *                  stored.
+     * @return The condensed mafia logs.
+     * @throws IOException              if there was a problem while accessing the
+     *                                  given mafia logs or writing the condensed
+     *                                  ones
+     * @throws NullPointerException     if mafiaLogs or destDir is {@code null}
+     * @throws IllegalArgumentException if mafiaLogs does not contain any elements
+     */
+    public static File[] createCondensedMafiaLogs(
+            final File[] mafiaLogs,
+            final File destDir)
+            throws IOException {
+
+        return new CondensedMafiaLogsCreator(mafiaLogs, destDir).condense();
     }
 
     /**
@@ -377,12 +428,172 @@ public final class LogsProcessor {
             final int logsToParse)
             throws IOException {
 
+        return createParsedLogs(mafiaLogs, savingDestDir, logFormats, logsToParse,
+                XMLLogCreator.OutputMode.INDENTED);
+    }
+
+    /**
+     * Creates and saves parsed ascension logs like
+     * {@link #createParsedLogs(File[], File, EnumSet, int)} does it, writing XML
+     * logs in the given output mode. All logs are written, even if they are up
+     * to date, see
+     * {@link #createParsedLogs(File[], File, EnumSet, int, XMLLogCreator.OutputMode, boolean)}
+     * for skipping them.
+     *
+     * @param mafiaLogs     The mafia logs which should be turned into parsed
+     *                      ascension logs.
+     * @param savingDestDir The directory inside which the parsed ascension logs
+     *                      should be saved in.
+     * @param logFormats    The output format in which to print the parsed logs.
+     * @param logsToParse   The last n ascensions that should be parsed.
+     * @param xmlMode       The layout of XML logs, see
+     *                      {@link XMLLogCreator.OutputMode}.
+     * @return A list containing pairs with filenames and turns of condensed mafia
+     *         log files that were attempted to be parsed, but had an exception
+     *         thrown during the parsing process, see
+     *         {@link #createParsedLogs(File[], File, EnumSet, int)}.
+     * @throws IOException              if there was a problem while accessing or
+     *                                  writing files handled by this method
+     * @throws NullPointerException     if mafiaLogs is {@code null}; if
+     *                                  savingDestDir is {@code null}; if xmlMode
+     *                                  is {@code null}
+     * @throws IllegalArgumentException if mafiaLogs does not contain any elements;
+     *                                  if the directory savingDestDir does not
+     *                                  exist; if savingDestDir is not a directory;
+     *                                  if logsToParse is smaller than 1
+     */
+    public static List<Pair<String, Encounter>> createParsedLogs(
+            final File[] mafiaLogs,
+            final File savingDestDir,
+            final EnumSet<LogOutputFormat> logFormats,
+            final int logsToParse,
+            final XMLLogCreator.OutputMode xmlMode)
+            throws IOException {
+
+        return createParsedLogs(mafiaLogs, savingDestDir, logFormats, logsToParse, xmlMode, false);
+    }
+
+    /**
+     * Creates and saves parsed ascension logs like
+     * {@link #createParsedLogs(File[], File, EnumSet, int, XMLLogCreator.OutputMode)}
+     * does it.
+     * <p>
+     * Every parsed log written is recorded in the {@link OutputManifest} of the
+     * saving directory, together with the fingerprint of its condensed mafia log
+     * (see {@link CacheFingerprint}) and its output version, which covers its
+     * format and the settings it was written with. If up-to-date logs should be
+     * skipped, parsed logs which are still the same as recorded for the same
+     * fingerprint and output version aren't written again, and ascensions whose
+     * parsed logs are all up to date aren't even parsed.
+     *
+     * @param mafiaLogs             The mafia logs which should be turned into
+     *                              parsed ascension logs.
+     * @param savingDestDir         The directory inside which the parsed
+     *                              ascension logs should be saved in.
+     * @param logFormats            The output format in which to print the
+     *                              parsed logs.
+     * @param logsToParse           The last n ascensions that should be parsed.
+     * @param xmlMode               The layout of XML logs, see
+     *                              {@link XMLLogCreator.OutputMode}.
+     * @param skipUpToDateLogs      Whether parsed logs which are up to date
+     *                              should be skipped.
+     * @return A list containing pairs with filenames and turns of condensed mafia
+     *         log files that were attempted to be parsed, but had an exception
+     *         thrown during the parsing process, see
+     *         {@link #createParsedLogs(File[], File, EnumSet, int)}.
+     * @throws IOException              if there was a problem while accessing or
+     *                                  writing files handled by this method
+     * @throws NullPointerException     if mafiaLogs is {@code null}; if
+     *                                  savingDestDir is {@code null}; if xmlMode
+     *                                  is {@code null}
+     * @throws IllegalArgumentException if mafiaLogs does not contain any elements;
+     *                                  if the directory savingDestDir does not
+     *                                  exist; if savingDestDir is not a directory;
+     *                                  if logsToParse is smaller than 1
+     */
+    public static List<Pair<String, Encounter>> createParsedLogs(
+            final File[] mafiaLogs,
+            final File savingDestDir,
+            final EnumSet<LogOutputFormat> logFormats,
+            final int logsToParse,
+            final XMLLogCreator.OutputMode xmlMode,
+            final boolean skipUpToDateLogs)
+            throws IOException {
+
         if (!savingDestDir.exists()) {
             throw new IllegalArgumentException("The directory doesn't exist.");
         }
         if (!savingDestDir.isDirectory()) {
             throw new IllegalArgumentException("The given file is not a directory.");
         }
+
+        return createParsedLogs(mafiaLogs, savingDestDir, null, logFormats, logsToParse, xmlMode,
+                skipUpToDateLogs);
+    }
+
+    /**
+     * Creates parsed ascension logs like
+     * {@link #createParsedLogs(File[], File, EnumSet, int, XMLLogCreator.OutputMode)}
+     * does it, but writes all of them into the given archive instead of a
+     * directory. The parsed logs are created in memory by the parsing threads
+     * and written to the archive one after another by its writer thread, so no
+     * file is created for them.
+     * <p>
+     * The archive is not closed by this method.
+     *
+     * @param mafiaLogs   The mafia logs which should be turned into parsed
+     *                    ascension logs.
+     * @param archive     The archive into which the parsed ascension logs
+     *                    should be written.
+     * @param logFormats  The output format in which to print the parsed logs.
+     * @param logsToParse The last n ascensions that should be parsed.
+     * @param xmlMode     The layout of XML logs, see
+     *                    {@link XMLLogCreator.OutputMode}.
+     * @return A list containing pairs with filenames and turns of condensed mafia
+     *         log files that were attempted to be parsed, but had an exception
+     *         thrown during the parsing process, see
+     *         {@link #createParsedLogs(File[], File, EnumSet, int)}.
+     * @throws IOException              if there was a problem while accessing
+     *                                  files handled by this method
+     * @throws NullPointerException     if mafiaLogs is {@code null}; if archive
+     *                                  is {@code null}; if xmlMode is
+     *                                  {@code null}
+     * @throws IllegalArgumentException if mafiaLogs does not contain any elements;
+     *                                  if logsToParse is smaller than 1
+     */
+    public static List<Pair<String, Encounter>> createParsedLogs(
+            final File[] mafiaLogs,
+            final ArchiveWriter archive,
+            final EnumSet<LogOutputFormat> logFormats,
+            final int logsToParse,
+            final XMLLogCreator.OutputMode xmlMode)
+            throws IOException {
+
+        if (archive == null) {
+            throw new NullPointerException("The archive must not be null.");
+        }
+
+        return createParsedLogs(mafiaLogs, null, archive, logFormats, logsToParse, xmlMode, false);
+    }
+
+    /**
+     * Creates parsed ascension logs either in the given directory or in the
+     * given archive, whichever isn't null. Up-to-date logs can only be skipped
+     * in a directory.
+     */
+    private static List<Pair<String, Encounter>> createParsedLogs(
+            final File[] mafiaLogs,
+            final File savingDestDir,
+            final ArchiveWriter archive,
+            final EnumSet<LogOutputFormat> logFormats,
+            final int logsToParse,
+            final XMLLogCreator.OutputMode xmlMode,
+            final boolean skipUpToDateLogs)
+            throws IOException {
+
+        if (xmlMode == null) {
+            throw new NullPointerException("The XML output mode must not be null.");
+        }
         if (logsToParse <= 0) {
             throw new IllegalArgumentException("The number of logs to parse must not be below 1.");
         }
@@ -392,12 +603,16 @@ public final class LogsProcessor {
 
         final File[] condensedMafiaLogs = createCondensedMafiaLogs(mafiaLogs);
         Arrays.sort(condensedMafiaLogs, LogsCache.FILE_COMPARATOR);
+        final OutputManifest manifest = archive == null ? OutputManifest.read(savingDestDir) : null;
 
         // 4 Threads per CPU should be a high enough number to not slow the
         // computation too much down by scheduler overhead while still making
         // use of threaded computing.
         final ExecutorService executor = Executors
                 .newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        // The output formats of a log are written concurrently.
+        final ExecutorService formatExecutor = Executors
+                .newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
         int logsLeftToParse = logsToParse;
         for (final File condensedLog : condensedMafiaLogs) {
@@ -411,39 +626,175 @@ public final class LogsProcessor {
                 @Override
                 public void run() {
 
+                    final List<LogOutputFormat> textualFormats = getTextualFormats(condensedLog,
+                            logFormats);
+                    final EnumSet<LogOutputFormat> outputFormats = EnumSet.noneOf(LogOutputFormat.class);
+                    outputFormats.addAll(textualFormats);
+                    if (logFormats.contains(LogOutputFormat.XML_LOG)) {
+                        outputFormats.add(LogOutputFormat.XML_LOG);
+                    }
+                    if (logFormats.contains(LogOutputFormat.JSON_LOG)) {
+                        outputFormats.add(LogOutputFormat.JSON_LOG);
+                    }
+
+                    CacheFingerprint fingerprint = null;
+                    if (manifest != null) {
+                        try {
+                            fingerprint = CacheFingerprint.of(condensedLog);
+                        } catch (final IOException e) {
+                            // Without a fingerprint, the parsed logs are simply
+                            // written and not recorded.
+                            e.printStackTrace();
+                        }
+                    }
+                    if (skipUpToDateLogs && fingerprint != null) {
+                        for (final Iterator<LogOutputFormat> iter = outputFormats.iterator(); iter
+                                .hasNext();) {
+                            final LogOutputFormat logFormat = iter.next();
+                            if (manifest.isUpToDate(getOutputFileName(condensedLog, logFormat,
+                                    xmlMode),
+                                    fingerprint,
+                                    getOutputVersion(logFormat, xmlMode))) {
+                                iter.remove();
+                            }
+                        }
+                        if (outputFormats.isEmpty()) {
+                            System.out.println("Skipped " + condensedLog.getName()
+                                    + ", its parsed logs are up to date.");
+                            return;
+                        }
+                        textualFormats.retainAll(outputFormats);
+                    }
+
                     final MafiaLogParser parser = new MafiaLogParser(condensedLog,
                             Settings.getBoolean("Include mafia log notes"));
-                    LogOutputFormat format = null;
-                    
+                    final List<Pair<LogOutputFormat, Future<File>>> savedLogs = Lists
+                            .newArrayList(outputFormats.size());
+
                     try {
                         parser.parse();
+                        // Every output format needs the whole summary.
+                        parser.getLogData().getLogSummary().calculateAllSections();
+                        final LogDataHolder logData = parser.getLogData();
+
+                        // XML and JSON logs don't need the render model, so
+                        // they can be written while it is created.
+                        if (outputFormats.contains(LogOutputFormat.XML_LOG)) {
+                            savedLogs.add(Pair.of(LogOutputFormat.XML_LOG,
+                                    formatExecutor.submit(new Callable<File>() {
+                                        @Override
+                                        public File call()
+                                                throws Exception {
+
+                                            if (archive != null) {
+                                                archiveLog(archive, condensedLog, logData, null,
+                                                        LogOutputFormat.XML_LOG, xmlMode);
+                                                return null;
+                                            }
+
+                                            // XML logs are named after the log
+                                            // data, so no placeholder file is
+                                            // needed.
+                                            final File xmlLog = XMLLogCreator.createXMLLog(logData,
+                                                    savingDestDir, xmlMode);
+                                            System.out.println("Wrote " + xmlLog.getAbsolutePath());
+
+                                            return xmlLog;
+                                        }
+                                    })));
+                        }
+                        if (outputFormats.contains(LogOutputFormat.JSON_LOG)) {
+                            savedLogs.add(Pair.of(LogOutputFormat.JSON_LOG,
+                                    formatExecutor.submit(new Callable<File>() {
+                                        @Override
+                                        public File call()
+                                                throws Exception {
+
+                                            if (archive != null) {
+                                                archiveLog(archive, condensedLog, logData, null,
+                                                        LogOutputFormat.JSON_LOG, xmlMode);
+                                                return null;
+                                            }
+
+                                            final File jsonLog = JSONLogCreator.createJSONLog(logData,
+                                                    savingDestDir);
+                                            System.out.println("Wrote " + jsonLog.getAbsolutePath());
+
+                                            return jsonLog;
+                                        }
+                                    })));
+                        }
 
-                        for (LogOutputFormat logFormat : logFormats) {
-                            format = logFormat;
-                            final File newLogFile = createNewLog(condensedLog, savingDestDir, logFormat);
-                            System.out.println("Writing " + newLogFile.getAbsolutePath() + "...");
-                            final LogDataHolder logData = parser.getLogData();
-                            if (logFormat == LogOutputFormat.XML_LOG) {
-                                XMLLogCreator.createXMLLog(logData, savingDestDir);
-                            } else {
-                                TextLogCreator.saveTextualLogToFile(logData, newLogFile, logFormat);
-                            }
+                        // Writing several formats from one render model costs
+                        // little more than writing a single one.
+                        final RenderModel model = textualFormats.size() > 1
+                                ? TextLogCreator.createRenderModel(logData)
+                                : null;
+                        for (final LogOutputFormat logFormat : textualFormats) {
+                            savedLogs.add(Pair.of(logFormat,
+                                    formatExecutor.submit(new Callable<File>() {
+                                        @Override
+                                        public File call()
+                                                throws Exception {
+
+                                            if (archive != null) {
+                                                archiveLog(archive, condensedLog, logData, model,
+                                                        logFormat, xmlMode);
+                                                return null;
+                                            }
+
+                                            final File newLogFile = createNewLog(condensedLog,
+                                                    savingDestDir, logFormat);
+                                            System.out.println("Writing "
+                                                    + newLogFile.getAbsolutePath() + "...");
+                                            if (model != null) {
+                                                TextLogCreator.saveTextualLogToFile(model,
+                                                        newLogFile, logFormat);
+                                            } else {
+                                                TextLogCreator.saveTextualLogToFile(logData,
+                                                        newLogFile, logFormat);
+                                            }
+
+                                            return newLogFile;
+                                        }
+                                    })));
                         }
                     } catch (final Exception e) {
-                        // Add the erroneous log to the error file list.
-                        if (format == null) {
-                            // If here, we haven't started writing parsed logs yet
-                            errorFileList.add(Pair.of(condensedLog.getName(),
-                                    (Encounter) parser.getLogData().getLastTurnSpent()));
-                        } else {
-                            errorFileList.add(Pair.of(parsedLogName(condensedLog.getName(), format),
-                                    (Encounter) parser.getLogData().getLastTurnSpent()));
-                        }
+                        // If here, the log couldn't be parsed or its render
+                        // model couldn't be created.
+                        errorFileList.add(Pair.of(condensedLog.getName(),
+                                (Encounter) parser.getLogData().getLastTurnSpent()));
                         // Print stack trace and the file name of the file in
                         // which the error happened.
                         System.err.println(condensedLog.getName());
                         e.printStackTrace();
                     }
+
+                    for (final Pair<LogOutputFormat, Future<File>> savedLog : savedLogs) {
+                        try {
+                            final File parsedLog = savedLog.getVar2().get();
+                            if (parsedLog != null && fingerprint != null) {
+                                manifest.put(parsedLog,
+                                        fingerprint,
+                                        getOutputVersion(savedLog.getVar1(), xmlMode));
+                            }
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (final ExecutionException e) {
+                            final String parsedLogName = getOutputFileName(condensedLog,
+                                    savedLog.getVar1(),
+                                    xmlMode);
+                            if (manifest != null) {
+                                manifest.remove(parsedLogName);
+                            }
+                            // Add the erroneous log to the error file list.
+                            errorFileList.add(Pair.of(parsedLogName,
+                                    (Encounter) parser.getLogData().getLastTurnSpent()));
+                            System.err.println(condensedLog.getName());
+                            e.getCause().printStackTrace();
+                        }
+                    }
                 }
             });
         }
@@ -455,6 +806,16 @@ public final class LogsProcessor {
         } catch (final InterruptedException e) {
             e.printStackTrace();
         }
+        formatExecutor.shutdown();
+
+        if (manifest != null) {
+            try {
+                manifest.write();
+            } catch (final IOException e) {
+                // All parsed logs will simply be written again next time.
+                e.printStackTrace();
+            }
+        }
 
         // Temporary files should be deleted after use. Possible subdirectories
         // are ignored here.
@@ -470,6 +831,121 @@ public final class LogsProcessor {
         return errorFileList;
     }
 
+    /**
+     * Creates the parsed log of the given format in memory and adds it to the
+     * given archive under the name it would have in a directory. Textual logs
+     * are written from the given render model if there is one.
+     */
+    private static void archiveLog(
+            final ArchiveWriter archive,
+            final File condensedLog,
+            final LogDataHolder logData,
+            final RenderModel model,
+            final LogOutputFormat logFormat,
+            final XMLLogCreator.OutputMode xmlMode)
+            throws Exception {
+
+        final ByteArrayOutputStream parsedLog = new ByteArrayOutputStream(64 * 1024);
+        switch (logFormat) {
+        case XML_LOG:
+            XMLLogCreator.writeXMLLog(logData, parsedLog, xmlMode);
+            break;
+        case JSON_LOG:
+            try (final Writer writer = new OutputStreamWriter(parsedLog, Charset.forName("UTF-8"))) {
+                JSONLogCreator.writeJSONLog(logData, writer);
+            }
+            break;
+        default:
+            // Textual logs use the default charset, just like when they are
+            // saved to files.
+            try (final Writer writer = new OutputStreamWriter(parsedLog)) {
+                if (model != null) {
+                    TextLogCreator.writeTextualLog(model, logFormat, writer);
+                } else {
+                    TextLogCreator.writeTextualLog(logData, logFormat, writer);
+                }
+            }
+            break;
+        }
+
+        final String name = getOutputFileName(condensedLog, logFormat, xmlMode);
+        archive.add(name, parsedLog.toByteArray());
+        System.out.println("Archived " + name);
+    }
+
+    /**
+     * @return The name of the file the given condensed mafia log is saved to in
+     *         the given format.
+     */
+    private static String getOutputFileName(
+            final File condensedLog,
+            final LogOutputFormat logFormat,
+            final XMLLogCreator.OutputMode xmlMode) {
+
+        // XML and JSON logs are named after the log data, whose name is the
+        // one of the condensed mafia log.
+        final String logName = condensedLog.getName().replace(".txt", "");
+        switch (logFormat) {
+        case XML_LOG:
+            return logName + (xmlMode == XMLLogCreator.OutputMode.COMPRESSED
+                    ? XMLLogCreator.COMPRESSED_FILE_EXTENSION
+                    : XMLLogCreator.FILE_EXTENSION);
+        case JSON_LOG:
+            return logName + JSONLogCreator.FILE_EXTENSION;
+        default:
+            return parsedLogName(condensedLog.getName(), logFormat);
+        }
+    }
+
+    /**
+     * @return A description of everything besides the log data which changes
+     *         parsed logs of the given format, see
+     *         {@link OutputManifest#isUpToDate(String, CacheFingerprint, String)}.
+     */
+    private static String getOutputVersion(
+            final LogOutputFormat logFormat,
+            final XMLLogCreator.OutputMode xmlMode) {
+
+        switch (logFormat) {
+        case XML_LOG:
+            return logFormat + ";" + Settings.getString("Version") + ";"
+                    + Settings.getString("XML format version") + ";" + xmlMode;
+        case JSON_LOG:
+            return logFormat + ";" + Settings.getString("Version") + ";"
+                    + JSONLogCreator.FORMAT_VERSION;
+        default:
+            return TextLogCreator.getOutputVersion(logFormat);
+        }
+    }
+
+    /**
+     * Returns the textual formats of the given formats, that is all but
+     * {@link LogOutputFormat#XML_LOG} and {@link LogOutputFormat#JSON_LOG}.
+     * Formats sharing a parsed log file name
+     * would overwrite each other, so only the last one of them is returned.
+     */
+    private static List<LogOutputFormat> getTextualFormats(
+            final File condensedLog,
+            final EnumSet<LogOutputFormat> logFormats) {
+
+        final List<LogOutputFormat> textualFormats = Lists.newArrayList(logFormats.size());
+        for (final LogOutputFormat logFormat : logFormats) {
+            if (logFormat == LogOutputFormat.XML_LOG || logFormat == LogOutputFormat.JSON_LOG) {
+                continue;
+            }
+
+            final String logName = parsedLogName(condensedLog.getName(), logFormat);
+            for (final Iterator<LogOutputFormat> iter = textualFormats.iterator(); iter.hasNext();) {
+                if (parsedLogName(condensedLog.getName(), iter.next()).equals(logName)) {
+                    iter.remove();
+                }
+            }
+            textualFormats.add(logFormat);
+        }
+
+        return textualFormats;
+    }
+
     /**
      * Takes the file name of a condensed mafia log and changes it into the proper
      * format for parsed ascension logs.
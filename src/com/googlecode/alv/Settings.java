@@ -67,6 +67,9 @@ import com.googlecode.alv.util.Constants;
  * parsed, otherwise FALSE.</li>
  * <li>{@code "Show non-ASCII characters in parsed logs"}: TRUE if non-ASCII
  * characters are to be at all included in parsed logs, otherwise FALSE.</li>
+ * <li>{@code "Warm log cache"}: TRUE if the logs cache is brought up to date
+ * with the mafia logs location in the background at program startup,
+ * otherwise FALSE.</li>
  * <li>{@code "First program startup"}: TRUE if this is the very first startup
  * of the ALV on this machine, even spanning different versions, otherwise
  * FALSE.</li></ul>
@@ -118,6 +121,7 @@ public final class Settings
         DEFAULT_SETTINGS.setProperty("Using old ascension counting", FALSE_STRING);
         DEFAULT_SETTINGS.setProperty("Include mafia log notes", TRUE_STRING);
         DEFAULT_SETTINGS.setProperty("Show non-ASCII characters in parsed logs", TRUE_STRING);
+        DEFAULT_SETTINGS.setProperty("Warm log cache", TRUE_STRING);
 
         DEFAULT_SETTINGS.setProperty("First program startup", TRUE_STRING);
         DEFAULT_SETTINGS.setProperty("Debug", FALSE_STRING);
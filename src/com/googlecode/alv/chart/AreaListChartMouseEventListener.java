@@ -55,9 +55,10 @@ final class AreaListChartMouseEventListener implements ChartMouseListener {
             final String areaName = (String) entity.getColumnKey();
 
             final StringBuilder str = new StringBuilder(100);
-            for (final TurnInterval ti : logData.getTurnIntervalsSpent())
-                if (ti.getAreaName().equals(areaName))
-                    str.append(ti + "\n");
+            for (final TurnInterval ti : logData.getLogSummary()
+                                                .getAreaTurncounts()
+                                                .getTurnIntervals(areaName))
+                str.append(ti + "\n");
 
             final JScrollPane text = new JScrollPane(new JTextArea(str.toString()));
             text.setPreferredSize(new Dimension(450, 200));
@@ -24,8 +24,6 @@
 
 package com.googlecode.alv.creator;
 
-import java.util.Collections;
-
 import com.googlecode.alv.logdata.LogDataHolder;
 
 /**
@@ -64,7 +62,7 @@ public class BBCodeLogCreator extends TextLogCreator {
     @Override
     protected void setAugmentationsMap()
     {
-        logAdditionsMap = Collections.unmodifiableMap(readAugmentationsList("bbcodeAugmentations.txt"));
+        logAdditionsMap = getAugmentationsMap("bbcodeAugmentations.txt");
     }
     
     
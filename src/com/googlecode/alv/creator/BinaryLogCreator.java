@@ -0,0 +1,379 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.creator;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+import com.googlecode.alv.creator.util.FileAccessException;
+import com.googlecode.alv.logdata.*;
+import com.googlecode.alv.logdata.consumables.Consumable;
+import com.googlecode.alv.logdata.summary.LevelData;
+import com.googlecode.alv.logdata.turn.Encounter;
+import com.googlecode.alv.logdata.turn.SingleTurn;
+import com.googlecode.alv.logdata.turn.TurnInterval;
+import com.googlecode.alv.logdata.turn.action.*;
+import com.googlecode.alv.util.CacheFingerprint;
+import com.googlecode.alv.util.DataNumberPair;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.Maps;
+import com.googlecode.alv.util.VarInts;
+
+/**
+ * This class gives access to methods to create compact binary data files from
+ * detailed log data. These files are meant to be used by the logs cache (see
+ * {@link com.googlecode.alv.util.LogsCache}), the Ascension Log XML format
+ * stays the format of choice for exporting logs.
+ * <p>
+ * A binary log file starts with the {@link #MAGIC_NUMBER}, the
+ * {@link #FORMAT_VERSION} and the {@link CacheFingerprint} of the log, followed
+ * by a table of all strings used in the log.
+ * The log data itself holds the same data as the Ascension Log XML format, with
+ * all numbers stored as variable-length integers (see {@link VarInts}) and all
+ * strings as indices into the string table. Files in this format can be read
+ * with {@link com.googlecode.alv.creator.util.BinaryLogReader}.
+ * <p>
+ * All methods in this class throw a {@link NullPointerException} if a null
+ * object reference is passed in any parameter.
+ */
+public final class BinaryLogCreator {
+    /**
+     * The first four bytes of every binary log file, reading {@code ALVC}.
+     */
+    public static final int MAGIC_NUMBER = 0x414C5643;
+
+    /**
+     * The version of the binary log format. It has to be increased every time
+     * the layout of the format changes.
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    /**
+     * The file extension of binary log files.
+     */
+    public static final String FILE_EXTENSION = ".alvc";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Creates a binary log file containing the data of the given log data in
+     * the given directory.
+     * <p>
+     * The file is first written under a temporary name and then renamed, so
+     * that a partly written file is never visible under the final name.
+     * 
+     * @param logData
+     *            The log which should be turned into a binary log file.
+     * @param saveDst
+     *            The directory in which the log should be saved in. Note that
+     *            the filename will be created from the given log.
+     * @param fingerprint
+     *            The fingerprint of the source of the given log, which is
+     *            stored in the header of the file.
+     * @return The created file.
+     * @throws IllegalArgumentException
+     *             if the given log is not a detailed log (see
+     *             {@link LogDataHolder#isDetailedLog()}); if the given file
+     *             isn't a directory
+     * @throws FileAccessException If the file cannot be accessed, such as by
+     *      permission violation
+     */
+    public static File createBinaryLog(
+                                       final LogDataHolder logData, final File saveDst,
+                                       final CacheFingerprint fingerprint)
+                                                                          throws FileAccessException {
+        if (logData == null)
+            throw new NullPointerException("The log data must not be null.");
+        if (saveDst == null)
+            throw new NullPointerException("The save destination must not be null.");
+        if (fingerprint == null)
+            throw new NullPointerException("The fingerprint must not be null.");
+        if (!logData.isDetailedLog())
+            throw new IllegalArgumentException("Only detailed logs can be turned into binary logs.");
+        if (!saveDst.isDirectory())
+            throw new IllegalArgumentException("Incorrect saving destination, needs to be a directory.");
+
+        final File destination = new File(saveDst, logData.getLogName() + FILE_EXTENSION);
+        final File temporary = new File(saveDst, logData.getLogName() + FILE_EXTENSION + ".tmp");
+
+        final BinaryLogCreator logCreator = new BinaryLogCreator(logData, fingerprint);
+        try {
+            logCreator.createLog();
+
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+            try {
+                logCreator.writeTo(out);
+            } finally {
+                out.close();
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            temporary.delete();
+            throw new FileAccessException("Binary log file could not be written.");
+        }
+
+        if (destination.exists() && !destination.delete() || !temporary.renameTo(destination)) {
+            temporary.delete();
+            throw new FileAccessException("Binary log file could not be moved to its destination.");
+        }
+
+        return destination;
+    }
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+
+    private final Map<String, Integer> stringIndices = Maps.newHashMap(1000);
+
+    private final List<String> strings = Lists.newArrayList(1000);
+
+    private final LogDataHolder logData;
+
+    private final CacheFingerprint fingerprint;
+
+    private BinaryLogCreator(
+                             final LogDataHolder logData, final CacheFingerprint fingerprint) {
+        if (logData == null)
+            throw new NullPointerException("The log data must not be null.");
+        if (fingerprint == null)
+            throw new NullPointerException("The fingerprint must not be null.");
+
+        this.logData = logData;
+        this.fingerprint = fingerprint;
+    }
+
+    private void writeTo(
+                         final DataOutputStream out)
+                                                    throws IOException {
+        out.writeInt(MAGIC_NUMBER);
+        VarInts.writeUnsigned(out, FORMAT_VERSION);
+
+        writeRawString(out, fingerprint.getSourceHash());
+        out.writeLong(fingerprint.getSourceSize());
+        writeRawString(out, fingerprint.getParserVersion());
+        writeRawString(out, fingerprint.getDataTablesVersion());
+
+        VarInts.writeUnsigned(out, strings.size());
+        for (final String s : strings)
+            writeRawString(out, s);
+
+        body.writeTo(out);
+    }
+
+    private static void writeRawString(
+                                       final DataOutputStream out, final String s)
+                                                                                  throws IOException {
+        final byte[] bytes = s.getBytes(UTF8);
+        VarInts.writeUnsigned(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private void createLog()
+                            throws IOException {
+        final int delimiterIndex = logData.getLogName().lastIndexOf("-");
+
+        writeString(logData.getLogName().substring(0, delimiterIndex));
+        writeString(logData.getLogName().substring(delimiterIndex + 1));
+        writeString(logData.getCharacterClass().toString());
+        writeString(logData.getGameMode().toString());
+        writeString(logData.getAscensionPath().toString());
+
+        createTurnRundown();
+        createSummaries();
+    }
+
+    private void createTurnRundown()
+                                    throws IOException {
+        final List<TurnInterval> intervals = logData.getTurnIntervalsSpent();
+
+        writeUnsigned(intervals.size());
+        for (final TurnInterval ti : intervals) {
+            writeString(ti.getAreaName());
+
+            int encounterCount = 0;
+            for (final SingleTurn st : ti.getTurns())
+                encounterCount += st.getEncounters().size();
+
+            writeUnsigned(encounterCount);
+            for (final SingleTurn st : ti.getTurns())
+                for (final Encounter e : st.getEncounters())
+                    writeEncounter(e);
+
+            writeString(ti.getPreIntervalComment().getComments());
+            writeString(ti.getPostIntervalComment().getComments());
+        }
+    }
+
+    // Encounter notes aren't stored, because they aren't used when logs are read
+    // back in, see the Ascension Log XML reader.
+    private void writeEncounter(
+                                final Encounter e)
+                                                  throws IOException {
+        writeSigned(e.getTurnNumber());
+        writeString(e.getTurnVersion().toString());
+        writeString(e.getAreaName());
+        writeString(e.getEncounterName());
+        writeSigned(e.getDayNumber());
+        writeString(e.getUsedFamiliar().getFamiliarName());
+
+        final EquipmentChange equipment = e.getUsedEquipment();
+        writeString(equipment.getHat());
+        writeString(equipment.getWeapon());
+        writeString(equipment.getOffhand());
+        writeString(equipment.getShirt());
+        writeString(equipment.getPants());
+        writeString(equipment.getAcc1());
+        writeString(equipment.getAcc2());
+        writeString(equipment.getAcc3());
+        writeString(equipment.getFamEquip());
+
+        writeStatgain(e.getStatGain());
+        writeSigned(e.getMeat().encounterMeatGain);
+        writeSigned(e.getMeat().otherMeatGain);
+        writeSigned(e.getMeat().meatSpent);
+        writeSigned(e.getMPGain().encounterMPGain);
+        writeSigned(e.getMPGain().starfishMPGain);
+        writeSigned(e.getMPGain().restingMPGain);
+        writeSigned(e.getMPGain().outOfEncounterMPGain);
+        writeSigned(e.getMPGain().consumableMPGain);
+        writeUnsigned(e.isDisintegrated() ? 1 : 0);
+        writeSigned(e.getFreeRunaways());
+
+        writeUnsigned(e.getDroppedItems().size());
+        for (final Item i : e.getDroppedItems()) {
+            writeString(i.getName());
+            writeSigned(i.getAmount());
+        }
+
+        writeUnsigned(e.getSkillsCast().size());
+        for (final Skill s : e.getSkillsCast()) {
+            writeString(s.getName());
+            writeSigned(s.getAmount());
+            writeSigned(s.getMpCost());
+        }
+
+        writeUnsigned(e.getConsumablesUsed().size());
+        for (final Consumable c : e.getConsumablesUsed()) {
+            writeString(c.getName());
+            writeSigned(c.getAmount());
+            writeString(c.getConsumableVersion().toString());
+            writeSigned(c.getAdventureGain());
+            writeStatgain(c.getStatGain());
+            writeSigned(c.getDayNumberOfUsage());
+        }
+    }
+
+    private void createSummaries()
+                                  throws IOException {
+        writeUnsigned(logData.getDayChanges().size());
+        for (final DayChange dc : logData.getDayChanges()) {
+            final HeaderFooterComment hfc = logData.getHeaderFooterComment(dc);
+
+            writeSigned(dc.getDayNumber());
+            writeSigned(dc.getTurnNumber());
+            writeString(hfc.getHeaderComments());
+            writeString(hfc.getFooterComments());
+        }
+
+        writeUnsigned(logData.getLevels().size());
+        for (final LevelData ld : logData.getLevels()) {
+            writeSigned(ld.getLevelNumber());
+            writeSigned(ld.getLevelReachedOnTurn());
+            writeSigned(ld.getCombatTurns());
+            writeSigned(ld.getNoncombatTurns());
+            writeSigned(ld.getOtherTurns());
+            writeStatgain(ld.getStatsAtLevelReached());
+
+            final long statGainPerTurn = Double.doubleToLongBits(ld.getStatGainPerTurn());
+            for (int shift = 56; shift >= 0; shift -= 8)
+                body.write((int) (statGainPerTurn >>> shift));
+        }
+
+        writeUnsigned(logData.getPlayerSnapshots().size());
+        for (final PlayerSnapshot ps : logData.getPlayerSnapshots()) {
+            writeSigned(ps.getTurnNumber());
+            writeSigned(ps.getMuscleStats());
+            writeSigned(ps.getMystStats());
+            writeSigned(ps.getMoxieStats());
+            writeSigned(ps.getAdventuresLeft());
+            writeSigned(ps.getCurrentMeat());
+        }
+
+        writeUnsigned(logData.getPulls().size());
+        for (final Pull p : logData.getPulls()) {
+            writeSigned(p.getDayNumber());
+            writeSigned(p.getTurnNumber());
+            writeString(p.getItemName());
+            writeSigned(p.getAmount());
+        }
+
+        writeCombats(logData.getHuntedCombats());
+        writeCombats(logData.getLostCombats());
+    }
+
+    private void writeCombats(
+                              final List<DataNumberPair<String>> combats)
+                                                                         throws IOException {
+        writeUnsigned(combats.size());
+        for (final DataNumberPair<String> dnp : combats) {
+            writeString(dnp.getData());
+            writeSigned(dnp.getNumber());
+        }
+    }
+
+    private void writeStatgain(
+                               final Statgain stats)
+                                                    throws IOException {
+        writeSigned(stats.mus);
+        writeSigned(stats.myst);
+        writeSigned(stats.mox);
+    }
+
+    private void writeString(
+                             final String s)
+                                            throws IOException {
+        Integer index = stringIndices.get(s);
+        if (index == null) {
+            index = strings.size();
+            strings.add(s);
+            stringIndices.put(s, index);
+        }
+
+        VarInts.writeUnsigned(body, index);
+    }
+
+    private void writeSigned(
+                             final int value)
+                                             throws IOException {
+        VarInts.writeSigned(body, value);
+    }
+
+    private void writeUnsigned(
+                               final int value)
+                                               throws IOException {
+        VarInts.writeUnsigned(body, value);
+    }
+}
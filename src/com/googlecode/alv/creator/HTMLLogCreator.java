@@ -24,8 +24,6 @@
 
 package com.googlecode.alv.creator;
 
-import java.util.Collections;
-
 import com.googlecode.alv.logdata.LogDataHolder;
 import com.googlecode.alv.logdata.Skill;
 import com.googlecode.alv.logdata.turn.action.DayChange;
@@ -55,7 +53,7 @@ public class HTMLLogCreator extends TextLogCreator {
     @Override
     protected void setAugmentationsMap()
     {
-        logAdditionsMap = Collections.unmodifiableMap(readAugmentationsList("htmlAugmentations.txt"));
+        logAdditionsMap = getAugmentationsMap("htmlAugmentations.txt");
     }
     
     /**
@@ -0,0 +1,570 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.creator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+
+import com.googlecode.alv.Settings;
+import com.googlecode.alv.logdata.HeaderFooterComment;
+import com.googlecode.alv.logdata.Item;
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.logdata.MPGain;
+import com.googlecode.alv.logdata.MeatGain;
+import com.googlecode.alv.logdata.Skill;
+import com.googlecode.alv.logdata.Statgain;
+import com.googlecode.alv.logdata.consumables.Consumable;
+import com.googlecode.alv.logdata.summary.LevelData;
+import com.googlecode.alv.logdata.summary.LogSummaryData;
+import com.googlecode.alv.logdata.turn.Encounter;
+import com.googlecode.alv.logdata.turn.SingleTurn;
+import com.googlecode.alv.logdata.turn.TurnInterval;
+import com.googlecode.alv.logdata.turn.action.DayChange;
+import com.googlecode.alv.logdata.turn.action.EquipmentChange;
+import com.googlecode.alv.logdata.turn.action.FamiliarChange;
+import com.googlecode.alv.logdata.turn.action.PlayerSnapshot;
+import com.googlecode.alv.logdata.turn.action.Pull;
+import com.googlecode.alv.util.DataNumberPair;
+import com.googlecode.alv.util.JSONStrings;
+import com.googlecode.alv.util.data.DataTablesHandler;
+
+/**
+ * This class gives access to methods to write detailed log data as JSON Lines,
+ * that is one JSON object per line.
+ * <p>
+ * Every object has a {@code "type"} member. The first line is the
+ * {@code "ascension"} object, followed by an {@code "interval"} object per
+ * turn interval and a {@code "turn"} object per turn of the interval. Turns
+ * with more than one encounter list all of them in an {@code "encounters"}
+ * array. The summaries come last, with one object per day change, familiar
+ * change, level, equipment change, player snapshot, pull, hunted and lost
+ * combat, and a closing {@code "totals"} object.
+ * <p>
+ * The objects are written as soon as they are created, so even the logs of
+ * very long ascensions never have to be held in memory as a whole.
+ * <p>
+ * All methods in this class throw a {@link NullPointerException} if a null
+ * object reference is passed in any parameter.
+ */
+public final class JSONLogCreator {
+    /**
+     * The file extension of ascension log JSON Lines files.
+     */
+    public static final String FILE_EXTENSION = ".jsonl";
+
+    /**
+     * The version of the layout of the JSON objects. It is part of the
+     * {@code "ascension"} object and has to be raised whenever members are
+     * renamed or removed.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private final Writer out;
+
+    private final LogDataHolder logData;
+
+    // Whether the next member or array element is the first one of its
+    // object or array and thus doesn't need a separating comma.
+    private boolean isFirst = true;
+
+    private JSONLogCreator(
+            final Writer out, final LogDataHolder logData) {
+
+        this.out = out;
+        this.logData = logData;
+    }
+
+    /**
+     * Creates a JSON Lines file containing the data of the given log data in
+     * the given directory.
+     *
+     * @param logData The log which should be turned into a JSON Lines file.
+     * @param saveDst The directory in which the log should be saved in. Note
+     *                that the filename will be created from the given log.
+     * @return The created file.
+     * @throws IllegalArgumentException if the given log is not a detailed log
+     *                                  (see {@link LogDataHolder#isDetailedLog()});
+     *                                  if the given file isn't a directory
+     * @throws IOException              if the file could not be written
+     */
+    public static File createJSONLog(
+            final LogDataHolder logData, final File saveDst)
+            throws IOException {
+
+        if (logData == null) {
+            throw new NullPointerException("The log data must not be null.");
+        }
+        if (saveDst == null) {
+            throw new NullPointerException("The save destination must not be null.");
+        }
+        if (!saveDst.isDirectory()) {
+            throw new IllegalArgumentException("Incorrect saving destination, needs to be a directory.");
+        }
+
+        final File jsonLog = new File(saveDst, logData.getLogName() + FILE_EXTENSION);
+        try (final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(jsonLog),
+                Charset.forName("UTF-8")),
+                64 * 1024)) {
+            writeJSONLog(logData, out);
+        }
+
+        return jsonLog;
+    }
+
+    /**
+     * Writes the data of the given log data as JSON Lines to the given writer.
+     * The writer is flushed, but not closed.
+     *
+     * @param logData The log which should be written.
+     * @param out     The writer to write the JSON Lines to.
+     * @throws IllegalArgumentException if the given log is not a detailed log
+     *                                  (see {@link LogDataHolder#isDetailedLog()})
+     * @throws IOException              if the writer couldn't be written to
+     */
+    public static void writeJSONLog(
+            final LogDataHolder logData, final Writer out)
+            throws IOException {
+
+        if (logData == null) {
+            throw new NullPointerException("The log data must not be null.");
+        }
+        if (out == null) {
+            throw new NullPointerException("The writer must not be null.");
+        }
+        if (!logData.isDetailedLog()) {
+            throw new IllegalArgumentException("Only detailed logs can be turned into JSON.");
+        }
+
+        final JSONLogCreator logCreator = new JSONLogCreator(out, logData);
+        logCreator.writeAscension();
+        logCreator.writeTurnRundown();
+        logCreator.writeSummaries();
+        out.flush();
+    }
+
+    /**
+     * @param logData The log which should be turned into JSON Lines.
+     * @return The data of the given log data as JSON Lines.
+     * @throws IllegalArgumentException if the given log is not a detailed log
+     *                                  (see {@link LogDataHolder#isDetailedLog()})
+     */
+    public static String getJSONLog(
+            final LogDataHolder logData) {
+
+        final StringWriter out = new StringWriter(50000);
+        try {
+            writeJSONLog(logData, out);
+        } catch (final IOException e) {
+            // A StringWriter never throws IOExceptions.
+            throw new IllegalStateException(e);
+        }
+
+        return out.toString();
+    }
+
+    private void writeAscension()
+            throws IOException {
+
+        final int delimiterIndex = logData.getLogName().lastIndexOf("-");
+
+        beginLine("ascension");
+        member("formatVersion", FORMAT_VERSION);
+        member("program", "Ascension Log Visualizer");
+        member("programVersion", Settings.getString("Version"));
+        member("characterName", logData.getLogName().substring(0, delimiterIndex));
+        member("characterClass", logData.getCharacterClass().toString());
+        member("gameMode", logData.getGameMode().toString());
+        member("ascensionPath", logData.getAscensionPath().toString());
+        member("startDate", logData.getLogName().substring(delimiterIndex + 1));
+        member("startTurn", logData.getTurnsSpent().get(0).getTurnNumber());
+        member("endTurn", logData.getLastTurnSpent().getTurnNumber());
+        endLine();
+    }
+
+    private void writeTurnRundown()
+            throws IOException {
+
+        for (final TurnInterval ti : logData.getTurnIntervalsSpent()) {
+            beginLine("interval");
+            member("startTurn", ti.getEndTurn() > 0 ? ti.getStartTurn() + 1 : 0);
+            member("endTurn", ti.getEndTurn());
+            member("area", ti.getAreaName());
+            member("attemptedFreeRunaways", ti.getRunawayAttempts().getNumberOfAttemptedRunaways());
+            member("successfulFreeRunaways", ti.getRunawayAttempts().getNumberOfSuccessfulRunaways());
+            member("preNotes", ti.getPreIntervalComment().getComments());
+            member("postNotes", ti.getPostIntervalComment().getComments());
+            endLine();
+
+            for (final SingleTurn st : ti.getTurns()) {
+                beginLine("turn");
+                writeEncounterMembers(st);
+
+                // The turn itself holds the data of all its encounters, so
+                // they are only listed separately if there is more than one.
+                final Collection<Encounter> encounters = st.getEncounters();
+                if (encounters.size() > 1) {
+                    name("encounters");
+                    beginArray();
+                    for (final Encounter e : encounters) {
+                        beginObject();
+                        writeEncounterMembers(e);
+                        endObject();
+                    }
+                    endArray();
+                }
+                endLine();
+            }
+        }
+    }
+
+    private void writeEncounterMembers(
+            final Encounter e)
+            throws IOException {
+
+        member("turn", e.getTurnNumber());
+        member("day", e.getDayNumber());
+        member("version", e.getTurnVersion().toString());
+        member("area", e.getAreaName());
+        member("encounter", e.getEncounterName());
+        member("familiar", e.getUsedFamiliar().getFamiliarName());
+        name("equipment");
+        writeEquipment(e.getUsedEquipment());
+        name("statGain");
+        writeStatgain(e.getStatGain());
+
+        final MeatGain meat = e.getMeat();
+        name("meat");
+        beginObject();
+        member("encounter", meat.encounterMeatGain);
+        member("other", meat.otherMeatGain);
+        member("spent", meat.meatSpent);
+        endObject();
+
+        final MPGain mp = e.getMPGain();
+        name("mp");
+        beginObject();
+        member("encounter", mp.encounterMPGain);
+        member("starfish", mp.starfishMPGain);
+        member("resting", mp.restingMPGain);
+        member("outOfEncounter", mp.outOfEncounterMPGain);
+        member("consumable", mp.consumableMPGain);
+        endObject();
+
+        member("freeRunaways", e.getFreeRunaways());
+        member("disintegrated", e.isDisintegrated());
+        member("banished", e.isBanished());
+        member("notes", e.getNotes());
+
+        name("drops");
+        beginArray();
+        for (final Item i : e.getDroppedItems()) {
+            beginObject();
+            member("name", i.getName());
+            member("amount", i.getAmount());
+            endObject();
+        }
+        endArray();
+
+        name("casts");
+        beginArray();
+        for (final Skill s : e.getSkillsCast()) {
+            beginObject();
+            member("name", s.getName());
+            member("amount", s.getAmount());
+            member("mpCost", s.getMpCost());
+            endObject();
+        }
+        endArray();
+
+        name("consumables");
+        beginArray();
+        for (final Consumable c : e.getConsumablesUsed()) {
+            final int organHit;
+            switch (c.getConsumableVersion()) {
+            case FOOD:
+                organHit = DataTablesHandler.HANDLER.getFullnessHit(c.getName());
+                break;
+            case BOOZE:
+                organHit = DataTablesHandler.HANDLER.getDrunkennessHit(c.getName());
+                break;
+            case SPLEEN:
+                organHit = DataTablesHandler.HANDLER.getSpleenHit(c.getName());
+                break;
+            default:
+                organHit = 0;
+            }
+
+            beginObject();
+            member("name", c.getName());
+            member("amount", c.getAmount());
+            member("version", c.getConsumableVersion().toString());
+            member("adventureGain", c.getAdventureGain());
+            name("statGain");
+            writeStatgain(c.getStatGain());
+            member("organHit", organHit);
+            member("day", c.getDayNumberOfUsage());
+            endObject();
+        }
+        endArray();
+    }
+
+    private void writeSummaries()
+            throws IOException {
+
+        for (final DayChange dc : logData.getDayChanges()) {
+            final HeaderFooterComment hfc = logData.getHeaderFooterComment(dc);
+
+            beginLine("dayChange");
+            member("day", dc.getDayNumber());
+            member("turn", dc.getTurnNumber());
+            member("headerNotes", hfc.getHeaderComments());
+            member("footerNotes", hfc.getFooterComments());
+            endLine();
+        }
+
+        for (final FamiliarChange fc : logData.getFamiliarChanges()) {
+            beginLine("familiarChange");
+            member("turn", fc.getTurnNumber());
+            member("familiar", fc.getFamiliarName());
+            endLine();
+        }
+
+        for (final LevelData ld : logData.getLevels()) {
+            beginLine("level");
+            member("level", ld.getLevelNumber());
+            member("turn", ld.getLevelReachedOnTurn());
+            member("combatTurns", ld.getCombatTurns());
+            member("noncombatTurns", ld.getNoncombatTurns());
+            member("otherTurns", ld.getOtherTurns());
+            name("statsWhenReached");
+            writeStatgain(ld.getStatsAtLevelReached());
+            member("mainstatGainPerTurn", ld.getStatGainPerTurn());
+            endLine();
+        }
+
+        for (final EquipmentChange ec : logData.getEquipmentChanges()) {
+            beginLine("equipmentChange");
+            member("turn", ec.getTurnNumber());
+            name("equipment");
+            writeEquipment(ec);
+            endLine();
+        }
+
+        for (final PlayerSnapshot ps : logData.getPlayerSnapshots()) {
+            beginLine("playerSnapshot");
+            member("turn", ps.getTurnNumber());
+            name("stats");
+            writeStatgain(new Statgain(ps.getMuscleStats(), ps.getMystStats(), ps.getMoxieStats()));
+            member("adventuresLeft", ps.getAdventuresLeft());
+            member("currentMeat", ps.getCurrentMeat());
+            endLine();
+        }
+
+        for (final Pull p : logData.getPulls()) {
+            beginLine("pull");
+            member("day", p.getDayNumber());
+            member("turn", p.getTurnNumber());
+            member("name", p.getItemName());
+            member("amount", p.getAmount());
+            endLine();
+        }
+
+        for (final DataNumberPair<String> dnp : logData.getHuntedCombats()) {
+            beginLine("huntedCombat");
+            member("turn", dnp.getNumber());
+            member("name", dnp.getData());
+            endLine();
+        }
+
+        for (final DataNumberPair<String> dnp : logData.getLostCombats()) {
+            beginLine("lostCombat");
+            member("turn", dnp.getNumber());
+            member("name", dnp.getData());
+            endLine();
+        }
+
+        final LogSummaryData summary = logData.getLogSummary();
+        beginLine("totals");
+        member("combatTurns", summary.getTotalTurnsCombat());
+        member("noncombatTurns", summary.getTotalTurnsNoncombat());
+        member("otherTurns", summary.getTotalTurnsOther());
+        member("meatGained", summary.getTotalMeatGain());
+        member("meatSpent", summary.getTotalMeatSpent());
+        member("mpUsed", summary.getTotalMPUsed());
+        member("turnsFromFood", summary.getTotalTurnsFromFood());
+        member("turnsFromBooze", summary.getTotalTurnsFromBooze());
+        member("turnsFromOther", summary.getTotalTurnsFromOther());
+        member("turnsFromRollover", summary.getTotalTurnsFromRollover());
+        endLine();
+    }
+
+    private void writeEquipment(
+            final EquipmentChange equipment)
+            throws IOException {
+
+        beginObject();
+        member("hat", equipment.getHat());
+        member("weapon", equipment.getWeapon());
+        member("offhand", equipment.getOffhand());
+        member("shirt", equipment.getShirt());
+        member("pants", equipment.getPants());
+        member("acc1", equipment.getAcc1());
+        member("acc2", equipment.getAcc2());
+        member("acc3", equipment.getAcc3());
+        member("famEquip", equipment.getFamEquip());
+        endObject();
+    }
+
+    private void writeStatgain(
+            final Statgain stats)
+            throws IOException {
+
+        beginObject();
+        member("muscle", stats.mus);
+        member("myst", stats.myst);
+        member("moxie", stats.mox);
+        endObject();
+    }
+
+    private void beginLine(
+            final String type)
+            throws IOException {
+
+        isFirst = true;
+        beginObject();
+        member("type", type);
+    }
+
+    private void endLine()
+            throws IOException {
+
+        endObject();
+        out.write('\n');
+    }
+
+    private void beginObject()
+            throws IOException {
+
+        separate();
+        out.write('{');
+        isFirst = true;
+    }
+
+    private void endObject()
+            throws IOException {
+
+        out.write('}');
+        isFirst = false;
+    }
+
+    private void beginArray()
+            throws IOException {
+
+        separate();
+        out.write('[');
+        isFirst = true;
+    }
+
+    private void endArray()
+            throws IOException {
+
+        out.write(']');
+        isFirst = false;
+    }
+
+    private void separate()
+            throws IOException {
+
+        if (!isFirst) {
+            out.write(',');
+        }
+        isFirst = false;
+    }
+
+    /**
+     * Writes the name of the next member, whose value has to be written right
+     * afterwards.
+     */
+    private void name(
+            final String name)
+            throws IOException {
+
+        separate();
+        writeString(name);
+        out.write(':');
+        isFirst = true;
+    }
+
+    private void member(
+            final String name, final String value)
+            throws IOException {
+
+        name(name);
+        isFirst = false;
+        writeString(value);
+    }
+
+    private void member(
+            final String name, final int value)
+            throws IOException {
+
+        name(name);
+        isFirst = false;
+        out.write(Integer.toString(value));
+    }
+
+    private void member(
+            final String name, final double value)
+            throws IOException {
+
+        name(name);
+        isFirst = false;
+        // JSON has no representation of NaN and the infinities.
+        out.write(Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value));
+    }
+
+    private void member(
+            final String name, final boolean value)
+            throws IOException {
+
+        name(name);
+        isFirst = false;
+        out.write(value ? "true" : "false");
+    }
+
+    private void writeString(
+            final String s)
+            throws IOException {
+
+        JSONStrings.write(out, s);
+    }
+}
@@ -0,0 +1,153 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.creator;
+
+import java.util.List;
+
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.util.Lists;
+
+/**
+ * A format-neutral rendering of a parsed ascension log, see
+ * {@link TextLogCreator#createRenderModel(LogDataHolder)}.
+ * <p>
+ * The model holds the text of the log together with the places where the
+ * output formats differ from each other, like section headers, tables, line
+ * breaks and augmentations. Going through the turn rundown and the log
+ * summaries, which is the expensive part of creating a parsed log, thus only
+ * happens once, no matter how many formats are written from the model.
+ * <p>
+ * Once created, a model is read-only and can be written in several formats
+ * at the same time.
+ */
+public final class RenderModel {
+    /**
+     * The kinds of elements of a model. Every kind except {@link #TEXT} stands
+     * for the {@link TextLogCreator} method of the same name, which the output
+     * formats override.
+     */
+    enum Element {
+        TEXT,
+        AUGMENTATION,
+        BEGIN_TEXT_LOG,
+        END_TEXT_LOG,
+        TITLE,
+        TABLE_OF_CONTENTS,
+        SECTION_HEADER,
+        DAY_CHANGE,
+        CASTS_SECTION,
+        END_LINE,
+        LINE_BREAK,
+        PARAGRAPH_START,
+        PARAGRAPH_END,
+        TABLE_START,
+        TABLE_ROW,
+        TABLE_END;
+    }
+
+    private final LogDataHolder logData;
+
+    private final int ascensionStartDate;
+
+    private final List<Element> elements = Lists.newArrayList(5000);
+
+    private final List<Object> arguments = Lists.newArrayList(5000);
+
+    // Consecutive text is merged into a single element.
+    private final StringBuilder text = new StringBuilder(500);
+
+    RenderModel(
+            final LogDataHolder logData, final int ascensionStartDate) {
+
+        this.logData = logData;
+        this.ascensionStartDate = ascensionStartDate;
+    }
+
+    void addText(
+            final String s) {
+
+        text.append(s);
+    }
+
+    void add(
+            final Element element) {
+
+        add(element, null);
+    }
+
+    void add(
+            final Element element, final Object argument) {
+
+        addPendingText();
+        elements.add(element);
+        arguments.add(argument);
+    }
+
+    /**
+     * Adds the text written since the last element as an element of its own.
+     * Has to be called once the model is complete.
+     */
+    void addPendingText() {
+
+        if (text.length() > 0) {
+            elements.add(Element.TEXT);
+            arguments.add(text.toString());
+            text.setLength(0);
+        }
+    }
+
+    int size() {
+
+        return elements.size();
+    }
+
+    Element getElement(
+            final int index) {
+
+        return elements.get(index);
+    }
+
+    Object getArgument(
+            final int index) {
+
+        return arguments.get(index);
+    }
+
+    /**
+     * @return The log data from which this model was created.
+     */
+    public LogDataHolder getLogData() {
+
+        return logData;
+    }
+
+    /**
+     * @return The real-time start date of the ascension as saved by KolMafia.
+     */
+    public int getAscensionStartDate() {
+
+        return ascensionStartDate;
+    }
+}
@@ -32,6 +32,8 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -42,10 +44,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import com.googlecode.alv.Settings;
+import com.googlecode.alv.creator.util.NonAsciiFilterWriter;
 import com.googlecode.alv.creator.util.SpookyravenPowerleveling;
 import com.googlecode.alv.creator.util.StatgiverItem;
 import com.googlecode.alv.logdata.CombatItem;
@@ -152,6 +154,8 @@ public class TextLogCreator {
 
     protected static final String KA_EARNED_DAILY = "Ka earned today: ";
 
+    private static final Map<String, Augmentations> AUGMENTATIONS_CACHE = Maps.newHashMap();
+
     /**
      * Creates a parsed ascension log from the given {@link LogDataHolder} and
      * returns it as a String.
@@ -168,13 +172,7 @@ public class TextLogCreator {
             final LogDataHolder logData,
             final LogOutputFormat format) {
 
-        // Sometimes, geek jokes are fun! ;)
-        int logDate = 404;
-        if (UsefulPatterns.USUAL_FORMAT_LOG_NAME.matcher(logData.getLogName()).matches()) {
-            logDate = UsefulPatterns.getLogDate(logData.getLogName());
-        }
-
-        return getTextualLog(logData, format, logDate);
+        return getTextualLog(logData, format, getAscensionStartDate(logData));
     }
 
     /**
@@ -196,22 +194,202 @@ public class TextLogCreator {
             final LogOutputFormat format,
             final int ascensionStartDate) {
 
+        // Most logs stay below 50000 characters.
+        final StringWriter logOutput = new StringWriter(50000);
+        try {
+            writeTextualLog(logData, format, ascensionStartDate, logOutput);
+        } catch (final IOException e) {
+            // A StringWriter doesn't throw IOExceptions.
+            throw new IllegalStateException(e);
+        }
+
+        return logOutput.toString();
+    }
+
+    /**
+     * Creates a parsed ascension log from the given {@link LogDataHolder} and
+     * writes it to the given writer, see
+     * {@link #writeTextualLog(LogDataHolder, LogOutputFormat, int, Writer)}.
+     * The ascension start date is taken from the name of the log.
+     *
+     * @param logData The ascension log data from which the parsed ascension log
+     *                should be created.
+     * @param format  The wanted version of the textual log output.
+     * @param writer  The writer to which the parsed ascension log should be
+     *                written.
+     * @throws IllegalArgumentException if the given log data is not a detailed
+     *                                  LogDataHolder, see
+     *                                  {@link LogDataHolder#isDetailedLog()}
+     * @throws IOException              if an error occurs writing to the writer
+     */
+    public static void writeTextualLog(
+            final LogDataHolder logData,
+            final LogOutputFormat format,
+            final Writer writer)
+            throws IOException {
+
+        writeTextualLog(logData, format, getAscensionStartDate(logData), writer);
+    }
+
+    /**
+     * Creates a parsed ascension log from the given {@link LogDataHolder} and
+     * writes it to the given writer while it is created, so the parsed log is
+     * never held in memory as a whole. Non-ASCII characters are dropped on the
+     * way unless the settings say otherwise.
+     * <p>
+     * The given writer is flushed, but not closed.
+     *
+     * @param logData            The ascension log data from which the parsed
+     *                           ascension log should be created.
+     * @param format             The wanted version of the textual log output.
+     * @param ascensionStartDate The real-time start date of the ascension as saved
+     *                           by KolMafia.
+     * @param writer             The writer to which the parsed ascension log
+     *                           should be written.
+     * @throws IllegalArgumentException if the given log data is not a detailed
+     *                                  LogDataHolder, see
+     *                                  {@link LogDataHolder#isDetailedLog()}
+     * @throws IOException              if an error occurs writing to the writer
+     */
+    public static void writeTextualLog(
+            final LogDataHolder logData,
+            final LogOutputFormat format,
+            final int ascensionStartDate,
+            final Writer writer)
+            throws IOException {
+
+        if (writer == null) {
+            throw new NullPointerException("The writer must not be null.");
+        }
         if (!logData.isDetailedLog()) {
             throw new IllegalArgumentException(
                     "Only detailed logs can be used by the TextualLogCreator.");
         }
 
-        final TextLogCreator logCreator = newTextLogCreator(logData, format);
+        final PrintWriter logOutput = newLogOutput(writer);
+        newTextLogCreator(logData, format).createTextLog(logData, ascensionStartDate, logOutput);
+        checkLogOutput(logOutput);
+    }
+
+    /**
+     * Creates the format-neutral render model of a parsed ascension log from the
+     * given {@link LogDataHolder}. The model can then be written in any number
+     * of formats through
+     * {@link #writeTextualLog(RenderModel, LogOutputFormat, Writer)}, which is
+     * much cheaper than creating every format from the log data.
+     *
+     * @param logData The ascension log data from which the parsed ascension log
+     *                should be created.
+     * @return The render model of the parsed ascension log.
+     * @throws IllegalArgumentException if the given log data is not a detailed
+     *                                  LogDataHolder, see
+     *                                  {@link LogDataHolder#isDetailedLog()}
+     */
+    public static RenderModel createRenderModel(
+            final LogDataHolder logData) {
+
+        return createRenderModel(logData, getAscensionStartDate(logData));
+    }
+
+    /**
+     * Creates the format-neutral render model of a parsed ascension log from the
+     * given {@link LogDataHolder}, see {@link #createRenderModel(LogDataHolder)}.
+     *
+     * @param logData            The ascension log data from which the parsed
+     *                           ascension log should be created.
+     * @param ascensionStartDate The real-time start date of the ascension as saved
+     *                           by KolMafia.
+     * @return The render model of the parsed ascension log.
+     * @throws IllegalArgumentException if the given log data is not a detailed
+     *                                  LogDataHolder, see
+     *                                  {@link LogDataHolder#isDetailedLog()}
+     */
+    public static RenderModel createRenderModel(
+            final LogDataHolder logData,
+            final int ascensionStartDate) {
+
+        if (!logData.isDetailedLog()) {
+            throw new IllegalArgumentException(
+                    "Only detailed logs can be used by the TextualLogCreator.");
+        }
+
+        final TextLogCreator logCreator = new TextLogCreator(logData);
+        final RenderModel model = new RenderModel(logData, ascensionStartDate);
+        logCreator.recording = model;
+        logCreator.printTextLog(logData, ascensionStartDate);
+        model.addPendingText();
+
+        return model;
+    }
+
+    /**
+     * Writes the given render model to the given writer in the given format.
+     * Non-ASCII characters are dropped on the way unless the settings say
+     * otherwise.
+     * <p>
+     * The given writer is flushed, but not closed. Several formats of the same
+     * model can be written concurrently.
+     *
+     * @param model  The render model of the parsed ascension log, see
+     *               {@link #createRenderModel(LogDataHolder)}.
+     * @param format The wanted version of the textual log output.
+     * @param writer The writer to which the parsed ascension log should be
+     *               written.
+     * @throws IOException if an error occurs writing to the writer
+     */
+    public static void writeTextualLog(
+            final RenderModel model,
+            final LogOutputFormat format,
+            final Writer writer)
+            throws IOException {
+
+        if (model == null) {
+            throw new NullPointerException("The render model must not be null.");
+        }
+        if (writer == null) {
+            throw new NullPointerException("The writer must not be null.");
+        }
+
+        final PrintWriter logOutput = newLogOutput(writer);
+        newTextLogCreator(model.getLogData(), format).writeRenderModel(model, logOutput);
+        checkLogOutput(logOutput);
+    }
+
+    private static PrintWriter newLogOutput(
+            final Writer writer) {
 
-        final String logOutput;
         if (Settings.getBoolean("Show non-ASCII characters in parsed logs")) {
-            logOutput = logCreator.createTextLog(logData, ascensionStartDate);
-        } else {
-            logOutput = NON_ASCII.matcher(logCreator.createTextLog(logData, ascensionStartDate))
-                    .replaceAll("");
+            return new PrintWriter(writer);
         }
 
-        return logOutput;
+        return new PrintWriter(new NonAsciiFilterWriter(writer));
+    }
+
+    private static void checkLogOutput(
+            final PrintWriter logOutput)
+            throws IOException {
+
+        // PrintWriters swallow IOExceptions, so they have to be asked for.
+        if (logOutput.checkError()) {
+            throw new IOException("The parsed log could not be written.");
+        }
+    }
+
+    /**
+     * @return The real-time start date of the ascension of the given log, taken
+     *         from the name of the log, or 404 if the log name doesn't follow the
+     *         usual format.
+     */
+    private static int getAscensionStartDate(
+            final LogDataHolder logData) {
+
+        // Sometimes, geek jokes are fun! ;)
+        int logDate = 404;
+        if (UsefulPatterns.USUAL_FORMAT_LOG_NAME.matcher(logData.getLogName()).matches()) {
+            logDate = UsefulPatterns.getLogDate(logData.getLogName());
+        }
+
+        return logDate;
     }
 
     /**
@@ -277,6 +455,45 @@ public class TextLogCreator {
         }
     }
 
+    /**
+     * Returns a description of everything besides the log data which changes
+     * the textual logs of the given format: the program version, whether
+     * non-ASCII characters are shown and the state of the augmentations file of
+     * the format in the data directory, if the user put one there. Two logs
+     * created from the same log data are the same if their output versions are
+     * the same.
+     *
+     * @param format The textual log format.
+     * @return The output version of the given format.
+     * @throws IllegalArgumentException if the given format isn't a textual one
+     */
+    public static String getOutputVersion(
+            final LogOutputFormat format) {
+
+        final String augmentationsFile;
+        switch (format) {
+        case TEXT_LOG:
+            augmentationsFile = "textAugmentations.txt";
+            break;
+        case HTML_LOG:
+            augmentationsFile = "htmlAugmentations.txt";
+            break;
+        case BBCODE_LOG:
+            augmentationsFile = "bbcodeAugmentations.txt";
+            break;
+        default:
+            throw new IllegalArgumentException(format + " is not a textual log format.");
+        }
+
+        final File overrideFile = new File(Constants.ROOT_LOCATION,
+                Constants.DATA_DIRECTORY + augmentationsFile);
+
+        return format + ";" + Settings.getString("Version") + ";nonascii="
+                + Settings.getBoolean("Show non-ASCII characters in parsed logs") + ";"
+                + augmentationsFile + "=" + overrideFile.length() + ":"
+                + overrideFile.lastModified();
+    }
+
     /**
      * Helper method to parse out the augmentation values for the textual log
      * outputs and return them in a map.
@@ -339,6 +556,58 @@ public class TextLogCreator {
         return map;
     }
 
+    /**
+     * Returns the augmentations of the given augmentations file, see
+     * {@link #readAugmentationsList(String)}.
+     * <p>
+     * The augmentations of every file are read only once per process and
+     * shared by all log creators. They are only read again if the file has
+     * been changed in the data directory since.
+     *
+     * @param augmentationsFile The name of the augmentations file to use
+     * @return Read-only map of augmentation key names to augmentations
+     */
+    protected static Map<String, String> getAugmentationsMap(
+            final String augmentationsFile) {
+
+        final File overrideFile = new File(Constants.ROOT_LOCATION,
+                Constants.DATA_DIRECTORY + augmentationsFile);
+        final long lastModified = overrideFile.lastModified();
+        final long length = overrideFile.length();
+
+        synchronized (AUGMENTATIONS_CACHE) {
+            Augmentations augmentations = AUGMENTATIONS_CACHE.get(augmentationsFile);
+            if (augmentations == null || augmentations.lastModified != lastModified
+                    || augmentations.length != length) {
+                augmentations = new Augmentations(lastModified, length,
+                        Collections.unmodifiableMap(readAugmentationsList(augmentationsFile)));
+                AUGMENTATIONS_CACHE.put(augmentationsFile, augmentations);
+            }
+
+            return augmentations.map;
+        }
+    }
+
+    /**
+     * The augmentations of a file together with the state of the file they were
+     * read from.
+     */
+    private static final class Augmentations {
+        final long lastModified;
+
+        final long length;
+
+        final Map<String, String> map;
+
+        Augmentations(
+                final long lastModified, final long length, final Map<String, String> map) {
+
+            this.lastModified = lastModified;
+            this.length = length;
+            this.map = map;
+        }
+    }
+
     /**
      * Creates a parsed ascension log from the given {@link LogDataHolder} and saves
      * it to the given file.
@@ -367,10 +636,7 @@ public class TextLogCreator {
             throw new IllegalArgumentException("The file is a directory.");
         }
 
-        final PrintWriter writer = new PrintWriter(
-                new BufferedWriter(new FileWriter(saveDest), 50000));
-        writer.print(getTextualLog(logData, format));
-        writer.close();
+        saveTextualLogToFile(logData, getAscensionStartDate(logData), saveDest, format);
     }
 
     /**
@@ -404,17 +670,54 @@ public class TextLogCreator {
             throw new IllegalArgumentException("The file is a directory.");
         }
 
-        final PrintWriter writer = new PrintWriter(
-                new BufferedWriter(new FileWriter(saveDest), 50000));
-        writer.print(getTextualLog(logData, format, ascensionStartDate));
-        writer.close();
+        // The parsed log goes out in chunks of the buffer size while it is
+        // created.
+        try (Writer writer = new BufferedWriter(new FileWriter(saveDest), 50000)) {
+            writeTextualLog(logData, format, ascensionStartDate, writer);
+        }
+    }
+
+    /**
+     * Writes the given render model in the given format to the given file.
+     *
+     * @param model    The render model of the parsed ascension log, see
+     *                 {@link #createRenderModel(LogDataHolder)}.
+     * @param saveDest The file in which the parsed ascension log should be saved
+     *                 in.
+     * @param format   The wanted version of the textual log output.
+     * @throws IllegalArgumentException if saveDest doesn't exist or is a directory
+     * @throws java.io.IOException      If an error occurs writing the file
+     */
+    public static void saveTextualLogToFile(
+            final RenderModel model,
+            final File saveDest,
+            final LogOutputFormat format)
+            throws IOException {
+
+        if (!saveDest.exists()) {
+            throw new IllegalArgumentException("The file doesn't exist.");
+        }
+        if (saveDest.isDirectory()) {
+            throw new IllegalArgumentException("The file is a directory.");
+        }
+
+        try (Writer writer = new BufferedWriter(new FileWriter(saveDest), 50000)) {
+            writeTextualLog(model, format, writer);
+        }
     }
 
     protected Map<String, String> logAdditionsMap;
 
-    protected final Set<String> localeOnetimeItemsSet = Sets.newHashSet(300);
+    // The item drops of the data tables at the time this creator was made. The
+    // map is read-only and replaced as a whole when the data tables change.
+    protected final Map<String, Boolean> itemdropsMap;
+
+    protected final Set<String> printedOnetimeItemsSet = Sets.newHashSet();
 
-    protected final StringBuilder log;
+    protected PrintWriter log;
+
+    // The render model being recorded instead of writing to the log output.
+    private RenderModel recording;
 
     protected final Iterator<FamiliarChange> familiarChangeIter;
 
@@ -467,16 +770,7 @@ public class TextLogCreator {
             throw new NullPointerException("The LogDataHolder must not be null.");
         }
 
-        // Populate local one-time item set with all one-time items.
-        for (final Entry<String, Boolean> item : DataTablesHandler.HANDLER.getItemdropsMap()
-                .entrySet()) {
-            if (item.getValue()) {
-                localeOnetimeItemsSet.add(item.getKey());
-            }
-        }
-
-        // Most logs stay below 50000 characters.
-        log = new StringBuilder(50000);
+        itemdropsMap = DataTablesHandler.HANDLER.getItemdropsMap();
 
         familiarChangeIter = logData.getFamiliarChanges().iterator();
         pullIter = logData.getPulls().iterator();
@@ -499,6 +793,11 @@ public class TextLogCreator {
      */
     protected void beginTextLog() {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.BEGIN_TEXT_LOG);
+            return;
+        }
+
         // Do nothing for plain text
     }
 
@@ -511,9 +810,95 @@ public class TextLogCreator {
      *                           should be created.
      * @param ascensionStartDate The real-time start date of the ascension as saved
      *                           by KolMafia.
-     * @return A list of Strings to be printed.
+     * @param logOutput          The writer to which the ascension log is
+     *                           written. It is flushed once the log is done.
+     */
+    protected void createTextLog(
+            final LogDataHolder logData,
+            final int ascensionStartDate,
+            final PrintWriter logOutput) {
+
+        log = logOutput;
+        printTextLog(logData, ascensionStartDate);
+        log.flush();
+    }
+
+    /**
+     * Writes the given render model in the format of this creator.
+     *
+     * @param model     The render model to write.
+     * @param logOutput The writer to which the ascension log is written. It is
+     *                  flushed once the log is done.
+     */
+    protected void writeRenderModel(
+            final RenderModel model,
+            final PrintWriter logOutput) {
+
+        log = logOutput;
+        for (int i = 0; i < model.size(); i++) {
+            final Object argument = model.getArgument(i);
+            switch (model.getElement(i)) {
+            case TEXT:
+                write((String) argument);
+                break;
+            case AUGMENTATION:
+                writeAugmentation((String) argument);
+                break;
+            case BEGIN_TEXT_LOG:
+                beginTextLog();
+                break;
+            case END_TEXT_LOG:
+                endTextLog();
+                break;
+            case TITLE:
+                printTitle(model.getLogData(), model.getAscensionStartDate());
+                break;
+            case TABLE_OF_CONTENTS:
+                printTableOfContents(model.getLogData());
+                break;
+            case SECTION_HEADER:
+                final String[] header = (String[]) argument;
+                printSectionHeader(header[0], header[1]);
+                break;
+            case DAY_CHANGE:
+                printDayChange((DayChange) argument);
+                break;
+            case CASTS_SECTION:
+                printCastsSection(model.getLogData());
+                break;
+            case END_LINE:
+                writeEndLine();
+                break;
+            case LINE_BREAK:
+                printLineBreak();
+                break;
+            case PARAGRAPH_START:
+                printParagraphStart();
+                break;
+            case PARAGRAPH_END:
+                printParagraphEnd();
+                break;
+            case TABLE_START:
+                printTableStart();
+                break;
+            case TABLE_ROW:
+                printTableRow((String[]) argument);
+                break;
+            case TABLE_END:
+                printTableEnd();
+                break;
+            default:
+                throw new IllegalStateException("Unknown render model element.");
+            }
+        }
+        log.flush();
+    }
+
+    /**
+     * Prints the whole parsed ascension log, see
+     * {@link #createTextLog(LogDataHolder, int, PrintWriter)}.
      */
-    protected String createTextLog(
+    private void printTextLog(
             final LogDataHolder logData,
             final int ascensionStartDate) {
 
@@ -538,12 +923,12 @@ public class TextLogCreator {
         DayChange nextDay = dayChangeIter.hasNext() ? dayChangeIter.next() : NO_DAY_CHANGE;
 
         printTitle(logData, ascensionStartDate);
-        write(logAdditionsMap.get("logHeaderStart"));
+        writeAugmentation("logHeaderStart");
         writeln("This log was created by the Ascension Log Visualizer " + Settings.ALV_VERSION
                 + ".");
         writeln("The basic idea and the format of this parser have been borrowed from the AFH MafiaLog Parser by VladimirPootin and QuantumNightmare.");
         writeEndLine();
-        write(logAdditionsMap.get("logHeaderEnd"));
+        writeAugmentation("logHeaderEnd");
         printTableOfContents(logData);
         printDayChange(currentDay);
         writeln();
@@ -576,15 +961,13 @@ public class TextLogCreator {
         printNotes(logData.getHeaderFooterComment(currentDay).getFooterComments());
         writeEndLine();
         write("Turn rundown finished!");
-        write(logAdditionsMap.get("turnRundownEnd"));
+        writeAugmentation("turnRundownEnd");
         writeEndLine();
         writeEndLine();
 
         printLogSummaries(logData);
 
         endTextLog();
-
-        return log.toString();
     }
 
     /**
@@ -599,6 +982,8 @@ public class TextLogCreator {
             final LogDataHolder logData) {
 
         final List<String> turnRundown = Lists.newArrayList(logData.getTurnsSpent().size());
+        final StringWriter turnIntervalOutput = new StringWriter(500);
+        log = new PrintWriter(turnIntervalOutput);
 
         currentFamChange = familiarChangeIter.hasNext() ? familiarChangeIter.next() : null;
         currentPull = pullIter.hasNext() ? pullIter.next() : null;
@@ -633,8 +1018,9 @@ public class TextLogCreator {
             }
             printTurnIntervalContents(ti, currentDay.getDayNumber());
 
-            turnRundown.add(log.toString());
-            log.delete(0, log.length());
+            log.flush();
+            turnRundown.add(turnIntervalOutput.toString());
+            turnIntervalOutput.getBuffer().setLength(0);
         }
 
         return turnRundown;
@@ -645,6 +1031,11 @@ public class TextLogCreator {
      */
     protected void endTextLog() {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.END_TEXT_LOG);
+            return;
+        }
+
         // Do nothing for plain text
     }
 
@@ -714,7 +1105,7 @@ public class TextLogCreator {
                 + " glasses of milk");
 
         final SpookyravenPowerleveling powerleveling = new SpookyravenPowerleveling(
-                logData.getTurnIntervalsSpent());
+                logData.getLogSummary().getAreaTurncounts());
         writelnWithBreak("Spent " + powerleveling.getBallroomTurns()
                 + " turns in the Haunted Ballroom and found "
                 + powerleveling.getBallroomStatNoncombats() + " Curtains");
@@ -761,6 +1152,11 @@ public class TextLogCreator {
     protected void printCastsSection(
             final LogDataHolder logData) {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.CASTS_SECTION);
+            return;
+        }
+
         // Skills cast summary
         printSectionHeader("CASTS", "casts");
         for (final Skill s : logData.getLogSummary().getSkillsCast()) {
@@ -903,11 +1299,11 @@ public class TextLogCreator {
                         write("Used ");
                     }
 
-                    write(logAdditionsMap.get("consumableStart"));
+                    writeAugmentation("consumableStart");
                     write(c.getAmount());
                     write(" ");
                     write(c.getName());
-                    write(logAdditionsMap.get("consumableEnd"));
+                    writeAugmentation("consumableEnd");
 
                     if (c.getAdventureGain() > 0
                             || c.getConsumableVersion() == ConsumableVersion.FOOD
@@ -920,9 +1316,9 @@ public class TextLogCreator {
                     }
 
                     write(" ");
-                    write(logAdditionsMap.get("statgainStart"));
+                    writeAugmentation("statgainStart");
                     write(c.getStatGain().toString());
-                    writeln(logAdditionsMap.get("statgainEnd"));
+                    writelnAugmentation("statgainEnd");
                 }
             }
         }
@@ -951,11 +1347,11 @@ public class TextLogCreator {
             write(CLOSING_TURN_BRACKET);
             write("pulled");
             write(" ");
-            write(logAdditionsMap.get("pullStart"));
+            writeAugmentation("pullStart");
             write(currentPull.getAmount());
             write(" ");
             write(currentPull.getItemName());
-            writeln(logAdditionsMap.get("pullEnd"));
+            writelnAugmentation("pullEnd");
 
             currentPull = pullIter.hasNext() ? pullIter.next() : null;
         }
@@ -994,9 +1390,14 @@ public class TextLogCreator {
     protected void printDayChange(
             final DayChange nextDay) {
 
-        write(logAdditionsMap.get("dayChangeLineStart"));
+        if (recording != null) {
+            recording.add(RenderModel.Element.DAY_CHANGE, nextDay);
+            return;
+        }
+
+        writeAugmentation("dayChangeLineStart");
         write(nextDay.toString());
-        writeln(logAdditionsMap.get("dayChangeLineEnd"));
+        writelnAugmentation("dayChangeLineEnd");
     }
 
     /**
@@ -1298,6 +1699,11 @@ public class TextLogCreator {
      */
     protected void printLineBreak() {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.LINE_BREAK);
+            return;
+        }
+
         // Does nothing for text files
     }
 
@@ -1406,9 +1812,9 @@ public class TextLogCreator {
             final String notes) {
 
         if (isShowNotes && notes.length() > 0) {
-            write(logAdditionsMap.get("notesStart"));
+            writeAugmentation("notesStart");
             write(notes.replaceAll("\r\n", NEW_LINE).replaceAll("[\r\n]", NEW_LINE));
-            writeln(logAdditionsMap.get("notesEnd"));
+            writelnAugmentation("notesEnd");
         }
     }
 
@@ -1418,6 +1824,11 @@ public class TextLogCreator {
      */
     protected void printParagraphEnd() {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.PARAGRAPH_END);
+            return;
+        }
+
         // Does nothing for text files
     }
 
@@ -1427,6 +1838,11 @@ public class TextLogCreator {
      */
     protected void printParagraphStart() {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.PARAGRAPH_START);
+            return;
+        }
+
         // Does nothing for text files
     }
 
@@ -1520,6 +1936,13 @@ public class TextLogCreator {
             final String title,
             final String anchor) {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.SECTION_HEADER, new String[] {
+                    title, anchor
+            });
+            return;
+        }
+
         // anchor parameter not used by plain text format
         writeln(title);
         writeln("----------");
@@ -1743,6 +2166,11 @@ public class TextLogCreator {
      */
     protected void printTableEnd() {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.TABLE_END);
+            return;
+        }
+
         // Does nothing for text files
     }
 
@@ -1754,6 +2182,11 @@ public class TextLogCreator {
     protected void printTableOfContents(
             final LogDataHolder logData) {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.TABLE_OF_CONTENTS);
+            return;
+        }
+
         // Not used by plain text format
     }
 
@@ -1766,6 +2199,11 @@ public class TextLogCreator {
     protected void printTableRow(
             final String... strings) {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.TABLE_ROW, strings);
+            return;
+        }
+
         // For plain text, this just writes the given strings in one line
         for (final String s : strings) {
             write(s);
@@ -1778,6 +2216,11 @@ public class TextLogCreator {
      */
     protected void printTableStart() {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.TABLE_START);
+            return;
+        }
+
         // Does nothing for text files
     }
 
@@ -1792,6 +2235,11 @@ public class TextLogCreator {
             final LogDataHolder logData,
             final int ascensionStartDate) {
 
+        if (recording != null) {
+            recording.add(RenderModel.Element.TITLE);
+            return;
+        }
+
         // Add the log file header.
         writeln("NEW " + logData.getCharacterClass() + " " + logData.getGameMode() + " "
                 + logData.getAscensionPath() + " ASCENSION STARTED " + ascensionStartDate);
@@ -1834,7 +2282,7 @@ public class TextLogCreator {
         printParagraphStart();
         printNotes(ti.getPreIntervalComment().getComments());
 
-        write(logAdditionsMap.get("turnStart"));
+        writeAugmentation("turnStart");
         write("[");
         if (ti.getTotalTurns() > 1) {
             write(ti.getStartTurn() + 1);
@@ -1842,15 +2290,15 @@ public class TextLogCreator {
         }
         write(ti.getEndTurn());
         write("]");
-        write(logAdditionsMap.get("turnEnd"));
+        writeAugmentation("turnEnd");
 
         write(" ");
         write(ti.getAreaName());
         write(" ");
 
-        write(logAdditionsMap.get("statgainStart"));
+        writeAugmentation("statgainStart");
         write(ti.getStatGain().toString());
-        write(logAdditionsMap.get("statgainEnd"));
+        writeAugmentation("statgainEnd");
 
         // Report Ka acquisition
         // TODO: Store this in the turn interval itself
@@ -1897,9 +2345,9 @@ public class TextLogCreator {
                 write(st.getTurnNumber());
                 write(CLOSING_TURN_BRACKET);
                 write(SEMIRARE_MIDDLE_STRING);
-                write(logAdditionsMap.get("specialEncounterStart"));
+                writeAugmentation("specialEncounterStart");
                 write(st.getEncounterName());
-                writeln(logAdditionsMap.get("specialEncounterEnd"));
+                writelnAugmentation("specialEncounterEnd");
             }
             if (DataTablesHandler.HANDLER.isBadMoonEncounter(st)) {
                 printLineBreak();
@@ -1908,9 +2356,9 @@ public class TextLogCreator {
                 write(st.getTurnNumber());
                 write(CLOSING_TURN_BRACKET);
                 write(BAD_MOON_MIDDLE_STRING);
-                write(logAdditionsMap.get("specialEncounterStart"));
+                writeAugmentation("specialEncounterStart");
                 write(st.getEncounterName());
-                writeln(logAdditionsMap.get("specialEncounterEnd"));
+                writelnAugmentation("specialEncounterEnd");
             }
 
             // Iterate all encounters on this turn
@@ -1927,9 +2375,9 @@ public class TextLogCreator {
                         write("] ");
                         write(e.getAreaName());
                         write(" ");
-                        write(logAdditionsMap.get("statgainStart"));
+                        writeAugmentation("statgainStart");
                         write(e.getStatGain().toString());
-                        writeln(logAdditionsMap.get("statgainEnd"));
+                        writelnAugmentation("statgainEnd");
                     }
 
                     // Log turn-free crafting as well
@@ -1952,11 +2400,14 @@ public class TextLogCreator {
             for (final Item i : st.getDroppedItems()) {
                 final String itemName = NON_ASCII.matcher(i.getName().toLowerCase(Locale.ENGLISH))
                         .replaceAll("");
-                if (DataTablesHandler.HANDLER.isImportantItem(itemName)) {
-                    importantItems.add(i);
-                } else if (localeOnetimeItemsSet.contains(itemName)) {
+                final Boolean onetimeOnly = itemdropsMap.get(itemName);
+                if (onetimeOnly == null) {
+                    continue;
+                }
+
+                // One-time items are only listed the first time they drop.
+                if (!onetimeOnly || printedOnetimeItemsSet.add(itemName)) {
                     importantItems.add(i);
-                    localeOnetimeItemsSet.remove(itemName);
                 }
             }
 
@@ -1973,11 +2424,11 @@ public class TextLogCreator {
                     // More than three is defined as excessive
 
                     if (currentItem.getAmount() >= 3) {
-                        write(logAdditionsMap.get("itemStart"));
+                        writeAugmentation("itemStart");
                         write(currentItem.getName());
                         write(" x ");
                         write(currentItem.getAmount());
-                        write(logAdditionsMap.get("itemEnd"));
+                        writeAugmentation("itemEnd");
                         itemCounter++;
 
                         if (aquiredItemsIter.hasNext() && itemCounter >= 4) {
@@ -1988,9 +2439,9 @@ public class TextLogCreator {
 
                     } else {
                         for (int i = currentItem.getAmount(); i > 0; i--) {
-                            write(logAdditionsMap.get("itemStart"));
+                            writeAugmentation("itemStart");
                             write(currentItem.getName());
-                            write(logAdditionsMap.get("itemEnd"));
+                            writeAugmentation("itemEnd");
                             itemCounter++;
 
                             if ((aquiredItemsIter.hasNext() || i > 1) && itemCounter >= 4) {
@@ -2056,9 +2507,9 @@ public class TextLogCreator {
             write(currentHuntedCombat.getNumber());
             write(CLOSING_TURN_BRACKET);
             write(HUNTED_COMBAT_MIDDLE_STRING);
-            write(logAdditionsMap.get("huntedStart"));
+            writeAugmentation("huntedStart");
             write(currentHuntedCombat.getData());
-            writeln(logAdditionsMap.get("huntedEnd"));
+            writelnAugmentation("huntedEnd");
 
             currentHuntedCombat = huntedCombatIter.hasNext() ? huntedCombatIter.next() : null;
         }
@@ -2083,9 +2534,9 @@ public class TextLogCreator {
             write(currentDisintegratedCombat.getNumber());
             write(CLOSING_TURN_BRACKET);
             write(DISINTEGRATED_COMBAT_MIDDLE_STRING);
-            write(logAdditionsMap.get("yellowRayStart"));
+            writeAugmentation("yellowRayStart");
             write(currentDisintegratedCombat.getData());
-            writeln(logAdditionsMap.get("yellowRayEnd"));
+            writelnAugmentation("yellowRayEnd");
 
             currentDisintegratedCombat = disintegratedCombatIter.hasNext()
                     ? disintegratedCombatIter.next()
@@ -2098,9 +2549,9 @@ public class TextLogCreator {
             write(OPENING_TURN_BRACKET);
             write(currentFamChange.getTurnNumber());
             write(CLOSING_TURN_BRACKET);
-            write(logAdditionsMap.get("familiarStart"));
+            writeAugmentation("familiarStart");
             write(currentFamChange.getFamiliarName());
-            writeln(logAdditionsMap.get("familiarEnd"));
+            writelnAugmentation("familiarEnd");
 
             currentFamChange = familiarChangeIter.hasNext() ? familiarChangeIter.next() : null;
         }
@@ -2109,9 +2560,9 @@ public class TextLogCreator {
         if (freeRunaways.getNumberOfAttemptedRunaways() > 0) {
             printLineBreak();
             write(FREE_RUNAWAYS_PREFIX);
-            write(logAdditionsMap.get("runawayStart"));
+            writeAugmentation("runawayStart");
             write(freeRunaways.toString());
-            writeln(logAdditionsMap.get("runawayEnd"));
+            writelnAugmentation("runawayEnd");
         }
 
         while (currentLearnedSkill != null && ti.getEndTurn() >= currentLearnedSkill.getNumber()) {
@@ -2132,18 +2583,18 @@ public class TextLogCreator {
             write(use.getTurn());
             write(CLOSING_TURN_BRACKET);
             write(" ");
-            write(logAdditionsMap.get("limitedUseStart"));
+            writeAugmentation("limitedUseStart");
             write(use.getCounter().getName());
             if (!use.getUse().equals("")) {
                 write(": " + use.getUse());
             }
-            write(logAdditionsMap.get("limitedUseEnd"));
+            writeAugmentation("limitedUseEnd");
             final Statgain statgain = use.getStatgain();
             if (!statgain.equals(Statgain.NO_STATS)) {
                 write(" ");
-                write(logAdditionsMap.get("statgainStart"));
+                writeAugmentation("statgainStart");
                 write(use.getStatgain().toString());
-                write(logAdditionsMap.get("statgainEnd"));
+                writeAugmentation("statgainEnd");
             }
             writeln();
         }
@@ -2157,7 +2608,7 @@ public class TextLogCreator {
                 final int moxStat = (int) Math.sqrt(nextLevel.getStatsAtLevelReached().mox);
 
                 printLineBreak();
-                write(logAdditionsMap.get("levelStart"));
+                writeAugmentation("levelStart");
                 write(LEVEL_CHANGE_PREFIX);
                 write(nextLevel.getLevelNumber());
                 write(" (Turn ");
@@ -2169,7 +2620,7 @@ public class TextLogCreator {
                 write("/");
                 write(moxStat);
                 write(")");
-                writeln(logAdditionsMap.get("levelEnd"));
+                writelnAugmentation("levelEnd");
             }
 
             nextLevel = levelIter.hasNext() ? levelIter.next() : null;
@@ -2205,8 +2656,21 @@ public class TextLogCreator {
      */
     protected void setAugmentationsMap() {
 
-        logAdditionsMap = Collections
-                .unmodifiableMap(readAugmentationsList("textAugmentations.txt"));
+        logAdditionsMap = getAugmentationsMap("textAugmentations.txt");
+    }
+
+    /**
+     * Write a string to the log output, or to the render model if one is being
+     * recorded.
+     */
+    private void print(
+            final String s) {
+
+        if (recording != null) {
+            recording.addText(s);
+        } else {
+            log.print(s);
+        }
     }
 
     /**
@@ -2215,7 +2679,7 @@ public class TextLogCreator {
      * @param i Integer to write.
      */
     protected void write(
-            final int i) { log.append(i); }
+            final int i) { print(String.valueOf(i)); }
 
     /**
      * Write a string to the log output.
@@ -2226,19 +2690,56 @@ public class TextLogCreator {
             final String s) {
 
         if (s != null) {
-            log.append(s);
+            print(s);
         }
     }
 
+    /**
+     * Write the augmentation of the given key name to the log output, see
+     * {@link #readAugmentationsList(String)}.
+     *
+     * @param key Key name of the augmentation to write. If the format has no
+     *            augmentation of that name, does nothing.
+     */
+    protected void writeAugmentation(
+            final String key) {
+
+        if (recording != null) {
+            recording.add(RenderModel.Element.AUGMENTATION, key);
+        } else {
+            write(logAdditionsMap.get(key));
+        }
+    }
+
+    /**
+     * Write the augmentation of the given key name to the log output, followed
+     * by the OS's newline string.
+     *
+     * @param key Key name of the augmentation to write.
+     */
+    protected void writelnAugmentation(
+            final String key) {
+
+        writeAugmentation(key);
+        writeln();
+    }
+
     /**
      * Write the end of a format's line to the log output.
      */
-    protected void writeEndLine() { log.append(NEW_LINE); }
+    protected void writeEndLine() {
+
+        if (recording != null) {
+            recording.add(RenderModel.Element.END_LINE);
+        } else {
+            print(NEW_LINE);
+        }
+    }
 
     /**
      * Write the OS's newline string to the log output.
      */
-    protected void writeln() { log.append(NEW_LINE); }
+    protected void writeln() { print(NEW_LINE); }
 
     /**
      * Write the given integer to the log output, followed by the OS's newline
@@ -2247,7 +2748,11 @@ public class TextLogCreator {
      * @param i Integer to write.
      */
     protected void writeln(
-            final int i) { log.append(i).append(NEW_LINE); }
+            final int i) {
+
+        print(String.valueOf(i));
+        print(NEW_LINE);
+    }
 
     /**
      * Write the given string to the log output, followed by the OS's newline
@@ -2259,9 +2764,9 @@ public class TextLogCreator {
             final String s) {
 
         if (s != null) {
-            log.append(s);
+            print(s);
         }
-        log.append(NEW_LINE);
+        print(NEW_LINE);
     }
 
     /**
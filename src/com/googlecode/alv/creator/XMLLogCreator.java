@@ -26,7 +26,7 @@ package com.googlecode.alv.creator;
 
 import java.io.*;
 import java.nio.charset.Charset;
-import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -58,8 +58,39 @@ import javanet.staxutils.IndentingXMLStreamWriter;
 public final class XMLLogCreator {
 
     /**
-     * Creates an XML file containing the data of the given log data in the
-     * given directory.
+     * The layouts in which ascension log XML files can be written.
+     */
+    public enum OutputMode {
+        /**
+         * Human-readable XML with every element on its own indented line, saved
+         * as a plain {@code .xml} file.
+         */
+        INDENTED,
+        /**
+         * XML without any whitespace between elements, saved as a plain
+         * {@code .xml} file.
+         */
+        COMPACT,
+        /**
+         * XML without any whitespace between elements, saved as a gzip
+         * compressed {@code .xml.gz} file.
+         */
+        COMPRESSED;
+    }
+
+    /**
+     * The file extension of plain ascension log XML files.
+     */
+    public static final String FILE_EXTENSION = ".xml";
+
+    /**
+     * The file extension of gzip compressed ascension log XML files.
+     */
+    public static final String COMPRESSED_FILE_EXTENSION = ".xml.gz";
+
+    /**
+     * Creates an indented XML file containing the data of the given log data
+     * in the given directory.
      * 
      * @param logData
      *            The log which should be turned into an XML file.
@@ -79,27 +110,123 @@ public final class XMLLogCreator {
                                     final LogDataHolder logData, final File saveDst)
                                                                                     throws FileAccessException,
                                                                                     XMLAccessException {
+        createXMLLog(logData, saveDst, OutputMode.INDENTED);
+    }
+
+    /**
+     * Creates an XML file containing the data of the given log data in the
+     * given directory, using the given output mode. Compact and compressed
+     * files hold the same elements as indented ones and can be read by
+     * {@link com.googlecode.alv.creator.util.XMLLogReader} all the same.
+     * 
+     * @param logData
+     *            The log which should be turned into an XML file.
+     * @param saveDst
+     *            The directory in which the log should be saved in. Note that
+     *            the filename will be created from the given log.
+     * @param mode
+     *            The layout of the XML file.
+     * @return The created XML file.
+     * @throws IllegalArgumentException
+     *             if the given log is not a detailed log (see
+     *             {@link LogDataHolder#isDetailedLog()}); if the given file
+     *             isn't a directory
+     * @throws FileAccessException If the file cannot be accessed, such as by
+     *      permission violation
+     * @throws XMLAccessException If the XML file could not be written for
+     *      some reason
+     */
+    public static File createXMLLog(
+                                    final LogDataHolder logData, final File saveDst,
+                                    final OutputMode mode)
+                                                          throws FileAccessException,
+                                                          XMLAccessException {
         if (logData == null)
             throw new NullPointerException("The log data must not be null.");
         if (saveDst == null)
             throw new NullPointerException("The save destination must not be null.");
+        if (mode == null)
+            throw new NullPointerException("The output mode must not be null.");
         if (!logData.isDetailedLog())
             throw new IllegalArgumentException("Only detailed logs can be turned into xml.");
         if (!saveDst.isDirectory())
             throw new IllegalArgumentException("Incorrect saving destination, needs to be a directory.");
 
-        OutputStreamWriter out;
+        final File xmlLog = new File(saveDst,
+                                     logData.getLogName()
+                                             + (mode == OutputMode.COMPRESSED ? COMPRESSED_FILE_EXTENSION
+                                                                              : FILE_EXTENSION));
+        final OutputStream os;
+        try {
+            os = new FileOutputStream(xmlLog);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            throw new FileAccessException("File stream could not be created.");
+        }
+
+        try {
+            writeXMLLog(logData, os, mode);
+        } finally {
+            try {
+                os.close();
+            } catch (final IOException e) {
+                e.printStackTrace();
+                throw new FileAccessException("File stream could not be closed.");
+            }
+        }
+
+        return xmlLog;
+    }
+
+    /**
+     * Writes the data of the given log data as XML to the given stream, using
+     * the given output mode. Compressed XML is written as a complete gzip
+     * stream. The given stream is flushed, but not closed.
+     * 
+     * @param logData
+     *            The log which should be written.
+     * @param os
+     *            The stream to write the XML to.
+     * @param mode
+     *            The layout of the XML.
+     * @throws IllegalArgumentException
+     *             if the given log is not a detailed log (see
+     *             {@link LogDataHolder#isDetailedLog()})
+     * @throws FileAccessException If the stream could not be written to
+     * @throws XMLAccessException If the XML could not be written for some
+     *      reason
+     */
+    public static void writeXMLLog(
+                                   final LogDataHolder logData, final OutputStream os,
+                                   final OutputMode mode)
+                                                         throws FileAccessException,
+                                                         XMLAccessException {
+        if (logData == null)
+            throw new NullPointerException("The log data must not be null.");
+        if (os == null)
+            throw new NullPointerException("The output stream must not be null.");
+        if (mode == null)
+            throw new NullPointerException("The output mode must not be null.");
+        if (!logData.isDetailedLog())
+            throw new IllegalArgumentException("Only detailed logs can be turned into xml.");
+
+        GZIPOutputStream gzip = null;
+        Writer out;
         try {
-            out = new OutputStreamWriter(new FileOutputStream(new File(saveDst, logData.getLogName() + ".xml")),
-                                                              Charset.forName("UTF-8"));
-        } catch (final FileNotFoundException e) {
+            if (mode == OutputMode.COMPRESSED)
+                gzip = new GZIPOutputStream(os, 64 * 1024);
+            out = new BufferedWriter(new OutputStreamWriter(gzip != null ? gzip : os,
+                                                            Charset.forName("UTF-8")),
+                                     64 * 1024);
+        } catch (final IOException e) {
             e.printStackTrace();
             throw new FileAccessException("File stream could not be created.");
         }
 
         try {
             final XMLOutputFactory factory = XMLOutputFactoryBase.newInstance();
-            final XMLStreamWriter writer = new IndentingXMLStreamWriter( factory.createXMLStreamWriter(out));
+            final XMLStreamWriter writer = mode == OutputMode.INDENTED ? new IndentingXMLStreamWriter(factory.createXMLStreamWriter(out))
+                                                                       : factory.createXMLStreamWriter(out);
 
             final XMLLogCreator logCreator = new XMLLogCreator(writer, logData);
             logCreator.createLog();
@@ -111,14 +238,25 @@ public final class XMLLogCreator {
         }
 
         try {
-            out.close();
+            out.flush();
+            if (gzip != null)
+                gzip.finish();
+            os.flush();
         } catch (final IOException e) {
             e.printStackTrace();
-            throw new FileAccessException("File stream could not be closed.");
+            throw new FileAccessException("File stream could not be flushed.");
         }
     }
 
-    private static final Pattern LINEBREAK_FINDER = Pattern.compile("\n");
+    /**
+     * Replaces all line breaks in the given notes by the {@code {n}} marker used
+     * in ascension log XML files. Most notes are empty or a single line, so they
+     * are returned as they are.
+     */
+    private static String escapeLinebreaks(
+                                           final String notes) {
+        return notes.indexOf('\n') < 0 ? notes : notes.replace("\n", "{n}");
+    }
 
     private final XMLStreamWriter writer;
 
@@ -274,8 +412,7 @@ public final class XMLLogCreator {
                     writer.writeEndElement();
 
                     writer.writeStartElement("notes");
-                    writer.writeCharacters(LINEBREAK_FINDER.matcher(e.getNotes())
-                                                           .replaceAll("\\{n\\}"));
+                    writer.writeCharacters(escapeLinebreaks(e.getNotes()));
                     writer.writeEndElement();
 
                     for (final Item i : e.getDroppedItems()) {
@@ -350,12 +487,10 @@ public final class XMLLogCreator {
 
             writer.writeStartElement("notes");
             writer.writeStartElement("preintervalnotes");
-            writer.writeCharacters(LINEBREAK_FINDER.matcher(ti.getPreIntervalComment()
-                                                              .getComments()).replaceAll("\\{n\\}"));
+            writer.writeCharacters(escapeLinebreaks(ti.getPreIntervalComment().getComments()));
             writer.writeEndElement();
             writer.writeStartElement("postintervalnotes");
-            writer.writeCharacters(LINEBREAK_FINDER.matcher(ti.getPostIntervalComment()
-                                                              .getComments()).replaceAll("\\{n\\}"));
+            writer.writeCharacters(escapeLinebreaks(ti.getPostIntervalComment().getComments()));
             writer.writeEndElement();
             writer.writeEndElement();
 
@@ -377,12 +512,10 @@ public final class XMLLogCreator {
             writer.writeCharacters(Integer.toString(dc.getTurnNumber()));
             writer.writeEndElement();
             writer.writeStartElement("headernotes");
-            writer.writeCharacters(LINEBREAK_FINDER.matcher(hfc.getHeaderComments())
-                                                   .replaceAll("\\{n\\}"));
+            writer.writeCharacters(escapeLinebreaks(hfc.getHeaderComments()));
             writer.writeEndElement();
             writer.writeStartElement("footernotes");
-            writer.writeCharacters(LINEBREAK_FINDER.matcher(hfc.getFooterComments())
-                                                   .replaceAll("\\{n\\}"));
+            writer.writeCharacters(escapeLinebreaks(hfc.getFooterComments()));
             writer.writeEndElement();
             writer.writeEndElement();
         }
@@ -0,0 +1,578 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.creator.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.googlecode.alv.creator.BinaryLogCreator;
+import com.googlecode.alv.logdata.HeaderFooterComment;
+import com.googlecode.alv.logdata.Item;
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.logdata.MPGain;
+import com.googlecode.alv.logdata.MeatGain;
+import com.googlecode.alv.logdata.Skill;
+import com.googlecode.alv.logdata.Statgain;
+import com.googlecode.alv.logdata.LogDataHolder.AscensionPath;
+import com.googlecode.alv.logdata.LogDataHolder.GameMode;
+import com.googlecode.alv.logdata.consumables.Consumable;
+import com.googlecode.alv.logdata.consumables.Consumable.ConsumableVersion;
+import com.googlecode.alv.logdata.summary.LevelData;
+import com.googlecode.alv.logdata.turn.SingleTurn;
+import com.googlecode.alv.logdata.turn.TurnVersion;
+import com.googlecode.alv.logdata.turn.action.DayChange;
+import com.googlecode.alv.logdata.turn.action.EquipmentChange;
+import com.googlecode.alv.logdata.turn.action.FamiliarChange;
+import com.googlecode.alv.logdata.turn.action.PlayerSnapshot;
+import com.googlecode.alv.logdata.turn.action.Pull;
+import com.googlecode.alv.util.CacheFingerprint;
+import com.googlecode.alv.util.DataNumberPair;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.Stack;
+import com.googlecode.alv.util.VarInts;
+
+/**
+ * This class gives access to methods to parse binary log files as they are
+ * created by {@link BinaryLogCreator}.
+ * <p>
+ * The log data is reconstructed in the same way as {@link XMLLogReader} does it
+ * for the Ascension Log XML format, so the resulting {@link LogDataHolder} is
+ * interchangeable with one read from the XML version of the same log. Files are
+ * read into a single buffer and decoded in one pass, which makes reading cached
+ * logs a lot cheaper than parsing their XML counterparts.
+ * <p>
+ * All methods in this class throw a {@link NullPointerException} if a null
+ * object reference is passed in any parameter.
+ */
+public final class BinaryLogReader {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The header including the fingerprint is always a lot smaller than this.
+     */
+    private static final int MAX_HEADER_SIZE = 4096;
+
+    /**
+     * Returns a {@link LogDataHolder} object containing the data of the given
+     * binary log file.
+     *
+     * @param binaryLog
+     *            The binary log file which is supposed to be parsed.
+     * @return The resulting log data from the given binary log file.
+     * @throws IllegalArgumentException
+     *             if the given file isn't an existing file
+     * @throws FileAccessException If the file could not be read or isn't a
+     *      binary log file of the current format version
+     */
+    public static LogDataHolder parseBinaryLog(
+            final File binaryLog)
+                    throws FileAccessException {
+        if (binaryLog == null)
+            throw new NullPointerException("The binary log file reference must not be null.");
+        if (!binaryLog.isFile())
+            throw new IllegalArgumentException("The given file doesn't exist or is a directory.");
+
+        // The file is read into the heap instead of being memory-mapped. The
+        // decoder only walks it once, and a live mapping would keep the file
+        // from being deleted or replaced on Windows until it is collected.
+        final ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(binaryLog.toPath()));
+        } catch (final IOException e) {
+            e.printStackTrace();
+            throw new FileAccessException("File could not be read.");
+        }
+
+        return parseBinaryLog(buffer);
+    }
+
+    /**
+     * Returns a {@link LogDataHolder} object containing the data of the binary
+     * log inside the given buffer. The log is read from the current position of
+     * the buffer.
+     *
+     * @param buffer
+     *            The buffer holding the binary log.
+     * @return The resulting log data from the given binary log.
+     * @throws FileAccessException If the buffer doesn't contain a complete
+     *      binary log of the current format version
+     */
+    public static LogDataHolder parseBinaryLog(
+            final ByteBuffer buffer)
+                    throws FileAccessException {
+        if (buffer == null)
+            throw new NullPointerException("The buffer must not be null.");
+
+        try {
+            if (!readHeader(buffer))
+                throw new FileAccessException("Not a binary log of the current format version.");
+            readFingerprint(buffer);
+
+            final BinaryLogReader reader = new BinaryLogReader(buffer);
+
+            return reader.parseLog();
+        } catch (final BufferUnderflowException e) {
+            throw new FileAccessException("The binary log is truncated.");
+        } catch (final IllegalArgumentException e) {
+            throw new FileAccessException("The binary log is corrupted: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether the given file starts with the header of a binary log of
+     * the current format version. Only the first few bytes of the file are
+     * read.
+     *
+     * @param file
+     *            The file to check.
+     * @return True if the file is a binary log which can be read by this class,
+     *         otherwise false.
+     */
+    public static boolean isCurrentFormat(
+            final File file) {
+        if (file == null)
+            throw new NullPointerException("The file reference must not be null.");
+
+        final ByteBuffer header = readFileStart(file, 16);
+        if (header == null)
+            return false;
+
+        try {
+            return readHeader(header);
+        } catch (final BufferUnderflowException e) {
+            return false;
+        } catch (final IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the fingerprint of the source of the given binary log. Only the
+     * header of the file is read.
+     *
+     * @param file
+     *            The binary log file.
+     * @return The fingerprint stored in the given binary log or {@code null}
+     *         if the file isn't a binary log of the current format version.
+     */
+    public static CacheFingerprint readFingerprint(
+            final File file) {
+        if (file == null)
+            throw new NullPointerException("The file reference must not be null.");
+
+        final ByteBuffer header = readFileStart(file, MAX_HEADER_SIZE);
+        if (header == null)
+            return null;
+
+        try {
+            return readHeader(header) ? readFingerprint(header) : null;
+        } catch (final BufferUnderflowException e) {
+            return null;
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer readFileStart(
+            final File file, final int length) {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                final FileChannel channel = raf.getChannel();
+                while (buffer.hasRemaining() && channel.read(buffer) > 0)
+                    ;
+            } finally {
+                raf.close();
+            }
+        } catch (final IOException e) {
+            return null;
+        }
+        buffer.flip();
+
+        return buffer;
+    }
+
+    private static boolean readHeader(
+            final ByteBuffer buffer) {
+        return buffer.getInt() == BinaryLogCreator.MAGIC_NUMBER
+                && VarInts.readUnsigned(buffer) == BinaryLogCreator.FORMAT_VERSION;
+    }
+
+    private static CacheFingerprint readFingerprint(
+            final ByteBuffer buffer) {
+        final String sourceHash = readRawString(buffer);
+        final long sourceSize = buffer.getLong();
+        final String parserVersion = readRawString(buffer);
+        final String dataTablesVersion = readRawString(buffer);
+
+        return new CacheFingerprint(sourceHash, sourceSize, parserVersion, dataTablesVersion);
+    }
+
+    private static String readRawString(
+            final ByteBuffer buffer) {
+        final int length = VarInts.readUnsigned(buffer);
+        if (length < 0 || length > buffer.remaining())
+            throw new IllegalArgumentException("String length out of bounds.");
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, UTF8);
+    }
+
+    private final ByteBuffer buffer;
+
+    private final String[] strings;
+
+    private final LogDataHolder logData = new LogDataHolder(true);
+
+    private final Stack<FamiliarChange> familiarStack = Stack.newStack();
+
+    private final Stack<EquipmentChange> equipmentStack = Stack.newStack();
+
+    private BinaryLogReader(
+            final ByteBuffer buffer) {
+        if (buffer == null)
+            throw new NullPointerException("The buffer must not be null.");
+
+        this.buffer = buffer;
+
+        strings = new String[readCount()];
+        for (int i = 0; i < strings.length; i++)
+            strings[i] = readRawString(buffer);
+
+        logData.setMafiaTurnIteration(false);
+        familiarStack.push(FamiliarChange.NO_FAMILIAR);
+        equipmentStack.push(EquipmentChange.NO_EQUIPMENT);
+    }
+
+    private LogDataHolder parseLog() {
+        final String characterName = readString();
+        final String startDate = readString();
+        logData.setCharacterClass(readString());
+        logData.setGameMode(GameMode.fromString(readString()));
+        logData.setAscensionPath(AscensionPath.fromString(readString()));
+        logData.setLogName(characterName + "-" + startDate);
+
+        parseTurnRundown();
+        parseDayChanges();
+        parseLevels();
+        parsePlayerSnapshots();
+        parsePulls();
+        for (final DataNumberPair<String> dnp : parseCombats())
+            logData.addHuntedCombat(dnp);
+        for (final DataNumberPair<String> dnp : parseCombats())
+            logData.addLostCombat(dnp);
+
+        // Create the familiar and equipment change lists from the logged turns.
+        final List<FamiliarChange> famChanges = Lists.newArrayList(logData.getLastTurnSpent()
+                .getTurnNumber());
+        final List<EquipmentChange> equipChanges = Lists.newArrayList(logData.getLastTurnSpent()
+                .getTurnNumber());
+        for (final SingleTurn st : logData.getTurnsSpent()) {
+            famChanges.add(st.getUsedFamiliar());
+            equipChanges.add(st.getUsedEquipment());
+        }
+        logData.setFamiliarChanges(famChanges);
+        logData.setEquipmentChanges(equipChanges);
+
+        logData.createLogSummary();
+
+        return logData;
+    }
+
+    private void parseTurnRundown() {
+        final int intervalCount = readCount();
+        for (int i = 0; i < intervalCount; i++) {
+            final String areaName = readString();
+
+            final int encounterCount = readCount();
+            for (int j = 0; j < encounterCount; j++)
+                logData.addTurnSpent(parseTurn(areaName));
+
+            // The pre-interval notes aren't used by the XML reader either, the
+            // post-interval notes end up with the last turn of the interval.
+            readNotes();
+            logData.getLastTurnSpent().setNotes(readNotes());
+        }
+    }
+
+    private SingleTurn parseTurn(
+            final String area) {
+        final int turnNumber = readInt();
+        final TurnVersion turnVersion = TurnVersion.fromString(readString());
+        final String areaName = readText(area);
+        final String encounterName = readText("");
+        final int dayNumber = readInt();
+
+        final String familiarName = readString();
+        final FamiliarChange familiar;
+        final FamiliarChange oldFamiliar = familiarStack.peek().get();
+        if (!familiarName.equals(oldFamiliar.getFamiliarName())) {
+            familiar = new FamiliarChange(familiarName, turnNumber > 0 ? turnNumber - 1 : 0);
+            if (oldFamiliar.getTurnNumber() != familiar.getTurnNumber())
+                familiarStack.push(familiar);
+        } else
+            familiar = oldFamiliar;
+
+        final int turnNo = turnNumber > 0 ? turnNumber - 1 : 0;
+        final EquipmentChange currentEquipment = new EquipmentChange(turnNo,
+                readString(),
+                readString(),
+                readString(),
+                readString(),
+                readString(),
+                readString(),
+                readString(),
+                readString(),
+                readString());
+        final EquipmentChange equipment;
+        final EquipmentChange oldEquipment = equipmentStack.peek().get();
+        if (!currentEquipment.equalsIgnoreTurn(oldEquipment)) {
+            equipment = currentEquipment;
+            if (oldEquipment.getTurnNumber() != turnNo)
+                equipmentStack.push(currentEquipment);
+        } else
+            equipment = oldEquipment;
+
+        final Statgain statgains = readStatgain();
+        final MeatGain meatgains = readMeatgain();
+        final MPGain mpgains = readMPGain();
+        final boolean isDisintegrated = readCount() != 0;
+        final int freeRunaways = readInt();
+
+        final int itemCount = readCount();
+        final List<Item> itemDrops = Lists.newArrayList(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            final String name = readString();
+            itemDrops.add(new Item(name, readInt(), turnNumber));
+        }
+
+        final int skillCount = readCount();
+        final List<Skill> skills = Lists.newArrayList(skillCount);
+        for (int i = 0; i < skillCount; i++) {
+            final Skill skill = new Skill(readString(), turnNumber);
+            skill.setCasts(readInt(), 0);
+            skill.setMpCost(readInt());
+            skills.add(skill);
+        }
+
+        final int consumableCount = readCount();
+        final List<Consumable> consumables = Lists.newArrayList(consumableCount);
+        for (int i = 0; i < consumableCount; i++)
+            consumables.add(parseConsumable(turnNumber));
+
+        final SingleTurn turn = new SingleTurn(areaName,
+                encounterName,
+                turnNumber,
+                dayNumber,
+                equipment,
+                familiar);
+        turn.setDroppedItems(itemDrops);
+        turn.setSkillsCast(skills);
+        turn.setConsumablesUsed(consumables);
+        turn.setTurnVersion(turnVersion);
+        turn.setStatGain(statgains);
+        turn.setMeat(meatgains);
+        turn.setMPGain(mpgains);
+        turn.setDisintegrated(isDisintegrated);
+        turn.setFreeRunaways(freeRunaways);
+
+        return turn;
+    }
+
+    private Consumable parseConsumable(
+            final int turnNumber) {
+        final String name = readString();
+        final int amount = readInt();
+        final ConsumableVersion consumableVersion = ConsumableVersion.fromString(readString());
+        final int adventureGain = readInt();
+        final Statgain stats = readStatgain();
+        final int consumedOnDay = readInt();
+
+        final Consumable consumable;
+        switch (consumableVersion) {
+        case FOOD:
+            consumable = Consumable.newFoodConsumable(name, adventureGain, amount, turnNumber);
+            break;
+        case BOOZE:
+            consumable = Consumable.newBoozeConsumable(name, adventureGain, amount, turnNumber);
+            break;
+        case SPLEEN:
+            consumable = Consumable.newSpleenConsumable(name, adventureGain, amount, turnNumber);
+            break;
+        default:
+            consumable = Consumable.newOtherConsumable(name, adventureGain, amount, turnNumber);
+            break;
+        }
+        consumable.setDayNumberOfUsage(consumedOnDay);
+        consumable.setStatGain(stats);
+
+        return consumable;
+    }
+
+    private void parseDayChanges() {
+        final int dayCount = readCount();
+        for (int i = 0; i < dayCount; i++) {
+            final int dayNumber = readInt();
+            final DayChange dayChange = new DayChange(dayNumber, readInt());
+            logData.addDayChange(dayChange);
+
+            final HeaderFooterComment dayComments = logData.getHeaderFooterComment(dayChange);
+            dayComments.setHeaderComments(readNotes());
+            dayComments.setFooterComments(readNotes());
+        }
+    }
+
+    private void parseLevels() {
+        final int levelCount = readCount();
+        for (int i = 0; i < levelCount; i++) {
+            final int levelNumber = readInt();
+            final LevelData level = new LevelData(levelNumber, readInt());
+            level.setCombatTurns(readInt());
+            level.setNoncombatTurns(readInt());
+            level.setOtherTurns(readInt());
+            level.setStatsAtLevelReached(readStatgain());
+            level.setStatGainPerTurn(Double.longBitsToDouble(buffer.getLong()));
+
+            logData.addLevel(level);
+        }
+    }
+
+    private void parsePlayerSnapshots() {
+        final int snapshotCount = readCount();
+        for (int i = 0; i < snapshotCount; i++) {
+            final int turnNumber = readInt();
+            final Statgain stats = readStatgain();
+            final int adventuresLeft = readInt();
+            final int currentMeat = readInt();
+
+            logData.addPlayerSnapshot(new PlayerSnapshot(stats,
+                    adventuresLeft,
+                    currentMeat,
+                    turnNumber));
+        }
+    }
+
+    private void parsePulls() {
+        final int pullCount = readCount();
+        for (int i = 0; i < pullCount; i++) {
+            final int dayNumber = readInt();
+            final int turnNumber = readInt();
+            final String itemName = readString();
+
+            logData.addPull(new Pull(itemName, readInt(), turnNumber, dayNumber));
+        }
+    }
+
+    private List<DataNumberPair<String>> parseCombats() {
+        final int combatCount = readCount();
+        final List<DataNumberPair<String>> combats = Lists.newArrayList(combatCount);
+        for (int i = 0; i < combatCount; i++) {
+            final String name = readString();
+            combats.add(DataNumberPair.of(name, readInt()));
+        }
+
+        return combats;
+    }
+
+    private Statgain readStatgain() {
+        final int muscle = readInt();
+        final int myst = readInt();
+        final int moxie = readInt();
+
+        final boolean isNonZero = muscle != 0 || myst != 0 || moxie != 0;
+
+        return isNonZero ? new Statgain(muscle, myst, moxie) : Statgain.NO_STATS;
+    }
+
+    private MeatGain readMeatgain() {
+        final int insideEncounter = readInt();
+        final int other = readInt();
+        final int meatSpent = readInt();
+
+        final boolean isNonZero = insideEncounter != 0 || other != 0 || meatSpent != 0;
+
+        return isNonZero ? new MeatGain(insideEncounter, other, meatSpent) : MeatGain.NO_MEAT;
+    }
+
+    private MPGain readMPGain() {
+        final int insideEncounter = readInt();
+        final int starfish = readInt();
+        final int resting = readInt();
+        final int other = readInt();
+        final int consumable = readInt();
+
+        final boolean isNonZero = insideEncounter != 0 || starfish != 0 || resting != 0
+                || other != 0 || consumable != 0;
+
+        return isNonZero ? new MPGain(insideEncounter, starfish, resting, other, consumable)
+        : MPGain.NO_MP;
+    }
+
+    /**
+     * Reads a string which is replaced by the given default if it only
+     * consists of whitespace, the same way the XML reader handles its text
+     * nodes.
+     */
+    private String readText(
+            final String defaultText) {
+        final String text = readString();
+
+        return text.trim().length() > 0 ? text : defaultText;
+    }
+
+    private String readNotes() {
+        return readText("");
+    }
+
+    private String readString() {
+        final int index = VarInts.readUnsigned(buffer);
+        if (index < 0 || index >= strings.length)
+            throw new IllegalArgumentException("String index out of bounds.");
+
+        return strings[index];
+    }
+
+    private int readInt() {
+        return VarInts.readSigned(buffer);
+    }
+
+    private int readCount() {
+        final int count = VarInts.readUnsigned(buffer);
+        if (count < 0 || count > buffer.remaining())
+            throw new IllegalArgumentException("Count out of bounds.");
+
+        return count;
+    }
+}
@@ -0,0 +1,99 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.creator.util;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A writer which drops all non-ASCII characters on their way to the underlying
+ * writer, the streaming counterpart of removing all matches of
+ * {@link com.googlecode.alv.parser.UsefulPatterns#NON_ASCII} from a finished
+ * string.
+ * <p>
+ * Runs of ASCII characters are passed on in one piece, so wrapping a buffered
+ * writer doesn't add noticeable overhead.
+ */
+public final class NonAsciiFilterWriter extends FilterWriter {
+    private static final char LAST_ASCII_CHARACTER = 0x7F;
+
+    /**
+     * @param out The writer to which all ASCII characters are written.
+     */
+    public NonAsciiFilterWriter(
+            final Writer out) {
+
+        super(out);
+    }
+
+    @Override
+    public void write(
+            final int c)
+            throws IOException {
+
+        if (c <= LAST_ASCII_CHARACTER) {
+            out.write(c);
+        }
+    }
+
+    @Override
+    public void write(
+            final char[] cbuf, final int off, final int len)
+            throws IOException {
+
+        int runStart = off;
+        for (int i = off; i < off + len; i++) {
+            if (cbuf[i] > LAST_ASCII_CHARACTER) {
+                if (i > runStart) {
+                    out.write(cbuf, runStart, i - runStart);
+                }
+                runStart = i + 1;
+            }
+        }
+        if (off + len > runStart) {
+            out.write(cbuf, runStart, off + len - runStart);
+        }
+    }
+
+    @Override
+    public void write(
+            final String str, final int off, final int len)
+            throws IOException {
+
+        int runStart = off;
+        for (int i = off; i < off + len; i++) {
+            if (str.charAt(i) > LAST_ASCII_CHARACTER) {
+                if (i > runStart) {
+                    out.write(str, runStart, i - runStart);
+                }
+                runStart = i + 1;
+            }
+        }
+        if (off + len > runStart) {
+            out.write(str, runStart, off + len - runStart);
+        }
+    }
+}
@@ -25,6 +25,7 @@
 package com.googlecode.alv.creator.util;
 
 import com.googlecode.alv.logdata.Item;
+import com.googlecode.alv.logdata.summary.AreaTurncounts;
 import com.googlecode.alv.logdata.turn.SingleTurn;
 import com.googlecode.alv.logdata.turn.TurnInterval;
 import com.googlecode.alv.logdata.turn.TurnVersion;
@@ -55,35 +56,64 @@ final public class SpookyravenPowerleveling {
             throw new NullPointerException("The turns collection must not be null.");
 
         for (final TurnInterval ti : turns) {
-            if (ti.getAreaName().equals("Haunted Ballroom")) {
-                ballroomTurns += ti.getTotalTurns();
-                for (final Item i : ti.getDroppedItems())
-                    if (i.getName().equals("dance card"))
-                        danceCards += i.getAmount();
-                for (final SingleTurn st : ti.getTurns())
-                    if (st.getTurnVersion() == TurnVersion.NONCOMBAT
-                        && st.getEncounterName().equals("Curtains"))
-                        ballStatNoncom++;
-                    else if (st.getTurnVersion() == TurnVersion.COMBAT
-                             && st.getEncounterName().equals("zombie waltzers"))
-                        zombieWaltzers++;
-
-            } else if (ti.getAreaName().equals("Haunted Gallery")) {
-                galleryTurns += ti.getTotalTurns();
-                for (final SingleTurn st : ti.getTurns())
-                    if (st.getTurnVersion() == TurnVersion.NONCOMBAT
-                        && st.getEncounterName().startsWith("Louvre It or Leave It"))
-                        louvre++;
-
-            } else if (ti.getAreaName().equals("Haunted Bathroom")) {
-                bathroomTurns += ti.getTotalTurns();
-                for (final SingleTurn st : ti.getTurns())
-                    if (st.getTurnVersion() == TurnVersion.NONCOMBAT)
-                        bathNoncom++;
-            }
+            if (ti.getAreaName().equals("Haunted Ballroom"))
+                addBallroomInterval(ti);
+            else if (ti.getAreaName().equals("Haunted Gallery"))
+                addGalleryInterval(ti);
+            else if (ti.getAreaName().equals("Haunted Bathroom"))
+                addBathroomInterval(ti);
         }
     }
 
+    /**
+     * Only looks at the turn intervals of the Spookyraven areas instead of
+     * the whole turn rundown.
+     */
+    public SpookyravenPowerleveling(final AreaTurncounts areas)
+    {
+        if (areas == null)
+            throw new NullPointerException("The area turncounts must not be null.");
+
+        for (final TurnInterval ti : areas.getTurnIntervals("Haunted Ballroom"))
+            addBallroomInterval(ti);
+        for (final TurnInterval ti : areas.getTurnIntervals("Haunted Gallery"))
+            addGalleryInterval(ti);
+        for (final TurnInterval ti : areas.getTurnIntervals("Haunted Bathroom"))
+            addBathroomInterval(ti);
+    }
+
+    private void addBallroomInterval(final TurnInterval ti)
+    {
+        ballroomTurns += ti.getTotalTurns();
+        for (final Item i : ti.getDroppedItems())
+            if (i.getName().equals("dance card"))
+                danceCards += i.getAmount();
+        for (final SingleTurn st : ti.getTurns())
+            if (st.getTurnVersion() == TurnVersion.NONCOMBAT
+                && st.getEncounterName().equals("Curtains"))
+                ballStatNoncom++;
+            else if (st.getTurnVersion() == TurnVersion.COMBAT
+                     && st.getEncounterName().equals("zombie waltzers"))
+                zombieWaltzers++;
+    }
+
+    private void addGalleryInterval(final TurnInterval ti)
+    {
+        galleryTurns += ti.getTotalTurns();
+        for (final SingleTurn st : ti.getTurns())
+            if (st.getTurnVersion() == TurnVersion.NONCOMBAT
+                && st.getEncounterName().startsWith("Louvre It or Leave It"))
+                louvre++;
+    }
+
+    private void addBathroomInterval(final TurnInterval ti)
+    {
+        bathroomTurns += ti.getTotalTurns();
+        for (final SingleTurn st : ti.getTurns())
+            if (st.getTurnVersion() == TurnVersion.NONCOMBAT)
+                bathNoncom++;
+    }
+
     public int getBallroomTurns() 
     {
         return ballroomTurns;
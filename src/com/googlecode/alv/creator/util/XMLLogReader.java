@@ -24,14 +24,15 @@
 
 package com.googlecode.alv.creator.util;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -81,7 +82,9 @@ public final class XMLLogReader {
 
     /**
      * Returns a {@link LogDataHolder} object containing the data of the given
-     * ascension log XML file.
+     * ascension log XML file. Both plain and gzip compressed files (see
+     * {@link com.googlecode.alv.creator.XMLLogCreator.OutputMode}) are
+     * understood, regardless of their file extension.
      *
      * @param xmlLog
      *            The ascension log XML file which is supposed to be parsed.
@@ -104,8 +107,8 @@ public final class XMLLogReader {
 
         final InputStream in;
         try {
-            in = new FileInputStream(xmlLog);
-        } catch (final FileNotFoundException e) {
+            in = openXMLLog(xmlLog);
+        } catch (final IOException e) {
             e.printStackTrace();
             throw new FileAccessException("File stream could not be created.");
         }
@@ -133,8 +136,31 @@ public final class XMLLogReader {
         return logData;
     }
 
+    /**
+     * Opens a buffered stream of the XML content of the given file, which is
+     * decompressed on the fly if the file is gzip compressed.
+     */
+    private static InputStream openXMLLog(
+            final File xmlLog)
+                    throws IOException {
+        final InputStream in = new BufferedInputStream(new FileInputStream(xmlLog), 64 * 1024);
+        try {
+            in.mark(2);
+            final boolean isCompressed = in.read() == (GZIP_MAGIC & 0xFF)
+                    && in.read() == (GZIP_MAGIC >>> 8);
+            in.reset();
+
+            return isCompressed ? new GZIPInputStream(in, 64 * 1024) : in;
+        } catch (final IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
     private static final Pattern LINEBREAK_FINDER = Pattern.compile("\\{n\\}");
 
+    private static final int GZIP_MAGIC = GZIPInputStream.GZIP_MAGIC;
+
     private final XMLStreamReader parser;
 
     private final LogDataHolder logData = new LogDataHolder(true);
@@ -52,6 +52,7 @@ import org.jfree.ui.RefineryUtilities;
 
 import com.googlecode.alv.LogsProcessor;
 import com.googlecode.alv.Settings;
+import com.googlecode.alv.creator.JSONLogCreator;
 import com.googlecode.alv.creator.TextLogCreator;
 import com.googlecode.alv.creator.XMLLogCreator;
 import com.googlecode.alv.creator.util.FileAccessException;
@@ -159,10 +160,12 @@ public final class ExportDialog extends JDialog {
                     filePath += File.separator;
                 }
 
-                if (logVersion != LogOutputFormat.XML_LOG) {
-                    saveTextualLog(filePath, logVersion);
-                } else {
+                if (logVersion == LogOutputFormat.XML_LOG) {
                     saveXMLLog(filePath, logVersion);
+                } else if (logVersion == LogOutputFormat.JSON_LOG) {
+                    saveJSONLog(filePath);
+                } else {
+                    saveTextualLog(filePath, logVersion);
                 }
                 logData.setEdited(false);
 
@@ -238,27 +241,34 @@ public final class ExportDialog extends JDialog {
         final JRadioButton htmlButton = new JRadioButton("HTML", false);
         final JRadioButton bbcodeButton = new JRadioButton("BBCode", false);
         final JRadioButton xmlButton = new JRadioButton("XML", false);
+        final JRadioButton jsonButton = new JRadioButton("JSON", false);
         final ButtonGroup group = new ButtonGroup();
         group.add(textButton);
         group.add(htmlButton);
         group.add(bbcodeButton);
         group.add(xmlButton);
+        group.add(jsonButton);
 
         final ActionListener listener = new ActionListener() {
             @Override
             public void actionPerformed(
                     final ActionEvent e) {
 
-                previewArea.setEnabled(true);
                 if (htmlButton.isSelected()) {
-                    previewArea.setText(
-                            TextLogCreator.getTextualLog(logData, LogOutputFormat.HTML_LOG));
+                    logVersion = LogOutputFormat.HTML_LOG;
                 } else if (bbcodeButton.isSelected()) {
-                    previewArea.setText(
-                            TextLogCreator.getTextualLog(logData, LogOutputFormat.BBCODE_LOG));
+                    logVersion = LogOutputFormat.BBCODE_LOG;
+                } else if (jsonButton.isSelected()) {
+                    logVersion = LogOutputFormat.JSON_LOG;
+                } else {
+                    logVersion = LogOutputFormat.TEXT_LOG;
+                }
+
+                previewArea.setEnabled(true);
+                if (logVersion == LogOutputFormat.JSON_LOG) {
+                    previewArea.setText(JSONLogCreator.getJSONLog(logData));
                 } else {
-                    previewArea.setText(
-                            TextLogCreator.getTextualLog(logData, LogOutputFormat.TEXT_LOG));
+                    previewArea.setText(TextLogCreator.getTextualLog(logData, logVersion));
                 }
                 previewArea.setCaretPosition(0);
             }
@@ -266,6 +276,7 @@ public final class ExportDialog extends JDialog {
         textButton.addActionListener(listener);
         htmlButton.addActionListener(listener);
         bbcodeButton.addActionListener(listener);
+        jsonButton.addActionListener(listener);
         xmlButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(
@@ -282,6 +293,7 @@ public final class ExportDialog extends JDialog {
         buttonPanel.add(htmlButton);
         buttonPanel.add(bbcodeButton);
         buttonPanel.add(xmlButton);
+        buttonPanel.add(jsonButton);
 
         final JScrollPane scrollPane = new JScrollPane(previewArea);
         previewArea.setWrapStyleWord(true);
@@ -304,6 +316,9 @@ public final class ExportDialog extends JDialog {
         case XML_LOG:
             xmlButton.doClick();
             break;
+        case JSON_LOG:
+            jsonButton.doClick();
+            break;
         }
 
         return panel;
@@ -360,4 +375,24 @@ public final class ExportDialog extends JDialog {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    private void saveJSONLog(
+            final String directoryPath) {
+
+        try {
+            final File logDest = new File(directoryPath);
+            if (!logDest.exists()) {
+                logDest.mkdir();
+            }
+
+            JSONLogCreator.createJSONLog(logData, logDest);
+
+            Settings.setString("Parsed logs saving location", directoryLocationField.getText());
+        } catch (final IOException e) {
+            JOptionPane.showMessageDialog(null,
+                    "A problem occurred while creating/writing to the file.", "Error occurred",
+                    JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        }
+    }
+}
@@ -40,7 +40,6 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.swing.BorderFactory;
@@ -74,7 +73,9 @@ import net.java.swingfx.waitwithstyle.PerformanceInfiniteProgressPanel;
  */
 public final class InternalMafiaLogParserDialog extends JDialog {
     public static final FilenameFilter MAFIA_LOG_FILTER = new FilenameFilter() {
-        private final Matcher mafiaLogMatcher = Pattern.compile(".*_\\d+\\.txt$").matcher("");
+        // A pattern instead of a shared matcher, so the filter can be used by
+        // several threads at once.
+        private final Pattern mafiaLogPattern = Pattern.compile(".*_\\d+\\.txt$");
 
         private final String preparsedLogPartialFileString = "_ascend";
 
@@ -83,7 +84,7 @@ public final class InternalMafiaLogParserDialog extends JDialog {
                 final File dir,
                 final String name) {
 
-            return mafiaLogMatcher.reset(name).matches()
+            return mafiaLogPattern.matcher(name).matches()
                     && !name.contains(preparsedLogPartialFileString);
         }
     };
@@ -37,11 +37,15 @@ import javax.swing.filechooser.FileFilter;
 
 import com.googlecode.alv.LogVisualizer;
 import com.googlecode.alv.Settings;
+import com.googlecode.alv.creator.BinaryLogCreator;
+import com.googlecode.alv.creator.XMLLogCreator;
 import com.googlecode.alv.gui.MafiaLogsVisualizerDialog.AscensionLogLoaderListener;
 import com.googlecode.alv.gui.datatable.DataTablesEditor;
 import com.googlecode.alv.gui.notetaker.Notetaker;
 import com.googlecode.alv.gui.project.ProjectUpdateViewer;
+import com.googlecode.alv.gui.search.SearchDialogs;
 import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.util.CacheWarmer;
 import com.googlecode.alv.util.LogOutputFormat;
 import com.googlecode.alv.util.Constants;
 import com.googlecode.alv.util.data.DataTablesHandler;
@@ -54,7 +58,8 @@ public final class LogVisualizerGUI extends JFrame {
         public boolean accept(
                               final File f) {
             return f.isDirectory() || f.getName().toLowerCase().endsWith(".txt")
-                   || f.getName().toLowerCase().endsWith(".xml");
+                   || f.getName().toLowerCase().endsWith(XMLLogCreator.FILE_EXTENSION)
+                   || f.getName().toLowerCase().endsWith(XMLLogCreator.COMPRESSED_FILE_EXTENSION);
         }
 
         @Override
@@ -126,6 +131,18 @@ public final class LogVisualizerGUI extends JFrame {
                                            showNonASCIIInLogsMenu.isSelected());
             }
         });
+        final JCheckBoxMenuItem cacheWarmingMenu = new JCheckBoxMenuItem("Keep log cache up to date in background",
+                                                                         Settings.getBoolean("Warm log cache"));
+        cacheWarmingMenu.addItemListener(new ItemListener() {
+            public void itemStateChanged(
+                                         final ItemEvent e) {
+                Settings.setBoolean("Warm log cache", cacheWarmingMenu.isSelected());
+                if (cacheWarmingMenu.isSelected())
+                    CacheWarmer.WARMER.start(new File(Settings.getString("Mafia logs location")));
+                else
+                    CacheWarmer.WARMER.cancel();
+            }
+        });
 
         fileMenu.add(new AbstractAction("Parse mafia logs") {
             public void actionPerformed(
@@ -146,7 +163,10 @@ public final class LogVisualizerGUI extends JFrame {
                                               new AscensionLogLoaderListener() {
                                                   public void visualizeAscensionLog(
                                                                                     final File logFile) {
-                                                      if (logFile.getName().endsWith(".xml"))
+                                                      if (logFile.getName().endsWith(BinaryLogCreator.FILE_EXTENSION))
+                                                          logLoaderlistener.loadCachedLog(logFile);
+                                                      else if (logFile.getName().endsWith(XMLLogCreator.FILE_EXTENSION)
+                                                               || logFile.getName().endsWith(XMLLogCreator.COMPRESSED_FILE_EXTENSION))
                                                           logLoaderlistener.loadXMLLog(logFile);
                                                       else
                                                           logLoaderlistener.loadMafiaLog(logFile);
@@ -196,6 +216,7 @@ public final class LogVisualizerGUI extends JFrame {
         fileMenu.add(ascensionCountingMenu);
         fileMenu.add(mafiaNotesParsingMenu);
         fileMenu.add(showNonASCIIInLogsMenu);
+        fileMenu.add(cacheWarmingMenu);
         fileMenu.addSeparator();
         fileMenu.add(new AbstractAction("Exit") {
             public void actionPerformed(
@@ -228,6 +249,12 @@ public final class LogVisualizerGUI extends JFrame {
                     new DetailedLogViewer(((LogGUI) logsPane.getSelectedComponent()).getLogData());
             }
         });
+        extraMenu.add(new AbstractAction("Search all ascensions") {
+            public void actionPerformed(
+                                        final ActionEvent arg0) {
+                SearchDialogs.showAscensionSearchDialog(LogVisualizerGUI.this, logLoaderlistener);
+            }
+        });
         extraMenu.addSeparator();
         extraMenu.add(new AbstractAction("Look&Feel changer") {
             public void actionPerformed(
@@ -376,6 +403,14 @@ public final class LogVisualizerGUI extends JFrame {
         public void loadXMLLog(
                                File file);
 
+        /**
+         * @param file
+         *            A cached ascension log, see
+         *            {@link com.googlecode.alv.util.LogsCache}.
+         */
+        public void loadCachedLog(
+                                  File file);
+
         /**
          * @param file
          *            A preparsed ascension log.
@@ -70,10 +70,11 @@ import org.jfree.ui.RefineryUtilities;
 
 import com.googlecode.alv.LogsProcessor;
 import com.googlecode.alv.Settings;
-import com.googlecode.alv.creator.XMLLogCreator;
-import com.googlecode.alv.creator.util.XMLLogReader;
+import com.googlecode.alv.creator.BinaryLogCreator;
+import com.googlecode.alv.creator.util.BinaryLogReader;
 import com.googlecode.alv.logdata.turn.Encounter;
 import com.googlecode.alv.parser.UsefulPatterns;
+import com.googlecode.alv.util.CacheManifest;
 import com.googlecode.alv.util.Constants;
 import com.googlecode.alv.util.Lists;
 import com.googlecode.alv.util.LogsCache;
@@ -86,10 +87,10 @@ import net.java.swingfx.waitwithstyle.PerformanceInfiniteProgressPanel;
  * first turn them into parsed ascension logs.
  * <p>
  * This class gives controls to select mafia logs for visualisation and uses a
- * caching mechanism based on the Ascension Log XML format (see
- * {@link XMLLogCreator} and {@link XMLLogReader}) in the background to make
- * future calls faster. As such, logs to be visualised are in the Ascension Log
- * XML format and are delegated from this class through the
+ * caching mechanism based on a compact binary log format (see
+ * {@link BinaryLogCreator} and {@link BinaryLogReader}) in the background to
+ * make future calls faster. As such, logs to be visualised are cached binary
+ * log files and are delegated from this class through the
  * {@link AscensionLogLoaderListener} instance which is needed for the
  * constructor.
  * <p>
@@ -114,15 +115,17 @@ final class MafiaLogsVisualizerDialog extends JDialog {
      */
     private static final class AscensionLogsTableModel extends AbstractTableModel {
         private static final String[] columnNames = {
-                "Mafia log", "Should be visualized?"
+                "Mafia log", "Path", "Class", "Turns", "Days", "Should be visualized?"
         };
 
-        private List<File> ascensionLogs;
+        private static final int VISUALIZE_COLUMN = 5;
+
+        private List<CacheManifest.Entry> ascensionLogs;
 
         private List<Boolean> visualizables;
 
         AscensionLogsTableModel(
-                final Collection<File> ascensionLogs) {
+                final Collection<CacheManifest.Entry> ascensionLogs) {
 
             this.ascensionLogs = Lists.newArrayList(ascensionLogs);
             visualizables = Lists.newArrayList(ascensionLogs.size() + 1);
@@ -135,8 +138,10 @@ final class MafiaLogsVisualizerDialog extends JDialog {
         public Class<?> getColumnClass(
                 final int columnIndex) {
 
-            if (columnIndex == 1) {
+            if (columnIndex == VISUALIZE_COLUMN) {
                 return Boolean.class;
+            } else if (columnIndex == 3 || columnIndex == 4) {
+                return Integer.class;
             }
 
             return String.class;
@@ -157,8 +162,21 @@ final class MafiaLogsVisualizerDialog extends JDialog {
                 final int rowIndex,
                 final int columnIndex) {
 
-            return columnIndex == 0 ? ascensionLogs.get(rowIndex).getName().replace(".xml", "")
-                    : visualizables.get(rowIndex);
+            final CacheManifest.Entry entry = ascensionLogs.get(rowIndex);
+            switch (columnIndex) {
+            case 0:
+                return entry.getLogName();
+            case 1:
+                return entry.getAscensionPath();
+            case 2:
+                return entry.getCharacterClass();
+            case 3:
+                return entry.getTurns();
+            case 4:
+                return entry.getDays();
+            default:
+                return visualizables.get(rowIndex);
+            }
         }
 
         /**
@@ -170,7 +188,7 @@ final class MafiaLogsVisualizerDialog extends JDialog {
 
             for (int i = 0; i < visualizables.size(); i++) {
                 if (visualizables.get(i)) {
-                    visualizableMafiaLogs.add(ascensionLogs.get(i));
+                    visualizableMafiaLogs.add(ascensionLogs.get(i).getFile());
                 }
             }
 
@@ -182,7 +200,7 @@ final class MafiaLogsVisualizerDialog extends JDialog {
                 final int rowIndex,
                 final int columnIndex) {
 
-            return columnIndex == 1;
+            return columnIndex == VISUALIZE_COLUMN;
         }
 
         /**
@@ -198,10 +216,11 @@ final class MafiaLogsVisualizerDialog extends JDialog {
          * Sets the contents of this model to the given collection of detailed ascension
          * logs.
          *
-         * @param ascensionLogs A collection of detailed ascension logs.
+         * @param ascensionLogs The cache manifest entries of a collection of detailed
+         *                      ascension logs.
          */
         void setAscensionLogs(
-                final Collection<File> ascensionLogs) {
+                final Collection<CacheManifest.Entry> ascensionLogs) {
 
             this.ascensionLogs = Lists.newArrayList(ascensionLogs);
             visualizables = Lists.newArrayList(ascensionLogs.size());
@@ -329,7 +348,7 @@ final class MafiaLogsVisualizerDialog extends JDialog {
         }
     };
 
-    private static final List<File> EMPTY_MAFIA_LOGS_LIST = Collections.emptyList();
+    private static final List<CacheManifest.Entry> EMPTY_MAFIA_LOGS_LIST = Collections.emptyList();
 
     private final TaskQueue taskQueue = new TaskQueue();
 
@@ -393,11 +412,10 @@ final class MafiaLogsVisualizerDialog extends JDialog {
             public void actionPerformed(
                     final ActionEvent e) {
 
-                logsCache.deleteCache();
-                createAscensionLogsTable();
+                createAscensionLogsTable(true);
             }
         });
-        createAscensionLogsTable();
+        createAscensionLogsTable(false);
 
         final JButton runButton = new JButton("Run parser");
         final JButton cancelButton = new JButton("Cancel");
@@ -456,7 +474,17 @@ final class MafiaLogsVisualizerDialog extends JDialog {
         setVisible(true);
     }
 
-    private void createAscensionLogsTable() {
+    /**
+     * Fills the ascension logs table from the logs cache after bringing it up to
+     * date with the mafia logs directory.
+     *
+     * @param refreshAll {@code true} if all mafia logs should be checked against
+     *                   the cache, {@code false} if only the last cached
+     *                   ascension of every character and those following it
+     *                   should be checked.
+     */
+    private void createAscensionLogsTable(
+            final boolean refreshAll) {
 
         final File mafiaLogsDirectory = new File(mafiaLogsDirectoryField.getText());
         if (!mafiaLogsDirectory.exists() || !mafiaLogsDirectory.isDirectory()) {
@@ -494,7 +522,7 @@ final class MafiaLogsVisualizerDialog extends JDialog {
             public void run() {
 
                 try {
-                    createDataTable(mafiaLogs);
+                    createDataTable(mafiaLogs, refreshAll);
                 } catch (final IOException e) {
                     e.printStackTrace();
                     EventQueue.invokeLater(new Runnable() {
@@ -564,8 +592,7 @@ final class MafiaLogsVisualizerDialog extends JDialog {
             public void actionPerformed(
                     final ActionEvent e) {
 
-                logsCache.deleteCache();
-                createAscensionLogsTable();
+                createAscensionLogsTable(true);
             }
         });
 
@@ -573,19 +600,21 @@ final class MafiaLogsVisualizerDialog extends JDialog {
     }
 
     private void createDataTable(
-            final File[] mafiaLogs)
+            final File[] mafiaLogs,
+            final boolean refreshAll)
             throws IOException {
 
         Arrays.sort(mafiaLogs, LogsCache.FILE_COMPARATOR);
 
         final List<Pair<String, Encounter>> errorFileList;
 
-        // If the cache is empty, we need to create all logs. Otherwise, we only
-        // need to re-parse the last cached ascension (in case more turns were
+        // If the cache is empty or should be refreshed, we need to check all logs,
+        // the cache will only re-parse those which actually changed. Otherwise, we
+        // only need to look at the last cached ascension (in case more turns were
         // played) and the ascensions that follow it.
-        if (logsCache.getLogsByCharacter().isEmpty()) {
+        if (refreshAll || logsCache.getLogsByCharacter().isEmpty()) {
             errorFileList = logsCache
-                    .createCache(LogsProcessor.createCondensedMafiaLogs(mafiaLogs));
+                    .refreshCache(LogsProcessor.createCondensedMafiaLogs(mafiaLogs));
         } else {
             final Map<String, List<File>> cachedLogs = logsCache.getLogsByCharacter();
             final List<Pair<String, String>> lastLogsCached = Lists.newArrayList(cachedLogs.size());
@@ -593,7 +622,7 @@ final class MafiaLogsVisualizerDialog extends JDialog {
                 final List<File> logs = cachedLogs.get(character);
                 final File lastLog = logs.get(logs.size() - 1);
 
-                lastLogsCached.add(Pair.of(character, lastLog.getName().replace(".xml", "")));
+                lastLogsCached.add(Pair.of(character, LogsCache.getLogName(lastLog)));
             }
 
             final List<File> logsToParse = Lists.newArrayList();
@@ -628,7 +657,7 @@ final class MafiaLogsVisualizerDialog extends JDialog {
             public void run() {
 
                 ((AscensionLogsTableModel) visualizableAscensionLogsTable.getModel())
-                        .setAscensionLogs(logsCache.getLogs());
+                        .setAscensionLogs(logsCache.getEntries());
                 toggleAllBox.setSelected(false);
 
                 // If there were error logs, give the user feedback on them.
@@ -681,8 +710,7 @@ final class MafiaLogsVisualizerDialog extends JDialog {
                 if (state == JFileChooser.APPROVE_OPTION) {
                     mafiaLogsDirectoryField
                             .setText(directoryChooser.getSelectedFile().getAbsolutePath());
-                    logsCache.deleteCache();
-                    createAscensionLogsTable();
+                    createAscensionLogsTable(true);
                 }
             }
         });
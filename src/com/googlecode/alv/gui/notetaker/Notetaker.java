@@ -46,6 +46,7 @@ import com.googlecode.alv.logdata.LogComment;
 import com.googlecode.alv.logdata.LogDataHolder;
 import com.googlecode.alv.logdata.turn.TurnInterval;
 import com.googlecode.alv.logdata.turn.action.DayChange;
+import com.googlecode.alv.util.LogDataCache;
 import com.googlecode.alv.util.LookAheadIterator;
 import com.googlecode.alv.util.Pair;
 
@@ -298,8 +299,12 @@ public final class Notetaker extends JFrame
     private void setLogEdited(final String currentComment, final LogComment matchingLogComment) 
     {
         if (!baseLog.isEdited())
-            if (!currentComment.equals(matchingLogComment.getComments()))
+            if (!currentComment.equals(matchingLogComment.getComments())) {
                 baseLog.setEdited(true);
+                // The notes aren't part of the log file until they are saved,
+                // so opening the file again has to read it again.
+                LogDataCache.CACHE.remove(baseLog);
+            }
     }
 
     /**
@@ -0,0 +1,302 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.gui.search;
+
+import java.awt.BorderLayout;
+import java.awt.EventQueue;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.*;
+
+import org.jfree.ui.RefineryUtilities;
+
+import com.googlecode.alv.gui.LogVisualizerGUI.LogLoaderListener;
+import com.googlecode.alv.util.CacheManifest;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.LogsCache;
+import com.googlecode.alv.util.Sets;
+import com.googlecode.alv.util.facts.FactQuery;
+import com.googlecode.alv.util.facts.FactStore;
+import com.googlecode.alv.util.facts.SearchField;
+import com.googlecode.alv.util.facts.TurnFact;
+
+/**
+ * A dialog to search the turns of all cached ascensions by the names of their
+ * areas, encounters, item drops, skill casts and consumables, see
+ * {@link FactStore#search(String, Set, FactQuery, FactStore.TurnFactHandler)}.
+ * <p>
+ * Searches run in the background, a newer search makes the results of older
+ * ones be dropped. Double-clicking a result opens its ascension.
+ */
+final class AscensionSearchDialog extends JDialog {
+    private static final long serialVersionUID = -8389747309378997136L;
+
+    private static final int MAX_DISPLAYED_RESULTS = 5000;
+
+    private static final String ALL_FIELDS = "Everything";
+
+    private final ExecutorService searcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(
+                                final Runnable r) {
+            final Thread thread = new Thread(r, "Ascension search");
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    });
+
+    private final AtomicInteger searchNumber = new AtomicInteger();
+
+    private final JList<SearchResult> resultsList = new JList<SearchResult>(new DefaultListModel<SearchResult>());
+
+    private final JLabel statusLabel = new JLabel(" ");
+
+    /**
+     * A single matching turn of an ascension.
+     */
+    private static final class SearchResult {
+        private final String logName;
+
+        private final String turnString;
+
+        SearchResult(
+                     final String logName, final String turnString) {
+            this.logName = logName;
+            this.turnString = turnString;
+        }
+
+        @Override
+        public String toString() {
+            return logName + ": " + turnString;
+        }
+    }
+
+    /**
+     * @param owner
+     *            The frame owning this dialog.
+     * @param listener
+     *            The listener which loads the cached log of a result.
+     * @throws NullPointerException
+     *             if listener is {@code null}
+     */
+    AscensionSearchDialog(
+                          final JFrame owner, final LogLoaderListener listener) {
+        super(owner, "Search All Ascensions", false);
+
+        if (listener == null)
+            throw new NullPointerException("The log loader listener must not be null.");
+
+        setLayout(new BorderLayout(0, 15));
+        add(createSearchFieldPanel(), BorderLayout.NORTH);
+        add(new JScrollPane(resultsList,
+                            JScrollPane.VERTICAL_SCROLLBAR_ALWAYS,
+                            JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        resultsList.setToolTipText("Double-click turn to open its ascension log");
+        resultsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultsList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(
+                                     final MouseEvent e) {
+                if (e.getClickCount() >= 2 && resultsList.getSelectedValue() != null) {
+                    final File cachedLog = getCachedLog(resultsList.getSelectedValue().logName);
+                    if (cachedLog != null)
+                        listener.loadCachedLog(cachedLog);
+                }
+            }
+        });
+
+        // Ascensions which were cached before the search index existed are
+        // added to it before the first search.
+        statusLabel.setText("Updating the search index...");
+        searcher.execute(new Runnable() {
+            public void run() {
+                FactStore.STORE.update();
+                final int ascensionCount = FactStore.STORE.getAscensionCount();
+                EventQueue.invokeLater(new Runnable() {
+                    public void run() {
+                        if (searchNumber.get() == 0)
+                            statusLabel.setText(ascensionCount + " cached ascensions can be searched.");
+                    }
+                });
+            }
+        });
+
+        setSize(800, 600);
+        RefineryUtilities.centerFrameOnScreen(this);
+        setVisible(true);
+    }
+
+    private JPanel createSearchFieldPanel() {
+        final JPanel searchFieldPanel = new JPanel(new GridBagLayout());
+        final JComboBox<Object> searchModeChooser = new JComboBox<Object>();
+        final JTextField searchField = new JTextField();
+        final JButton searchButton = new JButton("Search");
+
+        searchModeChooser.addItem(ALL_FIELDS);
+        for (final SearchField f : SearchField.values())
+            searchModeChooser.addItem(f);
+
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.gridx = 1;
+        gbc.gridy = 1;
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(10, 20, 0, 30);
+        searchFieldPanel.add(new JLabel("Search in:"), gbc);
+
+        gbc = new GridBagConstraints();
+        gbc.gridx = 2;
+        gbc.gridy = 1;
+        gbc.gridwidth = 2;
+        gbc.anchor = GridBagConstraints.EAST;
+        gbc.weightx = 1.0;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(10, 0, 0, 20);
+        searchFieldPanel.add(searchModeChooser, gbc);
+
+        gbc = new GridBagConstraints();
+        gbc.gridx = 1;
+        gbc.gridy = 2;
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.insets = new Insets(25, 20, 0, 30);
+        searchFieldPanel.add(new JLabel("Search words:"), gbc);
+
+        gbc = new GridBagConstraints();
+        gbc.gridx = 2;
+        gbc.gridy = 2;
+        gbc.anchor = GridBagConstraints.EAST;
+        gbc.weightx = 1.0;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(25, 0, 0, 10);
+        searchFieldPanel.add(searchField, gbc);
+
+        gbc = new GridBagConstraints();
+        gbc.gridx = 3;
+        gbc.gridy = 2;
+        gbc.anchor = GridBagConstraints.EAST;
+        gbc.insets = new Insets(25, 0, 0, 20);
+        searchFieldPanel.add(searchButton, gbc);
+
+        final ActionListener searchAction = new ActionListener() {
+            public void actionPerformed(
+                                        final ActionEvent e) {
+                final Object mode = searchModeChooser.getSelectedItem();
+                search(searchField.getText(),
+                       mode instanceof SearchField ? EnumSet.of((SearchField) mode)
+                                                  : EnumSet.allOf(SearchField.class));
+            }
+        };
+        searchField.addActionListener(searchAction);
+        searchButton.addActionListener(searchAction);
+
+        return searchFieldPanel;
+    }
+
+    /**
+     * Starts a search in the background and displays its results once it is
+     * done, unless another search was started in the meantime.
+     */
+    private void search(
+                        final String text, final Set<SearchField> fields) {
+        final int number = searchNumber.incrementAndGet();
+        statusLabel.setText("Searching...");
+
+        searcher.execute(new Runnable() {
+            public void run() {
+                if (number != searchNumber.get())
+                    return;
+
+                final List<SearchResult> results = Lists.newArrayList();
+                final Set<String> ascensions = Sets.newHashSet();
+                final int[] resultCount = new int[1];
+                final long start = System.currentTimeMillis();
+                FactStore.STORE.search(text, fields, FactQuery.ALL, new FactStore.TurnFactHandler() {
+                    public void handle(
+                                       final TurnFact fact) {
+                        final String logName = fact.getAscension().getLogName();
+                        ascensions.add(logName);
+                        if (resultCount[0]++ < MAX_DISPLAYED_RESULTS)
+                            results.add(new SearchResult(logName, fact.toString()));
+                    }
+                });
+                final long time = System.currentTimeMillis() - start;
+
+                EventQueue.invokeLater(new Runnable() {
+                    public void run() {
+                        if (number != searchNumber.get())
+                            return;
+
+                        // Filling a new model doesn't fire an event per result.
+                        final DefaultListModel<SearchResult> model = new DefaultListModel<SearchResult>();
+                        for (final SearchResult r : results)
+                            model.addElement(r);
+                        resultsList.setModel(model);
+
+                        statusLabel.setText("Found " + resultCount[0] + " turns in "
+                                            + ascensions.size() + " ascensions in " + time + " ms"
+                                            + (resultCount[0] > results.size() ? ", showing the first "
+                                                                                 + results.size()
+                                                                               : "")
+                                            + ".");
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return The cached log of the given ascension, or {@code null} if it isn't
+     *         cached anymore.
+     */
+    private static File getCachedLog(
+                                     final String logName) {
+        for (final CacheManifest.Entry entry : LogsCache.CACHE.getEntries())
+            if (entry.getLogName().equals(logName))
+                return entry.getFile();
+
+        return null;
+    }
+
+    @Override
+    public void dispose() {
+        searcher.shutdownNow();
+        super.dispose();
+    }
+}
@@ -26,6 +26,7 @@ package com.googlecode.alv.gui.search;
 
 import javax.swing.JFrame;
 
+import com.googlecode.alv.gui.LogVisualizerGUI.LogLoaderListener;
 import com.googlecode.alv.logdata.LogDataHolder;
 import com.googlecode.alv.logdata.turn.TurnInterval;
 
@@ -51,6 +52,21 @@ public final class SearchDialogs {
         return (TurnInterval) dialog.getSelectedTurn();
     }
 
+    /**
+     * Displays a search dialog for the turns of all cached ascensions. The
+     * dialog isn't modal, so this method returns right away.
+     * 
+     * @param owner
+     *            The Frame from which the dialog is displayed.
+     * @param listener
+     *            The listener which loads the cached log of a selected turn.
+     */
+    public static void showAscensionSearchDialog(
+                                                 final JFrame owner,
+                                                 final LogLoaderListener listener) {
+        new AscensionSearchDialog(owner, listener);
+    }
+
     /**
      * Displays a search dialog for single turns.
      * 
@@ -38,13 +38,20 @@ import com.googlecode.alv.util.Lists;
  * between search modes.
  */
 final class SearchStringMatchers {
+    /**
+     * Separates the names in search texts consisting of several names. Search
+     * strings are single lines, so they never match across names.
+     */
+    static final char NAME_SEPARATOR = '\n';
+
     /**
      * Matches turns based on their area name.
      */
     public static final SearchStringMatcher AREA_NAME_MATCHER = new SearchStringMatcher() {
-        public boolean matches(
-                               final TurnEntity t, final String searchString) {
-            return t.getAreaName().toLowerCase().contains(searchString);
+        @Override
+        String getSearchText(
+                             final TurnEntity t) {
+            return t.getAreaName().toLowerCase();
         }
 
         @Override
@@ -59,12 +66,13 @@ final class SearchStringMatchers {
      * implementations will return {@code false} at all times.
      */
     public static final SearchStringMatcher ENCOUNTER_NAME_MATCHER = new SearchStringMatcher() {
-        public boolean matches(
-                               final TurnEntity t, final String searchString) {
+        @Override
+        String getSearchText(
+                             final TurnEntity t) {
             if (t instanceof Encounter)
-                return ((Encounter) t).getEncounterName().toLowerCase().contains(searchString);
+                return ((Encounter) t).getEncounterName().toLowerCase();
             else
-                return false;
+                return null;
         }
 
         @Override
@@ -77,13 +85,14 @@ final class SearchStringMatchers {
      * Matches turns based on the names of their itemdrops.
      */
     public static final SearchStringMatcher ITEMDROP_NAME_MATCHER = new SearchStringMatcher() {
-        public boolean matches(
-                               final TurnEntity t, final String searchString) {
+        @Override
+        String getSearchText(
+                             final TurnEntity t) {
+            final StringBuilder str = new StringBuilder(50);
             for (final Item i : t.getDroppedItems())
-                if (i.getName().toLowerCase().contains(searchString))
-                    return true;
+                str.append(i.getName().toLowerCase()).append(NAME_SEPARATOR);
 
-            return false;
+            return str.toString();
         }
 
         @Override
@@ -96,13 +105,14 @@ final class SearchStringMatchers {
      * Matches turns based on the names of their skill casts.
      */
     public static final SearchStringMatcher SKILL_NAME_MATCHER = new SearchStringMatcher() {
-        public boolean matches(
-                               final TurnEntity t, final String searchString) {
+        @Override
+        String getSearchText(
+                             final TurnEntity t) {
+            final StringBuilder str = new StringBuilder(50);
             for (final Skill s : t.getSkillsCast())
-                if (s.getName().toLowerCase().contains(searchString))
-                    return true;
+                str.append(s.getName().toLowerCase()).append(NAME_SEPARATOR);
 
-            return false;
+            return str.toString();
         }
 
         @Override
@@ -115,13 +125,14 @@ final class SearchStringMatchers {
      * Matches turns based on the names of their consumable usages.
      */
     public static final SearchStringMatcher CONSUMABLE_NAME_MATCHER = new SearchStringMatcher() {
-        public boolean matches(
-                               final TurnEntity t, final String searchString) {
+        @Override
+        String getSearchText(
+                             final TurnEntity t) {
+            final StringBuilder str = new StringBuilder(50);
             for (final Consumable c : t.getConsumablesUsed())
-                if (c.getName().toLowerCase().contains(searchString))
-                    return true;
+                str.append(c.getName().toLowerCase()).append(NAME_SEPARATOR);
 
-            return false;
+            return str.toString();
         }
 
         @Override
@@ -130,6 +141,31 @@ final class SearchStringMatchers {
         }
     };
 
+    /**
+     * Matches turns based on their notes.
+     */
+    public static final SearchStringMatcher NOTES_MATCHER = new SearchStringMatcher() {
+        @Override
+        String getSearchText(
+                             final TurnEntity t) {
+            final String notes = t.getNotes();
+
+            return notes != null ? notes.toLowerCase() : null;
+        }
+
+        @Override
+        boolean isIndexable() {
+            // The Notetaker edits the notes of the turns in place, which an
+            // index built beforehand wouldn't see.
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "By Notes";
+        }
+    };
+
     /**
      * A read-only list of all existing search string matchers.
      */
@@ -137,10 +173,39 @@ final class SearchStringMatchers {
                                                                                    ENCOUNTER_NAME_MATCHER,
                                                                                    ITEMDROP_NAME_MATCHER,
                                                                                    SKILL_NAME_MATCHER,
-                                                                                   CONSUMABLE_NAME_MATCHER);
+                                                                                   CONSUMABLE_NAME_MATCHER,
+                                                                                   NOTES_MATCHER);
+
+    /**
+     * Matches turns whose search text contains the lowercased search string.
+     * The search text is also what {@link TurnSearchIndex} indexes, unless the
+     * matcher isn't indexable.
+     */
+    public abstract static class SearchStringMatcher {
+        /**
+         * @param e
+         *            The turn.
+         * @return The lowercased text of the given turn searched by this
+         *         matcher, with several names separated by
+         *         {@link SearchStringMatchers#NAME_SEPARATOR}, or {@code null}
+         *         if the turn has nothing to search.
+         */
+        abstract String getSearchText(
+                                      final TurnEntity e);
 
-    public interface SearchStringMatcher {
         boolean matches(
-                        final TurnEntity e, final String searchString);
+                        final TurnEntity e, final String searchString) {
+            final String searchText = getSearchText(e);
+
+            return searchText != null && searchText.contains(searchString);
+        }
+
+        /**
+         * @return True if the search text of a turn never changes, so that it
+         *         can be indexed by {@link TurnSearchIndex}.
+         */
+        boolean isIndexable() {
+            return true;
+        }
     }
 }
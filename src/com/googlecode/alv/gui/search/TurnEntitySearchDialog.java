@@ -30,12 +30,15 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.event.KeyAdapter;
-import java.awt.event.KeyEvent;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import org.jfree.ui.RefineryUtilities;
 
@@ -55,10 +58,29 @@ import com.googlecode.alv.util.Lists;
  * than through the {@link #createResultsPane()} method.
  */
 abstract class TurnEntitySearchDialog extends JDialog {
+    // The time in milliseconds the typing has to pause before a search starts.
+    private static final int SEARCH_DELAY = 150;
+
+    private static final int RESULT_BATCH_SIZE = 250;
+
     private final List<TurnContainer> turnList;
 
+    private final Future<TurnSearchIndex> searchIndex;
+
     private SearchStringMatcher searchMatcher;
 
+    private Timer searchTimer;
+
+    private SearchWorker currentSearch;
+
+    // The results of the last finished search, reused by searches for strings
+    // containing its search string.
+    private SearchStringMatcher lastMatcher;
+
+    private String lastSearchString;
+
+    private int[] lastResults;
+
     private TurnEntity selectedTurn;
 
     /**
@@ -104,6 +126,7 @@ abstract class TurnEntitySearchDialog extends JDialog {
         if (defaultMatcher == null)
             throw new NullPointerException("The default search string matcher must not be null.");
         turnList = createTurnList(logData);
+        searchIndex = TurnSearchIndex.getIndex(logData, getClass(), turnList);
         searchMatcher = defaultMatcher;
 
         setLayout(new BorderLayout(0, 15));
@@ -163,47 +186,187 @@ abstract class TurnEntitySearchDialog extends JDialog {
         searchModeChooser.addActionListener(new ActionListener() {
             public void actionPerformed(
                                         ActionEvent e) {
-                if (searchModeChooser.isFocusOwner())
+                if (searchModeChooser.isFocusOwner()) {
                     searchMatcher = (SearchStringMatcher) searchModeChooser.getSelectedItem();
+                    if (searchTimer != null)
+                        searchTimer.restart();
+                }
             }
         });
-        searchField.addKeyListener(new KeyAdapter() {
-            private final char SPACE = ' ';
-
-            @Override
-            public void keyTyped(
-                                 final KeyEvent e) {
-                final char key = e.getKeyChar();
-
-                // Adding a space does nothing for the search, so no action
-                // necessary.
-                if (key == SPACE)
-                    return;
-
-                // The last character isn't added to the text field yet, so we
-                // add it manually if it is valid.
-                final String searchString;
-                if (key != KeyEvent.CHAR_UNDEFINED)
-                    searchString = (searchField.getText() + key).trim().toLowerCase();
-                else
-                    searchString = searchField.getText().trim().toLowerCase();
-
-                final SearchStringMatcher matcher = searchMatcher;
-
-                // Populate the results display with valid turns.
-                clearResults();
-                final List<TurnContainer> newResults = Lists.newArrayList(50);
-                for (final TurnContainer tc : turnList)
-                    if (searchString.length() <= 0 || matcher.matches(tc.getTurn(), searchString))
-                        newResults.add(tc);
-
-                addResults(newResults);
+        // Searches only start once the typing pauses, so that fast typing
+        // doesn't start a search per character.
+        searchTimer = new Timer(SEARCH_DELAY, new ActionListener() {
+            public void actionPerformed(
+                                        final ActionEvent e) {
+                startSearch(searchMatcher, searchField.getText().trim().toLowerCase());
+            }
+        });
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(
+                                     final DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            public void removeUpdate(
+                                     final DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            public void changedUpdate(
+                                      final DocumentEvent e) {
+                searchTimer.restart();
             }
         });
 
         return searchFieldPanel;
     }
 
+    /**
+     * Cancels the running search, if any, and starts a search for the given
+     * string in the background. The results of the last finished search are
+     * reused if all turns matching the given string are among them.
+     */
+    private void startSearch(
+                             final SearchStringMatcher matcher, final String searchString) {
+        if (currentSearch != null) {
+            // Adding a space, for example, does nothing for the search.
+            if (currentSearch.matcher == matcher && currentSearch.searchString.equals(searchString))
+                return;
+
+            currentSearch.cancel(false);
+        }
+
+        final int[] candidates = lastResults != null && matcher == lastMatcher
+                                 && searchString.contains(lastSearchString) ? lastResults : null;
+
+        clearResults();
+        currentSearch = new SearchWorker(matcher, searchString, candidates);
+        currentSearch.execute();
+    }
+
+    @Override
+    public void dispose() {
+        if (searchTimer != null)
+            searchTimer.stop();
+        if (currentSearch != null)
+            currentSearch.cancel(false);
+
+        super.dispose();
+    }
+
+    /**
+     * Searches the turns in the background and streams the matching ones to
+     * the results display in batches. The search index is used once it is
+     * built, until then the turns are checked one by one.
+     */
+    private final class SearchWorker extends SwingWorker<int[], TurnContainer> {
+        private final SearchStringMatcher matcher;
+
+        private final String searchString;
+
+        private final int[] candidates;
+
+        /**
+         * @param candidates
+         *            The ascending positions of the turns to search, or
+         *            {@code null} to search all turns.
+         */
+        SearchWorker(
+                     final SearchStringMatcher matcher, final String searchString,
+                     final int[] candidates) {
+            this.matcher = matcher;
+            this.searchString = searchString;
+            this.candidates = candidates;
+        }
+
+        @Override
+        protected int[] doInBackground() {
+            final TurnSearchIndex index = getSearchIndex();
+            if (index != null && index.isIndexed(matcher)) {
+                final int[] results = candidates != null ? index.filter(matcher,
+                                                                        searchString,
+                                                                        candidates)
+                                                        : index.search(matcher, searchString);
+                for (int i = 0; i < results.length && !isCancelled(); i += RESULT_BATCH_SIZE) {
+                    final int end = Math.min(i + RESULT_BATCH_SIZE, results.length);
+                    final TurnContainer[] batch = new TurnContainer[end - i];
+                    for (int j = i; j < end; j++)
+                        batch[j - i] = turnList.get(results[j]);
+                    publish(batch);
+                }
+
+                return results;
+            }
+
+            final int turnCount = candidates != null ? candidates.length : turnList.size();
+            final int[] results = new int[turnCount];
+            int resultCount = 0;
+            final List<TurnContainer> batch = Lists.newArrayList(RESULT_BATCH_SIZE);
+            for (int i = 0; i < turnCount; i++) {
+                if (isCancelled())
+                    return null;
+
+                final int position = candidates != null ? candidates[i] : i;
+                final TurnContainer tc = turnList.get(position);
+                if (searchString.length() <= 0 || matcher.matches(tc.getTurn(), searchString)) {
+                    results[resultCount++] = position;
+                    batch.add(tc);
+                    if (batch.size() >= RESULT_BATCH_SIZE) {
+                        publish(batch.toArray(new TurnContainer[batch.size()]));
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty())
+                publish(batch.toArray(new TurnContainer[batch.size()]));
+
+            return Arrays.copyOf(results, resultCount);
+        }
+
+        /**
+         * @return The search index, or {@code null} if it isn't built yet.
+         */
+        private TurnSearchIndex getSearchIndex() {
+            if (searchIndex.isDone())
+                try {
+                    return searchIndex.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (final ExecutionException e) {
+                    // The index is merely an optimisation, so the search goes
+                    // on without it.
+                    e.printStackTrace();
+                }
+
+            return null;
+        }
+
+        @Override
+        protected void process(
+                               final List<TurnContainer> chunks) {
+            // Batches can still arrive after a newer search started.
+            if (this == currentSearch && !isCancelled())
+                addResults(chunks);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled())
+                return;
+
+            try {
+                lastResults = get();
+                lastMatcher = matcher;
+                lastSearchString = searchString;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     /**
      * Returns a read-only list of all turns that are used for the search in
      * this dialog.
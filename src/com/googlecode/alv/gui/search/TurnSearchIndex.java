@@ -0,0 +1,333 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.gui.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.googlecode.alv.gui.search.SearchStringMatchers.SearchStringMatcher;
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.logdata.turn.TurnEntity;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.Maps;
+
+/**
+ * An inverted index of the turns of a search dialog, so that searches don't
+ * have to look at every single turn.
+ * <p>
+ * For every indexable search mode in {@link SearchStringMatchers#MATCHERS},
+ * the index holds the search text of every turn and, for every trigram (three
+ * consecutive characters) of these texts, the sorted positions of the turns
+ * containing it. Search modes which aren't indexable, like the notes which can
+ * be edited while the log is open, have to be searched by a scan over the
+ * turns. A search string of at least three characters only has to
+ * intersect the postings of its trigrams and check the few remaining turns.
+ * Shorter search strings fall back to a scan over the already lowercased
+ * search texts.
+ * <p>
+ * Indices are built once per log and dialog type on a background thread, see
+ * {@link #getIndex(LogDataHolder, Class, List)}, and kept until the log data is
+ * garbage collected. They hold no references to the turns themselves, only
+ * their positions in the list they were built from.
+ */
+final class TurnSearchIndex {
+    private static final ExecutorService INDEX_BUILDER = Executors
+            .newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(
+                                        final Runnable r) {
+                    final Thread thread = new Thread(r, "Turn search index builder");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+
+                    return thread;
+                }
+            });
+
+    private static final Map<LogDataHolder, Map<Class<?>, Future<TurnSearchIndex>>> INDICES = new WeakHashMap<LogDataHolder, Map<Class<?>, Future<TurnSearchIndex>>>();
+
+    private static final int[] NO_TURNS = new int[0];
+
+    private static final Comparator<int[]> LENGTH_COMPARATOR = new Comparator<int[]>() {
+        public int compare(
+                           final int[] o1, final int[] o2) {
+            return Integer.compare(o1.length, o2.length);
+        }
+    };
+
+    private final int turnCount;
+
+    private final Map<SearchStringMatcher, Field> fields = new IdentityHashMap<SearchStringMatcher, Field>();
+
+    /**
+     * Returns the index of the given turns, which is built in the background if
+     * it doesn't exist yet. The turns have to be the same every time the same
+     * log data and dialog type are given.
+     * 
+     * @param logData
+     *            The log data the turns are from.
+     * @param dialogType
+     *            The type of dialog displaying the turns, as different dialogs
+     *            search different kinds of turns of the same log.
+     * @param turns
+     *            The turns to index.
+     * @return The index of the given turns, which might not be done yet.
+     */
+    static synchronized Future<TurnSearchIndex> getIndex(
+                                                         final LogDataHolder logData,
+                                                         final Class<?> dialogType,
+                                                         final List<TurnContainer> turns) {
+        Map<Class<?>, Future<TurnSearchIndex>> indices = INDICES.get(logData);
+        if (indices == null) {
+            indices = Maps.newHashMap();
+            INDICES.put(logData, indices);
+        }
+
+        Future<TurnSearchIndex> index = indices.get(dialogType);
+        if (index == null) {
+            final List<TurnEntity> turnEntities = Lists.newArrayList(turns.size());
+            for (final TurnContainer tc : turns)
+                turnEntities.add(tc.getTurn());
+
+            index = INDEX_BUILDER.submit(new Callable<TurnSearchIndex>() {
+                public TurnSearchIndex call() {
+                    return new TurnSearchIndex(turnEntities);
+                }
+            });
+            indices.put(dialogType, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Builds the index of the given turns for all indexable search modes.
+     */
+    private TurnSearchIndex(
+                            final List<TurnEntity> turns) {
+        turnCount = turns.size();
+        for (final SearchStringMatcher matcher : SearchStringMatchers.MATCHERS)
+            if (matcher.isIndexable())
+                fields.put(matcher, new Field(matcher, turns));
+    }
+
+    /**
+     * @param matcher
+     *            The search mode.
+     * @return True if the given search mode can be searched through this
+     *         index.
+     */
+    boolean isIndexed(
+                      final SearchStringMatcher matcher) {
+        return fields.containsKey(matcher);
+    }
+
+    /**
+     * @param matcher
+     *            The search mode.
+     * @param searchString
+     *            The lowercased search string.
+     * @return The ascending positions of all turns matching the given search
+     *         string, that is all turns if the search string is empty.
+     */
+    int[] search(
+                 final SearchStringMatcher matcher, final String searchString) {
+        if (searchString.length() == 0) {
+            final int[] allTurns = new int[turnCount];
+            for (int i = 0; i < turnCount; i++)
+                allTurns[i] = i;
+
+            return allTurns;
+        }
+
+        final Field field = fields.get(matcher);
+        if (field == null)
+            throw new IllegalArgumentException("The search mode is not indexed.");
+
+        return field.search(searchString);
+    }
+
+    /**
+     * @param matcher
+     *            The search mode.
+     * @param searchString
+     *            The lowercased search string.
+     * @param candidates
+     *            Ascending positions of turns, usually the result of an
+     *            earlier search for a part of the given search string.
+     * @return The ascending positions of those of the given turns which match
+     *         the given search string.
+     */
+    int[] filter(
+                 final SearchStringMatcher matcher, final String searchString,
+                 final int[] candidates) {
+        final Field field = fields.get(matcher);
+        if (field == null)
+            throw new IllegalArgumentException("The search mode is not indexed.");
+
+        return field.filter(searchString, candidates);
+    }
+
+    private static long toTrigram(
+                                  final String text, final int start) {
+        return (long) text.charAt(start) << 32 | (long) text.charAt(start + 1) << 16
+               | text.charAt(start + 2);
+    }
+
+    /**
+     * The search texts and trigram postings of a single search mode.
+     */
+    private static final class Field {
+        private final String[] texts;
+
+        private final Map<Long, int[]> postings;
+
+        Field(
+              final SearchStringMatcher matcher, final List<TurnEntity> turns) {
+            texts = new String[turns.size()];
+
+            final Map<Long, PostingsBuilder> builders = Maps.newHashMap();
+            for (int i = 0; i < texts.length; i++) {
+                final String text = matcher.getSearchText(turns.get(i));
+                texts[i] = text;
+                if (text == null)
+                    continue;
+
+                for (int j = 0; j + 3 <= text.length(); j++) {
+                    // Search strings never contain the separator, so trigrams
+                    // across names are of no use.
+                    if (text.charAt(j) == SearchStringMatchers.NAME_SEPARATOR
+                        || text.charAt(j + 1) == SearchStringMatchers.NAME_SEPARATOR
+                        || text.charAt(j + 2) == SearchStringMatchers.NAME_SEPARATOR)
+                        continue;
+
+                    final Long trigram = Long.valueOf(toTrigram(text, j));
+                    PostingsBuilder builder = builders.get(trigram);
+                    if (builder == null) {
+                        builder = new PostingsBuilder();
+                        builders.put(trigram, builder);
+                    }
+                    builder.add(i);
+                }
+            }
+
+            postings = Maps.newHashMap((int) (builders.size() / 0.75f) + 1);
+            for (final Map.Entry<Long, PostingsBuilder> e : builders.entrySet())
+                postings.put(e.getKey(), e.getValue().toArray());
+        }
+
+        int[] search(
+                     final String searchString) {
+            if (searchString.length() < 3) {
+                final int[] allTurns = new int[texts.length];
+                for (int i = 0; i < texts.length; i++)
+                    allTurns[i] = i;
+
+                return filter(searchString, allTurns);
+            }
+
+            final int[][] trigramPostings = new int[searchString.length() - 2][];
+            for (int j = 0; j < trigramPostings.length; j++) {
+                trigramPostings[j] = postings.get(Long.valueOf(toTrigram(searchString, j)));
+                if (trigramPostings[j] == null)
+                    return NO_TURNS;
+            }
+            // Intersecting from the shortest postings keeps the candidates as
+            // few as possible from the start.
+            Arrays.sort(trigramPostings, LENGTH_COMPARATOR);
+
+            int[] candidates = trigramPostings[0];
+            for (int j = 1; j < trigramPostings.length && candidates.length > 0; j++)
+                candidates = intersect(candidates, trigramPostings[j]);
+
+            // Containing all trigrams doesn't mean containing them in the right
+            // order, so the candidates still have to be checked.
+            return filter(searchString, candidates);
+        }
+
+        int[] filter(
+                     final String searchString, final int[] candidates) {
+            final int[] result = new int[candidates.length];
+            int count = 0;
+            for (final int i : candidates)
+                if (texts[i] != null && texts[i].contains(searchString))
+                    result[count++] = i;
+
+            return Arrays.copyOf(result, count);
+        }
+
+        private static int[] intersect(
+                                       final int[] smaller, final int[] larger) {
+            final int[] result = new int[smaller.length];
+            int count = 0;
+            int from = 0;
+            for (final int id : smaller) {
+                final int position = Arrays.binarySearch(larger, from, larger.length, id);
+                if (position >= 0) {
+                    result[count++] = id;
+                    from = position + 1;
+                } else
+                    from = -position - 1;
+
+                if (from >= larger.length)
+                    break;
+            }
+
+            return Arrays.copyOf(result, count);
+        }
+    }
+
+    /**
+     * Collects the ascending positions of the turns containing a trigram.
+     */
+    private static final class PostingsBuilder {
+        private int[] turns = new int[4];
+
+        private int size;
+
+        void add(
+                 final int turn) {
+            // Turns are indexed in order, so duplicates are always adjacent.
+            if (size > 0 && turns[size - 1] == turn)
+                return;
+
+            if (size == turns.length)
+                turns = Arrays.copyOf(turns, size * 2);
+            turns[size++] = turn;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(turns, size);
+        }
+    }
+}
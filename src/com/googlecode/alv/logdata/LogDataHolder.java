@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -249,6 +250,111 @@ public final class LogDataHolder {
         return headMap.isEmpty() ? null : headMap.get(headMap.lastKey());
     }
 
+    /**
+     * Gives access to the turn number by which the elements of one of the turn
+     * sorted lists of this class are ordered.
+     */
+    private interface TurnNumberAccessor<T> {
+        int getTurnNumber(
+                T element);
+    }
+
+    private static final TurnNumberAccessor<SingleTurn> SINGLE_TURN_NUMBER = new TurnNumberAccessor<SingleTurn>() {
+        @Override
+        public int getTurnNumber(
+                final SingleTurn element) {
+
+            return element.getTurnNumber();
+        }
+    };
+
+    private static final TurnNumberAccessor<TurnInterval> TURN_INTERVAL_END_TURN = new TurnNumberAccessor<TurnInterval>() {
+        @Override
+        public int getTurnNumber(
+                final TurnInterval element) {
+
+            return element.getEndTurn();
+        }
+    };
+
+    private static final TurnNumberAccessor<Pull> PULL_TURN_NUMBER = new TurnNumberAccessor<Pull>() {
+        @Override
+        public int getTurnNumber(
+                final Pull element) {
+
+            return element.getTurnNumber();
+        }
+    };
+
+    private static final TurnNumberAccessor<DataNumberPair<String>> DATA_NUMBER_PAIR_NUMBER = new TurnNumberAccessor<DataNumberPair<String>>() {
+        @Override
+        public int getTurnNumber(
+                final DataNumberPair<String> element) {
+
+            return element.getNumber().intValue();
+        }
+    };
+
+    /**
+     * Binary search over a list that is sorted by turn number.
+     *
+     * @param list     The list, sorted in ascending order of the turn numbers
+     *                 given by {@code accessor}.
+     * @param turn     The turn number to look for.
+     * @param accessor The accessor of the turn number of the list elements.
+     * @return The index of the first element whose turn number is equal to or
+     *         greater than the given turn number. Returns {@code list.size()}
+     *         if there is no such element.
+     */
+    private static <T> int firstIndexOnOrAfterTurn(
+            final List<? extends T> list,
+            final int turn,
+            final TurnNumberAccessor<T> accessor) {
+
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (accessor.getTurnNumber(list.get(middle)) < turn) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Binary search over a list that is sorted by turn number.
+     *
+     * @param list     The list, sorted in ascending order of the turn numbers
+     *                 given by {@code accessor}.
+     * @param turn     The turn number to look for.
+     * @param accessor The accessor of the turn number of the list elements.
+     * @return The index of the first element whose turn number is greater than
+     *         the given turn number. Returns {@code list.size()} if there is no
+     *         such element.
+     */
+    private static <T> int firstIndexAfterTurn(
+            final List<? extends T> list,
+            final int turn,
+            final TurnNumberAccessor<T> accessor) {
+
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (accessor.getTurnNumber(list.get(middle)) <= turn) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
     private final List<SingleTurn> turnsSpent = Lists.newArrayList(1500);
 
     private final List<TurnInterval> turnIntervalsSpent = Lists.newArrayList(500);
@@ -257,7 +363,7 @@ public final class LogDataHolder {
 
     private Turn penultimateTurn;
 
-    private final SortedMap<Integer, FamiliarChange> familiarChanges = new TreeMap<>();
+    private final NavigableMap<Integer, FamiliarChange> familiarChanges = new TreeMap<>();
 
     private final SortedMap<Integer, DayChange> dayChanges = new TreeMap<>();
 
@@ -280,6 +386,8 @@ public final class LogDataHolder {
 
     private final List<Pull> pulls = Lists.newArrayList(100);
 
+    private TurnAggregates turnAggregates;
+
     private final List<DataNumberPair<String>> learnedSkills = Lists.newArrayList();
 
     private final List<DataNumberPair<String>> hybridization = Lists.newArrayList();
@@ -807,6 +915,11 @@ public final class LogDataHolder {
 
                 turnIntervalsSpent.add(interval);
             }
+
+            // Sub interval logs already got their view of the index of the full log.
+            if (turnAggregates == null) {
+                turnAggregates = new TurnAggregates(turnsSpent);
+            }
         }
 
         logSummary = new LogSummaryData(this);
@@ -1370,6 +1483,27 @@ public final class LogDataHolder {
      */
     public List<Pull> getPulls() { return Collections.unmodifiableList(pulls); }
 
+    /**
+     * Returns the index of cumulative sums over the turns of this ascension log,
+     * which answers range aggregates like the substats or meat gained between two
+     * turns in O(log n) time without iterating over the turns.
+     *
+     * @return The turn aggregates index.
+     * @throws IllegalStateException if this LogDataHolder is not based on a
+     *                               detailed log (see {@link #isDetailedLog()}),
+     *                               or if the index hasn't been created yet
+     *                               through a call of {@link #createLogSummary()}
+     */
+    public TurnAggregates getTurnAggregates() {
+
+        if (turnAggregates == null) {
+            throw new IllegalStateException(
+                    "The turn aggregates have to be created before you can access them.");
+        }
+
+        return turnAggregates;
+    }
+
     /**
      * Returns a sub interval of this LogDataHolder that includes all turns and
      * other data that is inside the given interval (both {@code startTurn} and
@@ -1415,19 +1549,17 @@ public final class LogDataHolder {
 
         // Add turns.
         if (isDetailedLog) {
-            for (final SingleTurn st : turnsSpent) {
-                // Stop the iteration once we are outside the interval
-                if (st.getTurnNumber() > endTurn) {
-                    break;
-                }
-
-                // Inside interval
-                if (st.getTurnNumber() >= startTurn && st.getTurnNumber() <= endTurn) {
-                    subLog.turnsSpent.add(st);
-                }
-            }
+            final int fromIndex = firstIndexOnOrAfterTurn(turnsSpent, startTurn, SINGLE_TURN_NUMBER);
+            final int toIndex = firstIndexAfterTurn(turnsSpent, endTurn, SINGLE_TURN_NUMBER);
+            subLog.turnsSpent.addAll(turnsSpent.subList(fromIndex, toIndex));
         } else {
-            for (final TurnInterval ti : turnIntervalsSpent) {
+            // No turn interval ending before the start turn can be part of the
+            // interval, so the search can start at the first one that doesn't.
+            final int fromIndex = firstIndexOnOrAfterTurn(turnIntervalsSpent,
+                    startTurn,
+                    TURN_INTERVAL_END_TURN);
+            for (final TurnInterval ti : turnIntervalsSpent.subList(fromIndex,
+                    turnIntervalsSpent.size())) {
                 // Stop the iteration once we are outside the interval
                 if (ti.getStartTurn() > endTurn) {
                     break;
@@ -1455,16 +1587,8 @@ public final class LogDataHolder {
         if (famChange != null) {
             subLog.addFamiliarChange(famChange);
         }
-        for (final FamiliarChange fc : getFamiliarChanges()) {
-            // Stop the iteration once we are outside the interval
-            if (fc.getTurnNumber() > endTurn) {
-                break;
-            }
-
-            // Add if inside the interval
-            if (fc.getTurnNumber() >= startTurn && fc.getTurnNumber() <= endTurn) {
-                subLog.addFamiliarChange(fc);
-            }
+        for (final FamiliarChange fc : familiarChanges.subMap(startTurn, true, endTurn, true).values()) {
+            subLog.addFamiliarChange(fc);
         }
 
         // Add day changes
@@ -1481,9 +1605,15 @@ public final class LogDataHolder {
         }
         // If present, the last day change before the first day change of the
         // sub interval should also be added, it might be necessary in case the
-        // sub log starts at the beginning of a day.
-        final DayChange previousDay = getLastElementBeforeInteger(dayChanges,
-                subLog.dayChanges.get(subLog.dayChanges.firstKey()).getDayNumber());
+        // sub log starts at the beginning of a day. If the sub interval doesn't
+        // include a day change at all, the day in which it lies is added.
+        final DayChange previousDay;
+        if (subLog.dayChanges.isEmpty()) {
+            previousDay = getCurrentDay(Math.max(startTurn, 0));
+        } else {
+            previousDay = getLastElementBeforeInteger(dayChanges,
+                    subLog.dayChanges.get(subLog.dayChanges.firstKey()).getDayNumber());
+        }
         if (previousDay != null) {
             subLog.addDayChange(previousDay);
         }
@@ -1530,16 +1660,8 @@ public final class LogDataHolder {
         if (playSnap != null) {
             subLog.addPlayerSnapshot(playSnap);
         }
-        for (final PlayerSnapshot ps : getPlayerSnapshots()) {
-            // Stop the iteration once we are outside the interval
-            if (ps.getTurnNumber() > endTurn) {
-                break;
-            }
-
-            // Add if inside the interval
-            if (ps.getTurnNumber() >= startTurn && ps.getTurnNumber() < endTurn) {
-                subLog.addPlayerSnapshot(ps);
-            }
+        for (final PlayerSnapshot ps : playerSnapshots.subMap(startTurn, endTurn).values()) {
+            subLog.addPlayerSnapshot(ps);
         }
 
         // Add equipment changes
@@ -1547,16 +1669,8 @@ public final class LogDataHolder {
         if (equipChange != null) {
             subLog.addEquipmentChange(equipChange);
         }
-        for (final EquipmentChange ec : getEquipmentChanges()) {
-            // Stop the iteration once we are outside the interval
-            if (ec.getTurnNumber() > endTurn) {
-                break;
-            }
-
-            // Add if inside the interval
-            if (ec.getTurnNumber() > startTurn && ec.getTurnNumber() < endTurn) {
-                subLog.addEquipmentChange(ec);
-            }
+        for (final EquipmentChange ec : equipmentChanges.subMap(startTurn + 1, endTurn).values()) {
+            subLog.addEquipmentChange(ec);
         }
 
         // Add pulls
@@ -1564,45 +1678,27 @@ public final class LogDataHolder {
         for (final DayChange dc : subLog.getDayChanges()) {
             includedDays.add(dc.getDayNumber());
         }
-        for (final Pull p : getPulls()) {
-            // Stop the iteration once we are outside the interval
-            if (p.getTurnNumber() > endTurn) {
-                break;
-            }
-
-            // Add if inside the interval
-            if (p.getTurnNumber() >= startTurn && p.getTurnNumber() <= endTurn
-                    && includedDays.contains(p.getDayNumber())) {
+        for (final Pull p : pulls.subList(firstIndexOnOrAfterTurn(pulls, startTurn, PULL_TURN_NUMBER),
+                firstIndexAfterTurn(pulls, endTurn, PULL_TURN_NUMBER))) {
+            if (includedDays.contains(p.getDayNumber())) {
                 subLog.addPull(p);
             }
         }
 
         // Add hunted combats
-        for (final DataNumberPair<String> dnp : getHuntedCombats()) {
-            final int turnNumber = dnp.getNumber();
-            // Stop the iteration once we are outside the interval
-            if (turnNumber > endTurn) {
-                break;
-            }
-
-            // Add if inside the interval
-            if (turnNumber >= startTurn && turnNumber <= endTurn) {
-                subLog.addHuntedCombat(dnp);
-            }
-        }
+        subLog.huntedCombats.addAll(huntedCombats.subList(
+                firstIndexOnOrAfterTurn(huntedCombats, startTurn, DATA_NUMBER_PAIR_NUMBER),
+                firstIndexAfterTurn(huntedCombats, endTurn, DATA_NUMBER_PAIR_NUMBER)));
 
         // Add lost combats
-        for (final DataNumberPair<String> dnp : getLostCombats()) {
-            final int turnNumber = dnp.getNumber();
-            // Stop the iteration once we are outside the interval
-            if (turnNumber > endTurn) {
-                break;
-            }
+        subLog.lostCombats.addAll(lostCombats.subList(
+                firstIndexOnOrAfterTurn(lostCombats, startTurn, DATA_NUMBER_PAIR_NUMBER),
+                firstIndexAfterTurn(lostCombats, endTurn, DATA_NUMBER_PAIR_NUMBER)));
 
-            // Add if inside the interval
-            if (turnNumber >= startTurn && turnNumber <= endTurn) {
-                subLog.addLostCombat(dnp);
-            }
+        // The sub interval log holds a subset of the turns of this log, so
+        // their aggregates can be taken from the index of this log.
+        if (turnAggregates != null) {
+            subLog.turnAggregates = turnAggregates.getSubIndex(startTurn, endTurn);
         }
 
         // Create log summary based on the sub interval
@@ -1610,15 +1706,28 @@ public final class LogDataHolder {
 
         // Set log comments of the turn intervals in the subinterval log to use
         // the same LogComment objects as their counterparts in the full log.
-        int currentIndex = 0;
+        // The counterparts are looked up by their area name and end turn, which
+        // only needs to be done for the part of the full log that overlaps the
+        // sub interval.
+        final Map<Pair<String, Integer>, TurnInterval> intervalsById = Maps.newHashMap();
+        for (final TurnInterval ti : turnIntervalsSpent.subList(
+                firstIndexOnOrAfterTurn(turnIntervalsSpent, startTurn, TURN_INTERVAL_END_TURN),
+                turnIntervalsSpent.size())) {
+            if (ti.getStartTurn() > endTurn) {
+                break;
+            }
+
+            final Pair<String, Integer> id = Pair.of(ti.getAreaName(), ti.getEndTurn());
+            if (!intervalsById.containsKey(id)) {
+                intervalsById.put(id, ti);
+            }
+        }
         for (final TurnInterval ti : subLog.getTurnIntervalsSpent()) {
-            for (int i = currentIndex; i < turnIntervalsSpent.size(); i++) {
-                if (TURN_INTERVAL_COMPARATOR.compare(ti, turnIntervalsSpent.get(i)) == 0) {
-                    ti.setPreIntervalComment(turnIntervalsSpent.get(i).getPreIntervalComment());
-                    ti.setPostIntervalComment(turnIntervalsSpent.get(i).getPostIntervalComment());
-                    currentIndex = i + 1;
-                    break;
-                }
+            final TurnInterval counterpart = intervalsById.get(Pair.of(ti.getAreaName(),
+                    ti.getEndTurn()));
+            if (counterpart != null) {
+                ti.setPreIntervalComment(counterpart.getPreIntervalComment());
+                ti.setPostIntervalComment(counterpart.getPostIntervalComment());
             }
         }
 
@@ -0,0 +1,383 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.googlecode.alv.logdata;
+
+import java.util.List;
+
+import com.googlecode.alv.logdata.turn.SingleTurn;
+import com.googlecode.alv.logdata.turn.TurnVersion;
+
+/**
+ * An index of cumulative sums over the turns of a detailed ascension log. It
+ * is built once per log and answers questions like "how many substats, meat,
+ * MP or combats were there between turn A and turn B" without iterating over
+ * the turns of that range.
+ * <p>
+ * The turn numbers given to the range methods are mapped to positions in the
+ * turn list by a binary search, after which the result is the difference of
+ * two cumulative sums. A range query thus takes O(log n) time for a log of n
+ * turns, independent of the length of the range.
+ * <p>
+ * Note that the index holds a snapshot of the turn data at the time it was
+ * built, later changes to the turns will not show up in it.
+ * <p>
+ * This class is immutable.
+ */
+public final class TurnAggregates 
+{
+    private static final int VERSIONS = TurnVersion.values().length;
+
+    private final int[] turnNumbers;
+
+    private final int fromIndex;
+
+    private final int toIndex;
+
+    private final int[] muscle;
+
+    private final int[] myst;
+
+    private final int[] moxie;
+
+    private final int[] encounterMeatGain;
+
+    private final int[] otherMeatGain;
+
+    private final int[] meatSpent;
+
+    private final int[] turnsWithMeatChanges;
+
+    private final int[] encounterMPGain;
+
+    private final int[] starfishMPGain;
+
+    private final int[] restingMPGain;
+
+    private final int[] outOfEncounterMPGain;
+
+    private final int[] consumableMPGain;
+
+    private final int[] turnsWithMPChanges;
+
+    private final int[] mpUsed;
+
+    private final int[][] turnVersions;
+
+    private final int[][] freeTurnVersions;
+
+    /**
+     * Builds the index for the given turns.
+     * 
+     * @param turns
+     *            The turns of the log, sorted by their turn number.
+     * @throws NullPointerException
+     *             if turns is {@code null}
+     */
+    public TurnAggregates(final List<SingleTurn> turns) 
+    {
+        if (turns == null)
+            throw new NullPointerException("Turns must not be null.");
+
+        final int size = turns.size();
+        turnNumbers = new int[size];
+        fromIndex = 0;
+        toIndex = size;
+        muscle = new int[size + 1];
+        myst = new int[size + 1];
+        moxie = new int[size + 1];
+        encounterMeatGain = new int[size + 1];
+        otherMeatGain = new int[size + 1];
+        meatSpent = new int[size + 1];
+        turnsWithMeatChanges = new int[size + 1];
+        encounterMPGain = new int[size + 1];
+        starfishMPGain = new int[size + 1];
+        restingMPGain = new int[size + 1];
+        outOfEncounterMPGain = new int[size + 1];
+        consumableMPGain = new int[size + 1];
+        turnsWithMPChanges = new int[size + 1];
+        mpUsed = new int[size + 1];
+        turnVersions = new int[VERSIONS][size + 1];
+        freeTurnVersions = new int[VERSIONS][size + 1];
+
+        int i = 0;
+        for (final SingleTurn st : turns) {
+            turnNumbers[i] = st.getTurnNumber();
+
+            final Statgain stats = st.getTotalStatGain();
+            muscle[i + 1] = muscle[i] + stats.mus;
+            myst[i + 1] = myst[i] + stats.myst;
+            moxie[i + 1] = moxie[i] + stats.mox;
+
+            final MeatGain meat = st.getMeat();
+            encounterMeatGain[i + 1] = encounterMeatGain[i] + meat.encounterMeatGain;
+            otherMeatGain[i + 1] = otherMeatGain[i] + meat.otherMeatGain;
+            meatSpent[i + 1] = meatSpent[i] + meat.meatSpent;
+            turnsWithMeatChanges[i + 1] = turnsWithMeatChanges[i]
+                                          + (meat.isMeatGainSpentZero() ? 0 : 1);
+
+            final MPGain mp = st.getMPGain();
+            encounterMPGain[i + 1] = encounterMPGain[i] + mp.encounterMPGain;
+            starfishMPGain[i + 1] = starfishMPGain[i] + mp.starfishMPGain;
+            restingMPGain[i + 1] = restingMPGain[i] + mp.restingMPGain;
+            outOfEncounterMPGain[i + 1] = outOfEncounterMPGain[i] + mp.outOfEncounterMPGain;
+            consumableMPGain[i + 1] = consumableMPGain[i] + mp.consumableMPGain;
+            turnsWithMPChanges[i + 1] = turnsWithMPChanges[i] + (mp.isMPGainZero() ? 0 : 1);
+
+            int turnMPUsed = 0;
+            for (final Skill s : st.getSkillsCast())
+                turnMPUsed += s.getMpCost();
+            mpUsed[i + 1] = mpUsed[i] + turnMPUsed;
+
+            final int version = st.getTurnVersion().ordinal();
+            for (int v = 0; v < VERSIONS; v++) {
+                turnVersions[v][i + 1] = turnVersions[v][i];
+                freeTurnVersions[v][i + 1] = freeTurnVersions[v][i];
+            }
+            turnVersions[version][i + 1]++;
+            if (st.isFreeTurn())
+                freeTurnVersions[version][i + 1]++;
+
+            i++;
+        }
+    }
+
+    /**
+     * Creates a view of the given index restricted to the given positions. The
+     * arrays of the index are shared.
+     */
+    private TurnAggregates(final TurnAggregates index, final int fromIndex, final int toIndex) 
+    {
+        turnNumbers = index.turnNumbers;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        muscle = index.muscle;
+        myst = index.myst;
+        moxie = index.moxie;
+        encounterMeatGain = index.encounterMeatGain;
+        otherMeatGain = index.otherMeatGain;
+        meatSpent = index.meatSpent;
+        turnsWithMeatChanges = index.turnsWithMeatChanges;
+        encounterMPGain = index.encounterMPGain;
+        starfishMPGain = index.starfishMPGain;
+        restingMPGain = index.restingMPGain;
+        outOfEncounterMPGain = index.outOfEncounterMPGain;
+        consumableMPGain = index.consumableMPGain;
+        turnsWithMPChanges = index.turnsWithMPChanges;
+        mpUsed = index.mpUsed;
+        turnVersions = index.turnVersions;
+        freeTurnVersions = index.freeTurnVersions;
+    }
+
+    /**
+     * @return The position of the first turn with a turn number equal to or
+     *         greater than the given turn number inside this index.
+     */
+    private int positionOf(final int turnNumber) 
+    {
+        int low = fromIndex;
+        int high = toIndex;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (turnNumbers[middle] < turnNumber)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * @return The position of the first turn with a turn number greater than
+     *         the given turn number inside this index.
+     */
+    private int positionAfter(final int turnNumber) 
+    {
+        int low = fromIndex;
+        int high = toIndex;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (turnNumbers[middle] <= turnNumber)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * @return The difference of the cumulative sums between the given turn
+     *         numbers (both inclusive).
+     */
+    private int rangeSum(final int[] sums, final int startTurn, final int endTurn) 
+    {
+        if (endTurn < startTurn)
+            return 0;
+
+        return sums[positionAfter(endTurn)] - sums[positionOf(startTurn)];
+    }
+
+    /**
+     * Returns the part of this index that lies between the given turn numbers.
+     * The returned index shares its data with this index.
+     * 
+     * @param startTurn
+     *            The first turn number of the range (inclusive).
+     * @param endTurn
+     *            The last turn number of the range (inclusive).
+     * @return The index of the given range.
+     */
+    public TurnAggregates getSubIndex(final int startTurn, final int endTurn) 
+    {
+        if (endTurn < startTurn)
+            return new TurnAggregates(this, fromIndex, fromIndex);
+
+        return new TurnAggregates(this, positionOf(startTurn), positionAfter(endTurn));
+    }
+
+    /**
+     * @return The number of turns in this index.
+     */
+    public int size() 
+    {
+        return toIndex - fromIndex;
+    }
+
+    /**
+     * @param startTurn
+     *            The first turn number of the range (inclusive).
+     * @param endTurn
+     *            The last turn number of the range (inclusive).
+     * @return The substats gained in the given range, including the substats
+     *         from consumables and limited uses.
+     */
+    public Statgain getStatgain(final int startTurn, final int endTurn) 
+    {
+        return new Statgain(rangeSum(muscle, startTurn, endTurn),
+                            rangeSum(myst, startTurn, endTurn),
+                            rangeSum(moxie, startTurn, endTurn));
+    }
+
+    /**
+     * @param startTurn
+     *            The first turn number of the range (inclusive).
+     * @param endTurn
+     *            The last turn number of the range (inclusive).
+     * @return The meat gained and spent in the given range.
+     */
+    public MeatGain getMeat(final int startTurn, final int endTurn) 
+    {
+        return new MeatGain(rangeSum(encounterMeatGain, startTurn, endTurn),
+                            rangeSum(otherMeatGain, startTurn, endTurn),
+                            rangeSum(meatSpent, startTurn, endTurn));
+    }
+
+    /**
+     * @param startTurn
+     *            The first turn number of the range (inclusive).
+     * @param endTurn
+     *            The last turn number of the range (inclusive).
+     * @return The number of turns in the given range on which any meat was
+     *         gained or spent.
+     */
+    public int getTurnsWithMeatChanges(final int startTurn, final int endTurn) 
+    {
+        return rangeSum(turnsWithMeatChanges, startTurn, endTurn);
+    }
+
+    /**
+     * @param startTurn
+     *            The first turn number of the range (inclusive).
+     * @param endTurn
+     *            The last turn number of the range (inclusive).
+     * @return The MP gained in the given range.
+     */
+    public MPGain getMPGain(final int startTurn, final int endTurn) 
+    {
+        return new MPGain(rangeSum(encounterMPGain, startTurn, endTurn),
+                          rangeSum(starfishMPGain, startTurn, endTurn),
+                          rangeSum(restingMPGain, startTurn, endTurn),
+                          rangeSum(outOfEncounterMPGain, startTurn, endTurn),
+                          rangeSum(consumableMPGain, startTurn, endTurn));
+    }
+
+    /**
+     * @param startTurn
+     *            The first turn number of the range (inclusive).
+     * @param endTurn
+     *            The last turn number of the range (inclusive).
+     * @return The number of turns in the given range on which any MP was
+     *         gained.
+     */
+    public int getTurnsWithMPChanges(final int startTurn, final int endTurn) 
+    {
+        return rangeSum(turnsWithMPChanges, startTurn, endTurn);
+    }
+
+    /**
+     * @param startTurn
+     *            The first turn number of the range (inclusive).
+     * @param endTurn
+     *            The last turn number of the range (inclusive).
+     * @return The MP spent on skill casts in the given range.
+     */
+    public int getMPUsed(final int startTurn, final int endTurn) 
+    {
+        return rangeSum(mpUsed, startTurn, endTurn);
+    }
+
+    /**
+     * @param version
+     *            The wanted turn version.
+     * @param startTurn
+     *            The first turn number of the range (inclusive).
+     * @param endTurn
+     *            The last turn number of the range (inclusive).
+     * @return The number of turns of the given version in the given range,
+     *         free turns included.
+     */
+    public int getTurnVersionCount(final TurnVersion version, final int startTurn,
+                                   final int endTurn) 
+    {
+        return rangeSum(turnVersions[version.ordinal()], startTurn, endTurn);
+    }
+
+    /**
+     * @param version
+     *            The wanted turn version.
+     * @param startTurn
+     *            The first turn number of the range (inclusive).
+     * @param endTurn
+     *            The last turn number of the range (inclusive).
+     * @return The number of free turns of the given version in the given range.
+     */
+    public int getFreeTurnCount(final TurnVersion version, final int startTurn,
+                                final int endTurn) 
+    {
+        return rangeSum(freeTurnVersions[version.ordinal()], startTurn, endTurn);
+    }
+}
@@ -0,0 +1,197 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.googlecode.alv.logdata.summary;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.googlecode.alv.logdata.turn.TurnInterval;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.Maps;
+
+/**
+ * A per-area histogram of the turn rundown of an ascension, built in a single
+ * pass over the turn intervals. For every visited area it holds the turn
+ * intervals spent there, the total amount of turns, the first and last turn
+ * and cumulative turncounts, so that questions like "how many turns were spent
+ * in area X" or "how many turns were spent in area X until turn Y" are
+ * answered by lookups instead of walking the whole turn rundown.
+ * <p>
+ * This class is immutable, as long as the given turn intervals are not changed.
+ */
+public final class AreaTurncounts 
+{
+    private final Map<String, AreaData> areas;
+
+    /**
+     * Builds the histogram of the given turn rundown.
+     * 
+     * @param turns
+     *            The turn rundown of the ascension, sorted by turn number.
+     * @throws NullPointerException
+     *             if turns is {@code null}
+     */
+    public AreaTurncounts(final Collection<TurnInterval> turns) 
+    {
+        if (turns == null)
+            throw new NullPointerException("Turn rundown set must not be null.");
+
+        areas = Maps.newHashMap((int) (turns.size() * 0.75) + 1);
+        for (final TurnInterval ti : turns) {
+            AreaData area = areas.get(ti.getAreaName());
+            if (area == null) {
+                area = new AreaData();
+                areas.put(ti.getAreaName(), area);
+            }
+            area.add(ti);
+        }
+    }
+
+    /**
+     * @param areaName
+     *            The name of the area.
+     * @return The turns spent in the given area.
+     */
+    public int getTurnsInArea(final String areaName) 
+    {
+        final AreaData area = areas.get(areaName);
+
+        return area == null ? 0 : area.totalTurns;
+    }
+
+    /**
+     * Returns the turns spent in the given area up to the given turn. A turn
+     * interval of the area that includes the given turn only counts the turns
+     * up to it.
+     * 
+     * @param areaName
+     *            The name of the area.
+     * @param turnNumber
+     *            The turn number up to which turns should be counted.
+     * @return The turns spent in the given area until the given turn.
+     */
+    public int getTurnsInAreaUntil(final String areaName, final int turnNumber) 
+    {
+        final AreaData area = areas.get(areaName);
+        if (area == null)
+            return 0;
+
+        // Index of the first interval that ends after the given turn.
+        int low = 0;
+        int high = area.intervals.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (area.intervals.get(middle).getEndTurn() <= turnNumber)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        int turnsSpent = area.cumulativeTurns.get(low);
+        if (low < area.intervals.size()
+            && area.intervals.get(low).getStartTurn() <= turnNumber)
+            turnsSpent += turnNumber - area.intervals.get(low).getStartTurn();
+
+        return turnsSpent;
+    }
+
+    /**
+     * @param areaName
+     *            The name of the area.
+     * @return The start turn of the first turn interval spent in the given
+     *         area. Returns {@code -1} if the area wasn't visited.
+     */
+    public int getFirstTurn(final String areaName) 
+    {
+        final AreaData area = areas.get(areaName);
+
+        return area == null ? -1 : area.intervals.get(0).getStartTurn();
+    }
+
+    /**
+     * @param areaName
+     *            The name of the area.
+     * @return The end turn of the last turn interval spent in the given area.
+     *         Returns {@code -1} if the area wasn't visited.
+     */
+    public int getLastTurn(final String areaName) 
+    {
+        final AreaData area = areas.get(areaName);
+
+        return area == null ? -1 : area.intervals.get(area.intervals.size() - 1).getEndTurn();
+    }
+
+    /**
+     * @param areaName
+     *            The name of the area.
+     * @return A read-only list of the turn intervals spent in the given area,
+     *         in the order of the turn rundown. The list is empty if the area
+     *         wasn't visited.
+     */
+    public List<TurnInterval> getTurnIntervals(final String areaName) 
+    {
+        final AreaData area = areas.get(areaName);
+
+        return area == null ? Collections.<TurnInterval> emptyList()
+                           : Collections.unmodifiableList(area.intervals);
+    }
+
+    /**
+     * @return A read-only collection of the names of all visited areas.
+     */
+    public Collection<String> getAreaNames() 
+    {
+        return Collections.unmodifiableCollection(areas.keySet());
+    }
+
+    /**
+     * The turn intervals of a single area together with the cumulative
+     * turncounts of them. {@code cumulativeTurns.get(i)} holds the turns spent
+     * in the first {@code i} intervals.
+     */
+    private static final class AreaData 
+    {
+        private final List<TurnInterval> intervals = Lists.newArrayList();
+
+        private final List<Integer> cumulativeTurns = Lists.newArrayList();
+
+        private int totalTurns;
+
+        AreaData() 
+        {
+            cumulativeTurns.add(0);
+        }
+
+        void add(final TurnInterval ti) 
+        {
+            intervals.add(ti);
+            totalTurns += ti.getTotalTurns();
+            cumulativeTurns.add(totalTurns);
+        }
+    }
+}
@@ -51,19 +51,21 @@ import com.googlecode.alv.util.Lists;
  */
 public class LogSummaryData 
 {
-    private final List<Consumable> consumablesUsed;
+    private final LogDataHolder logData;
 
-    private final List<Item> droppedItems;
+    private final SummaryDataCalculator data;
 
-    private final List<Skill> skillsCast;
+    private List<Consumable> consumablesUsed;
 
-    private final List<CombatItem> combatItemsUsed;
-    
-    private final List<AreaStatgains> areasStatgains;
+    private List<Item> droppedItems;
+
+    private List<Skill> skillsCast;
 
-    private final List<DataNumberPair<String>> turnsPerArea;
+    private List<CombatItem> combatItemsUsed;
+    
+    private List<AreaStatgains> areasStatgains;
 
-    private final List<LevelData> levels;
+    private List<DataNumberPair<String>> turnsPerArea;
 
     private List<DataNumberPair<String>> familiarUsage;
 
@@ -77,26 +79,6 @@ public class LogSummaryData
 
     private List<DataNumberPair<String>> badmoonAdventures;
 
-    private final List<DataNumberPair<String>> romanticArrowUsages;
-
-    private final List<DataNumberPair<String>> wanderingAdventures;
-
-    private final List<DataNumberPair<String>> hipsterCombats;
-    
-    private final List<Encounter> freeRunawayCombats;
-
-    private final FreeRunaways freeRunaways;
-
-    private final ConsumptionSummary consumptionSummary;
-
-    private final Goatlet goatlet;
-
-    private final InexplicableDoor nesRealm;
-
-    private final QuestTurncounts questTurncounts;
-    
-    private final LimitedUseSummary limitedUseSummary;
-
     private Statgain totalStatgains;
 
     private Statgain combatsStatgains;
@@ -105,31 +87,33 @@ public class LogSummaryData
 
     private Statgain othersStatgains;
 
-    private final MeatSummary meatSummary;
-
-    private final MPGainSummary mpGainSummary;
-
     private MPGain totalMPGains;
 
-    private int totalAmountSkillCasts;
+    private Integer totalAmountSkillCasts;
 
-    private int totalMPUsed;
+    private Integer totalMPUsed;
 
-    private int totalMeatGain;
+    private Integer totalMeatGain;
 
-    private int totalMeatSpent;
+    private Integer totalMeatSpent;
 
-    private int totalTurnsFromRollover;
+    private Integer totalTurnsFromRollover;
 
-    private int totalTurnsCombat;
+    private Integer totalTurnsCombat;
 
-    private int totalTurnsNoncombat;
+    private Integer totalTurnsNoncombat;
 
-    private int totalTurnsOther;
+    private Integer totalTurnsOther;
 
     /**
      * Constructs an ascension log summary. A summaries will be calculated as
      * good as possible from the given data.
+     * <p>
+     * Apart from the level summary, no summary is calculated here. Each
+     * section is calculated on first access and memoized afterwards, so users
+     * that only need parts of the summary don't pay for the rest. The level
+     * summary is calculated right away, because it adds the levels to the
+     * given log data, which is read directly by many users of the log data.
      * 
      * @param logData
      *            The ascension log.
@@ -139,126 +123,43 @@ public class LogSummaryData
         if (logData == null)
             throw new NullPointerException("Log data holder must not be null.");
 
-        final SummaryDataCalculator data = new SummaryDataCalculator(logData);
-
-        areasStatgains = AreaStatgains.getSortedAreaStatgains(logData.getTurnIntervalsSpent(),
-                                                              new Comparator<AreaStatgains>() {
-
-                                                                  public int compare(
-                                                                                     final AreaStatgains o1,
-                                                                                     final AreaStatgains o2) {
-                                                                      return o2.getStatgain()
-                                                                               .getTotalStatgain()
-                                                                             - o1.getStatgain()
-                                                                                 .getTotalStatgain();
-                                                                  }
-                                                              });
-
-        turnsPerArea = data.getTurnsPerArea();
-        Collections.sort(turnsPerArea, new Comparator<DataNumberPair<String>>() {
-            public int compare(
-                               final DataNumberPair<String> o1, final DataNumberPair<String> o2) {
-                // Reverse order, so that the list starts with the highest
-                // element. Also, in case of a tie, sort alphabetically.
-                int diff = o2.compareTo(o1);
-                if (diff == 0)
-                    diff = o1.getData().compareToIgnoreCase(o2.getData());
-                return diff;
-            }
-        });
-
-        consumablesUsed = Lists.newArrayList(data.getConsumablesUsed());
-        Collections.sort(consumablesUsed, new Comparator<Consumable>() {
-
-            public int compare(
-                               final Consumable o1, final Consumable o2) {
-                // Reverse order, so that the list starts with the highest
-                // element.
-                return o2.compareTo(o1);
-            }
-        });
-
-        droppedItems = Lists.newArrayList(data.getDroppedItems());
-        Collections.sort(droppedItems, new Comparator<Item>() {
-
-            public int compare(
-                               final Item o1, final Item o2) {
-                // Reverse order, so that the list starts with the highest
-                // element.
-                return o2.getAmount() - o1.getAmount();
-            }
-        });
-
-        combatItemsUsed = Lists.newArrayList(data.getCombatItemsUsed());
-        Collections.sort( combatItemsUsed, new Comparator<CombatItem>() {
-            public int compare(final CombatItem o1, final CombatItem o2) {
-                // Reverse order, so that the list starts with the highest
-                // element.
-                return o2.compareTo( o1 );
-            }
-        });
-        
-        skillsCast = Lists.newArrayList(data.getSkillsCast());
-        Collections.sort(skillsCast, new Comparator<Skill>() {
-
-            public int compare(
-                               final Skill o1, final Skill o2) {
-                // Reverse order, so that the list starts with the highest
-                // element.
-                return o2.compareTo(o1);
-            }
-        });
-
-        familiarUsage = data.getFamiliarUsage();
-        Collections.sort(familiarUsage, new Comparator<DataNumberPair<?>>() {
-
-            public int compare(
-                               final DataNumberPair<?> o1, final DataNumberPair<?> o2) {
-                // Reverse order, so that the list starts with the highest
-                // element.
-                return o2.compareTo(o1);
-            }
-        });
-
-        levels = data.getLevelData();
-        disintegratedCombats = data.getDisintegratedCombats();
-        banishedCombats = data.getBanishedCombats();//Bombar: Add support for banished combats
-        trackedCombatItemUses = data.getTrackedCombatItemUses();//Bombar: Add support for combat Item usage
-        semirares = data.getSemirares();
-        badmoonAdventures = data.getBadmoonAdventures();
-        romanticArrowUsages = data.getRomanticArrowUsages();
-        wanderingAdventures = data.getWanderingAdventures();
-        hipsterCombats = data.getHipsterCombats();
-        freeRunawayCombats = data.getFreeRunawaysCombats();
-        freeRunaways = data.getFreeRunaways();
-        consumptionSummary = data.getConsumptionSummary();
-        goatlet = data.getGoatlet();
-        nesRealm = data.get8BitRealm();
-        questTurncounts = data.getQuestTurncounts();
-        limitedUseSummary = data.getLimitedUseData();
-        totalStatgains = data.getTotalStatgains();
-        combatsStatgains = data.getCombatsStatgains();
-        noncombatsStatgains = data.getNoncombatsStatgains();
-        othersStatgains = data.getOthersStatgains();
-        meatSummary = data.getMeatSummary();
-        mpGainSummary = data.getMPGainSummary();
-        totalMPGains = data.getTotalMPGains();
-        totalAmountSkillCasts = data.getTotalAmountSkillCasts();
-        totalMPUsed = data.getTotalMPUsed();
-        totalMeatGain = data.getTotalMeatGain();
-        totalMeatSpent = data.getTotalMeatSpent();
-        totalTurnsFromRollover = data.getTotalTurnsFromRollover();
-        totalTurnsCombat = data.getTotalTurnsCombat();
-        totalTurnsNoncombat = data.getTotalTurnsNoncombat();
-        totalTurnsOther = data.getTotalTurnsOther();
+        this.logData = logData;
+        data = new SummaryDataCalculator(logData);
+        data.getLevelData();
+    }
+
+    /**
+     * Calculates all parts of this summary that haven't been calculated yet.
+     * Independent parts are calculated in parallel. Calling this method makes
+     * sense when the whole summary is going to be used anyway, for example when
+     * a parsed log is created.
+     */
+    public void calculateAllSections() 
+    {
+        data.calculateAllSections();
     }
 
     /**
      * @return A sorted list of areas and the turns spent in them. This list
      *         starts with the area that has the highest amount turns.
      */
-    public List<DataNumberPair<String>> getTurnsPerArea() 
-    {
+    public synchronized List<DataNumberPair<String>> getTurnsPerArea() 
+    {
+        if (turnsPerArea == null) {
+            turnsPerArea = data.getTurnsPerArea();
+            Collections.sort(turnsPerArea, new Comparator<DataNumberPair<String>>() {
+                public int compare(
+                                   final DataNumberPair<String> o1, final DataNumberPair<String> o2) {
+                    // Reverse order, so that the list starts with the highest
+                    // element. Also, in case of a tie, sort alphabetically.
+                    int diff = o2.compareTo(o1);
+                    if (diff == 0)
+                        diff = o1.getData().compareToIgnoreCase(o2.getData());
+                    return diff;
+                }
+            });
+        }
+
         return turnsPerArea;
     }
 
@@ -266,8 +167,21 @@ public class LogSummaryData
      * @return A sorted list of all consumables used. This list starts with the
      *         consumable that was used the most.
      */
-    public List<Consumable> getAllConsumablesUsed() 
+    public synchronized List<Consumable> getAllConsumablesUsed() 
     {
+        if (consumablesUsed == null) {
+            consumablesUsed = Lists.newArrayList(data.getConsumablesUsed());
+            Collections.sort(consumablesUsed, new Comparator<Consumable>() {
+
+                public int compare(
+                                   final Consumable o1, final Consumable o2) {
+                    // Reverse order, so that the list starts with the highest
+                    // element.
+                    return o2.compareTo(o1);
+                }
+            });
+        }
+
         return consumablesUsed;
     }
 
@@ -277,9 +191,10 @@ public class LogSummaryData
      */
     public List<Consumable> getFoodConsumablesUsed() 
     {
-        final List<Consumable> consumables = Lists.newArrayList(consumablesUsed.size());
+        final List<Consumable> allConsumables = getAllConsumablesUsed();
+        final List<Consumable> consumables = Lists.newArrayList(allConsumables.size());
 
-        for (final Consumable c : consumablesUsed)
+        for (final Consumable c : allConsumables)
             if (c.getConsumableVersion() == ConsumableVersion.FOOD)
                 consumables.add(c);
 
@@ -292,9 +207,10 @@ public class LogSummaryData
      */
     public List<Consumable> getBoozeConsumablesUsed() 
     {
-        final List<Consumable> consumables = Lists.newArrayList(consumablesUsed.size());
+        final List<Consumable> allConsumables = getAllConsumablesUsed();
+        final List<Consumable> consumables = Lists.newArrayList(allConsumables.size());
 
-        for (final Consumable c : consumablesUsed)
+        for (final Consumable c : allConsumables)
             if (c.getConsumableVersion() == ConsumableVersion.BOOZE)
                 consumables.add(c);
 
@@ -307,9 +223,10 @@ public class LogSummaryData
      */
     public List<Consumable> getSpleenConsumablesUsed() 
     {
-        final List<Consumable> consumables = Lists.newArrayList(consumablesUsed.size());
+        final List<Consumable> allConsumables = getAllConsumablesUsed();
+        final List<Consumable> consumables = Lists.newArrayList(allConsumables.size());
 
-        for (final Consumable c : consumablesUsed)
+        for (final Consumable c : allConsumables)
             if (c.getConsumableVersion() == ConsumableVersion.SPLEEN)
                 consumables.add(c);
 
@@ -322,9 +239,10 @@ public class LogSummaryData
      */
     public List<Consumable> getOtherConsumablesUsed() 
     {
-        final List<Consumable> consumables = Lists.newArrayList(consumablesUsed.size());
+        final List<Consumable> allConsumables = getAllConsumablesUsed();
+        final List<Consumable> consumables = Lists.newArrayList(allConsumables.size());
 
-        for (final Consumable c : consumablesUsed)
+        for (final Consumable c : allConsumables)
             if (c.getConsumableVersion() == ConsumableVersion.OTHER)
                 consumables.add(c);
 
@@ -335,8 +253,21 @@ public class LogSummaryData
      * @return A sorted list of all items dropped during this ascension. This
      *         list starts with the item that dropped the most.
      */
-    public List<Item> getDroppedItems()
+    public synchronized List<Item> getDroppedItems()
     {
+        if (droppedItems == null) {
+            droppedItems = Lists.newArrayList(data.getDroppedItems());
+            Collections.sort(droppedItems, new Comparator<Item>() {
+
+                public int compare(
+                                   final Item o1, final Item o2) {
+                    // Reverse order, so that the list starts with the highest
+                    // element.
+                    return o2.getAmount() - o1.getAmount();
+                }
+            });
+        }
+
         return droppedItems;
     }
 
@@ -344,8 +275,19 @@ public class LogSummaryData
      * 
      * @return A sorted list of all combat items used during this ascension, the list starts with skill that was used most.
      */
-    public List<CombatItem> getCombatItemsUsed()
+    public synchronized List<CombatItem> getCombatItemsUsed()
     {
+        if (combatItemsUsed == null) {
+            combatItemsUsed = Lists.newArrayList(data.getCombatItemsUsed());
+            Collections.sort( combatItemsUsed, new Comparator<CombatItem>() {
+                public int compare(final CombatItem o1, final CombatItem o2) {
+                    // Reverse order, so that the list starts with the highest
+                    // element.
+                    return o2.compareTo( o1 );
+                }
+            });
+        }
+
         return combatItemsUsed;
     }
     
@@ -353,8 +295,21 @@ public class LogSummaryData
      * @return A sorted list of all skills cast during this ascension. This list
      *         starts with the skill that was cast the most.
      */
-    public List<Skill> getSkillsCast()
+    public synchronized List<Skill> getSkillsCast()
     {
+        if (skillsCast == null) {
+            skillsCast = Lists.newArrayList(data.getSkillsCast());
+            Collections.sort(skillsCast, new Comparator<Skill>() {
+
+                public int compare(
+                                   final Skill o1, final Skill o2) {
+                    // Reverse order, so that the list starts with the highest
+                    // element.
+                    return o2.compareTo(o1);
+                }
+            });
+        }
+
         return skillsCast;
     }
 
@@ -363,8 +318,22 @@ public class LogSummaryData
      *         list starts with the area statgain that had the highest total
      *         statgains.
      */
-    public List<AreaStatgains> getAreasStatgains() 
+    public synchronized List<AreaStatgains> getAreasStatgains() 
     {
+        if (areasStatgains == null)
+            areasStatgains = AreaStatgains.getSortedAreaStatgains(logData.getTurnIntervalsSpent(),
+                                                                  new Comparator<AreaStatgains>() {
+
+                                                                      public int compare(
+                                                                                         final AreaStatgains o1,
+                                                                                         final AreaStatgains o2) {
+                                                                          return o2.getStatgain()
+                                                                                   .getTotalStatgain()
+                                                                                 - o1.getStatgain()
+                                                                                     .getTotalStatgain();
+                                                                      }
+                                                                  });
+
         return areasStatgains;
     }
 
@@ -374,14 +343,14 @@ public class LogSummaryData
      */
     public List<LevelData> getLevelData() 
     {
-        return Collections.unmodifiableList(levels);
+        return Collections.unmodifiableList(data.getLevelData());
     }
 
     /**
      * @param familiarUsage
      *            All used familiars and how often they were used to set.
      */
-    public void setFamiliarUsage(final List<DataNumberPair<String>> familiarUsage) 
+    public synchronized void setFamiliarUsage(final List<DataNumberPair<String>> familiarUsage) 
     {
         if (familiarUsage == null)
             throw new NullPointerException("Familiar usage list must not be null.");
@@ -393,18 +362,34 @@ public class LogSummaryData
      * @return A sorted list of all used familiars and how often they were used.
      *         This list starts with the familiar that was used the most.
      */
-    public List<DataNumberPair<String>> getFamiliarUsage() 
+    public synchronized List<DataNumberPair<String>> getFamiliarUsage() 
     {
+        if (familiarUsage == null) {
+            familiarUsage = data.getFamiliarUsage();
+            Collections.sort(familiarUsage, new Comparator<DataNumberPair<?>>() {
+
+                public int compare(
+                                   final DataNumberPair<?> o1, final DataNumberPair<?> o2) {
+                    // Reverse order, so that the list starts with the highest
+                    // element.
+                    return o2.compareTo(o1);
+                }
+            });
+        }
+
         return familiarUsage;
     }
 
-    public void setTrackedCombatItemUses(final List<DataNumberPair<String>> trackedCombatItemUses) 
+    public synchronized void setTrackedCombatItemUses(final List<DataNumberPair<String>> trackedCombatItemUses) 
     {
         this.trackedCombatItemUses = trackedCombatItemUses;
     }
     
-    public List<DataNumberPair<String>> getTrackedCombatItemUses() 
+    public synchronized List<DataNumberPair<String>> getTrackedCombatItemUses() 
     {
+        if (trackedCombatItemUses == null)
+            trackedCombatItemUses = data.getTrackedCombatItemUses();
+
         return this.trackedCombatItemUses;
     }
     
@@ -412,7 +397,7 @@ public class LogSummaryData
      * @param banishedCombats
      *            All banished combats to set.
      */
-    public void setBanishedCombats(final List<DataNumberPair<String>> banishedCombats) 
+    public synchronized void setBanishedCombats(final List<DataNumberPair<String>> banishedCombats) 
     {
         if (banishedCombats == null)
             throw new NullPointerException("banishedCombats combats list must not be null.");
@@ -424,8 +409,11 @@ public class LogSummaryData
      * @return A sorted list of all disintegrated combats. This list starts with
      *         the earliest disintegrated combat.
      */
-    public List<DataNumberPair<String>> getBanishedCombats() 
+    public synchronized List<DataNumberPair<String>> getBanishedCombats() 
     {
+        if (banishedCombats == null)
+            banishedCombats = data.getBanishedCombats();
+
         return banishedCombats;
     }
     
@@ -433,7 +421,7 @@ public class LogSummaryData
      * @param disintegratedCombats
      *            All disintegrated combats to set.
      */
-    public void setDisintegratedCombats(final List<DataNumberPair<String>> disintegratedCombats) 
+    public synchronized void setDisintegratedCombats(final List<DataNumberPair<String>> disintegratedCombats) 
     {
         if (disintegratedCombats == null)
             throw new NullPointerException("Disintegrated combats list must not be null.");
@@ -445,8 +433,11 @@ public class LogSummaryData
      * @return A sorted list of all disintegrated combats. This list starts with
      *         the earliest disintegrated combat.
      */
-    public List<DataNumberPair<String>> getDisintegratedCombats() 
+    public synchronized List<DataNumberPair<String>> getDisintegratedCombats() 
     {
+        if (disintegratedCombats == null)
+            disintegratedCombats = data.getDisintegratedCombats();
+
         return disintegratedCombats;
     }
 
@@ -454,7 +445,7 @@ public class LogSummaryData
      * @param semirares
      *            All encountered semirares to set.
      */
-    public void setSemirares( final List<DataNumberPair<String>> semirares) 
+    public synchronized void setSemirares( final List<DataNumberPair<String>> semirares) 
     {
         if (semirares == null)
             throw new NullPointerException("Semirares list must not be null.");
@@ -466,8 +457,11 @@ public class LogSummaryData
      * @return A sorted list of all encountered semirares. This list starts with
      *         the semirare that was encountered the earliest.
      */
-    public List<DataNumberPair<String>> getSemirares() 
+    public synchronized List<DataNumberPair<String>> getSemirares() 
     {
+        if (semirares == null)
+            semirares = data.getSemirares();
+
         return semirares;
     }
 
@@ -475,7 +469,7 @@ public class LogSummaryData
      * @param badmoonAdventures
      *            All encountered Bad Moon adventures to set.
      */
-    public void setBadmoonAdventures(final List<DataNumberPair<String>> badmoonAdventures) 
+    public synchronized void setBadmoonAdventures(final List<DataNumberPair<String>> badmoonAdventures) 
     {
         if (badmoonAdventures == null)
             throw new NullPointerException("Bad Moon adventures list must not be null.");
@@ -486,8 +480,11 @@ public class LogSummaryData
     /**
      * @return A list of all Bad Moon adventures.
      */
-    public List<DataNumberPair<String>> getBadmoonAdventures() 
+    public synchronized List<DataNumberPair<String>> getBadmoonAdventures() 
     {
+        if (badmoonAdventures == null)
+            badmoonAdventures = data.getBadmoonAdventures();
+
         return badmoonAdventures;
     }
 
@@ -496,7 +493,7 @@ public class LogSummaryData
      */
     public List<DataNumberPair<String>> getRomanticArrowUsages() 
     {
-        return romanticArrowUsages;
+        return data.getRomanticArrowUsages();
     }
 
     /**
@@ -504,7 +501,7 @@ public class LogSummaryData
      */
     public List<DataNumberPair<String>> getWanderingAdventures()
     {
-        return wanderingAdventures;
+        return data.getWanderingAdventures();
     }
 
     /**
@@ -512,7 +509,7 @@ public class LogSummaryData
      */
     public List<DataNumberPair<String>> getHipsterCombats() 
     {
-        return hipsterCombats;
+        return data.getHipsterCombats();
     }
 
     /**
@@ -521,7 +518,7 @@ public class LogSummaryData
      */
     public List<Encounter> getFreeRunawaysCombats()
 {
-        return freeRunawayCombats;
+        return data.getFreeRunawaysCombats();
     }
 
     /**
@@ -529,7 +526,7 @@ public class LogSummaryData
      */
     public ConsumptionSummary getConsumptionSummary()
     {
-        return consumptionSummary;
+        return data.getConsumptionSummary();
     }
 
     /**
@@ -537,7 +534,7 @@ public class LogSummaryData
      */
     public FreeRunaways getFreeRunaways() 
     {
-        return freeRunaways;
+        return data.getFreeRunaways();
     }
 
     /**
@@ -545,7 +542,7 @@ public class LogSummaryData
      */
     public Goatlet getGoatlet()
     {
-        return goatlet;
+        return data.getGoatlet();
     }
 
     /**
@@ -553,7 +550,15 @@ public class LogSummaryData
      */
     public InexplicableDoor get8BitRealm()
     {
-        return nesRealm;
+        return data.get8BitRealm();
+    }
+
+    /**
+     * @return The per-area turncounts of the turn rundown.
+     */
+    public AreaTurncounts getAreaTurncounts() 
+    {
+        return data.getAreaTurncounts();
     }
 
     /**
@@ -561,7 +566,7 @@ public class LogSummaryData
      */
     public QuestTurncounts getQuestTurncounts() 
     {
-        return questTurncounts;
+        return data.getQuestTurncounts();
     }
 
     /**
@@ -569,14 +574,14 @@ public class LogSummaryData
      */
     public LimitedUseSummary getLimitedUseSummary()
     {
-        return limitedUseSummary;
+        return data.getLimitedUseData();
     }
     
     /**
      * @param mpGains
      *            The total amount of mp gains to set.
      */
-    public void setTotalMPGains(final MPGain mpGains) 
+    public synchronized void setTotalMPGains(final MPGain mpGains) 
     {
         totalMPGains = mpGains;
     }
@@ -584,8 +589,11 @@ public class LogSummaryData
     /**
      * @return The total mp gains collected during this ascension.
      */
-    public MPGain getTotalMPGains() 
+    public synchronized MPGain getTotalMPGains() 
     {
+        if (totalMPGains == null)
+            totalMPGains = data.getTotalMPGains();
+
         return totalMPGains;
     }
 
@@ -594,7 +602,7 @@ public class LogSummaryData
      */
     public MPGainSummary getMPGainSummary() 
     {
-        return mpGainSummary;
+        return data.getMPGainSummary();
     }
 
     /**
@@ -602,14 +610,14 @@ public class LogSummaryData
      */
     public MeatSummary getMeatSummary() 
     {
-        return meatSummary;
+        return data.getMeatSummary();
     }
 
     /**
      * @param stats
      *            The total amount of statgains to set.
      */
-    public void setTotalStatgains(final Statgain stats) 
+    public synchronized void setTotalStatgains(final Statgain stats) 
     {
         totalStatgains = stats;
     }
@@ -617,8 +625,11 @@ public class LogSummaryData
     /**
      * @return The total amount of substats collected during this ascension.
      */
-    public Statgain getTotalStatgains()
+    public synchronized Statgain getTotalStatgains() 
     {
+        if (totalStatgains == null)
+            totalStatgains = data.getTotalStatgains();
+
         return totalStatgains;
     }
 
@@ -626,7 +637,7 @@ public class LogSummaryData
      * @param stats
      *            The amount of combat statgains to set.
      */
-    public void setCombatsStatgains(final Statgain stats) 
+    public synchronized void setCombatsStatgains(final Statgain stats) 
     {
         combatsStatgains = stats;
     }
@@ -635,8 +646,11 @@ public class LogSummaryData
      * @return The total amount of substats from combats collected during this
      *         ascension.
      */
-    public Statgain getCombatsStatgains() 
+    public synchronized Statgain getCombatsStatgains() 
     {
+        if (combatsStatgains == null)
+            combatsStatgains = data.getCombatsStatgains();
+
         return combatsStatgains;
     }
 
@@ -644,7 +658,7 @@ public class LogSummaryData
      * @param stats
      *            The amount of noncombat statgains to set.
      */
-    public void setNoncombatsStatgains(final Statgain stats) 
+    public synchronized void setNoncombatsStatgains(final Statgain stats) 
     {
         noncombatsStatgains = stats;
     }
@@ -653,8 +667,11 @@ public class LogSummaryData
      * @return The total amount of substats from noncombats collected during
      *         this ascension.
      */
-    public Statgain getNoncombatsStatgains()
+    public synchronized Statgain getNoncombatsStatgains() 
     {
+        if (noncombatsStatgains == null)
+            noncombatsStatgains = data.getNoncombatsStatgains();
+
         return noncombatsStatgains;
     }
 
@@ -662,7 +679,7 @@ public class LogSummaryData
      * @param stats
      *            The amount of other statgains to set.
      */
-    public void setOthersStatgains(final Statgain stats) 
+    public synchronized void setOthersStatgains(final Statgain stats) 
     {
         othersStatgains = stats;
     }
@@ -671,8 +688,11 @@ public class LogSummaryData
      * @return The total amount of substats from other encounters collected
      *         during this ascension.
      */
-    public Statgain getOthersStatgains() 
+    public synchronized Statgain getOthersStatgains() 
     {
+        if (othersStatgains == null)
+            othersStatgains = data.getOthersStatgains();
+
         return othersStatgains;
     }
 
@@ -682,7 +702,7 @@ public class LogSummaryData
      */
     public Statgain getFoodConsumablesStatgains() 
     {
-        return consumptionSummary.getFoodConsumablesStatgains();
+        return getConsumptionSummary().getFoodConsumablesStatgains();
     }
 
     /**
@@ -691,7 +711,7 @@ public class LogSummaryData
      */
     public Statgain getBoozeConsumablesStatgains() 
     {
-        return consumptionSummary.getBoozeConsumablesStatgains();
+        return getConsumptionSummary().getBoozeConsumablesStatgains();
     }
 
     /**
@@ -700,7 +720,7 @@ public class LogSummaryData
      */
     public Statgain getUsedConsumablesStatgains() 
     {
-        return consumptionSummary.getUsedConsumablesStatgains();
+        return getConsumptionSummary().getUsedConsumablesStatgains();
     }
 
     /**
@@ -709,7 +729,7 @@ public class LogSummaryData
      * @throws IllegalArgumentException
      *             if totalAmountSkillCasts is below 0
      */
-    public void setTotalAmountSkillCasts(final int totalAmountSkillCasts) 
+    public synchronized void setTotalAmountSkillCasts(final int totalAmountSkillCasts) 
     {
         if (totalAmountSkillCasts < 0)
             throw new IllegalArgumentException("Amount must not be below 0.");
@@ -720,8 +740,11 @@ public class LogSummaryData
     /**
      * @return The total amount of skill casts.
      */
-    public int getTotalAmountSkillCasts() 
+    public synchronized int getTotalAmountSkillCasts() 
     {
+        if (totalAmountSkillCasts == null)
+            totalAmountSkillCasts = data.getTotalAmountSkillCasts();
+
         return totalAmountSkillCasts;
     }
 
@@ -731,7 +754,7 @@ public class LogSummaryData
      * @throws IllegalArgumentException
      *             if totalMPUsed is below 0
      */
-    public void setTotalMPUsed(final int totalMPUsed) 
+    public synchronized void setTotalMPUsed(final int totalMPUsed) 
     {
         if (totalMPUsed < 0)
             throw new IllegalArgumentException("MP used must not be below 0.");
@@ -742,8 +765,11 @@ public class LogSummaryData
     /**
      * @return The total amount of MP spent on skills.
      */
-    public int getTotalMPUsed()
+    public synchronized int getTotalMPUsed() 
     {
+        if (totalMPUsed == null)
+            totalMPUsed = data.getTotalMPUsed();
+
         return totalMPUsed;
     }
 
@@ -753,7 +779,7 @@ public class LogSummaryData
      * @throws IllegalArgumentException
      *             if totalMeatGain is below 0
      */
-    public void setTotalMeatGain(final int totalMeatGain) 
+    public synchronized void setTotalMeatGain(final int totalMeatGain) 
     {
         if (totalMeatGain < 0)
             throw new IllegalArgumentException("Meat gain must not be below 0.");
@@ -764,8 +790,11 @@ public class LogSummaryData
     /**
      * @return The total amount of meat gathered.
      */
-    public int getTotalMeatGain() 
+    public synchronized int getTotalMeatGain() 
     {
+        if (totalMeatGain == null)
+            totalMeatGain = data.getTotalMeatGain();
+
         return totalMeatGain;
     }
 
@@ -775,7 +804,7 @@ public class LogSummaryData
      * @throws IllegalArgumentException
      *             if totalMeatGain is below 0
      */
-    public void setTotalMeatSpent(final int totalMeatSpent) 
+    public synchronized void setTotalMeatSpent(final int totalMeatSpent) 
     {
         if (totalMeatSpent < 0)
             throw new IllegalArgumentException("Meat spent must not be below 0.");
@@ -786,8 +815,11 @@ public class LogSummaryData
     /**
      * @return The total amount of meat spent.
      */
-    public int getTotalMeatSpent() 
+    public synchronized int getTotalMeatSpent() 
     {
+        if (totalMeatSpent == null)
+            totalMeatSpent = data.getTotalMeatSpent();
+
         return totalMeatSpent;
     }
 
@@ -796,7 +828,7 @@ public class LogSummaryData
      */
     public int getTotalTurnsFromFood()
     {
-        return consumptionSummary.getTotalTurnsFromFood();
+        return getConsumptionSummary().getTotalTurnsFromFood();
     }
 
     /**
@@ -804,7 +836,7 @@ public class LogSummaryData
      */
     public int getTotalTurnsFromBooze() 
     {
-        return consumptionSummary.getTotalTurnsFromBooze();
+        return getConsumptionSummary().getTotalTurnsFromBooze();
     }
 
     /**
@@ -812,7 +844,7 @@ public class LogSummaryData
      */
     public int getTotalTurnsFromOther()
     {
-        return consumptionSummary.getTotalTurnsFromOther();
+        return getConsumptionSummary().getTotalTurnsFromOther();
     }
 
     /**
@@ -821,7 +853,7 @@ public class LogSummaryData
      * @throws IllegalArgumentException
      *             if totalTurnsFromRollover is below 0
      */
-    public void setTotalTurnsFromRollover(final int totalTurnsFromRollover) 
+    public synchronized void setTotalTurnsFromRollover(final int totalTurnsFromRollover) 
     {
         if (totalTurnsFromRollover < 0)
             throw new IllegalArgumentException("Turn gain must not be below 0.");
@@ -832,8 +864,11 @@ public class LogSummaryData
     /**
      * @return The total amount of turns gained from rollover.
      */
-    public int getTotalTurnsFromRollover() 
+    public synchronized int getTotalTurnsFromRollover() 
     {
+        if (totalTurnsFromRollover == null)
+            totalTurnsFromRollover = data.getTotalTurnsFromRollover();
+
         return totalTurnsFromRollover;
     }
 
@@ -843,7 +878,7 @@ public class LogSummaryData
      * @throws IllegalArgumentException
      *             if totalTurnsCombat is below 0
      */
-    public void setTotalTurnsCombat(final int totalTurnsCombat) 
+    public synchronized void setTotalTurnsCombat(final int totalTurnsCombat) 
     {
         if (totalTurnsCombat < 0)
             throw new IllegalArgumentException("Turn spent must not be below 0.");
@@ -854,8 +889,11 @@ public class LogSummaryData
     /**
      * @return The total amount of combat turns.
      */
-    public int getTotalTurnsCombat()
+    public synchronized int getTotalTurnsCombat() 
     {
+        if (totalTurnsCombat == null)
+            totalTurnsCombat = data.getTotalTurnsCombat();
+
         return totalTurnsCombat;
     }
 
@@ -865,7 +903,7 @@ public class LogSummaryData
      * @throws IllegalArgumentException
      *             if totalTurnsNoncombat is below 0
      */
-    public void setTotalTurnsNoncombat(final int totalTurnsNoncombat) 
+    public synchronized void setTotalTurnsNoncombat(final int totalTurnsNoncombat) 
     {
         if (totalTurnsNoncombat < 0)
             throw new IllegalArgumentException("Turn spent must not be below 0.");
@@ -876,8 +914,11 @@ public class LogSummaryData
     /**
      * @return The total amount of noncombat turns.
      */
-    public int getTotalTurnsNoncombat() 
+    public synchronized int getTotalTurnsNoncombat() 
     {
+        if (totalTurnsNoncombat == null)
+            totalTurnsNoncombat = data.getTotalTurnsNoncombat();
+
         return totalTurnsNoncombat;
     }
 
@@ -888,7 +929,7 @@ public class LogSummaryData
      * @throws IllegalArgumentException
      *             if totalTurnsOther is below 0
      */
-    public void setTotalTurnsOther(final int totalTurnsOther) 
+    public synchronized void setTotalTurnsOther(final int totalTurnsOther) 
     {
         if (totalTurnsOther < 0)
             throw new IllegalArgumentException("Turn spent must not be below 0.");
@@ -900,8 +941,11 @@ public class LogSummaryData
      * @return The total amount of other (smithing, mixing, cooking, etc.)
      *         turns.
      */
-    public int getTotalTurnsOther() 
+    public synchronized int getTotalTurnsOther() 
     {
+        if (totalTurnsOther == null)
+            totalTurnsOther = data.getTotalTurnsOther();
+
         return totalTurnsOther;
     }
 }
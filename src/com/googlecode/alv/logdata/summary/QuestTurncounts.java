@@ -25,9 +25,11 @@
 package com.googlecode.alv.logdata.summary;
 
 import java.util.Collection;
+import java.util.Map;
 
 import com.googlecode.alv.logdata.Item;
 import com.googlecode.alv.logdata.turn.TurnInterval;
+import com.googlecode.alv.util.Maps;
 
 /**
  * This immutable class calculates and holds all the data on various quest
@@ -101,222 +103,246 @@ public final class QuestTurncounts {
     public QuestTurncounts(final Collection<TurnInterval> turns, 
                            final Collection<Item> droppedItems) 
     {
-        if (turns == null)
-            throw new NullPointerException("Turn rundown set must not be null.");
+        this(new AreaTurncounts(turns), droppedItems);
+    }
+
+    /**
+     * Constructs a new instance and calculates all quest turncounts from the
+     * given per-area histogram of the turn rundown.
+     *
+     * @param areas
+     *            The per-area turncounts of the ascension.
+     * @param droppedItems
+     *            All dropped items during the ascension.
+     */
+    public QuestTurncounts(final AreaTurncounts areas, 
+                           final Collection<Item> droppedItems) 
+    {
+        if (areas == null)
+            throw new NullPointerException("Area turncounts must not be null.");
         if (droppedItems == null)
             throw new NullPointerException("Dropped items list must not be null.");
 
+        // Only the first drop of an item matters.
+        final Map<String, Integer> itemsFoundOnTurn = Maps.newHashMap(droppedItems.size());
+        for (final Item i : droppedItems)
+            if (!itemsFoundOnTurn.containsKey(i.getName()))
+                itemsFoundOnTurn.put(i.getName(), i.getFoundOnTurn());
+
         mosquitoQuestTurns = getTurnsUntilItemFound("The Spooky Forest",
                                                     "mosquito larva",
-                                                    turns,
-                                                    droppedItems);
-
-        templeOpeningTurns = getTurnsInLocation("The Spooky Forest", turns);
-
-        tavernQuestTurns = getTurnsInLocation("Tavern Cellar", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 1, col 1)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 1, col 2)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 1, col 3)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 1, col 4)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 1, col 5)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 2, col 1)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 2, col 2)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 2, col 3)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 2, col 4)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 2, col 5)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 3, col 1)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 3, col 2)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 3, col 3)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 3, col 4)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 3, col 5)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 4, col 1)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 4, col 2)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 4, col 3)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 4, col 4)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 4, col 5)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 5, col 1)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 5, col 2)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 5, col 3)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 5, col 4)", turns)
-                + getTurnsInLocation("The Typical Tavern Cellar (row 5, col 5)", turns);
-
-        batQuestTurns = getTurnsInLocation("The Bat Hole Entryway", turns)
-                + getTurnsInLocation("The Guano Junction", turns)
-                + getTurnsInLocation("The Beanbat Chamber", turns)
-                + getTurnsInLocation("The Batrat and Ratbat Burrow", turns)
-                + getTurnsInLocation("The Boss Bat's Lair", turns);
-
-        knobQuestTurns = getTurnsInLocation("The Outskirts of Cobb's Knob",turns)
-                + getTurnsInLocation("Cobb's Knob Harem", turns)
-                + getTurnsInLocation("Cobb's Knob Barracks", turns)
-                + getTurnsInLocation("Cobb's Knob Kitchens",turns)
-                + getTurnsInLocation("Throne Room", turns);
+                                                    areas,
+                                                    itemsFoundOnTurn);
+
+        templeOpeningTurns = areas.getTurnsInArea("The Spooky Forest");
+
+        tavernQuestTurns = areas.getTurnsInArea("Tavern Cellar")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 1, col 1)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 1, col 2)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 1, col 3)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 1, col 4)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 1, col 5)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 2, col 1)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 2, col 2)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 2, col 3)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 2, col 4)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 2, col 5)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 3, col 1)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 3, col 2)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 3, col 3)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 3, col 4)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 3, col 5)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 4, col 1)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 4, col 2)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 4, col 3)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 4, col 4)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 4, col 5)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 5, col 1)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 5, col 2)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 5, col 3)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 5, col 4)")
+                + areas.getTurnsInArea("The Typical Tavern Cellar (row 5, col 5)");
+
+        batQuestTurns = areas.getTurnsInArea("The Bat Hole Entryway")
+                + areas.getTurnsInArea("The Guano Junction")
+                + areas.getTurnsInArea("The Beanbat Chamber")
+                + areas.getTurnsInArea("The Batrat and Ratbat Burrow")
+                + areas.getTurnsInArea("The Boss Bat's Lair");
+
+        knobQuestTurns = areas.getTurnsInArea("The Outskirts of Cobb's Knob")
+                + areas.getTurnsInArea("Cobb's Knob Harem")
+                + areas.getTurnsInArea("Cobb's Knob Barracks")
+                + areas.getTurnsInArea("Cobb's Knob Kitchens")
+                + areas.getTurnsInArea("Throne Room");
 
         friarsQuestTurns = getTurnsUntilItemFound("The Dark Neck of the Woods",
                                                   "dodecagram",
-                                                  turns,
-                                                  droppedItems)
+                                                  areas,
+                                                  itemsFoundOnTurn)
                         + getTurnsUntilItemFound("The Dark Heart of the Woods",
                                                  "box of birthday candles",
-                                                 turns,
-                                                 droppedItems)
+                                                 areas,
+                                                 itemsFoundOnTurn)
                         + getTurnsUntilItemFound("The Dark Elbow of the Woods",
                                                  "eldritch butterknife",
-                                                 turns,
-                                                 droppedItems);
-
-        pandamoniumQuestTurns = getTurnsInLocation("Hey Deze Arena", turns)
-                + getTurnsInLocation("Belilafs Comedy Club", turns);
-
-        cyrptQuestTurns = getTurnsInLocation("The Defiled Cranny", turns)
-                + getTurnsInLocation("The Defiled Nook", turns)
-                + getTurnsInLocation("The Defiled Alcove", turns)
-                + getTurnsInLocation("The Defiled Niche", turns)
-                + getTurnsInLocation("Haert of the Cyrpt", turns);
-
-        trapzorQuestTurns = getTurnsInLocation("Itznotyerzitz Mine", turns)
-                + getTurnsInLocation("Mining (In Disguise)", turns)
-                + getTurnsInLocation("Itznotyerzitz Mine (in Disguise)", turns)
-                + getTurnsInLocation("The Goatlet", turns)
-                + getTurnsInLocation("Lair of the Ninja Snowmen", turns)
-                + getTurnsInLocation("The eXtreme Slope", turns)
-                + getTurnsInLocation("Mist-Shrouded Peak", turns);
-
-        chasmQuestTurns = getTurnsInLocation("Smut Orc Logging Camp", turns)
-                + getTurnsInLocation("A-Boo Peak", turns)
-                + getTurnsInLocation("Oil Peak", turns)
-                + getTurnsInLocation("Twin Peak", turns);
+                                                 areas,
+                                                 itemsFoundOnTurn);
+
+        pandamoniumQuestTurns = areas.getTurnsInArea("Hey Deze Arena")
+                + areas.getTurnsInArea("Belilafs Comedy Club");
+
+        cyrptQuestTurns = areas.getTurnsInArea("The Defiled Cranny")
+                + areas.getTurnsInArea("The Defiled Nook")
+                + areas.getTurnsInArea("The Defiled Alcove")
+                + areas.getTurnsInArea("The Defiled Niche")
+                + areas.getTurnsInArea("Haert of the Cyrpt");
+
+        trapzorQuestTurns = areas.getTurnsInArea("Itznotyerzitz Mine")
+                + areas.getTurnsInArea("Mining (In Disguise)")
+                + areas.getTurnsInArea("Itznotyerzitz Mine (in Disguise)")
+                + areas.getTurnsInArea("The Goatlet")
+                + areas.getTurnsInArea("Lair of the Ninja Snowmen")
+                + areas.getTurnsInArea("The eXtreme Slope")
+                + areas.getTurnsInArea("Mist-Shrouded Peak");
+
+        chasmQuestTurns = areas.getTurnsInArea("Smut Orc Logging Camp")
+                + areas.getTurnsInArea("A-Boo Peak")
+                + areas.getTurnsInArea("Oil Peak")
+                + areas.getTurnsInArea("Twin Peak");
 
         airshipQuestTurns = getTurnsUntilItemFound("The Penultimate Fantasy Airship",
                                                    "S.O.C.K.",
-                                                   turns,
-                                                   droppedItems);
-
-        castleQuestTurns = getTurnsInLocation("The Castle in the Clouds in the Sky (Basement)", turns)
-                + getTurnsInLocation("The Castle in the Clouds in the Sky (Ground Floor)", turns)
-                + getTurnsInLocation("The Castle in the Clouds in the Sky (Top Floor)", turns);
-
-        spookyravenFirstFloor = getTurnsInLocation("The Haunted Kitchen", turns)
-                + getTurnsInLocation("The Haunted Billiards Room", turns)
-                + getTurnsInLocation("The Haunted Library", turns);
-
-        spookyravenSecondFloor = getTurnsInLocation("The Haunted Bathroom", turns)
-                + getTurnsInLocation("The Haunted Bedroom", turns)
-                + getTurnsInLocation("The Haunted Gallery", turns)
-                + getTurnsInLocation("The Haunted Ballroom", turns);
-
-        pirateQuestTurns = getTurnsInLocation("The Obligatory Pirate's Cove", turns)
-                + getTurnsInLocation("Barrrney's Barrr", turns)
-                + getTurnsInLocation("Cap'm Caronch's Map", turns)
-                + getTurnsInLocation("The Infiltrationist", turns)
-                + getTurnsInLocation("The F'c'le", turns)
-                + getTurnsInLocation("The Poop Deck", turns)
-                + getTurnsInLocation("Belowdecks", turns);
-
-        copperheadClubTurns = getTurnsUntilItemFound("The Copperhead Club", 
+                                                   areas,
+                                                   itemsFoundOnTurn);
+
+        castleQuestTurns = areas.getTurnsInArea("The Castle in the Clouds in the Sky (Basement)")
+                + areas.getTurnsInArea("The Castle in the Clouds in the Sky (Ground Floor)")
+                + areas.getTurnsInArea("The Castle in the Clouds in the Sky (Top Floor)");
+
+        spookyravenFirstFloor = areas.getTurnsInArea("The Haunted Kitchen")
+                + areas.getTurnsInArea("The Haunted Billiards Room")
+                + areas.getTurnsInArea("The Haunted Library");
+
+        spookyravenSecondFloor = areas.getTurnsInArea("The Haunted Bathroom")
+                + areas.getTurnsInArea("The Haunted Bedroom")
+                + areas.getTurnsInArea("The Haunted Gallery")
+                + areas.getTurnsInArea("The Haunted Ballroom");
+
+        pirateQuestTurns = areas.getTurnsInArea("The Obligatory Pirate's Cove")
+                + areas.getTurnsInArea("Barrrney's Barrr")
+                + areas.getTurnsInArea("Cap'm Caronch's Map")
+                + areas.getTurnsInArea("The Infiltrationist")
+                + areas.getTurnsInArea("The F'c'le")
+                + areas.getTurnsInArea("The Poop Deck")
+                + areas.getTurnsInArea("Belowdecks");
+
+        copperheadClubTurns = getTurnsUntilItemFound("The Copperhead Club",
                                                      "Copperhead Charm",
-                                                     turns,
-                                                     droppedItems);
+                                                     areas,
+                                                     itemsFoundOnTurn);
         
-        redZeppelinTurns = getTurnsInLocation("A Mob of Zeppelin Protesters", turns)
-                           + getTurnsUntilItemFound("The Red Zeppelin", 
+        redZeppelinTurns = areas.getTurnsInArea("A Mob of Zeppelin Protesters")
+                           + getTurnsUntilItemFound("The Red Zeppelin",
                                                     "Copperhead Charm (rampant)",
-                                                    turns,
-                                                    droppedItems);
+                                                    areas,
+                                                    itemsFoundOnTurn);
         
-        blackForrestQuestTurns = getTurnsInLocation("The Black Forest", turns)
-                + getTurnsInLocation("Wu Tang the Betrayer", turns);
-
-        desertOasisQuestTurns = getTurnsInLocation("The Arid, Extra-Dry Desert", turns)
-                + getTurnsInLocation("The Oasis", turns);
-
-        spookyravenQuestTurns = getTurnsInLocation("The Haunted Wine Cellar", turns)
-                + getTurnsInLocation("The Haunted Laundry Room", turns)
-                + getTurnsInLocation("The Haunted Boiler Room", turns)
-                + getTurnsInLocation("Lord Spookyraven", turns);
-
-        templeCityQuestTurns = getTurnsInLocation("The Hidden Temple", turns) + 2
-                + getTurnsInLocation("An Overgrown Shrine (Northwest)", turns)
-                + getTurnsInLocation("An Overgrown Shrine (Northeast)", turns)
-                + getTurnsInLocation("An Overgrown Shrine (Southeast)", turns)
-                + getTurnsInLocation("An Overgrown Shrine (Southwest)", turns)
-                + getTurnsInLocation("The Hidden Office Building", turns)
-                + getTurnsInLocation("The Hidden Apartment Building", turns)
-                + getTurnsInLocation("The Hidden Hospital", turns)
-                + getTurnsInLocation("The Hidden Bowling Alley", turns)
-                + getTurnsInLocation("A Massive Ziggurat", turns)
-                + getTurnsInLocation("The Hidden Park", turns);
-
-        palindomeQuestTurns = getTurnsInLocation("Inside the Palindome", turns)
-                + getTurnsInLocation("Whitey's Grove", turns) + 1;
-
-        pyramidQuestTurns = getTurnsInLocation("The Upper Chamber", turns)
-                + getTurnsInLocation("The Middle Chamber", turns)
-                + getTurnsInLocation("The Lower Chamber", turns)
-                + getTurnsInLocation("The Lower Chambers (Token/Empty)", turns)
-                + getTurnsInLocation("The Lower Chambers (Rubble/Bomb)", turns)
-                + getTurnsInLocation("The Lower Chambers (Empty/Empty/Ed's Chamber)", turns)
-                + getTurnsInLocation("The Lower Chambers (Empty/Rubble)", turns)
-                + getTurnsInLocation("Ed the Undying", turns);
-
-        warIslandOpeningTurns = getTurnsInLocation("Hippy Camp", turns)
-                + getTurnsInLocation("Wartime Hippy Camp (Hippy Disguise)", turns)
-                + getTurnsInLocation("Wartime Hippy Camp (Frat Disguise)", turns)
-                + getTurnsInLocation("Frat House", turns)
-                + getTurnsInLocation("Wartime Frat House (Hippy Disguise)", turns)
-                + getTurnsInLocation("Wartime Frat House (Frat Disguise)", turns);
-
-        warIslandQuestTurns = getTurnsInLocation("The Hatching Chamber", turns)
-                + getTurnsInLocation("The Feeding Chamber", turns)
-                + getTurnsInLocation("The Royal Guard Chamber", turns)
-                + getTurnsInLocation("The Filthworm Queen's Chamber", turns)
-                + getTurnsInLocation("Next to that Barrel with Something Burning in it", turns)
-                + getTurnsInLocation("Over Where the Old Tires Are", turns)
-                + getTurnsInLocation("Near an Abandoned Refrigerator", turns)
-                + getTurnsInLocation("Out by that Rusted-Out Car", turns)
-                + getTurnsInLocation("Sonofa Beach", turns)
-                + getTurnsInLocation("The Themthar Hills", turns)
-                + getTurnsInLocation("The Barn", turns)
-                + getTurnsInLocation("The Family Plot", turns)
-                + getTurnsInLocation("The Pond", turns)
-                + getTurnsInLocation("The Other Back 40", turns)
-                + getTurnsInLocation("The Back 40", turns)
-                + getTurnsInLocation("The Granary", turns)
-                + getTurnsInLocation("The Bog", turns)
-                + getTurnsInLocation("The Shady Thicket", turns)
-                + getTurnsInLocation("The Battlefield (Frat Uniform)", turns)
-                + getTurnsInLocation("The Battlefield (Hippy Uniform)", turns)
-                + getTurnsInLocation("The Big Wisniewski", turns)
-                + getTurnsInLocation("The Man", turns);
-
-        dodQuestTurns = getTurnsInLocation("The Enormous Greater-Than Sign", turns)
-                        + getTurnsUntilItemFound("The Dungeons of Doom", "dead mimic", turns, droppedItems);
-
-        dailyDungeonTurns = getTurnsInLocation("The Daily Dungeon", turns);
-
-        nsTurns = getTurnsInLocation("Fastest Adventurer Contest", turns)
-                + getTurnsInLocation("Smartest Adventurer Contest", turns)
-                + getTurnsInLocation("Strongest Adventurer Contest", turns)
-                + getTurnsInLocation("Smoothest Adventurer Contest", turns)
-                + getTurnsInLocation("Hottest Adventurer Contest", turns)
-                + getTurnsInLocation("Sleaziest Adventurer Contest", turns)
-                + getTurnsInLocation("Spookiest Adventurer Contest", turns)
-                + getTurnsInLocation("Coldest Adventurer Contest", turns)
-                + getTurnsInLocation("Stinkiest Adventurer Contest", turns)
-                + getTurnsInLocation("The Hedge Maze (Room 1)", turns)
-                + getTurnsInLocation("The Hedge Maze (Room 2)", turns)
-                + getTurnsInLocation("The Hedge Maze (Room 3)", turns)
-                + getTurnsInLocation("The Hedge Maze (Room 4)", turns)
-                + getTurnsInLocation("The Hedge Maze (Room 5)", turns)
-                + getTurnsInLocation("The Hedge Maze (Room 6)", turns)
-                + getTurnsInLocation("The Hedge Maze (Room 7)", turns)
-                + getTurnsInLocation("The Hedge Maze (Room 8)", turns)
-                + getTurnsInLocation("Tower Level 1", turns)
-                + getTurnsInLocation("Tower Level 2", turns)
-                + getTurnsInLocation("Tower Level 3", turns)
-                + getTurnsInLocation("Tower Level 4", turns)
-                + getTurnsInLocation("Tower Level 5", turns)
-                + getTurnsInLocation("The Naughty Sorceress' Chamber", turns);
+        blackForrestQuestTurns = areas.getTurnsInArea("The Black Forest")
+                + areas.getTurnsInArea("Wu Tang the Betrayer");
+
+        desertOasisQuestTurns = areas.getTurnsInArea("The Arid, Extra-Dry Desert")
+                + areas.getTurnsInArea("The Oasis");
+
+        spookyravenQuestTurns = areas.getTurnsInArea("The Haunted Wine Cellar")
+                + areas.getTurnsInArea("The Haunted Laundry Room")
+                + areas.getTurnsInArea("The Haunted Boiler Room")
+                + areas.getTurnsInArea("Lord Spookyraven");
+
+        templeCityQuestTurns = areas.getTurnsInArea("The Hidden Temple") + 2
+                + areas.getTurnsInArea("An Overgrown Shrine (Northwest)")
+                + areas.getTurnsInArea("An Overgrown Shrine (Northeast)")
+                + areas.getTurnsInArea("An Overgrown Shrine (Southeast)")
+                + areas.getTurnsInArea("An Overgrown Shrine (Southwest)")
+                + areas.getTurnsInArea("The Hidden Office Building")
+                + areas.getTurnsInArea("The Hidden Apartment Building")
+                + areas.getTurnsInArea("The Hidden Hospital")
+                + areas.getTurnsInArea("The Hidden Bowling Alley")
+                + areas.getTurnsInArea("A Massive Ziggurat")
+                + areas.getTurnsInArea("The Hidden Park");
+
+        palindomeQuestTurns = areas.getTurnsInArea("Inside the Palindome")
+                + areas.getTurnsInArea("Whitey's Grove") + 1;
+
+        pyramidQuestTurns = areas.getTurnsInArea("The Upper Chamber")
+                + areas.getTurnsInArea("The Middle Chamber")
+                + areas.getTurnsInArea("The Lower Chamber")
+                + areas.getTurnsInArea("The Lower Chambers (Token/Empty)")
+                + areas.getTurnsInArea("The Lower Chambers (Rubble/Bomb)")
+                + areas.getTurnsInArea("The Lower Chambers (Empty/Empty/Ed's Chamber)")
+                + areas.getTurnsInArea("The Lower Chambers (Empty/Rubble)")
+                + areas.getTurnsInArea("Ed the Undying");
+
+        warIslandOpeningTurns = areas.getTurnsInArea("Hippy Camp")
+                + areas.getTurnsInArea("Wartime Hippy Camp (Hippy Disguise)")
+                + areas.getTurnsInArea("Wartime Hippy Camp (Frat Disguise)")
+                + areas.getTurnsInArea("Frat House")
+                + areas.getTurnsInArea("Wartime Frat House (Hippy Disguise)")
+                + areas.getTurnsInArea("Wartime Frat House (Frat Disguise)");
+
+        warIslandQuestTurns = areas.getTurnsInArea("The Hatching Chamber")
+                + areas.getTurnsInArea("The Feeding Chamber")
+                + areas.getTurnsInArea("The Royal Guard Chamber")
+                + areas.getTurnsInArea("The Filthworm Queen's Chamber")
+                + areas.getTurnsInArea("Next to that Barrel with Something Burning in it")
+                + areas.getTurnsInArea("Over Where the Old Tires Are")
+                + areas.getTurnsInArea("Near an Abandoned Refrigerator")
+                + areas.getTurnsInArea("Out by that Rusted-Out Car")
+                + areas.getTurnsInArea("Sonofa Beach")
+                + areas.getTurnsInArea("The Themthar Hills")
+                + areas.getTurnsInArea("The Barn")
+                + areas.getTurnsInArea("The Family Plot")
+                + areas.getTurnsInArea("The Pond")
+                + areas.getTurnsInArea("The Other Back 40")
+                + areas.getTurnsInArea("The Back 40")
+                + areas.getTurnsInArea("The Granary")
+                + areas.getTurnsInArea("The Bog")
+                + areas.getTurnsInArea("The Shady Thicket")
+                + areas.getTurnsInArea("The Battlefield (Frat Uniform)")
+                + areas.getTurnsInArea("The Battlefield (Hippy Uniform)")
+                + areas.getTurnsInArea("The Big Wisniewski")
+                + areas.getTurnsInArea("The Man");
+
+        dodQuestTurns = areas.getTurnsInArea("The Enormous Greater-Than Sign")
+                        + getTurnsUntilItemFound("The Dungeons of Doom",
+                                                 "dead mimic",
+                                                 areas,
+                                                 itemsFoundOnTurn);
+
+        dailyDungeonTurns = areas.getTurnsInArea("The Daily Dungeon");
+
+        nsTurns = areas.getTurnsInArea("Fastest Adventurer Contest")
+                + areas.getTurnsInArea("Smartest Adventurer Contest")
+                + areas.getTurnsInArea("Strongest Adventurer Contest")
+                + areas.getTurnsInArea("Smoothest Adventurer Contest")
+                + areas.getTurnsInArea("Hottest Adventurer Contest")
+                + areas.getTurnsInArea("Sleaziest Adventurer Contest")
+                + areas.getTurnsInArea("Spookiest Adventurer Contest")
+                + areas.getTurnsInArea("Coldest Adventurer Contest")
+                + areas.getTurnsInArea("Stinkiest Adventurer Contest")
+                + areas.getTurnsInArea("The Hedge Maze (Room 1)")
+                + areas.getTurnsInArea("The Hedge Maze (Room 2)")
+                + areas.getTurnsInArea("The Hedge Maze (Room 3)")
+                + areas.getTurnsInArea("The Hedge Maze (Room 4)")
+                + areas.getTurnsInArea("The Hedge Maze (Room 5)")
+                + areas.getTurnsInArea("The Hedge Maze (Room 6)")
+                + areas.getTurnsInArea("The Hedge Maze (Room 7)")
+                + areas.getTurnsInArea("The Hedge Maze (Room 8)")
+                + areas.getTurnsInArea("Tower Level 1")
+                + areas.getTurnsInArea("Tower Level 2")
+                + areas.getTurnsInArea("Tower Level 3")
+                + areas.getTurnsInArea("Tower Level 4")
+                + areas.getTurnsInArea("Tower Level 5")
+                + areas.getTurnsInArea("The Naughty Sorceress' Chamber");
     }
 
     /**
@@ -353,24 +379,6 @@ public final class QuestTurncounts {
         return Math.max(mosquito, Math.max(coin, Math.max(templeMap, Math.max(spookyGro, sapling))));
     }*/
 
-    /**
-     * @param areaName
-     *            The name of the area the turns are spent in.
-     * @param turns
-     *            The turn rundown of the ascension.
-     * @return Turns spent.
-     */
-    private int getTurnsInLocation(final String areaName, final Collection<TurnInterval> turns) 
-    {
-        int turnsSpent = 0;
-
-        for (final TurnInterval ti : turns)
-            if (ti.getAreaName().equals(areaName))
-                turnsSpent += ti.getTotalTurns();
-
-        return turnsSpent;
-    }
-
     /**
      * @param areaName
      *            The name of the area the turns are spent in.
@@ -466,34 +474,21 @@ public final class QuestTurncounts {
      *            The name of the area the turns are spent in.
      * @param itemName
      *            The name of the item which has to be found.
-     * @param turns
-     *            The turn rundown of the ascension.
-     * @param droppedItems
-     *            All dropped items during the ascension.
+     * @param areas
+     *            The per-area turncounts of the ascension.
+     * @param itemsFoundOnTurn
+     *            The turns on which the dropped items were found first.
      * @return Turns spent.
      */
-    private int getTurnsUntilItemFound(final String areaName, 
-                                       final String itemName,
-                                       final Collection<TurnInterval> turns,
-                                       final Collection<Item> droppedItems) 
+    private static int getTurnsUntilItemFound(final String areaName, 
+                                              final String itemName,
+                                              final AreaTurncounts areas,
+                                              final Map<String, Integer> itemsFoundOnTurn) 
     {
-        int turnsSpent = 0;
-        int finishedOnTurn = Integer.MAX_VALUE;
-        for (final Item i : droppedItems)
-            if (i.getName().equals(itemName)) {
-                finishedOnTurn = i.getFoundOnTurn();
-                break;
-            }
+        final Integer foundOnTurn = itemsFoundOnTurn.get(itemName);
 
-        for (final TurnInterval ti : turns)
-            if (ti.getAreaName().equals(areaName))
-                if (ti.getStartTurn() <= finishedOnTurn && ti.getEndTurn() <= finishedOnTurn)
-                    turnsSpent += ti.getTotalTurns();
-                else if (ti.getStartTurn() <= finishedOnTurn && ti.getEndTurn() > finishedOnTurn) {
-                    turnsSpent += finishedOnTurn - ti.getStartTurn();
-                    break;
-                }
-
-        return turnsSpent;
+        return areas.getTurnsInAreaUntil(areaName,
+                                         foundOnTurn == null ? Integer.MAX_VALUE
+                                                            : foundOnTurn.intValue());
     }
 }
@@ -25,6 +25,8 @@
 package com.googlecode.alv.logdata.summary;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import com.googlecode.alv.logdata.*;
 import com.googlecode.alv.logdata.consumables.Consumable;
@@ -44,8 +46,8 @@ import com.googlecode.alv.util.data.DataTablesHandler;
  * the turn interval does not contain a record of every single turn, it cannot
  * make calculations which are based on such data.
  * <p>
- * Note that this class is immutable, while some of its members may be mutable.
- * This has to be taken into account while using this class.
+ * Note that this class is immutable from the outside, while some of its members
+ * may be mutable. This has to be taken into account while using this class.
  */
 final class SummaryDataCalculator
 {
@@ -97,6 +99,8 @@ final class SummaryDataCalculator
             LEVEL_STAT_BORDERS_MAP.put(i, (i - 1) * (i - 1) + 4);
     }
 
+    private final LogDataHolder logData;
+
     private final CountableSet<Consumable> consumablesUsed = new CountableSet<Consumable>();
 
     private final CountableSet<Item> droppedItems = new CountableSet<Item>();
@@ -129,17 +133,19 @@ final class SummaryDataCalculator
 
     private final List<Encounter> freeRunawayCombats = Lists.newArrayList();
 
-    private final ConsumptionSummary consumptionSummary;
+    private ConsumptionSummary consumptionSummary;
 
-    private final FreeRunaways freeRunaways;
+    private FreeRunaways freeRunaways;
 
     private final Goatlet goatlet = new Goatlet();
 
     private final InexplicableDoor nesRealm = new InexplicableDoor();
 
-    private final QuestTurncounts questTurncounts;
+    private AreaTurncounts areaTurncounts;
+
+    private QuestTurncounts questTurncounts;
     
-    private final LimitedUseSummary limitedUseData;
+    private LimitedUseSummary limitedUseData;
 
     private Statgain totalStatgains = Statgain.NO_STATS;
 
@@ -155,249 +161,464 @@ final class SummaryDataCalculator
 
     private MPGain totalMPGains = MPGain.NO_MP;
 
-    private final int totalAmountSkillCasts;
+    private int totalAmountSkillCasts;
+
+    private int totalMPUsed;
+
+    private int totalMeatGain;
+
+    private int totalMeatSpent;
+
+    private int totalTurnsFromRollover;
+
+    private int totalTurnsCombat;
+
+    private int totalTurnsNoncombat;
+
+    private int totalTurnsOther;
+
+    private final Object turnTotalsLock = new Object();
+
+    private final Object countedDataLock = new Object();
+
+    private final Object encounterListsLock = new Object();
+
+    private final Object areaRNGDataLock = new Object();
+
+    private final Object consumptionSummaryLock = new Object();
+
+    private final Object levelSummaryLock = new Object();
+
+    private final Object perLevelSummariesLock = new Object();
+
+    private final Object areaTurncountsLock = new Object();
 
-    private final int totalMPUsed;
+    private final Object questTurncountsLock = new Object();
 
-    private final int totalMeatGain;
+    private final Object limitedUseDataLock = new Object();
 
-    private final int totalMeatSpent;
+    private boolean isTurnTotalsCalculated;
 
-    private final int totalTurnsFromRollover;
+    private boolean isCountedDataCalculated;
 
-    private final int totalTurnsCombat;
+    private boolean isEncounterListsCalculated;
 
-    private final int totalTurnsNoncombat;
+    private boolean isAreaRNGDataCalculated;
 
-    private final int totalTurnsOther;
+    private boolean isConsumptionSummaryCalculated;
 
+    private boolean isLevelSummaryCalculated;
+
+    private boolean isPerLevelSummariesCalculated;
+
+    /**
+     * Creates a calculator for the given log. None of the summaries are
+     * computed here, each section is calculated the first time one of its
+     * getters is called and memoized afterwards.
+     * <p>
+     * The sections and their dependencies are:
+     * <ul>
+     * <li>turn totals (statgains, turncounts, meat and MP totals, free
+     * runaways)</li>
+     * <li>counted data (consumables, items, skills, combat items, turns per
+     * area, familiar usage)</li>
+     * <li>encounter lists (semirares, wandering adventures, banishes and so
+     * on)</li>
+     * <li>Goatlet and 8-Bit Realm data</li>
+     * <li>consumption summary</li>
+     * <li>level summary, depends on the turn totals</li>
+     * <li>meat and MP per level summaries, depend on the level summary</li>
+     * <li>per-area turncounts</li>
+     * <li>quest turncounts, depend on the counted data and the per-area
+     * turncounts</li>
+     * <li>limited use summary</li>
+     * </ul>
+     * Every section has its own lock, so independent sections can be
+     * calculated concurrently, see {@link #calculateAllSections()}.
+     * <p>
+     * Note that the level summary adds the calculated levels to the given
+     * log data and might also set its character class.
+     *
+     * @param logData
+     *            The log data from which the summaries should be calculated.
+     */
     SummaryDataCalculator(final LogDataHolder logData) 
     {
         if (logData == null)
             throw new NullPointerException("Log data holder must not be null.");
 
-        final List<Consumable> consumables = Lists.newArrayList(100);
-        
-        final List<LimitedUse> limitedUses = Lists.newArrayList(100);
-
-        int totalFreeRunawaysTries = 0;
-        int successfulFreeRunaways = 0;
-        int totalTurnsCombat = 0;
-        int totalTurnsNoncombat = 0;
-        int totalTurnsOther = 0;
-        int totalMeatGain = 0;
-        int totalMeatSpent = 0;
-        for (final TurnInterval ti : logData.getTurnIntervalsSpent()) {
-            // Consumables summary, day of usage is only a hindrance here.
-            for (final Consumable c : ti.getConsumablesUsed()) {
-                totalStatgains = totalStatgains.plus(c.getStatGain());
-
-                final Consumable tmp = c.newInstance();
-                tmp.setDayNumberOfUsage(Integer.MAX_VALUE);
-                consumablesUsed.addElement(tmp);
+        this.logData = logData;
+    }
+
+    /**
+     * Calculates all sections that haven't been calculated yet. The level
+     * summary (and the turn totals it depends on) is calculated first, because
+     * it writes into the log data. The remaining sections only read the turn
+     * lists of the log and are computed as parallel fork/join tasks. The
+     * results are the same as if the sections were calculated one after
+     * another.
+     */
+    void calculateAllSections()
+    {
+        calculateLevelSummary();
+
+        final List<RecursiveAction> sections = Lists.newArrayList(6);
+        sections.add(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                calculatePerLevelSummaries();
             }
-            consumables.addAll(ti.getConsumablesUsed());
-            
-            for (final LimitedUse use : ti.getLimitedUses()) {
-                totalStatgains = totalStatgains.plus(use.getStatgain());
+        });
+        sections.add(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                // Also calculates the counted data.
+                getQuestTurncounts();
+            }
+        });
+        sections.add(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                calculateEncounterLists();
             }
-            limitedUses.addAll(ti.getLimitedUses());
+        });
+        sections.add(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                calculateAreaRNGData();
+            }
+        });
+        sections.add(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                calculateConsumptionSummary();
+            }
+        });
+        sections.add(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                getLimitedUseData();
+            }
+        });
 
-            // Item summary
-            for (final Item i : ti.getDroppedItems())
-                droppedItems.addElement(i);
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(sections);
+            }
+        });
+    }
 
-            // Skill summary
-            for (final Skill s : ti.getSkillsCast())
-                skillsCast.addElement(s);
-            
-            for (final CombatItem ci : ti.getCombatItemsUsed())
-                combatItemsUsed.addElement( ci );
+    /**
+     * Calculates the total statgains, turncounts, meat and MP of the log.
+     */
+    private void calculateTurnTotals()
+    {
+        synchronized (turnTotalsLock) {
+            if (isTurnTotalsCalculated)
+                return;
+
+            int totalFreeRunawaysTries = 0;
+            int successfulFreeRunaways = 0;
+            for (final TurnInterval ti : logData.getTurnIntervalsSpent()) {
+                for (final Consumable c : ti.getConsumablesUsed())
+                    totalStatgains = totalStatgains.plus(c.getStatGain());
+                for (final LimitedUse use : ti.getLimitedUses())
+                    totalStatgains = totalStatgains.plus(use.getStatgain());
+
+                // MP summary
+                totalMPGains = totalMPGains.addMPGains(ti.getMPGain());
+
+                for (final SingleTurn st : ti.getTurns()) {
+                    // Total turncounts and stats of different turn versions.
+                    totalStatgains = totalStatgains.plus(st.getStatGain());
+                    switch (st.getTurnVersion()) {
+                        case COMBAT:
+                            if (!st.isFreeTurn())
+                                totalTurnsCombat++;
+                            combatsStatgains = combatsStatgains.plus(st.getStatGain());
+                            break;
+                        case NONCOMBAT:
+                            if (!st.isFreeTurn())
+                                totalTurnsNoncombat++;
+                            noncombatsStatgains = noncombatsStatgains.plus(st.getStatGain());
+                            break;
+                        case OTHER:
+                            if (!st.isFreeTurn())
+                                totalTurnsOther++;
+                            othersStatgains = othersStatgains.plus(st.getStatGain());
+                            break;
+                        default:
+                            break;
+                    }
+                }
 
-            // MP summary
-            totalMPGains = totalMPGains.addMPGains(ti.getMPGain());
+                // Free runaways summary
+                final FreeRunaways runaways = ti.getRunawayAttempts();
+                totalFreeRunawaysTries += runaways.getNumberOfAttemptedRunaways();
+                successfulFreeRunaways += runaways.getNumberOfSuccessfulRunaways();
+
+                // Meat gain/spent
+                // Nuns encounter meat ignored here.
+                if (!ti.getAreaName().equals("Themthar Hills"))
+                    totalMeatGain += ti.getMeat().encounterMeatGain;
+                totalMeatGain += ti.getMeat().otherMeatGain;
+                totalMeatSpent += ti.getMeat().meatSpent;
+            }
+            freeRunaways = new FreeRunaways(totalFreeRunawaysTries, successfulFreeRunaways);
 
-            // Turns per area summary
-            if (ti.getTotalTurns() > 0)
-                turnsPerArea.addDataElement(ti.getAreaName(), ti.getTotalTurns());
+            isTurnTotalsCalculated = true;
+        }
+    }
 
-            for (final SingleTurn st : ti.getTurns()) {
-                // Total turncounts and stats of different turn versions.
-                totalStatgains = totalStatgains.plus(st.getStatGain());
-                switch (st.getTurnVersion()) {
-                    case COMBAT:
-                        if (!st.isFreeTurn())
-                            totalTurnsCombat++;
-                        combatsStatgains = combatsStatgains.plus(st.getStatGain());
-                        break;
-                    case NONCOMBAT:
-                        if (!st.isFreeTurn())
-                            totalTurnsNoncombat++;
-                        noncombatsStatgains = noncombatsStatgains.plus(st.getStatGain());
-                        break;
-                    case OTHER:
-                        if (!st.isFreeTurn())
-                            totalTurnsOther++;
-                        othersStatgains = othersStatgains.plus(st.getStatGain());
-                        break;
-                    default:
-                        break;
+    /**
+     * Calculates the counted collections of consumables, items, skills, combat
+     * items, turns per area and familiar usage.
+     */
+    private void calculateCountedData()
+    {
+        synchronized (countedDataLock) {
+            if (isCountedDataCalculated)
+                return;
+
+            for (final TurnInterval ti : logData.getTurnIntervalsSpent()) {
+                // Consumables summary, day of usage is only a hindrance here.
+                for (final Consumable c : ti.getConsumablesUsed()) {
+                    final Consumable tmp = c.newInstance();
+                    tmp.setDayNumberOfUsage(Integer.MAX_VALUE);
+                    consumablesUsed.addElement(tmp);
                 }
 
-                if (st.getTurnVersion() == TurnVersion.COMBAT) {
+                // Item summary
+                for (final Item i : ti.getDroppedItems())
+                    droppedItems.addElement(i);
+
+                // Skill summary
+                for (final Skill s : ti.getSkillsCast())
+                    skillsCast.addElement(s);
+            
+                for (final CombatItem ci : ti.getCombatItemsUsed())
+                    combatItemsUsed.addElement( ci );
+
+                // Turns per area summary
+                if (ti.getTotalTurns() > 0)
+                    turnsPerArea.addDataElement(ti.getAreaName(), ti.getTotalTurns());
+
+                // Familiar usage summary
+                for (final SingleTurn st : ti.getTurns())
+                    if (st.getTurnVersion() == TurnVersion.COMBAT)
+                        familiarUsage.addDataElement(st.getUsedFamiliar().getFamiliarName());
+            }
+
+            // Total amount of skill casts and total MP used
+            for (final Skill s : skillsCast.getElements()) {
+                totalAmountSkillCasts += s.getAmount();
+                totalMPUsed += s.getMpCost();
+            }
+
+            isCountedDataCalculated = true;
+        }
+    }
+
+    /**
+     * Calculates the lists of notable encounters, such as semirares, wandering
+     * adventures and banished combats.
+     */
+    private void calculateEncounterLists()
+    {
+        synchronized (encounterListsLock) {
+            if (isEncounterListsCalculated)
+                return;
+
+            for (final TurnInterval ti : logData.getTurnIntervalsSpent())
+                for (final SingleTurn st : ti.getTurns()) {
+                    if (st.getTurnVersion() == TurnVersion.COMBAT) {
                     
-                    //Search for important combat item usage
-                    if (st.getCombatItemsUsed().size() > 0) {
-                        for ( CombatItem ci : st.getCombatItemsUsed() )
-                        {
-                            if (UsefulPatterns.TRACKED_COMBAT_ITEMS.contains( ci.getName() ))
-                                trackedCombatItemUsage.add( DataNumberPair.of( ci.getName() + " (" + st.getEncounterName() + ")" , st.getTurnNumber() ));
+                        //Search for important combat item usage
+                        if (st.getCombatItemsUsed().size() > 0) {
+                            for ( CombatItem ci : st.getCombatItemsUsed() )
+                            {
+                                if (UsefulPatterns.TRACKED_COMBAT_ITEMS.contains( ci.getName() ))
+                                    trackedCombatItemUsage.add( DataNumberPair.of( ci.getName() + " (" + st.getEncounterName() + ")" , st.getTurnNumber() ));
+                            }
                         }
                     }
-                }
-                
-                // Familiar usage summary
-                if (st.getTurnVersion() == TurnVersion.COMBAT)
-                    familiarUsage.addDataElement(st.getUsedFamiliar().getFamiliarName());
 
-                // Banished Combats Summary //Bombar: Add Banished Combat Support
-                if (st.isBanished())
-                    banishedCombats.add( DataNumberPair.of(st.getBanishedInfo(), st.getTurnNumber()) );
+                    // Banished Combats Summary //Bombar: Add Banished Combat Support
+                    if (st.isBanished())
+                        banishedCombats.add( DataNumberPair.of(st.getBanishedInfo(), st.getTurnNumber()) );
                 
-                // Disintegrated combats summary
-                if (st.isDisintegrated())
-                    disintegratedCombats.add(DataNumberPair.of(st.getEncounterName(),
-                                                               st.getTurnNumber()));
-
-                // Semirare summary
-                if (DataTablesHandler.HANDLER.isSemirareEncounter(st))
-                    semirares.add(DataNumberPair.of(st.getEncounterName(), st.getTurnNumber()));
-
-                // Bad Moon summary
-                if (DataTablesHandler.HANDLER.isBadMoonEncounter(st))
-                    badmoonAdventures.add(DataNumberPair.of(st.getEncounterName(),
-                                                            st.getTurnNumber()));
-
-                for (final Encounter e : st.getEncounters()) {
-                    // Wandering adventure summary
-                    if (DataTablesHandler.HANDLER.isWanderingEncounter(e))
-                        wanderingAdventures.add(DataNumberPair.of(e.getEncounterName(),
-                                                                  e.getTurnNumber()));
-
-                    if (e.getTurnVersion() == TurnVersion.COMBAT) {
-                        // Romantic arrow usages
-                        if (e.isSkillCast("fire a badly romantic arrow")
-                                || e.isSkillCast("wink at"))
-                            romanticArrowUsages.add(DataNumberPair.of(e.getEncounterName(),
+                    // Disintegrated combats summary
+                    if (st.isDisintegrated())
+                        disintegratedCombats.add(DataNumberPair.of(st.getEncounterName(),
+                                                                   st.getTurnNumber()));
+
+                    // Semirare summary
+                    if (DataTablesHandler.HANDLER.isSemirareEncounter(st))
+                        semirares.add(DataNumberPair.of(st.getEncounterName(), st.getTurnNumber()));
+
+                    // Bad Moon summary
+                    if (DataTablesHandler.HANDLER.isBadMoonEncounter(st))
+                        badmoonAdventures.add(DataNumberPair.of(st.getEncounterName(),
+                                                                st.getTurnNumber()));
+
+                    for (final Encounter e : st.getEncounters()) {
+                        // Wandering adventure summary
+                        if (DataTablesHandler.HANDLER.isWanderingEncounter(e))
+                            wanderingAdventures.add(DataNumberPair.of(e.getEncounterName(),
                                                                       e.getTurnNumber()));
 
-                        // Hipster combat summary
-                        if (HIPSTER_COMBAT_NAMES_SET.contains(e.getEncounterName()))
-                            hipsterCombats.add(DataNumberPair.of(e.getAreaName(), e.getTurnNumber()));
+                        if (e.getTurnVersion() == TurnVersion.COMBAT) {
+                            // Romantic arrow usages
+                            if (e.isSkillCast("fire a badly romantic arrow")
+                                    || e.isSkillCast("wink at"))
+                                romanticArrowUsages.add(DataNumberPair.of(e.getEncounterName(),
+                                                                          e.getTurnNumber()));
 
-                        // Free runaway combats summary
-                        if (e.getFreeRunaways() > 0)
-                            freeRunawayCombats.add(e);
+                            // Hipster combat summary
+                            if (HIPSTER_COMBAT_NAMES_SET.contains(e.getEncounterName()))
+                                hipsterCombats.add(DataNumberPair.of(e.getAreaName(), e.getTurnNumber()));
+
+                            // Free runaway combats summary
+                            if (e.getFreeRunaways() > 0)
+                                freeRunawayCombats.add(e);
                         
-                        if (!st.isBanished() && e.isBanished())
-                            banishedCombats.add( DataNumberPair.of(e.getBanishedInfo(), e.getTurnNumber()) );
+                            if (!st.isBanished() && e.isBanished())
+                                banishedCombats.add( DataNumberPair.of(e.getBanishedInfo(), e.getTurnNumber()) );
                             
+                        }
                     }
                 }
-            }
 
-            // Free runaways summary
-            final FreeRunaways runaways = ti.getRunawayAttempts();
-            totalFreeRunawaysTries += runaways.getNumberOfAttemptedRunaways();
-            successfulFreeRunaways += runaways.getNumberOfSuccessfulRunaways();
+            isEncounterListsCalculated = true;
+        }
+    }
+
+    /**
+     * Calculates the RNG data of the Goatlet and the 8-Bit Realm.
+     */
+    private void calculateAreaRNGData()
+    {
+        synchronized (areaRNGDataLock) {
+            if (isAreaRNGDataCalculated)
+                return;
 
-            // Goatlet summary
-            if (ti.getAreaName().equals("Goatlet")) {
-                goatlet.setTurnsSpent(goatlet.getTurnsSpent() + ti.getTotalTurns());
+            for (final TurnInterval ti : logData.getTurnIntervalsSpent()) {
+                // Goatlet summary
+                if (ti.getAreaName().equals("Goatlet")) {
+                    goatlet.setTurnsSpent(goatlet.getTurnsSpent() + ti.getTotalTurns());
 
-                for (final SingleTurn st : ti.getTurns())
-                    if (st.getEncounterName().equals("dairy goat"))
-                        goatlet.setDairyGoatsFound(goatlet.getDairyGoatsFound() + 1);
+                    for (final SingleTurn st : ti.getTurns())
+                        if (st.getEncounterName().equals("dairy goat"))
+                            goatlet.setDairyGoatsFound(goatlet.getDairyGoatsFound() + 1);
 
-                for (final Item i : ti.getDroppedItems())
-                    if (i.getName().equals("goat cheese"))
-                        goatlet.setCheeseFound(goatlet.getCheeseFound() + i.getAmount());
-                    else if (i.getName().equals("glass of goat's milk"))
-                        goatlet.setMilkFound(goatlet.getMilkFound() + i.getAmount());
+                    for (final Item i : ti.getDroppedItems())
+                        if (i.getName().equals("goat cheese"))
+                            goatlet.setCheeseFound(goatlet.getCheeseFound() + i.getAmount());
+                        else if (i.getName().equals("glass of goat's milk"))
+                            goatlet.setMilkFound(goatlet.getMilkFound() + i.getAmount());
+                }
+
+                // 8-Bit Realm summary
+                if (ti.getAreaName().equals("8-Bit Realm")) {
+                    nesRealm.setTurnsSpent(nesRealm.getTurnsSpent() + ti.getTotalTurns());
+
+                    for (final SingleTurn st : ti.getTurns())
+                        if (st.getEncounterName().equals("Bullet Bill"))
+                            nesRealm.setBulletsFound(nesRealm.getBulletsFound() + 1);
+                        else if (st.getEncounterName().equals("Blooper"))
+                            nesRealm.setBloopersFound(nesRealm.getBloopersFound() + 1);
+                }
             }
 
-            // 8-Bit Realm summary
-            if (ti.getAreaName().equals("8-Bit Realm")) {
-                nesRealm.setTurnsSpent(nesRealm.getTurnsSpent() + ti.getTotalTurns());
+            isAreaRNGDataCalculated = true;
+        }
+    }
 
-                for (final SingleTurn st : ti.getTurns())
-                    if (st.getEncounterName().equals("Bullet Bill"))
-                        nesRealm.setBulletsFound(nesRealm.getBulletsFound() + 1);
-                    else if (st.getEncounterName().equals("Blooper"))
-                        nesRealm.setBloopersFound(nesRealm.getBloopersFound() + 1);
+    /**
+     * Calculates the consumption summary and the turns gained from rollover.
+     */
+    private void calculateConsumptionSummary()
+    {
+        synchronized (consumptionSummaryLock) {
+            if (isConsumptionSummaryCalculated)
+                return;
+
+            final List<Consumable> consumables = Lists.newArrayList(100);
+            final List<LimitedUse> limitedUses = Lists.newArrayList(100);
+            for (final TurnInterval ti : logData.getTurnIntervalsSpent()) {
+                consumables.addAll(ti.getConsumablesUsed());
+                limitedUses.addAll(ti.getLimitedUses());
             }
 
-            // Meat gain/spent
-            // Nuns encounter meat ignored here.
-            if (!ti.getAreaName().equals("Themthar Hills"))
-                totalMeatGain += ti.getMeat().encounterMeatGain;
-            totalMeatGain += ti.getMeat().otherMeatGain;
-            totalMeatSpent += ti.getMeat().meatSpent;
+            consumptionSummary = new ConsumptionSummary(consumables, limitedUses, logData.getDayChanges());
+            final int tempRolloverTurns = logData.getLastTurnSpent().getTurnNumber()
+                                          - consumptionSummary.getTotalTurnsFromFood()
+                                          - consumptionSummary.getTotalTurnsFromBooze()
+                                          - consumptionSummary.getTotalTurnsFromOther();
+            totalTurnsFromRollover = tempRolloverTurns < 0 ? 0 : tempRolloverTurns;
 
+            isConsumptionSummaryCalculated = true;
         }
-        freeRunaways = new FreeRunaways(totalFreeRunawaysTries, successfulFreeRunaways);
-        this.totalTurnsCombat = totalTurnsCombat;
-        this.totalTurnsNoncombat = totalTurnsNoncombat;
-        this.totalTurnsOther = totalTurnsOther;
-
-        // Consumption summary
-        consumptionSummary = new ConsumptionSummary(consumables, limitedUses, logData.getDayChanges());
-        final int tempRolloverTurns = logData.getLastTurnSpent().getTurnNumber()
-                                      - consumptionSummary.getTotalTurnsFromFood()
-                                      - consumptionSummary.getTotalTurnsFromBooze()
-                                      - consumptionSummary.getTotalTurnsFromOther();
-        totalTurnsFromRollover = tempRolloverTurns < 0 ? 0 : tempRolloverTurns;
-
-        // Total meat gain/spent
-        this.totalMeatGain = totalMeatGain;
-        this.totalMeatSpent = totalMeatSpent;
-
-        // Total amount of skill casts and total MP used
-        int totalAmountSkillCasts = 0;
-        int totalMPUsed = 0;
-        for (final Skill s : skillsCast.getElements()) {
-            totalAmountSkillCasts += s.getAmount();
-            totalMPUsed += s.getMpCost();
-        }
-        this.totalAmountSkillCasts = totalAmountSkillCasts;
-        this.totalMPUsed = totalMPUsed;
+    }
 
-        // Level data summary
-        if (!logData.isSubintervalLog())
-            createLevelSummaryData(logData);
-        else
-            for (final LevelData ld : logData.getLevels())
-                levels.add(ld);
+    /**
+     * Calculates the level summary. The character class guess in case the
+     * class isn't known needs the total statgains.
+     */
+    private void calculateLevelSummary()
+    {
+        synchronized (levelSummaryLock) {
+            if (isLevelSummaryCalculated)
+                return;
 
-        // Meat and MP gain per level summary
-        for (final TurnInterval ti : logData.getTurnIntervalsSpent()) {
-            for (final SingleTurn st : ti.getTurns()) {
-                final int currentLevel = logData.getCurrentLevel(st.getTurnNumber())
-                                                .getLevelNumber();
-                if (!st.getMeat().isMeatGainSpentZero()) {
-                    meatSummary.addLevelData(currentLevel, st.getMeat());
-                }
-                if (!st.getMPGain().isMPGainZero()) {
-                    mpGainSummary.addLevelData(currentLevel, st.getMPGain());
+            calculateTurnTotals();
+
+            // Level data summary
+            if (!logData.isSubintervalLog())
+                createLevelSummaryData(logData);
+            else
+                for (final LevelData ld : logData.getLevels())
+                    levels.add(ld);
+
+            isLevelSummaryCalculated = true;
+        }
+    }
+
+    /**
+     * Calculates the meat and MP gain per level summaries, which need the
+     * level summary to be present.
+     */
+    private void calculatePerLevelSummaries()
+    {
+        synchronized (perLevelSummariesLock) {
+            if (isPerLevelSummariesCalculated)
+                return;
+
+            calculateLevelSummary();
+
+            // Meat and MP gain per level summary. Only detailed logs have data on
+            // single turns, the range of every level is summed up through the
+            // turn aggregates index.
+            if (logData.isDetailedLog()) {
+                final TurnAggregates aggregates = logData.getTurnAggregates();
+                final List<LevelData> levelList = Lists.newArrayList(logData.getLevels());
+                for (int i = 0; i < levelList.size(); i++) {
+                    final int levelNumber = levelList.get(i).getLevelNumber();
+                    final int startTurn = i == 0 ? 0 : levelList.get(i).getLevelReachedOnTurn();
+                    final int endTurn = i + 1 < levelList.size() ? levelList.get(i + 1)
+                                                                            .getLevelReachedOnTurn() - 1
+                                                                 : Integer.MAX_VALUE;
+
+                    if (aggregates.getTurnsWithMeatChanges(startTurn, endTurn) > 0)
+                        meatSummary.addLevelData(levelNumber, aggregates.getMeat(startTurn, endTurn));
+                    if (aggregates.getTurnsWithMPChanges(startTurn, endTurn) > 0)
+                        mpGainSummary.addLevelData(levelNumber, aggregates.getMPGain(startTurn, endTurn));
                 }
             }
-        }
 
-        // Quest turncount summary
-        questTurncounts = new QuestTurncounts(logData.getTurnIntervalsSpent(),
-                                              droppedItems.getElements());
-        
-        limitedUseData = new LimitedUseSummary(logData.getLimitedUses());
+            isPerLevelSummariesCalculated = true;
+        }
     }
 
     /**
@@ -604,6 +825,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getTurnsPerArea() 
     {
+        calculateCountedData();
         return turnsPerArea.getCountedData();
     }
 
@@ -612,6 +834,7 @@ final class SummaryDataCalculator
      */
     Collection<Consumable> getConsumablesUsed() 
     {
+        calculateCountedData();
         return consumablesUsed.getElements();
     }
 
@@ -620,11 +843,13 @@ final class SummaryDataCalculator
      */
     Collection<Item> getDroppedItems() 
     {
+        calculateCountedData();
         return droppedItems.getElements();
     }
 
     Collection<CombatItem> getCombatItemsUsed() 
     {
+        calculateCountedData();
         return this.combatItemsUsed.getElements();
     }
     
@@ -633,6 +858,7 @@ final class SummaryDataCalculator
      */
     Collection<Skill> getSkillsCast() 
     {
+        calculateCountedData();
         return skillsCast.getElements();
     }
 
@@ -641,6 +867,7 @@ final class SummaryDataCalculator
      */
     List<LevelData> getLevelData() 
     {
+        calculateLevelSummary();
         return levels;
     }
 
@@ -649,6 +876,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getFamiliarUsage() 
     {
+        calculateCountedData();
         return familiarUsage.getCountedData();
     }
 
@@ -657,6 +885,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getTrackedCombatItemUses() 
     {
+        calculateEncounterLists();
         return trackedCombatItemUsage;
     }
     
@@ -666,6 +895,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getBanishedCombats() 
     {
+        calculateEncounterLists();
         return banishedCombats;
     }
     
@@ -674,6 +904,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getDisintegratedCombats() 
     {
+        calculateEncounterLists();
         return disintegratedCombats;
     }
 
@@ -682,6 +913,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getSemirares() 
     {
+        calculateEncounterLists();
         return semirares;
     }
 
@@ -690,6 +922,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getBadmoonAdventures() 
     {
+        calculateEncounterLists();
         return badmoonAdventures;
     }
 
@@ -698,6 +931,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getRomanticArrowUsages() 
     {
+        calculateEncounterLists();
         return romanticArrowUsages;
     }
 
@@ -706,6 +940,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getWanderingAdventures() 
     {
+        calculateEncounterLists();
         return wanderingAdventures;
     }
 
@@ -714,6 +949,7 @@ final class SummaryDataCalculator
      */
     List<DataNumberPair<String>> getHipsterCombats() 
     {
+        calculateEncounterLists();
         return hipsterCombats;
     }
 
@@ -723,6 +959,7 @@ final class SummaryDataCalculator
      */
     List<Encounter> getFreeRunawaysCombats() 
     {
+        calculateEncounterLists();
         return freeRunawayCombats;
     }
 
@@ -731,6 +968,7 @@ final class SummaryDataCalculator
      */
     ConsumptionSummary getConsumptionSummary() 
     {
+        calculateConsumptionSummary();
         return consumptionSummary;
     }
 
@@ -739,6 +977,7 @@ final class SummaryDataCalculator
      */
     public FreeRunaways getFreeRunaways()
     {
+        calculateTurnTotals();
         return freeRunaways;
     }
 
@@ -747,6 +986,7 @@ final class SummaryDataCalculator
      */
     Goatlet getGoatlet()
     {
+        calculateAreaRNGData();
         return goatlet;
     }
 
@@ -755,15 +995,35 @@ final class SummaryDataCalculator
      */
     InexplicableDoor get8BitRealm()
     {
+        calculateAreaRNGData();
         return nesRealm;
     }
 
+    /**
+     * @return The per-area turncounts.
+     */
+    AreaTurncounts getAreaTurncounts() 
+    {
+        synchronized (areaTurncountsLock) {
+            if (areaTurncounts == null)
+                areaTurncounts = new AreaTurncounts(logData.getTurnIntervalsSpent());
+            return areaTurncounts;
+        }
+    }
+
     /**
      * @return The quest turncounts.
      */
     QuestTurncounts getQuestTurncounts() 
     {
-        return questTurncounts;
+        synchronized (questTurncountsLock) {
+            if (questTurncounts == null) {
+                calculateCountedData();
+                questTurncounts = new QuestTurncounts(getAreaTurncounts(),
+                                                      droppedItems.getElements());
+            }
+            return questTurncounts;
+        }
     }
 
     /**
@@ -771,7 +1031,11 @@ final class SummaryDataCalculator
      */
     LimitedUseSummary getLimitedUseData()
     {
-        return limitedUseData;
+        synchronized (limitedUseDataLock) {
+            if (limitedUseData == null)
+                limitedUseData = new LimitedUseSummary(logData.getLimitedUses());
+            return limitedUseData;
+        }
     }
     
     /**
@@ -779,6 +1043,7 @@ final class SummaryDataCalculator
      */
     MPGain getTotalMPGains()
     {
+        calculateTurnTotals();
         return totalMPGains;
     }
 
@@ -787,6 +1052,7 @@ final class SummaryDataCalculator
      */
     MPGainSummary getMPGainSummary()
     {
+        calculatePerLevelSummaries();
         return mpGainSummary;
     }
 
@@ -794,7 +1060,8 @@ final class SummaryDataCalculator
      * @return The meat per level summary.
      */
     MeatSummary getMeatSummary()
-{
+    {
+        calculatePerLevelSummaries();
         return meatSummary;
     }
 
@@ -803,6 +1070,7 @@ final class SummaryDataCalculator
      */
     Statgain getTotalStatgains() 
     {
+        calculateTurnTotals();
         return totalStatgains;
     }
 
@@ -812,6 +1080,7 @@ final class SummaryDataCalculator
      */
     Statgain getCombatsStatgains() 
     {
+        calculateTurnTotals();
         return combatsStatgains;
     }
 
@@ -821,6 +1090,7 @@ final class SummaryDataCalculator
      */
     Statgain getNoncombatsStatgains()
     {
+        calculateTurnTotals();
         return noncombatsStatgains;
     }
 
@@ -830,6 +1100,7 @@ final class SummaryDataCalculator
      */
     Statgain getOthersStatgains()
     {
+        calculateTurnTotals();
         return othersStatgains;
     }
 
@@ -838,6 +1109,7 @@ final class SummaryDataCalculator
      */
     int getTotalAmountSkillCasts()
     {
+        calculateCountedData();
         return totalAmountSkillCasts;
     }
 
@@ -846,6 +1118,7 @@ final class SummaryDataCalculator
      */
     int getTotalMPUsed() 
     {
+        calculateCountedData();
         return totalMPUsed;
     }
 
@@ -854,6 +1127,7 @@ final class SummaryDataCalculator
      */
     int getTotalMeatGain()
     {
+        calculateTurnTotals();
         return totalMeatGain;
     }
 
@@ -862,6 +1136,7 @@ final class SummaryDataCalculator
      */
     int getTotalMeatSpent() 
     {
+        calculateTurnTotals();
         return totalMeatSpent;
     }
 
@@ -870,6 +1145,7 @@ final class SummaryDataCalculator
      */
     int getTotalTurnsFromRollover() 
     {
+        calculateConsumptionSummary();
         return totalTurnsFromRollover;
     }
 
@@ -878,6 +1154,7 @@ final class SummaryDataCalculator
      */
     int getTotalTurnsCombat()
     {
+        calculateTurnTotals();
         return totalTurnsCombat;
     }
 
@@ -886,6 +1163,7 @@ final class SummaryDataCalculator
      */
     int getTotalTurnsNoncombat() 
     {
+        calculateTurnTotals();
         return totalTurnsNoncombat;
     }
 
@@ -895,6 +1173,7 @@ final class SummaryDataCalculator
      */
     int getTotalTurnsOther() 
     {
+        calculateTurnTotals();
         return totalTurnsOther;
     }
 }
@@ -31,6 +31,7 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -87,7 +88,7 @@ public class MafiaLogIndex {
      * @return MafiaLogIndex for the given directory
      * @throws IOException If an error occurs when building the index from the filesystem.
      */
-    public static MafiaLogIndex getMafiaLogIndex(String logDirPath)
+    public static synchronized MafiaLogIndex getMafiaLogIndex(String logDirPath)
     throws IOException
     {
         MafiaLogIndex result = indexCache.get(logDirPath);
@@ -341,6 +342,63 @@ public class MafiaLogIndex {
         }
     }
     
+    /**
+     * Bring the index up to date with the Mafia log directory.  Log files which are
+     * not indexed yet are read in, and so are the given log files, which may have
+     * changed since they were indexed (the log of the current day keeps growing).
+     * 
+     * @param changedLogs Already indexed Mafia logs which should be read in again
+     * @throws IOException If an error occurs when accessing the filesystem
+     */
+    public synchronized void update(Collection<File> changedLogs)
+    throws IOException
+    {
+        for (File f : changedLogs) {
+            LOG_FILE_NAME_MATCHER.reset(f.getName());
+            if (! LOG_FILE_NAME_MATCHER.find())
+                continue;
+            TreeSet<File> playersFiles = includedFiles.get(LOG_FILE_NAME_MATCHER.group(1));
+            if (playersFiles != null)
+                playersFiles.remove(f);
+        }
+        updateIndex(logDirectoryPath);
+        save();
+    }
+    
+    /**
+     * Get the Mafia log files of a player from the first log of the ascension the
+     * given log belongs to up to the most recent log of that player.  Condensing
+     * these logs recreates that ascension and all following ones.
+     * 
+     * @param mafiaLog Mafia log which is part of the index
+     * @return Array of File objects representing the Mafia logs from the start of
+     *         that ascension on, or an empty array if the log is not indexed
+     */
+    public synchronized File[] getMafiaLogsFromAscensionOf(File mafiaLog)
+    {
+        LOG_FILE_NAME_MATCHER.reset(mafiaLog.getName());
+        if (! LOG_FILE_NAME_MATCHER.find())
+            return emptyFiles;
+        String playerName = LOG_FILE_NAME_MATCHER.group(1);
+        String date = LOG_FILE_NAME_MATCHER.group(2);
+        TreeSet<File> playersFiles = includedFiles.get(playerName);
+        if ((playersFiles == null) || (! playersFiles.contains(mafiaLog)))
+            return emptyFiles;
+        
+        // Go back to the first log of the ascension, which may have started
+        // on an earlier date
+        File firstLog = mafiaLog;
+        Integer asc = indexByDate.get(playerName).get(date);
+        if (asc != null) {
+            SortedSet<File> ascFiles = indexByNumber.get(playerName).get(asc);
+            if ((ascFiles != null) && (! ascFiles.isEmpty())
+                    && (LogsCache.FILE_COMPARATOR.compare(ascFiles.first(), firstLog) < 0))
+                firstLog = ascFiles.first();
+        }
+        SortedSet<File> mafiaLogs = playersFiles.tailSet(firstLog);
+        return mafiaLogs.toArray(new File[mafiaLogs.size()]);
+    }
+    
     private String mostActivePlayer()
     {
         String result = null;
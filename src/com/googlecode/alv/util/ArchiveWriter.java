@@ -0,0 +1,399 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes files into a single zip or tar archive as a stream. Files can be added
+ * from any number of threads, they are handed over to a single writer thread
+ * which writes them to the archive one after another, in the order they were
+ * added. Only a few files are held in memory at a time, adding a file waits
+ * until the writer thread catches up.
+ * <p>
+ * If writing the archive fails, all further files are dropped and the failure
+ * is thrown by {@link #add(String, byte[])} and {@link #close()}.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class ArchiveWriter implements Closeable {
+    /**
+     * The archive formats which can be written.
+     */
+    public enum Format {
+        /**
+         * A zip archive with deflated entries.
+         */
+        ZIP(".zip"),
+        /**
+         * An uncompressed POSIX ustar archive.
+         */
+        TAR(".tar");
+
+        private final String fileExtension;
+
+        Format(
+                final String fileExtension) {
+
+            this.fileExtension = fileExtension;
+        }
+
+        /**
+         * @return The usual file extension of archives of this format.
+         */
+        public String getFileExtension() {
+
+            return fileExtension;
+        }
+
+        /**
+         * @param fileName A file name.
+         * @return The format of the given archive file name, or null if it has
+         *         no known archive file extension.
+         */
+        public static Format fromFileName(
+                final String fileName) {
+
+            for (final Format f : values()) {
+                if (fileName.toLowerCase().endsWith(f.fileExtension)) {
+                    return f;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    private static final int TAR_NAME_LENGTH = 100;
+
+    /**
+     * The number of files waiting for the writer thread. Parsed logs are at most
+     * a few megabytes, so this keeps the memory use low while still letting
+     * the workers run ahead of the writer thread a little.
+     */
+    private static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * A file of the archive.
+     */
+    private static final class Entry {
+        final String name;
+
+        final byte[] data;
+
+        Entry(
+                final String name, final byte[] data) {
+
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    private static final Entry END = new Entry(null, null);
+
+    private final Format format;
+
+    private final OutputStream out;
+
+    private final ZipOutputStream zip;
+
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<Entry>(QUEUE_CAPACITY);
+
+    private final Thread writerThread;
+
+    private volatile IOException failure;
+
+    private int entryCount;
+
+    private boolean isClosed;
+
+    /**
+     * Creates an archive writer which writes to the given stream. The stream is
+     * closed when this writer is closed.
+     *
+     * @param out    The stream the archive is written to.
+     * @param format The format of the archive.
+     */
+    public ArchiveWriter(
+            final OutputStream out, final Format format) {
+
+        if (out == null) {
+            throw new NullPointerException("The output stream must not be null.");
+        }
+        if (format == null) {
+            throw new NullPointerException("The archive format must not be null.");
+        }
+
+        this.format = format;
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+        zip = format == Format.ZIP ? new ZipOutputStream(this.out, UTF8) : null;
+
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+
+                writeEntries();
+            }
+        }, "Archive writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * @return The format of the archive.
+     */
+    public Format getFormat() {
+
+        return format;
+    }
+
+    /**
+     * Adds a file to the archive. This method waits while the writer thread is
+     * behind, but not for the file to be written.
+     *
+     * @param name The name of the file inside the archive.
+     * @param data The content of the file. It must not be changed afterwards.
+     * @throws IllegalArgumentException if the name is empty; if the name is too
+     *                                  long for a tar archive
+     * @throws IllegalStateException    if this writer is already closed
+     * @throws IOException              if writing the archive failed
+     */
+    public void add(
+            final String name, final byte[] data)
+            throws IOException {
+
+        if (name == null) {
+            throw new NullPointerException("The file name must not be null.");
+        }
+        if (data == null) {
+            throw new NullPointerException("The file content must not be null.");
+        }
+        if (name.length() == 0) {
+            throw new IllegalArgumentException("The file name must not be empty.");
+        }
+        if (format == Format.TAR && name.getBytes(UTF8).length > TAR_NAME_LENGTH) {
+            throw new IllegalArgumentException("The file name is too long for a tar archive.");
+        }
+
+        synchronized (this) {
+            if (isClosed) {
+                throw new IllegalStateException("The archive is already closed.");
+            }
+            entryCount++;
+        }
+        checkFailure();
+
+        try {
+            queue.put(new Entry(name, data));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the archive writer.");
+        }
+    }
+
+    /**
+     * @return The number of files added to the archive so far.
+     */
+    public synchronized int getEntryCount() {
+
+        return entryCount;
+    }
+
+    /**
+     * Waits until all added files are written, finishes the archive and closes
+     * the underlying stream. Files must not be added while this method runs.
+     *
+     * @throws IOException if writing the archive failed
+     */
+    @Override
+    public void close()
+            throws IOException {
+
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+        }
+
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                queue.put(END);
+                writerThread.join();
+                break;
+            } catch (final InterruptedException e) {
+                // The archive has to be finished either way, otherwise it is
+                // unreadable.
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure == null) {
+            try {
+                if (zip != null) {
+                    zip.finish();
+                } else {
+                    // A tar archive ends with two empty blocks.
+                    out.write(new byte[2 * TAR_BLOCK_SIZE]);
+                }
+                out.close();
+            } catch (final IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            try {
+                out.close();
+            } catch (final IOException e) {
+                // The first failure is the one worth reporting.
+            }
+        }
+        checkFailure();
+    }
+
+    private void checkFailure()
+            throws IOException {
+
+        final IOException e = failure;
+        if (e != null) {
+            throw new IOException("The archive could not be written.", e);
+        }
+    }
+
+    /**
+     * The loop of the writer thread. After a failure, files are still taken
+     * from the queue so that no thread waits on it forever.
+     */
+    private void writeEntries() {
+
+        while (true) {
+            final Entry entry;
+            try {
+                entry = queue.take();
+            } catch (final InterruptedException e) {
+                failure = new InterruptedIOException("The archive writer was interrupted.");
+                return;
+            }
+            if (entry == END) {
+                return;
+            }
+
+            if (failure == null) {
+                try {
+                    if (zip != null) {
+                        writeZipEntry(entry);
+                    } else {
+                        writeTarEntry(entry);
+                    }
+                } catch (final IOException e) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void writeZipEntry(
+            final Entry entry)
+            throws IOException {
+
+        final ZipEntry zipEntry = new ZipEntry(entry.name);
+        zipEntry.setTime(System.currentTimeMillis());
+        zip.putNextEntry(zipEntry);
+        zip.write(entry.data);
+        zip.closeEntry();
+    }
+
+    private void writeTarEntry(
+            final Entry entry)
+            throws IOException {
+
+        final byte[] header = new byte[TAR_BLOCK_SIZE];
+        final byte[] name = entry.name.getBytes(UTF8);
+        System.arraycopy(name, 0, header, 0, name.length);
+        putTarNumber(header, 100, 8, 0644);
+        putTarNumber(header, 108, 8, 0);
+        putTarNumber(header, 116, 8, 0);
+        putTarNumber(header, 124, 12, entry.data.length);
+        putTarNumber(header, 136, 12, System.currentTimeMillis() / 1000);
+        header[156] = '0';
+        putTarString(header, 257, "ustar");
+        putTarString(header, 263, "00");
+
+        // The checksum is computed with the checksum field filled with spaces.
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        int checksum = 0;
+        for (final byte b : header) {
+            checksum += b & 0xff;
+        }
+        putTarNumber(header, 148, 7, checksum);
+
+        out.write(header);
+        out.write(entry.data);
+        final int padding = (TAR_BLOCK_SIZE - entry.data.length % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE;
+        out.write(new byte[padding]);
+    }
+
+    /**
+     * Puts the given number as zero-padded octal digits followed by a NUL into
+     * the given field of a tar header.
+     */
+    private static void putTarNumber(
+            final byte[] header, final int offset, final int length, final long value) {
+
+        final String digits = Long.toOctalString(value);
+        final int padding = length - 1 - digits.length();
+        for (int i = 0; i < padding; i++) {
+            header[offset + i] = '0';
+        }
+        putTarString(header, offset + padding, digits);
+        header[offset + length - 1] = 0;
+    }
+
+    private static void putTarString(
+            final byte[] header, final int offset, final String value) {
+
+        final byte[] bytes = value.getBytes(UTF8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
@@ -0,0 +1,239 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import com.googlecode.alv.Settings;
+
+/**
+ * An immutable description of everything a cached ascension log depends on: the
+ * condensed mafia log it was parsed from and the versions of the parser and
+ * the data tables which were used to parse it. A cache entry only needs to be
+ * rebuilt if its fingerprint differs from the fingerprint of its current
+ * source.
+ * <p>
+ * The source is identified by its size and a hash of its contents. Because a
+ * condensed mafia log is made up of the session logs of its ascension, this
+ * also covers any change to the set of session logs the ascension spans.
+ */
+public final class CacheFingerprint {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final String sourceHash;
+
+    private final long sourceSize;
+
+    private final String parserVersion;
+
+    private final String dataTablesVersion;
+
+    /**
+     * Creates the fingerprint of the given condensed mafia log together with
+     * the current parser and data tables versions.
+     * 
+     * @param condensedMafiaLog
+     *            The condensed mafia log from which a cache entry is created.
+     * @return The fingerprint of the given log.
+     * @throws IOException
+     *             if the given log could not be read
+     */
+    public static CacheFingerprint of(
+                                      final File condensedMafiaLog)
+                                                                    throws IOException {
+        if (condensedMafiaLog == null)
+            throw new NullPointerException("The condensed mafia log must not be null.");
+
+        final MessageDigest digest = newDigest();
+        final byte[] buffer = new byte[64 * 1024];
+        long size = 0;
+
+        final InputStream in = new FileInputStream(condensedMafiaLog);
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                size += read;
+            }
+        } finally {
+            in.close();
+        }
+
+        return new CacheFingerprint(toHex(digest.digest()),
+                                    size,
+                                    getCurrentParserVersion(),
+                                    getCurrentDataTablesVersion());
+    }
+
+    /**
+     * @return The version of the parser as it is currently set up. Besides the
+     *         program version, this includes the settings which change the
+     *         parsing result.
+     */
+    public static String getCurrentParserVersion() {
+        return Settings.getString("Version") + ";notes="
+               + Settings.getBoolean("Include mafia log notes");
+    }
+
+    /**
+     * The built-in data tables are covered by the program version, so this
+     * version describes the user-edited data tables in
+     * {@link Constants#KOL_DATA_LOCATION} by their names, sizes and
+     * modification dates.
+     * 
+     * @return The version of the data tables as they are currently set up.
+     */
+    public static String getCurrentDataTablesVersion() {
+        final MessageDigest digest = newDigest();
+        digest.update(Settings.getString("Version").getBytes(UTF8));
+
+        final File[] dataFiles = Constants.KOL_DATA_LOCATION.listFiles();
+        if (dataFiles != null) {
+            Arrays.sort(dataFiles);
+            for (final File f : dataFiles)
+                if (f.isFile())
+                    digest.update((f.getName() + ":" + f.length() + ":" + f.lastModified() + ";").getBytes(UTF8));
+        }
+
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            // Every Java platform has to support SHA-1.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(
+                                final byte[] bytes) {
+        final StringBuilder str = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            str.append(HEX_DIGITS[(b >> 4) & 0xF]);
+            str.append(HEX_DIGITS[b & 0xF]);
+        }
+
+        return str.toString();
+    }
+
+    /**
+     * @param sourceHash
+     *            The hash of the contents of the source.
+     * @param sourceSize
+     *            The size of the source in bytes.
+     * @param parserVersion
+     *            The version of the parser which parsed the source.
+     * @param dataTablesVersion
+     *            The version of the data tables used by the parser.
+     * @throws NullPointerException
+     *             if sourceHash is {@code null}; if parserVersion is
+     *             {@code null}; if dataTablesVersion is {@code null}
+     */
+    public CacheFingerprint(
+                            final String sourceHash, final long sourceSize,
+                            final String parserVersion, final String dataTablesVersion) {
+        if (sourceHash == null)
+            throw new NullPointerException("The source hash must not be null.");
+        if (parserVersion == null)
+            throw new NullPointerException("The parser version must not be null.");
+        if (dataTablesVersion == null)
+            throw new NullPointerException("The data tables version must not be null.");
+
+        this.sourceHash = sourceHash;
+        this.sourceSize = sourceSize;
+        this.parserVersion = parserVersion;
+        this.dataTablesVersion = dataTablesVersion;
+    }
+
+    /**
+     * @return The hash of the contents of the source.
+     */
+    public String getSourceHash() {
+        return sourceHash;
+    }
+
+    /**
+     * @return The size of the source in bytes.
+     */
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * @return The version of the parser which parsed the source.
+     */
+    public String getParserVersion() {
+        return parserVersion;
+    }
+
+    /**
+     * @return The version of the data tables used by the parser.
+     */
+    public String getDataTablesVersion() {
+        return dataTablesVersion;
+    }
+
+    @Override
+    public boolean equals(
+                          final Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof CacheFingerprint))
+            return false;
+
+        final CacheFingerprint other = (CacheFingerprint) o;
+
+        return sourceSize == other.sourceSize && sourceHash.equals(other.sourceHash)
+               && parserVersion.equals(other.parserVersion)
+               && dataTablesVersion.equals(other.dataTablesVersion);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 11;
+        result = 31 * result + sourceHash.hashCode();
+        result = 31 * result + (int) (sourceSize ^ (sourceSize >>> 32));
+        result = 31 * result + parserVersion.hashCode();
+        result = 31 * result + dataTablesVersion.hashCode();
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return sourceHash + "/" + sourceSize + "/" + parserVersion + "/" + dataTablesVersion;
+    }
+}
@@ -0,0 +1,351 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.googlecode.alv.creator.BinaryLogCreator;
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.logdata.turn.action.DayChange;
+
+/**
+ * The manifest of the logs cache. It holds the most important facts about
+ * every cached ascension log, so that the list of cached ascensions can be
+ * shown without opening any of the cached log files.
+ * <p>
+ * The manifest is a UTF-8 text file with one tab-separated line per cached
+ * log, preceded by a header line which includes the binary log format version
+ * (see {@link BinaryLogCreator#FORMAT_VERSION}). It is always written to a
+ * temporary file first which then replaces the old manifest, so the manifest
+ * on disk is either the old or the new version, never a mix of both.
+ */
+public final class CacheManifest {
+    /**
+     * The file name of the manifest inside the cache directory.
+     */
+    public static final String FILE_NAME = "manifest.txt";
+
+    /**
+     * Compares manifest entries by the file names of their cached logs, ignoring
+     * case differences, the same way {@link LogsCache#FILE_COMPARATOR} does it.
+     */
+    public static final Comparator<Entry> FILE_NAME_COMPARATOR = new Comparator<Entry>() {
+        public int compare(
+                           final Entry o1, final Entry o2) {
+            return o1.getFileName().compareToIgnoreCase(o2.getFileName());
+        }
+    };
+
+    private static final String HEADER = "ALV cache manifest " + BinaryLogCreator.FORMAT_VERSION;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final Pattern TAB = Pattern.compile("\t");
+
+    private static final Pattern FIELD_SEPARATORS = Pattern.compile("[\t\r\n]");
+
+    private static final int FIELD_COUNT = 11;
+
+    /**
+     * The facts about a single cached ascension log.
+     */
+    public static final class Entry {
+        private final String fileName;
+
+        private final String characterName;
+
+        private final String startDate;
+
+        private final int turns;
+
+        private final int days;
+
+        private final String ascensionPath;
+
+        private final String characterClass;
+
+        private final CacheFingerprint fingerprint;
+
+        /**
+         * Creates the manifest entry of the given cached log.
+         * 
+         * @param cachedLog
+         *            The file in which the given log data is cached.
+         * @param logData
+         *            The cached log data.
+         * @param fingerprint
+         *            The fingerprint of the source of the cached log.
+         * @return The manifest entry of the given log.
+         */
+        public static Entry of(
+                               final File cachedLog, final LogDataHolder logData,
+                               final CacheFingerprint fingerprint) {
+            final String logName = logData.getLogName();
+            final int delimiterIndex = logName.lastIndexOf("-");
+            final DayChange lastDay = logData.getLastDayChange();
+
+            return new Entry(cachedLog.getName(),
+                             logName.substring(0, delimiterIndex),
+                             logName.substring(delimiterIndex + 1),
+                             logData.getLastTurnSpent().getTurnNumber(),
+                             lastDay != null ? lastDay.getDayNumber() : 1,
+                             logData.getAscensionPath().toString(),
+                             logData.getCharacterClass().toString(),
+                             fingerprint);
+        }
+
+        private Entry(
+                      final String fileName, final String characterName,
+                      final String startDate, final int turns, final int days,
+                      final String ascensionPath, final String characterClass,
+                      final CacheFingerprint fingerprint) {
+            this.fileName = fileName;
+            this.characterName = characterName;
+            this.startDate = startDate;
+            this.turns = turns;
+            this.days = days;
+            this.ascensionPath = ascensionPath;
+            this.characterClass = characterClass;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * @return The cached log file.
+         */
+        public File getFile() {
+            return new File(Constants.CACHE_LOCATION, fileName);
+        }
+
+        /**
+         * @return The file name of the cached log.
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * @return The log name of the cached log, see
+         *         {@link LogsCache#getLogName(File)}.
+         */
+        public String getLogName() {
+            return characterName + "-" + startDate;
+        }
+
+        /**
+         * @return The name of the character.
+         */
+        public String getCharacterName() {
+            return characterName;
+        }
+
+        /**
+         * @return The start date of the ascension in the form YYYYMMDD.
+         */
+        public String getStartDate() {
+            return startDate;
+        }
+
+        /**
+         * @return The turn count of the ascension.
+         */
+        public int getTurns() {
+            return turns;
+        }
+
+        /**
+         * @return The day count of the ascension.
+         */
+        public int getDays() {
+            return days;
+        }
+
+        /**
+         * @return The name of the ascension path.
+         */
+        public String getAscensionPath() {
+            return ascensionPath;
+        }
+
+        /**
+         * @return The name of the character class.
+         */
+        public String getCharacterClass() {
+            return characterClass;
+        }
+
+        /**
+         * @return The fingerprint of the source of the cached log.
+         */
+        public CacheFingerprint getFingerprint() {
+            return fingerprint;
+        }
+
+        private String toLine() {
+            final StringBuilder str = new StringBuilder(200);
+            appendField(str, fileName);
+            appendField(str, characterName);
+            appendField(str, startDate);
+            appendField(str, Integer.toString(turns));
+            appendField(str, Integer.toString(days));
+            appendField(str, ascensionPath);
+            appendField(str, characterClass);
+            appendField(str, fingerprint.getSourceHash());
+            appendField(str, Long.toString(fingerprint.getSourceSize()));
+            appendField(str, fingerprint.getParserVersion());
+            appendField(str, fingerprint.getDataTablesVersion());
+
+            return str.substring(1);
+        }
+
+        private static void appendField(
+                                        final StringBuilder str, final String field) {
+            str.append('\t');
+            str.append(FIELD_SEPARATORS.matcher(field).replaceAll(" "));
+        }
+
+        private static Entry fromLine(
+                                      final String line) {
+            final String[] fields = TAB.split(line, -1);
+            if (fields.length != FIELD_COUNT)
+                throw new IllegalArgumentException("Malformed manifest line.");
+
+            return new Entry(fields[0],
+                             fields[1],
+                             fields[2],
+                             Integer.parseInt(fields[3]),
+                             Integer.parseInt(fields[4]),
+                             fields[5],
+                             fields[6],
+                             new CacheFingerprint(fields[7],
+                                                  Long.parseLong(fields[8]),
+                                                  fields[9],
+                                                  fields[10]));
+        }
+    }
+
+    private CacheManifest() {}
+
+    /**
+     * Reads the given manifest file.
+     * 
+     * @param manifest
+     *            The manifest file.
+     * @return The entries of the manifest with the file names of the cached
+     *         logs as keys, or {@code null} if the manifest doesn't exist, can't
+     *         be read or was written for a different binary log format version.
+     */
+    public static Map<String, Entry> read(
+                                          final File manifest) {
+        if (manifest == null)
+            throw new NullPointerException("The manifest file must not be null.");
+        if (!manifest.isFile())
+            return null;
+
+        final Map<String, Entry> entries = Maps.newHashMap();
+        try {
+            final BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(manifest),
+                                                                               UTF8));
+            try {
+                if (!HEADER.equals(br.readLine()))
+                    return null;
+
+                String line;
+                while ((line = br.readLine()) != null)
+                    if (line.length() > 0) {
+                        final Entry entry = Entry.fromLine(line);
+                        entries.put(entry.getFileName(), entry);
+                    }
+            } finally {
+                br.close();
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            return null;
+        } catch (final IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        return entries;
+    }
+
+    /**
+     * Replaces the given manifest file with one holding the given entries.
+     * 
+     * @param manifest
+     *            The manifest file.
+     * @param entries
+     *            The entries of the manifest.
+     * @throws IOException
+     *             if the manifest could not be written
+     */
+    public static void write(
+                             final File manifest, final Collection<Entry> entries)
+                                                                                  throws IOException {
+        if (manifest == null)
+            throw new NullPointerException("The manifest file must not be null.");
+        if (entries == null)
+            throw new NullPointerException("The entries must not be null.");
+
+        final File temporary = new File(manifest.getParentFile(), manifest.getName() + ".tmp");
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temporary),
+                                                                          UTF8));
+        try {
+            writer.println(HEADER);
+            for (final Entry entry : entries)
+                writer.println(entry.toLine());
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            temporary.delete();
+            throw new IOException("The cache manifest could not be written.");
+        }
+
+        try {
+            Files.move(temporary.toPath(),
+                       manifest.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
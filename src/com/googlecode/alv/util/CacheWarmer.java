@@ -0,0 +1,427 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util;
+
+import java.awt.EventQueue;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.Pattern;
+
+import com.googlecode.alv.LogsProcessor;
+import com.googlecode.alv.gui.InternalMafiaLogParserDialog;
+import com.googlecode.alv.logdata.turn.Encounter;
+import com.googlecode.alv.parser.MafiaLogIndex;
+import com.googlecode.alv.util.facts.FactStore;
+
+/**
+ * This class keeps the {@link LogsCache} up to date with a mafia logs
+ * directory in the background, so that the cache is already current once the
+ * user wants to visualise mafia logs.
+ * <p>
+ * The mafia logs which are new or changed since the last warming pass are
+ * found by comparing their sizes and modification dates against a state file
+ * kept next to the cached logs. With the help of the {@link MafiaLogIndex},
+ * the ascensions they belong to (and all ascensions after those) are then
+ * condensed in a directory of their own and handed to the cache one by one on
+ * low priority threads. Logs whose {@link CacheFingerprint} didn't change are
+ * skipped by the cache as usual. Before that, the {@link FactStore} is brought
+ * up to date with the cache. If the state file is missing, for example
+ * because the cache was deleted, or if the parser settings or data tables
+ * changed, all mafia logs of the directory are checked again.
+ * <p>
+ * A background pass can optionally be throttled while the GUI is busy, in
+ * which case the warmer waits with the next log until the event queue is
+ * responsive again. A pass can be cancelled at any time and stops after the
+ * log it is currently caching. Everything cached up to then is kept.
+ * <p>
+ * This class is implemented as an enum to guarantee that there is only one
+ * instance present in the program at all times. It is thread-safe.
+ */
+public enum CacheWarmer {
+    WARMER;
+
+    /**
+     * The file name of the warmer state file inside the cache directory.
+     */
+    public static final String STATE_FILE_NAME = "warmer state.txt";
+
+    // Above this event queue latency in milliseconds the GUI is regarded as busy.
+    private static final long BUSY_GUI_LATENCY = 100;
+
+    private static final long BUSY_GUI_BACKOFF = 500;
+
+    private static final String HEADER = "ALV cache warmer state 1";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final Pattern TAB = Pattern.compile("\t");
+
+    private static final ThreadFactory LOW_PRIORITY_THREADS = new ThreadFactory() {
+        @Override
+        public Thread newThread(
+                final Runnable r) {
+
+            final Thread thread = new Thread(r, "Cache warmer worker");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+
+            return thread;
+        }
+    };
+
+    private static final Runnable EMPTY_TASK = new Runnable() {
+        @Override
+        public void run() {}
+    };
+
+    // Note that static fields of an enum are initialised after its constants, so
+    // the constructor can only rely on instance fields.
+    private final File stateFile = new File(Constants.CACHE_LOCATION, STATE_FILE_NAME);
+
+    private final File workDirectory = new File(Constants.TEMP_LOCATION, "cache warmer");
+
+    private volatile boolean isCancelled = false;
+
+    private Thread warmerThread;
+
+    /**
+     * Starts a warming pass over the given mafia logs directory in the
+     * background on a low priority thread, which waits while the GUI is busy. If
+     * a pass is already running, this method only makes sure that it isn't
+     * cancelled.
+     *
+     * @param mafiaLogsDirectory The directory holding the mafia logs.
+     * @throws NullPointerException if mafiaLogsDirectory is {@code null}
+     */
+    public synchronized void start(
+            final File mafiaLogsDirectory) {
+
+        if (mafiaLogsDirectory == null) {
+            throw new NullPointerException("The mafia logs directory must not be null.");
+        }
+        if (isRunning()) {
+            // Resume the running pass in case it was just cancelled.
+            isCancelled = false;
+            return;
+        }
+        if (!mafiaLogsDirectory.isDirectory()) {
+            return;
+        }
+
+        isCancelled = false;
+        warmerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+
+                try {
+                    warmCache(mafiaLogsDirectory, null, true);
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "Cache warmer");
+        warmerThread.setDaemon(true);
+        warmerThread.setPriority(Thread.MIN_PRIORITY);
+        warmerThread.start();
+    }
+
+    /**
+     * Cancels the currently running warming pass, if there is one. The pass
+     * stops after the log it is currently caching.
+     */
+    public void cancel() {
+
+        isCancelled = true;
+    }
+
+    /**
+     * @return True if a background warming pass is currently running.
+     */
+    public synchronized boolean isRunning() {
+
+        return warmerThread != null && warmerThread.isAlive();
+    }
+
+    /**
+     * Brings the cache up to date with the given mafia logs directory on the
+     * calling thread. This method is meant for callers without a GUI, like the
+     * command line interface.
+     *
+     * @param mafiaLogsDirectory The directory holding the mafia logs.
+     * @param playerName         The name of the player whose logs should be
+     *                           cached as used in the mafia log file names, or
+     *                           {@code null} if the logs of all players should
+     *                           be cached.
+     * @return A list containing pairs with filenames and turns of condensed mafia
+     *         log files that were attempted to be parsed, but had an exception
+     *         thrown during the parsing process, see
+     *         {@link LogsCache#createCache(File[])}.
+     * @throws IOException          if there was a problem while accessing the
+     *                              mafia logs or condensing them
+     * @throws NullPointerException if mafiaLogsDirectory is {@code null}
+     */
+    public List<Pair<String, Encounter>> warm(
+            final File mafiaLogsDirectory,
+            final String playerName)
+            throws IOException {
+
+        if (mafiaLogsDirectory == null) {
+            throw new NullPointerException("The mafia logs directory must not be null.");
+        }
+
+        isCancelled = false;
+
+        return warmCache(mafiaLogsDirectory, playerName, false);
+    }
+
+    private List<Pair<String, Encounter>> warmCache(
+            final File mafiaLogsDirectory,
+            final String playerName,
+            final boolean isThrottled)
+            throws IOException {
+
+        final List<Pair<String, Encounter>> errorFileList = Lists.newArrayList();
+        final File[] mafiaLogs = mafiaLogsDirectory
+                .listFiles(InternalMafiaLogParserDialog.MAFIA_LOG_FILTER);
+        if (mafiaLogs == null || mafiaLogs.length == 0) {
+            return errorFileList;
+        }
+        Arrays.sort(mafiaLogs, LogsCache.FILE_COMPARATOR);
+
+        // The state of the logs is taken before they are read, so changes made
+        // during this pass will be noticed by the next one.
+        final String stateHeader = mafiaLogsDirectory.getAbsolutePath() + "\t"
+                + CacheFingerprint.getCurrentParserVersion() + "\t"
+                + CacheFingerprint.getCurrentDataTablesVersion();
+        final Map<String, String> state = readState(stateHeader);
+        final Map<String, String> currentState = Maps.newHashMap(mafiaLogs.length);
+        final Map<String, List<File>> logsByPlayer = Maps.newHashMap();
+        for (final File log : mafiaLogs) {
+            final String player = getPlayerName(log);
+            if (playerName == null || player.equalsIgnoreCase(playerName)) {
+                currentState.put(log.getName(), log.length() + "\t" + log.lastModified());
+                List<File> playerLogs = logsByPlayer.get(player);
+                if (playerLogs == null) {
+                    playerLogs = Lists.newArrayList();
+                    logsByPlayer.put(player, playerLogs);
+                }
+                playerLogs.add(log);
+            }
+        }
+
+        // Logs of players without any cached ascension are always checked, in case
+        // the cache was emptied in the meantime.
+        final Set<String> cachedCharacters = Sets.newHashSet();
+        for (final String character : LogsCache.CACHE.getLogsByCharacter().keySet()) {
+            cachedCharacters.add(character.toLowerCase());
+        }
+
+        final Map<String, File> firstChangedLogs = Maps.newHashMap();
+        final List<File> changedLogs = Lists.newArrayList();
+        for (final String player : logsByPlayer.keySet()) {
+            final boolean isCached = cachedCharacters
+                    .contains(player.replace('_', ' ').toLowerCase());
+            for (final File log : logsByPlayer.get(player)) {
+                if (!isCached || !currentState.get(log.getName()).equals(state.get(log.getName()))) {
+                    changedLogs.add(log);
+                    if (!firstChangedLogs.containsKey(player)) {
+                        firstChangedLogs.put(player, log);
+                    }
+                }
+            }
+        }
+
+        // Ascensions which were cached before they could be added to the fact
+        // store, or whose addition got lost, are added from the cache here.
+        FactStore.STORE.update();
+        if (changedLogs.isEmpty()) {
+            return errorFileList;
+        }
+
+        final MafiaLogIndex mafiaLogIndex = MafiaLogIndex
+                .getMafiaLogIndex(mafiaLogsDirectory.getAbsolutePath());
+        mafiaLogIndex.update(changedLogs);
+
+        if (!workDirectory.exists()) {
+            workDirectory.mkdir();
+        }
+        try {
+            for (final String player : firstChangedLogs.keySet()) {
+                if (isCancelled) {
+                    return errorFileList;
+                }
+
+                File[] logsToCondense = mafiaLogIndex
+                        .getMafiaLogsFromAscensionOf(firstChangedLogs.get(player));
+                if (logsToCondense.length == 0) {
+                    // Logs without any ascension number aren't indexed, so all logs
+                    // of the player have to be condensed.
+                    final List<File> playerLogs = logsByPlayer.get(player);
+                    logsToCondense = playerLogs.toArray(new File[playerLogs.size()]);
+                }
+
+                final File[] condensedMafiaLogs = LogsProcessor
+                        .createCondensedMafiaLogs(logsToCondense, workDirectory);
+                for (final File condensedMafiaLog : condensedMafiaLogs) {
+                    if (isThrottled) {
+                        waitWhileGuiIsBusy();
+                    }
+                    if (isCancelled) {
+                        return errorFileList;
+                    }
+
+                    errorFileList.addAll(LogsCache.CACHE.createCache(new File[] {
+                            condensedMafiaLog
+                    }, LOW_PRIORITY_THREADS));
+                    condensedMafiaLog.delete();
+                }
+
+                // The player's logs are only marked as cached once all of them are.
+                for (final File log : logsByPlayer.get(player)) {
+                    state.put(log.getName(), currentState.get(log.getName()));
+                }
+                writeState(stateHeader, state);
+            }
+        } finally {
+            for (final File f : workDirectory.listFiles()) {
+                f.delete();
+            }
+        }
+
+        return errorFileList;
+    }
+
+    /**
+     * Waits until the event queue handles an empty task in a reasonable time or
+     * the warming pass is cancelled.
+     */
+    private void waitWhileGuiIsBusy() {
+
+        while (!isCancelled) {
+            final long start = System.nanoTime();
+            try {
+                EventQueue.invokeAndWait(EMPTY_TASK);
+            } catch (final InterruptedException e) {
+                return;
+            } catch (final InvocationTargetException e) {
+                return;
+            }
+
+            if ((System.nanoTime() - start) / 1000000 <= BUSY_GUI_LATENCY) {
+                return;
+            }
+
+            try {
+                Thread.sleep(BUSY_GUI_BACKOFF);
+            } catch (final InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param mafiaLog A mafia log.
+     * @return The player name part of the mafia log file name.
+     */
+    private static String getPlayerName(
+            final File mafiaLog) {
+
+        return mafiaLog.getName().substring(0, mafiaLog.getName().lastIndexOf("_"));
+    }
+
+    /**
+     * Reads the state of the mafia logs at the end of the last warming pass.
+     *
+     * @param stateHeader The header the state file has to start with to be valid
+     *                    for the current mafia logs directory and settings.
+     * @return The states of all mafia logs by their file names. This map will be
+     *         empty if there is no valid state file.
+     */
+    private synchronized Map<String, String> readState(
+            final String stateHeader) {
+
+        final Map<String, String> state = Maps.newHashMap();
+        if (!stateFile.isFile()) {
+            return state;
+        }
+
+        try (final BufferedReader br = new BufferedReader(
+                new InputStreamReader(new FileInputStream(stateFile), UTF8))) {
+            if (!HEADER.equals(br.readLine()) || !stateHeader.equals(br.readLine())) {
+                return state;
+            }
+
+            String line;
+            while ((line = br.readLine()) != null) {
+                final String[] fields = TAB.split(line);
+                if (fields.length == 3) {
+                    state.put(fields[0], fields[1] + "\t" + fields[2]);
+                }
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            state.clear();
+        }
+
+        return state;
+    }
+
+    private synchronized void writeState(
+            final String stateHeader,
+            final Map<String, String> state) {
+
+        final File tmpFile = new File(stateFile.getPath() + ".tmp");
+        try (final PrintWriter pw = new PrintWriter(
+                new OutputStreamWriter(new FileOutputStream(tmpFile), UTF8))) {
+            pw.println(HEADER);
+            pw.println(stateHeader);
+            for (final String logName : Lists.sort(Lists.newArrayList(state.keySet()))) {
+                pw.println(logName + "\t" + state.get(logName));
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            tmpFile.delete();
+            return;
+        }
+
+        stateFile.delete();
+        if (!tmpFile.renameTo(stateFile)) {
+            tmpFile.delete();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Helper methods to write JSON string literals, shared by all JSON outputs so
+ * that they escape strings the same way.
+ */
+public final class JSONStrings {
+    /**
+     * Writes the given string as a quoted JSON string literal to the given
+     * writer. Quotes, backslashes and control characters are escaped, all
+     * other characters are written as they are.
+     *
+     * @param out   The writer to write to.
+     * @param value The string to write. {@code null} is written as the JSON
+     *              literal {@code null}.
+     * @throws IOException if the writer couldn't be written to
+     */
+    public static void write(
+            final Writer out, final String value)
+            throws IOException {
+
+        if (out == null) {
+            throw new NullPointerException("The writer must not be null.");
+        }
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+
+        out.write('"');
+        // Runs of characters which don't need escaping are written at once.
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+
+            out.write(value, start, i - start);
+            start = i + 1;
+            switch (c) {
+            case '"':
+                out.write("\\\"");
+                break;
+            case '\\':
+                out.write("\\\\");
+                break;
+            case '\n':
+                out.write("\\n");
+                break;
+            case '\r':
+                out.write("\\r");
+                break;
+            case '\t':
+                out.write("\\t");
+                break;
+            default:
+                out.write(String.format("\\u%04x", (int) c));
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    /**
+     * @param value The string to quote.
+     * @return The given string as a quoted JSON string literal, see
+     *         {@link #write(Writer, String)}.
+     */
+    public static String quote(
+            final String value) {
+
+        final StringWriter out = new StringWriter(value != null ? value.length() + 2 : 4);
+        try {
+            write(out, value);
+        } catch (final IOException e) {
+            // A StringWriter never throws IOExceptions.
+            throw new IllegalStateException(e);
+        }
+
+        return out.toString();
+    }
+
+    // This class is not to be instanced.
+    private JSONStrings() {}
+}
@@ -0,0 +1,345 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util;
+
+import java.io.File;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.logdata.turn.SingleTurn;
+
+/**
+ * A process-wide cache of already loaded ascension logs, so that opening the
+ * same log again doesn't need to read or parse it again.
+ * <p>
+ * The most recently used logs are held strongly as long as their estimated
+ * size fits into the heap budget of this cache (see {@link #setHeapBudget(long)}).
+ * Logs which are pushed out of that budget aren't dropped right away, but are
+ * only held through soft references afterwards, so they can still be reused
+ * until the garbage collector needs their memory.
+ * <p>
+ * Cached logs are identified by their file together with the file's size and
+ * modification date, so a changed file will always be loaded again. The same
+ * {@link LogDataHolder} instance is handed out to every caller asking for the
+ * same log, so log data which is modified, like by adding notes to it, has to
+ * be removed from this cache first (see {@link #remove(LogDataHolder)}), so
+ * that the changes aren't handed out as if they were part of the file.
+ * <p>
+ * This class is implemented as an enum to guarantee that there is only one
+ * instance present in the program at all times. All methods are thread-safe.
+ */
+public enum LogDataCache {
+    CACHE;
+
+    /**
+     * Rough per-object sizes in bytes used to estimate the memory footprint of a
+     * log.
+     */
+    private static final long BASE_SIZE = 64 * 1024;
+
+    private static final long TURN_SIZE = 1024;
+
+    private static final long TURN_ELEMENT_SIZE = 128;
+
+    /**
+     * Identifies a loaded log by its file state and the way it was loaded.
+     */
+    private static final class Key {
+        private final String path;
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final String variant;
+
+        Key(
+            final File log, final String variant) {
+            path = log.getAbsolutePath();
+            length = log.length();
+            lastModified = log.lastModified();
+            this.variant = variant;
+        }
+
+        @Override
+        public boolean equals(
+                              final Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+
+            final Key other = (Key) o;
+
+            return length == other.length && lastModified == other.lastModified
+                   && path.equals(other.path) && variant.equals(other.variant);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 4711;
+            result = 31 * result + path.hashCode();
+            result = 31 * result + (int) (length ^ (length >>> 32));
+            result = 31 * result + (int) (lastModified ^ (lastModified >>> 32));
+            result = 31 * result + variant.hashCode();
+
+            return result;
+        }
+    }
+
+    private static final class StrongEntry {
+        final LogDataHolder logData;
+
+        final long size;
+
+        StrongEntry(
+                    final LogDataHolder logData, final long size) {
+            this.logData = logData;
+            this.size = size;
+        }
+    }
+
+    private static final class SoftEntry extends SoftReference<LogDataHolder> {
+        final Key key;
+
+        final long size;
+
+        SoftEntry(
+                  final Key key, final LogDataHolder logData, final long size,
+                  final ReferenceQueue<LogDataHolder> queue) {
+            super(logData, queue);
+            this.key = key;
+            this.size = size;
+        }
+    }
+
+    private final LinkedHashMap<Key, StrongEntry> strongEntries = new LinkedHashMap<Key, StrongEntry>(16,
+                                                                                                      0.75f,
+                                                                                                      true);
+
+    private final Map<Key, SoftEntry> softEntries = Maps.newHashMap();
+
+    private final ReferenceQueue<LogDataHolder> clearedEntries = new ReferenceQueue<LogDataHolder>();
+
+    private long heapBudget = Runtime.getRuntime().maxMemory() / 4;
+
+    private long usedBudget = 0;
+
+    /**
+     * @param log
+     *            The file the log was loaded from.
+     * @param variant
+     *            Describes how the log was loaded from the file, for example
+     *            the used parser and its settings. The same file loaded in
+     *            different ways is cached separately.
+     * @return The cached log data of the given file, or {@code null} if it
+     *         isn't cached.
+     */
+    public synchronized LogDataHolder get(
+                                          final File log, final String variant) {
+        if (log == null)
+            throw new NullPointerException("The log file must not be null.");
+        if (variant == null)
+            throw new NullPointerException("The variant must not be null.");
+
+        expungeClearedEntries();
+
+        final Key key = new Key(log, variant);
+        final StrongEntry strongEntry = strongEntries.get(key);
+        if (strongEntry != null)
+            return strongEntry.logData;
+
+        final SoftEntry softEntry = softEntries.remove(key);
+        if (softEntry != null) {
+            final LogDataHolder logData = softEntry.get();
+            if (logData != null) {
+                addStrongEntry(key, new StrongEntry(logData, softEntry.size));
+                return logData;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds the given log data to this cache. Logs which don't fit into the heap
+     * budget anymore are only kept softly referenced afterwards.
+     * 
+     * @param log
+     *            The file the log was loaded from.
+     * @param variant
+     *            Describes how the log was loaded from the file, see
+     *            {@link #get(File, String)}.
+     * @param logData
+     *            The loaded log data.
+     */
+    public synchronized void put(
+                                 final File log, final String variant,
+                                 final LogDataHolder logData) {
+        if (log == null)
+            throw new NullPointerException("The log file must not be null.");
+        if (variant == null)
+            throw new NullPointerException("The variant must not be null.");
+        if (logData == null)
+            throw new NullPointerException("The log data must not be null.");
+
+        expungeClearedEntries();
+
+        final Key key = new Key(log, variant);
+        final StrongEntry oldEntry = strongEntries.remove(key);
+        if (oldEntry != null)
+            usedBudget -= oldEntry.size;
+        softEntries.remove(key);
+
+        addStrongEntry(key, new StrongEntry(logData, estimateSize(logData)));
+    }
+
+    /**
+     * Removes the given log data from this cache, wherever it was loaded from.
+     * Callers which modify log data have to do this, otherwise the modified
+     * log data would be handed out the next time its file is loaded.
+     * 
+     * @param logData
+     *            The log data which should not be handed out anymore.
+     */
+    public synchronized void remove(
+                                    final LogDataHolder logData) {
+        if (logData == null)
+            throw new NullPointerException("The log data must not be null.");
+
+        expungeClearedEntries();
+
+        final Iterator<StrongEntry> strongIt = strongEntries.values().iterator();
+        while (strongIt.hasNext()) {
+            final StrongEntry entry = strongIt.next();
+            if (entry.logData == logData) {
+                strongIt.remove();
+                usedBudget -= entry.size;
+            }
+        }
+
+        final Iterator<SoftEntry> softIt = softEntries.values().iterator();
+        while (softIt.hasNext())
+            if (softIt.next().get() == logData)
+                softIt.remove();
+    }
+
+    /**
+     * Removes all logs from this cache.
+     */
+    public synchronized void clear() {
+        strongEntries.clear();
+        softEntries.clear();
+        usedBudget = 0;
+    }
+
+    /**
+     * @return The number of bytes the strongly held logs of this cache may use
+     *         up, as estimated by {@link #estimateSize(LogDataHolder)}.
+     */
+    public synchronized long getHeapBudget() {
+        return heapBudget;
+    }
+
+    /**
+     * Sets the number of bytes the strongly held logs of this cache may use
+     * up. The default budget is a quarter of the maximum heap size. Logs which
+     * don't fit into a smaller budget are moved to the softly referenced logs
+     * right away.
+     * 
+     * @param heapBudget
+     *            The heap budget in bytes.
+     * @throws IllegalArgumentException
+     *             if the given heap budget is negative
+     */
+    public synchronized void setHeapBudget(
+                                           final long heapBudget) {
+        if (heapBudget < 0)
+            throw new IllegalArgumentException("The heap budget must not be negative.");
+
+        this.heapBudget = heapBudget;
+        trimToBudget();
+    }
+
+    /**
+     * @param logData
+     *            The log data whose size should be estimated.
+     * @return A rough estimate of the heap memory used by the given log data in
+     *         bytes.
+     */
+    public static long estimateSize(
+                                    final LogDataHolder logData) {
+        long size = BASE_SIZE;
+        if (logData.isDetailedLog())
+            for (final SingleTurn st : logData.getTurnsSpent()) {
+                final int elements = st.getEncounters().size() + st.getDroppedItems().size()
+                                     + st.getSkillsCast().size() + st.getConsumablesUsed().size();
+
+                size += TURN_SIZE + elements * TURN_ELEMENT_SIZE;
+            }
+        else
+            size += logData.getTurnIntervalsSpent().size() * TURN_SIZE;
+
+        return size;
+    }
+
+    private void addStrongEntry(
+                                final Key key, final StrongEntry entry) {
+        strongEntries.put(key, entry);
+        usedBudget += entry.size;
+        trimToBudget();
+    }
+
+    /**
+     * Demotes the least recently used logs to soft references until the
+     * strongly held logs fit into the heap budget again. The most recently used
+     * log is always held strongly, even if it alone exceeds the budget.
+     */
+    private void trimToBudget() {
+        final Iterator<Map.Entry<Key, StrongEntry>> it = strongEntries.entrySet().iterator();
+        while (usedBudget > heapBudget && strongEntries.size() > 1) {
+            final Map.Entry<Key, StrongEntry> eldest = it.next();
+            final StrongEntry entry = eldest.getValue();
+            it.remove();
+            usedBudget -= entry.size;
+
+            softEntries.put(eldest.getKey(), new SoftEntry(eldest.getKey(),
+                                                           entry.logData,
+                                                           entry.size,
+                                                           clearedEntries));
+        }
+    }
+
+    private void expungeClearedEntries() {
+        SoftEntry cleared;
+        while ((cleared = (SoftEntry) clearedEntries.poll()) != null)
+            if (softEntries.get(cleared.key) == cleared)
+                softEntries.remove(cleared.key);
+    }
+}
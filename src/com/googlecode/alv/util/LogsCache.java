@@ -27,28 +27,36 @@ package com.googlecode.alv.util;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import com.googlecode.alv.LogsProcessor;
 import com.googlecode.alv.Settings;
-import com.googlecode.alv.creator.XMLLogCreator;
+import com.googlecode.alv.creator.BinaryLogCreator;
+import com.googlecode.alv.creator.util.BinaryLogReader;
 import com.googlecode.alv.creator.util.FileAccessException;
-import com.googlecode.alv.creator.util.XMLAccessException;
+import com.googlecode.alv.logdata.LogDataHolder;
 import com.googlecode.alv.logdata.turn.Encounter;
 import com.googlecode.alv.parser.LogParser;
 import com.googlecode.alv.parser.MafiaLogParser;
+import com.googlecode.alv.util.facts.FactStore;
 
 /**
  * This class should be used to handle ascension log caching to limit the amount
- * of parsing necessary to visualise ascension logs. It uses the Ascension Log
- * XML format to store the logs.
+ * of parsing necessary to visualise ascension logs. It uses the compact binary
+ * log format (see {@link BinaryLogCreator} and {@link BinaryLogReader}) to store
+ * the logs, which is a lot faster to read back in than the Ascension Log XML
+ * format. A manifest of all cached logs (see {@link CacheManifest}) is kept
+ * next to them, so the cached logs can be listed without touching any of their
+ * files. The turn data of every newly cached log is also added to the
+ * {@link FactStore}.
  * <p>
  * This class is implemented as an enum to guarantee that there is only one
  * instance present in the program at all times.
@@ -69,24 +77,30 @@ public enum LogsCache {
         }
     };
 
+    // Note that static fields of an enum are initialised after its constants, so
+    // the constructor can only rely on instance fields.
+    private final File manifest = new File(Constants.CACHE_LOCATION, CacheManifest.FILE_NAME);
+
+    private Map<String, CacheManifest.Entry> manifestEntries = Maps.newHashMap();
+
     private Map<String, List<File>> logsByCharacterMap = Collections.emptyMap();
 
     private LogsCache() {
 
-        // If the XML format version changed, we want to delete all cached logs,
-        // because there might be incompatibilities.
-        final String currentXMLVersion = Settings.getString("XML format version");
-        if (!currentXMLVersion.equals(Settings.getString("cached XML format version"))) {
-            deleteCache();
-            Settings.setString("cached XML format version", currentXMLVersion);
-        } else {
-            reloadCache();
-        }
+        // Cached logs of an outdated binary format are dropped when the manifest
+        // has to be rebuilt, everything else is checked per entry when it is
+        // cached again.
+        reloadCache();
     }
 
     /**
      * Caches the given logs. If there were already logs cached with a given name,
-     * they will be overwritten.
+     * they will be overwritten, unless their {@link CacheFingerprint} shows that
+     * neither their source log nor the parser and data tables which produced them
+     * changed since they were cached. Such up-to-date entries are simply kept.
+     * <p>
+     * The cache manifest (see {@link CacheManifest}) and the {@link FactStore} are
+     * updated once all logs are cached.
      * <p>
      * Please note that this class expects condensed mafia logs (see
      * {@link LogsProcessor#createCondensedMafiaLogs(File[])}) for further
@@ -99,13 +113,35 @@ public enum LogsCache {
      *         which the exception occurred. This list will be empty if all files
      *         were correctly parsed.
      */
-    public synchronized List<Pair<String, Encounter>> createCache(
+    public List<Pair<String, Encounter>> createCache(
             final File[] condensedMafiaLogs) {
 
+        return createCache(condensedMafiaLogs, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Caches the given logs like {@link #createCache(File[])} does it, but parses
+     * them on threads created by the given factory. This allows background tasks
+     * like the {@link CacheWarmer} to do their work on low priority threads.
+     *
+     * @param condensedMafiaLogs The condensed mafia logs to be cached.
+     * @param threadFactory      The factory of the threads parsing the logs.
+     * @return A list containing pairs with filenames and turns of condensed mafia
+     *         log files that were attempted to be parsed, but had an exception
+     *         thrown during the parsing process, see {@link #createCache(File[])}.
+     */
+    synchronized List<Pair<String, Encounter>> createCache(
+            final File[] condensedMafiaLogs,
+            final ThreadFactory threadFactory) {
+
         final List<Pair<String, Encounter>> errorFileList = Collections
                 .synchronizedList(new ArrayList<Pair<String, Encounter>>());
-        final ExecutorService executor = Executors
-                .newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        final List<CacheManifest.Entry> newEntries = Collections
+                .synchronizedList(new ArrayList<CacheManifest.Entry>());
+        final Map<String, CacheManifest.Entry> currentEntries = manifestEntries;
+        final int threadCount = Math.min(Runtime.getRuntime().availableProcessors() * 2,
+                Math.max(condensedMafiaLogs.length, 1));
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount, threadFactory);
 
         for (final File log : condensedMafiaLogs) {
             executor.execute(new Runnable() {
@@ -116,9 +152,20 @@ public enum LogsCache {
                             Settings.getBoolean("Include mafia log notes"));
 
                     try {
+                        final CacheFingerprint fingerprint = CacheFingerprint.of(log);
+                        final File cachedLog = getCachedLog(log);
+                        final CacheManifest.Entry entry = currentEntries.get(cachedLog.getName());
+                        if (entry != null && fingerprint.equals(entry.getFingerprint())
+                                && cachedLog.isFile()) {
+                            return;
+                        }
+
                         logParser.parse();
-                        XMLLogCreator.createXMLLog(logParser.getLogData(),
-                                Constants.CACHE_LOCATION);
+                        final File createdLog = BinaryLogCreator.createBinaryLog(
+                                logParser.getLogData(), Constants.CACHE_LOCATION, fingerprint);
+                        newEntries.add(CacheManifest.Entry.of(createdLog, logParser.getLogData(),
+                                fingerprint));
+                        FactStore.STORE.add(logParser.getLogData(), fingerprint);
                     } catch (final IOException e) {
                         // Add the erroneous log to the error file list.
                         errorFileList.add(Pair.of(log.getName(),
@@ -126,8 +173,6 @@ public enum LogsCache {
                         e.printStackTrace();
                     } catch (final FileAccessException e) {
                         e.printStackTrace();
-                    } catch (final XMLAccessException e) {
-                        e.printStackTrace();
                     }
                 }
             });
@@ -140,11 +185,80 @@ public enum LogsCache {
             e.printStackTrace();
         }
 
-        reloadCache();
+        FactStore.STORE.flush();
+        if (!newEntries.isEmpty()) {
+            for (final CacheManifest.Entry entry : newEntries) {
+                manifestEntries.put(entry.getFileName(), entry);
+            }
+            writeManifest();
+        }
+        updateLogsByCharacter();
 
         return errorFileList;
     }
 
+    /**
+     * Brings the cache up to date with the given logs, which are expected to be
+     * all condensed mafia logs of the mafia logs directory. New and changed logs
+     * are cached the same way {@link #createCache(File[])} does it, while cached
+     * logs without a source among the given logs are deleted. Unchanged cache
+     * entries are left alone.
+     *
+     * @param condensedMafiaLogs All condensed mafia logs which should be cached.
+     * @return A list containing pairs with filenames and turns of condensed mafia
+     *         log files that were attempted to be parsed, but had an exception
+     *         thrown during the parsing process, see {@link #createCache(File[])}.
+     */
+    public synchronized List<Pair<String, Encounter>> refreshCache(
+            final File[] condensedMafiaLogs) {
+
+        final Set<String> cachedLogNames = Sets.newHashSet(condensedMafiaLogs.length);
+        final List<String> logNames = Lists.newArrayList(condensedMafiaLogs.length);
+        for (final File log : condensedMafiaLogs) {
+            final File cachedLog = getCachedLog(log);
+            cachedLogNames.add(cachedLog.getName());
+            logNames.add(getLogName(cachedLog));
+        }
+
+        for (final File f : Constants.CACHE_LOCATION.listFiles()) {
+            if (isCacheEntry(f) && !cachedLogNames.contains(f.getName())) {
+                f.delete();
+            }
+        }
+        if (manifestEntries.keySet().retainAll(cachedLogNames)) {
+            writeManifest();
+        }
+        FactStore.STORE.retainAll(logNames);
+
+        return createCache(condensedMafiaLogs);
+    }
+
+    /**
+     * @param f A file inside the cache directory.
+     * @return True if the given file is a cached log or a leftover of one, that
+     *         is neither a directory nor the manifest nor the state of the
+     *         {@link CacheWarmer}.
+     */
+    private boolean isCacheEntry(
+            final File f) {
+
+        return !f.isDirectory() && !f.equals(manifest)
+                && !f.getName().equals(CacheWarmer.STATE_FILE_NAME);
+    }
+
+    /**
+     * @param condensedMafiaLog A condensed mafia log.
+     * @return The file in which the given condensed mafia log is cached.
+     */
+    private static File getCachedLog(
+            final File condensedMafiaLog) {
+
+        // The log name is the name of the condensed mafia log without its
+        // file extension, see MafiaLogParser.
+        return new File(Constants.CACHE_LOCATION,
+                condensedMafiaLog.getName().replace(".txt", "") + BinaryLogCreator.FILE_EXTENSION);
+    }
+
     /**
      * Deletes all cached ascension logs.
      */
@@ -156,7 +270,9 @@ public enum LogsCache {
             }
         }
 
+        manifestEntries = Maps.newHashMap();
         logsByCharacterMap = Collections.emptyMap();
+        FactStore.STORE.clear();
     }
 
     /**
@@ -164,12 +280,21 @@ public enum LogsCache {
      */
     public synchronized List<File> getLogs() {
 
-        final List<File> logs = Lists.newArrayList(50);
-        for (final String character : logsByCharacterMap.keySet()) {
-            logs.addAll(logsByCharacterMap.get(character));
+        final List<File> logs = Lists.newArrayList(manifestEntries.size());
+        for (final CacheManifest.Entry entry : getEntries()) {
+            logs.add(entry.getFile());
         }
 
-        return Lists.sort(logs, FILE_COMPARATOR);
+        return logs;
+    }
+
+    /**
+     * @return A list of the manifest entries of all cached logs sorted
+     *         alphabetically by their file names.
+     */
+    public synchronized List<CacheManifest.Entry> getEntries() {
+
+        return Lists.sort(Lists.newArrayList(manifestEntries.values()), CacheManifest.FILE_NAME_COMPARATOR);
     }
 
     /**
@@ -182,34 +307,145 @@ public enum LogsCache {
     }
 
     /**
-     * Reloads the internal cached logs collection with the current content of the
-     * cache folder. This method will dereference the up until now used map which
+     * Reloads the internal cached logs collection from the cache manifest. Only if
+     * the manifest is missing or outdated, the content of the cache folder is read
+     * to rebuild it. This method will dereference the up until now used map which
      * backs {@link #getLogsByCharacter()}, but won't clear it in case it is still
      * needed on the users side.
      */
     public synchronized void reloadCache() {
 
-        logsByCharacterMap = Maps.newHashMap();
+        final Map<String, CacheManifest.Entry> entries = CacheManifest.read(manifest);
+        if (entries != null) {
+            manifestEntries = entries;
+        } else {
+            rebuildManifest();
+        }
 
-        final File[] cachedFiles = Constants.CACHE_LOCATION.listFiles();
-        Arrays.sort(cachedFiles, FILE_COMPARATOR);
+        updateLogsByCharacter();
+    }
 
-        for (final File f : cachedFiles) {
-            if (!f.isDirectory()) {
-                final int delimiterIndex = f.getName().lastIndexOf("-");
-                final String characterName = f.getName().substring(0, delimiterIndex);
-
-                final List<File> characterLogsList;
-                if (logsByCharacterMap.containsKey(characterName)) {
-                    characterLogsList = logsByCharacterMap.get(characterName);
-                } else {
-                    characterLogsList = Lists.newArrayList(50);
+    /**
+     * Rebuilds the cache manifest from the cached log files. Cached files of other
+     * formats or older format versions are deleted.
+     */
+    private void rebuildManifest() {
+
+        manifestEntries = Maps.newHashMap();
+
+        for (final File f : Constants.CACHE_LOCATION.listFiles()) {
+            if (isCacheEntry(f)) {
+                final CacheFingerprint fingerprint = f.getName()
+                        .endsWith(BinaryLogCreator.FILE_EXTENSION)
+                                ? BinaryLogReader.readFingerprint(f)
+                                : null;
+                if (fingerprint == null) {
+                    f.delete();
+                    continue;
                 }
 
-                characterLogsList.add(f);
+                try {
+                    final LogDataHolder logData = BinaryLogReader.parseBinaryLog(f);
+                    manifestEntries.put(f.getName(),
+                            CacheManifest.Entry.of(f, logData, fingerprint));
+                } catch (final FileAccessException e) {
+                    e.printStackTrace();
+                    f.delete();
+                }
+            }
+        }
+
+        writeManifest();
+    }
+
+    private void writeManifest() {
+
+        try {
+            CacheManifest.write(manifest, getEntries());
+        } catch (final IOException e) {
+            // The cache still works without a manifest, it will be rebuilt on the
+            // next reload.
+            e.printStackTrace();
+            manifest.delete();
+        }
+    }
+
+    private void updateLogsByCharacter() {
 
-                logsByCharacterMap.put(characterName, characterLogsList);
+        logsByCharacterMap = Maps.newHashMap();
+
+        for (final CacheManifest.Entry entry : getEntries()) {
+            List<File> characterLogsList = logsByCharacterMap.get(entry.getCharacterName());
+            if (characterLogsList == null) {
+                characterLogsList = Lists.newArrayList(50);
+                logsByCharacterMap.put(entry.getCharacterName(), characterLogsList);
             }
+
+            characterLogsList.add(entry.getFile());
         }
     }
+
+    /**
+     * Reads the given cached log file back in.
+     *
+     * @param cachedLog A log file from this cache, see {@link #getLogs()}.
+     * @return The log data of the given cached log.
+     * @throws FileAccessException if the cached log could not be read
+     */
+    public LogDataHolder loadLog(
+            final File cachedLog)
+            throws FileAccessException {
+
+        return BinaryLogReader.parseBinaryLog(cachedLog);
+    }
+
+    /**
+     * Returns the log data of the given condensed mafia log. If the log is cached
+     * and its {@link CacheFingerprint} is still the same, it is read from the
+     * cache, otherwise it is parsed. Parsed logs are not added to the cache.
+     * <p>
+     * This method is thread-safe and can be used to load many logs in parallel.
+     *
+     * @param condensedMafiaLog A condensed mafia log, see
+     *                          {@link LogsProcessor#createCondensedMafiaLogs(File[])}.
+     * @return The log data of the given log, with its log summary created.
+     * @throws IOException         if the condensed mafia log could not be read or
+     *                             parsed
+     * @throws FileAccessException if the cached log could not be read
+     */
+    public LogDataHolder loadOrParseLog(
+            final File condensedMafiaLog)
+            throws IOException, FileAccessException {
+
+        final File cachedLog = getCachedLog(condensedMafiaLog);
+        final CacheManifest.Entry entry;
+        synchronized (this) {
+            entry = manifestEntries.get(cachedLog.getName());
+        }
+        if (entry != null && cachedLog.isFile()
+                && entry.getFingerprint().equals(CacheFingerprint.of(condensedMafiaLog))) {
+            return loadLog(cachedLog);
+        }
+
+        final LogParser logParser = new MafiaLogParser(condensedMafiaLog,
+                Settings.getBoolean("Include mafia log notes"));
+        logParser.parse();
+
+        return logParser.getLogData();
+    }
+
+    /**
+     * @param cachedLog A log file from this cache, see {@link #getLogs()}.
+     * @return The log name of the given cached log, which is the file name
+     *         without its file extension.
+     */
+    public static String getLogName(
+            final File cachedLog) {
+
+        final String fileName = cachedLog.getName();
+
+        return fileName.endsWith(BinaryLogCreator.FILE_EXTENSION)
+                ? fileName.substring(0, fileName.length() - BinaryLogCreator.FILE_EXTENSION.length())
+                : fileName;
+    }
 }
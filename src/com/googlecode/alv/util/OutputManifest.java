@@ -0,0 +1,274 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The manifest of a directory of parsed logs. For every parsed log written to
+ * the directory, it holds the {@link CacheFingerprint} of the condensed mafia
+ * log it was created from, the version of its output (see
+ * {@link #isUpToDate(String, CacheFingerprint, String)}) and the size and
+ * modification date of the file as it was written. A parsed log only needs to
+ * be written again if any of these changed, so that processing the same mafia
+ * logs again only writes the logs of the ascensions which changed.
+ * <p>
+ * Like the {@link CacheManifest}, the manifest is a UTF-8 text file with one
+ * tab-separated line per parsed log after a header line, which is always
+ * written to a temporary file first which then replaces the old manifest.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class OutputManifest {
+    /**
+     * The file name of the manifest inside a directory of parsed logs.
+     */
+    public static final String FILE_NAME = "alv-manifest.txt";
+
+    private static final String HEADER = "ALV output manifest 1";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final Pattern TAB = Pattern.compile("\t");
+
+    private static final int FIELD_COUNT = 8;
+
+    /**
+     * The facts about a single parsed log.
+     */
+    private static final class Entry {
+        final CacheFingerprint fingerprint;
+
+        final String outputVersion;
+
+        final long size;
+
+        final long lastModified;
+
+        Entry(
+                final CacheFingerprint fingerprint, final String outputVersion, final long size,
+                final long lastModified) {
+
+            this.fingerprint = fingerprint;
+            this.outputVersion = outputVersion;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private final File directory;
+
+    private final Map<String, Entry> entries;
+
+    private OutputManifest(
+            final File directory, final Map<String, Entry> entries) {
+
+        this.directory = directory;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads the manifest of the given directory. If there is none, or it can't
+     * be read, the returned manifest is empty, which means that all parsed logs
+     * will be written again.
+     *
+     * @param directory A directory of parsed logs.
+     * @return The manifest of the given directory.
+     */
+    public static OutputManifest read(
+            final File directory) {
+
+        if (directory == null) {
+            throw new NullPointerException("The directory must not be null.");
+        }
+
+        final Map<String, Entry> entries = Maps.newHashMap();
+        final File manifest = new File(directory, FILE_NAME);
+        if (manifest.isFile()) {
+            try (final BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(manifest),
+                    UTF8))) {
+                if (HEADER.equals(br.readLine())) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        if (line.length() > 0) {
+                            final String[] fields = TAB.split(line, -1);
+                            if (fields.length != FIELD_COUNT) {
+                                throw new IllegalArgumentException("Malformed manifest line.");
+                            }
+
+                            entries.put(fields[0],
+                                    new Entry(new CacheFingerprint(fields[1],
+                                            Long.parseLong(fields[2]),
+                                            fields[3],
+                                            fields[4]),
+                                            fields[5],
+                                            Long.parseLong(fields[6]),
+                                            Long.parseLong(fields[7])));
+                        }
+                    }
+                }
+            } catch (final IOException | IllegalArgumentException e) {
+                e.printStackTrace();
+                entries.clear();
+            }
+        }
+
+        return new OutputManifest(directory, entries);
+    }
+
+    /**
+     * Checks whether the given parsed log is up to date. It is if it still is
+     * the file which was recorded for the given source and output version, see
+     * {@link #put(File, CacheFingerprint, String)}.
+     *
+     * @param outputFileName The file name of a parsed log inside the directory
+     *                       of this manifest.
+     * @param fingerprint    The fingerprint of the condensed mafia log the
+     *                       parsed log would be created from.
+     * @param outputVersion  A description of everything besides the log data
+     *                       which changes the parsed log, such as its format
+     *                       and the settings used to write it.
+     * @return True if the given parsed log doesn't need to be written again.
+     */
+    public synchronized boolean isUpToDate(
+            final String outputFileName, final CacheFingerprint fingerprint,
+            final String outputVersion) {
+
+        if (outputFileName == null) {
+            throw new NullPointerException("The output file name must not be null.");
+        }
+        if (fingerprint == null) {
+            throw new NullPointerException("The fingerprint must not be null.");
+        }
+        if (outputVersion == null) {
+            throw new NullPointerException("The output version must not be null.");
+        }
+
+        final Entry entry = entries.get(outputFileName);
+        final File output = new File(directory, outputFileName);
+
+        return entry != null && entry.fingerprint.equals(fingerprint)
+                && entry.outputVersion.equals(outputVersion) && output.isFile()
+                && output.length() == entry.size && output.lastModified() == entry.lastModified;
+    }
+
+    /**
+     * Records the given parsed log as it is now.
+     *
+     * @param output        A parsed log inside the directory of this manifest
+     *                      which was just written.
+     * @param fingerprint   The fingerprint of the condensed mafia log the parsed
+     *                      log was created from.
+     * @param outputVersion A description of everything besides the log data
+     *                      which changes the parsed log, see
+     *                      {@link #isUpToDate(String, CacheFingerprint, String)}.
+     */
+    public synchronized void put(
+            final File output, final CacheFingerprint fingerprint, final String outputVersion) {
+
+        if (output == null) {
+            throw new NullPointerException("The output file must not be null.");
+        }
+        if (fingerprint == null) {
+            throw new NullPointerException("The fingerprint must not be null.");
+        }
+        if (outputVersion == null) {
+            throw new NullPointerException("The output version must not be null.");
+        }
+
+        entries.put(output.getName(),
+                new Entry(fingerprint, outputVersion, output.length(), output.lastModified()));
+    }
+
+    /**
+     * Forgets the given parsed log, so that it will be written again next time.
+     *
+     * @param outputFileName The file name of a parsed log inside the directory
+     *                       of this manifest.
+     */
+    public synchronized void remove(
+            final String outputFileName) {
+
+        entries.remove(outputFileName);
+    }
+
+    /**
+     * Replaces the manifest file of the directory of this manifest with one
+     * holding the parsed logs recorded by this manifest which still exist.
+     *
+     * @throws IOException if the manifest could not be written
+     */
+    public synchronized void write()
+            throws IOException {
+
+        final File manifest = new File(directory, FILE_NAME);
+        final File temporary = new File(directory, FILE_NAME + ".tmp");
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temporary),
+                UTF8));
+        try {
+            writer.println(HEADER);
+            for (final Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (!new File(directory, e.getKey()).isFile()) {
+                    continue;
+                }
+
+                final Entry entry = e.getValue();
+                writer.println(e.getKey() + '\t' + entry.fingerprint.getSourceHash() + '\t'
+                        + entry.fingerprint.getSourceSize() + '\t'
+                        + entry.fingerprint.getParserVersion() + '\t'
+                        + entry.fingerprint.getDataTablesVersion() + '\t' + entry.outputVersion
+                        + '\t' + entry.size + '\t' + entry.lastModified);
+            }
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            temporary.delete();
+            throw new IOException("The output manifest could not be written.");
+        }
+
+        try {
+            Files.move(temporary.toPath(),
+                    manifest.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
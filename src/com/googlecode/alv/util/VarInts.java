@@ -0,0 +1,129 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Utility class with static helper methods to write and read variable-length
+ * encoded integers, as they are used by the compact binary file formats of the
+ * Ascension Log Visualizer.
+ * <p>
+ * Values are stored in groups of seven bits, least significant group first,
+ * with the highest bit of every byte flagging whether another byte follows.
+ * Signed values are zigzag encoded beforehand, so that small negative numbers
+ * stay small as well.
+ * <p>
+ * All methods in this class throw a {@link NullPointerException} if a null
+ * object reference is passed in any parameter.
+ */
+public final class VarInts 
+{
+    private VarInts() {}
+
+    /**
+     * Writes the given value as an unsigned variable-length integer.
+     * 
+     * @param out
+     *            The stream to write to.
+     * @param value
+     *            The value to write. It is treated as an unsigned number.
+     * @throws IOException
+     *             if the stream could not be written to
+     */
+    public static void writeUnsigned(final OutputStream out, final int value)
+    throws IOException 
+    {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    /**
+     * Writes the given value as a zigzag encoded variable-length integer.
+     * 
+     * @param out
+     *            The stream to write to.
+     * @param value
+     *            The value to write.
+     * @throws IOException
+     *             if the stream could not be written to
+     */
+    public static void writeSigned(final OutputStream out, final int value)
+    throws IOException 
+    {
+        writeUnsigned(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads an unsigned variable-length integer from the current position of
+     * the given buffer.
+     * 
+     * @param buffer
+     *            The buffer to read from.
+     * @return The read value.
+     * @throws BufferUnderflowException
+     *             if the buffer ends in the middle of the value
+     * @throws IllegalArgumentException
+     *             if the value is longer than five bytes
+     */
+    public static int readUnsigned(final ByteBuffer buffer) 
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IllegalArgumentException("Malformed variable-length integer.");
+    }
+
+    /**
+     * Reads a zigzag encoded variable-length integer from the current position
+     * of the given buffer.
+     * 
+     * @param buffer
+     *            The buffer to read from.
+     * @return The read value.
+     * @throws BufferUnderflowException
+     *             if the buffer ends in the middle of the value
+     * @throws IllegalArgumentException
+     *             if the value is longer than five bytes
+     */
+    public static int readSigned(final ByteBuffer buffer) 
+    {
+        final int value = readUnsigned(buffer);
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
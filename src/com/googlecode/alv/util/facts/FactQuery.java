@@ -0,0 +1,251 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.facts;
+
+/**
+ * The conditions turn rows of the {@link FactStore} have to fulfil to be part
+ * of the result of a scan. All conditions are optional, {@link #ALL} matches
+ * every row.
+ * <p>
+ * Instances of this class are immutable, every {@code with} method returns a
+ * new query with the additional condition.
+ */
+public final class FactQuery {
+    /**
+     * The query which matches all rows.
+     */
+    public static final FactQuery ALL = new FactQuery(null,
+            null,
+            null,
+            Integer.MIN_VALUE,
+            Integer.MAX_VALUE,
+            Integer.MIN_VALUE,
+            Integer.MAX_VALUE);
+
+    private final String characterName;
+
+    private final String areaName;
+
+    private final String encounterName;
+
+    private final int fromTurn;
+
+    private final int toTurn;
+
+    private final int fromDay;
+
+    private final int toDay;
+
+    private FactQuery(
+            final String characterName, final String areaName, final String encounterName,
+            final int fromTurn, final int toTurn, final int fromDay, final int toDay) {
+
+        this.characterName = characterName;
+        this.areaName = areaName;
+        this.encounterName = encounterName;
+        this.fromTurn = fromTurn;
+        this.toTurn = toTurn;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+    }
+
+    /**
+     * @param characterName The name of a character, case is ignored.
+     * @return A query which additionally only matches the ascensions of the
+     *         given character.
+     */
+    public FactQuery withCharacter(
+            final String characterName) {
+
+        if (characterName == null) {
+            throw new NullPointerException("The character name must not be null.");
+        }
+
+        return new FactQuery(characterName, areaName, encounterName, fromTurn, toTurn, fromDay, toDay);
+    }
+
+    /**
+     * @param areaName The exact name of an area.
+     * @return A query which additionally only matches rows of the given area.
+     */
+    public FactQuery withArea(
+            final String areaName) {
+
+        if (areaName == null) {
+            throw new NullPointerException("The area name must not be null.");
+        }
+
+        return new FactQuery(characterName, areaName, encounterName, fromTurn, toTurn, fromDay, toDay);
+    }
+
+    /**
+     * @param encounterName The exact name of an encounter.
+     * @return A query which additionally only matches rows of the given
+     *         encounter.
+     */
+    public FactQuery withEncounter(
+            final String encounterName) {
+
+        if (encounterName == null) {
+            throw new NullPointerException("The encounter name must not be null.");
+        }
+
+        return new FactQuery(characterName, areaName, encounterName, fromTurn, toTurn, fromDay, toDay);
+    }
+
+    /**
+     * @param fromTurn The first matching turn number.
+     * @param toTurn   The last matching turn number.
+     * @return A query which additionally only matches rows within the given
+     *         turns.
+     * @throws IllegalArgumentException if fromTurn is greater than toTurn
+     */
+    public FactQuery withTurns(
+            final int fromTurn, final int toTurn) {
+
+        if (fromTurn > toTurn) {
+            throw new IllegalArgumentException("The turn range must not be empty.");
+        }
+
+        return new FactQuery(characterName, areaName, encounterName, fromTurn, toTurn, fromDay, toDay);
+    }
+
+    /**
+     * @param fromDay The first matching day number.
+     * @param toDay   The last matching day number.
+     * @return A query which additionally only matches rows within the given days.
+     * @throws IllegalArgumentException if fromDay is greater than toDay
+     */
+    public FactQuery withDays(
+            final int fromDay, final int toDay) {
+
+        if (fromDay > toDay) {
+            throw new IllegalArgumentException("The day range must not be empty.");
+        }
+
+        return new FactQuery(characterName, areaName, encounterName, fromTurn, toTurn, fromDay, toDay);
+    }
+
+    /**
+     * @return The character name condition, or {@code null} if there is none.
+     */
+    public String getCharacterName() {
+
+        return characterName;
+    }
+
+    /**
+     * @return The area name condition, or {@code null} if there is none.
+     */
+    public String getAreaName() {
+
+        return areaName;
+    }
+
+    /**
+     * @return The encounter name condition, or {@code null} if there is none.
+     */
+    public String getEncounterName() {
+
+        return encounterName;
+    }
+
+    /**
+     * @return The first matching turn number.
+     */
+    public int getFromTurn() {
+
+        return fromTurn;
+    }
+
+    /**
+     * @return The last matching turn number.
+     */
+    public int getToTurn() {
+
+        return toTurn;
+    }
+
+    /**
+     * @return The first matching day number.
+     */
+    public int getFromDay() {
+
+        return fromDay;
+    }
+
+    /**
+     * @return The last matching day number.
+     */
+    public int getToDay() {
+
+        return toDay;
+    }
+
+    /**
+     * @param ascension An ascension stored in a segment.
+     * @return True if rows of the given ascension can match this query.
+     */
+    boolean matches(
+            final FactSegment.Ascension ascension) {
+
+        return characterName == null
+                || characterName.equalsIgnoreCase(ascension.getCharacterName());
+    }
+
+    /**
+     * Checks the column ranges of the given segment. Area and encounter
+     * conditions are checked against the string table of the segment, because a
+     * segment can only contain rows of an area if it knows its name.
+     *
+     * @param segment A segment.
+     * @return True if rows of the given segment can match this query.
+     */
+    boolean matches(
+            final FactSegment segment) {
+
+        if (segment.getMaximum(FactSegment.Column.TURN) < fromTurn
+                || segment.getMinimum(FactSegment.Column.TURN) > toTurn
+                || segment.getMaximum(FactSegment.Column.DAY) < fromDay
+                || segment.getMinimum(FactSegment.Column.DAY) > toDay) {
+            return false;
+        }
+
+        return isInRange(segment, FactSegment.Column.AREA, areaName)
+                && isInRange(segment, FactSegment.Column.ENCOUNTER, encounterName);
+    }
+
+    private static boolean isInRange(
+            final FactSegment segment, final FactSegment.Column column, final String name) {
+
+        if (name == null) {
+            return true;
+        }
+
+        final int index = segment.indexOf(name);
+
+        return index >= segment.getMinimum(column) && index <= segment.getMaximum(column);
+    }
+}
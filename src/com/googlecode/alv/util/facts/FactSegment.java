@@ -0,0 +1,1291 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.facts;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.googlecode.alv.creator.util.FileAccessException;
+import com.googlecode.alv.logdata.Item;
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.logdata.Skill;
+import com.googlecode.alv.logdata.consumables.Consumable;
+import com.googlecode.alv.logdata.turn.Encounter;
+import com.googlecode.alv.logdata.turn.SingleTurn;
+import com.googlecode.alv.logdata.turn.TurnInterval;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.Maps;
+import com.googlecode.alv.util.VarInts;
+
+/**
+ * A single segment file of the {@link FactStore}. Segments are written once and
+ * never changed afterwards.
+ * <p>
+ * A segment holds one row per encounter of all turns of one or more
+ * ascensions, stored column by column instead of row by row. Every column
+ * (see {@link Column}) is a run of variable-length integers (see
+ * {@link VarInts}), turn and day numbers delta encoded, all strings as indices
+ * into the string table of the segment. The rows of an ascension are always
+ * stored next to each other, the ascension table in the header of the segment
+ * says where they are. Item drops, skill casts and consumables are stored in
+ * side tables (see {@link SideTable}) which point to their rows.
+ * <p>
+ * The header also holds the smallest and largest value of every column, so
+ * that queries can skip whole segments without decoding any of their columns.
+ * Only the header is kept in memory. Columns are read from the file and
+ * decoded when they are actually needed, and the file is only open during
+ * such a read.
+ * <p>
+ * For every {@link SearchField}, a segment also holds an inverted index from
+ * every name to the rows it shows up in. Together with a word dictionary of the
+ * string table, which is built in memory on the first search, this allows
+ * searches by words to only decode the rows of matching names.
+ * <p>
+ * Instances of this class are immutable apart from the lookup tables built on
+ * first use, and can be shared between threads. The arrays returned by them
+ * are new copies.
+ */
+public final class FactSegment {
+    /**
+     * The first four bytes of every segment file, reading {@code ALVF}.
+     */
+    public static final int MAGIC_NUMBER = 0x414C5646;
+
+    /**
+     * The version of the segment format. It has to be increased every time the
+     * layout of the format changes.
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    /**
+     * The file extension of segment files.
+     */
+    public static final String FILE_EXTENSION = ".alvf";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The columns of the turn rows of a segment.
+     */
+    public enum Column {
+        TURN(true, false),
+        DAY(true, false),
+        AREA(false, true),
+        ENCOUNTER(false, true),
+        TURN_VERSION(false, true),
+        MUSCLE(false, false),
+        MYST(false, false),
+        MOXIE(false, false),
+        MEAT_GAINED(false, false),
+        MEAT_SPENT(false, false),
+        MP_GAINED(false, false);
+
+        private final boolean isDeltaEncoded;
+
+        private final boolean isString;
+
+        private Column(
+                final boolean isDeltaEncoded, final boolean isString) {
+
+            this.isDeltaEncoded = isDeltaEncoded;
+            this.isString = isString;
+        }
+
+        /**
+         * @return True if the values of this column are indices into the string
+         *         table of the segment.
+         */
+        public boolean isString() {
+
+            return isString;
+        }
+    }
+
+    /**
+     * The side tables of a segment. Every entry of a side table consists of the
+     * values of the {@link SideColumn}s, and the entries are sorted by the rows
+     * they belong to.
+     */
+    public enum SideTable {
+        /**
+         * Item drops, with the item name and amount.
+         */
+        DROPS,
+        /**
+         * Skill casts, with the skill name, amount of casts and MP cost.
+         */
+        CASTS,
+        /**
+         * Consumables, with the consumable name, amount, consumable version and
+         * adventure gain.
+         */
+        CONSUMABLES;
+    }
+
+    /**
+     * The columns of the {@link SideTable}s. Side tables which don't need a
+     * column store zeros in it, which is the empty string for string columns.
+     */
+    public enum SideColumn {
+        ROW(true, false), NAME(false, true), AMOUNT(false, false), VERSION(false, true), VALUE(false, false);
+
+        private final boolean isDeltaEncoded;
+
+        private final boolean isString;
+
+        private SideColumn(
+                final boolean isDeltaEncoded, final boolean isString) {
+
+            this.isDeltaEncoded = isDeltaEncoded;
+            this.isString = isString;
+        }
+
+        /**
+         * @return True if the values of this column are indices into the string
+         *         table of the segment.
+         */
+        public boolean isString() {
+
+            return isString;
+        }
+    }
+
+    /**
+     * The facts about an ascension stored in a segment.
+     */
+    public static final class Ascension {
+        private final String logName;
+
+        private final String characterClass;
+
+        private final String ascensionPath;
+
+        private final String gameMode;
+
+        private final String sourceHash;
+
+        private final int firstRow;
+
+        private final int rowCount;
+
+        Ascension(
+                final String logName, final String characterClass, final String ascensionPath,
+                final String gameMode, final String sourceHash, final int firstRow,
+                final int rowCount) {
+
+            this.logName = logName;
+            this.characterClass = characterClass;
+            this.ascensionPath = ascensionPath;
+            this.gameMode = gameMode;
+            this.sourceHash = sourceHash;
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+        }
+
+        /**
+         * @return The log name of the ascension, see
+         *         {@link LogDataHolder#getLogName()}.
+         */
+        public String getLogName() {
+
+            return logName;
+        }
+
+        /**
+         * @return The name of the character.
+         */
+        public String getCharacterName() {
+
+            return logName.substring(0, logName.lastIndexOf("-"));
+        }
+
+        /**
+         * @return The name of the character class.
+         */
+        public String getCharacterClass() {
+
+            return characterClass;
+        }
+
+        /**
+         * @return The name of the ascension path.
+         */
+        public String getAscensionPath() {
+
+            return ascensionPath;
+        }
+
+        /**
+         * @return The name of the game mode.
+         */
+        public String getGameMode() {
+
+            return gameMode;
+        }
+
+        /**
+         * @return The hash of the source of the ascension, see
+         *         {@link com.googlecode.alv.util.CacheFingerprint#getSourceHash()}.
+         */
+        public String getSourceHash() {
+
+            return sourceHash;
+        }
+
+        /**
+         * @return The index of the first row of the ascension.
+         */
+        public int getFirstRow() {
+
+            return firstRow;
+        }
+
+        /**
+         * @return The number of rows of the ascension.
+         */
+        public int getRowCount() {
+
+            return rowCount;
+        }
+    }
+
+    private final File file;
+
+    private final String[] strings;
+
+    private final Map<String, Integer> stringIndices;
+
+    private final List<Ascension> ascensions;
+
+    private final int rowCount;
+
+    private final int[] minimums = new int[Column.values().length];
+
+    private final int[] maximums = new int[Column.values().length];
+
+    private final long[] columnPositions = new long[Column.values().length];
+
+    private final int[] columnLengths = new int[Column.values().length];
+
+    private final int[] sideTableSizes = new int[SideTable.values().length];
+
+    private final long[][] sideColumnPositions = new long[SideTable.values().length][SideColumn
+            .values().length];
+
+    private final int[][] sideColumnLengths = new int[SideTable.values().length][SideColumn
+            .values().length];
+
+    private final long[] postingsPositions = new long[SearchField.values().length];
+
+    // Lazily read, see getPostingsTerms(SearchField).
+    private final PostingsTerms[] postingsTerms = new PostingsTerms[SearchField.values().length];
+
+    // Lazily built, see findStrings(List<String>).
+    private String[] words;
+
+    private int[][] wordStrings;
+
+    /**
+     * Where the postings of every string of an inverted index are stored.
+     */
+    private static final class PostingsTerms {
+        final long[] positions;
+
+        final int[] counts;
+
+        final int[] lengths;
+
+        PostingsTerms(
+                final int stringCount) {
+
+            positions = new long[stringCount];
+            counts = new int[stringCount];
+            lengths = new int[stringCount];
+            Arrays.fill(positions, -1);
+        }
+    }
+
+    /**
+     * Reads a segment file from front to back through a small window, so that
+     * the blocks between the fields of interest are skipped without being read.
+     */
+    private static final class ChannelReader {
+        private static final int WINDOW_SIZE = 8 * 1024;
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private ByteBuffer window = ByteBuffer.allocate(0);
+
+        private long windowStart;
+
+        ChannelReader(
+                final FileChannel channel)
+                throws IOException {
+
+            this.channel = channel;
+            size = channel.size();
+        }
+
+        long position() {
+
+            return windowStart + window.position();
+        }
+
+        /**
+         * @throws BufferUnderflowException if the position is beyond the end of
+         *                                  the file
+         */
+        void seek(
+                final long position) {
+
+            if (position > size) {
+                throw new BufferUnderflowException();
+            }
+            if (position >= windowStart && position <= windowStart + window.limit()) {
+                window.position((int) (position - windowStart));
+            } else {
+                window = ByteBuffer.allocate(0);
+                windowStart = position;
+            }
+        }
+
+        /**
+         * Makes sure that the window holds at least the given number of bytes,
+         * or everything up to the end of the file.
+         */
+        private void fill(
+                final int length)
+                throws IOException {
+
+            if (window.remaining() >= length) {
+                return;
+            }
+
+            final long start = position();
+            window = readFully(channel, start, (int) Math.min(Math.max(length, WINDOW_SIZE),
+                    size - start));
+            windowStart = start;
+        }
+
+        int readInt()
+                throws IOException {
+
+            fill(4);
+
+            return window.getInt();
+        }
+
+        int readUnsigned()
+                throws IOException {
+
+            // A variable-length integer is at most five bytes long.
+            fill(5);
+
+            return VarInts.readUnsigned(window);
+        }
+
+        int readSigned()
+                throws IOException {
+
+            fill(5);
+
+            return VarInts.readSigned(window);
+        }
+
+        byte[] readBytes(
+                final int length)
+                throws IOException {
+
+            fill(length);
+            final byte[] bytes = new byte[length];
+            window.get(bytes);
+
+            return bytes;
+        }
+    }
+
+    /**
+     * Opens the given segment file. Only the header of the segment is read and
+     * kept in memory, the columns are read from the file whenever they are
+     * needed.
+     *
+     * @param segmentFile The segment file.
+     * @return The opened segment.
+     * @throws FileAccessException if the file could not be read or isn't a
+     *                             segment of the current format version
+     */
+    public static FactSegment open(
+            final File segmentFile)
+            throws FileAccessException {
+
+        if (segmentFile == null) {
+            throw new NullPointerException("The segment file must not be null.");
+        }
+
+        // The file is only kept open while it is read. Neither an open channel
+        // nor a memory-mapped buffer may outlive a read, as they would keep the
+        // file from being deleted on Windows, like after a compaction.
+        try (final FileChannel channel = FileChannel.open(segmentFile.toPath(),
+                StandardOpenOption.READ)) {
+            return new FactSegment(segmentFile, new ChannelReader(channel));
+        } catch (final IOException e) {
+            e.printStackTrace();
+            throw new FileAccessException(segmentFile.getName() + " could not be read.");
+        } catch (final BufferUnderflowException e) {
+            throw new FileAccessException(segmentFile.getName() + " is truncated.");
+        } catch (final IllegalArgumentException e) {
+            throw new FileAccessException(segmentFile.getName() + " is not a valid segment file.");
+        }
+    }
+
+    private FactSegment(
+            final File file, final ChannelReader reader)
+            throws IOException {
+
+        this.file = file;
+
+        if (reader.readInt() != MAGIC_NUMBER || reader.readUnsigned() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Not a segment of the current format version.");
+        }
+
+        strings = new String[reader.readUnsigned()];
+        stringIndices = Maps.newHashMap(strings.length);
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String(reader.readBytes(reader.readUnsigned()), UTF8);
+            stringIndices.put(strings[i], i);
+        }
+
+        // If an ascension was added more than once before the segment was
+        // written, only its last version counts.
+        final int ascensionCount = reader.readUnsigned();
+        final Map<String, Ascension> ascensionMap = new LinkedHashMap<String, Ascension>();
+        for (int i = 0; i < ascensionCount; i++) {
+            final Ascension ascension = new Ascension(readString(reader),
+                    readString(reader),
+                    readString(reader),
+                    readString(reader),
+                    readString(reader),
+                    reader.readUnsigned(),
+                    reader.readUnsigned());
+            ascensionMap.remove(ascension.getLogName());
+            ascensionMap.put(ascension.getLogName(), ascension);
+        }
+        ascensions = Collections.unmodifiableList(Lists.newArrayList(ascensionMap.values()));
+
+        rowCount = reader.readUnsigned();
+        for (final Column c : Column.values()) {
+            minimums[c.ordinal()] = reader.readSigned();
+            maximums[c.ordinal()] = reader.readSigned();
+            columnLengths[c.ordinal()] = reader.readUnsigned();
+            columnPositions[c.ordinal()] = skipBlock(reader, columnLengths[c.ordinal()]);
+        }
+        for (final SideTable t : SideTable.values()) {
+            sideTableSizes[t.ordinal()] = reader.readUnsigned();
+            for (final SideColumn c : SideColumn.values()) {
+                sideColumnLengths[t.ordinal()][c.ordinal()] = reader.readUnsigned();
+                sideColumnPositions[t.ordinal()][c.ordinal()] = skipBlock(reader,
+                        sideColumnLengths[t.ordinal()][c.ordinal()]);
+            }
+        }
+        for (final SearchField f : SearchField.values()) {
+            postingsPositions[f.ordinal()] = skipBlock(reader, reader.readUnsigned());
+        }
+    }
+
+    private String readString(
+            final ChannelReader reader)
+            throws IOException {
+
+        final int index = reader.readUnsigned();
+        if (index >= strings.length) {
+            throw new IllegalArgumentException("String index out of range.");
+        }
+
+        return strings[index];
+    }
+
+    /**
+     * Skips a block of the given length and returns its start.
+     */
+    private static long skipBlock(
+            final ChannelReader reader, final int length) {
+
+        final long start = reader.position();
+        reader.seek(start + length);
+
+        return start;
+    }
+
+    /**
+     * Reads the given number of bytes from the given position of the given
+     * channel, or less if the channel ends before.
+     */
+    private static ByteBuffer readFully(
+            final FileChannel channel, final long position, final int length)
+            throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        // Positional reads may return less than asked for.
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+
+        return buffer;
+    }
+
+    /**
+     * Reads the given range of the segment file, opening the file just for
+     * this read.
+     *
+     * @throws IllegalStateException if the file could not be read
+     */
+    private ByteBuffer read(
+            final long position, final int length) {
+
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = readFully(channel, position, length);
+            if (buffer.remaining() < length) {
+                throw new IllegalStateException(file.getName() + " is truncated.");
+            }
+
+            return buffer;
+        } catch (final IOException e) {
+            throw new IllegalStateException(file.getName() + " could not be read.", e);
+        }
+    }
+
+    /**
+     * @return The segment file.
+     */
+    public File getFile() {
+
+        return file;
+    }
+
+    /**
+     * @return The ascensions stored in this segment, in the order of their rows.
+     *         Rows of ascensions which were replaced by a later version in the
+     *         same segment aren't covered by any of them.
+     */
+    public List<Ascension> getAscensions() {
+
+        return ascensions;
+    }
+
+    /**
+     * @return The number of rows of this segment.
+     */
+    public int getRowCount() {
+
+        return rowCount;
+    }
+
+    /**
+     * @param column A column.
+     * @return The smallest value of the given column, or 0 if this segment has
+     *         no rows.
+     */
+    public int getMinimum(
+            final Column column) {
+
+        return minimums[column.ordinal()];
+    }
+
+    /**
+     * @param column A column.
+     * @return The largest value of the given column, or 0 if this segment has no
+     *         rows.
+     */
+    public int getMaximum(
+            final Column column) {
+
+        return maximums[column.ordinal()];
+    }
+
+    /**
+     * @param index An index into the string table of this segment.
+     * @return The string with the given index.
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public String getString(
+            final int index) {
+
+        return strings[index];
+    }
+
+    /**
+     * @param s A string.
+     * @return The index of the given string in the string table of this segment,
+     *         or -1 if this segment doesn't use the string at all.
+     */
+    public int indexOf(
+            final String s) {
+
+        final Integer index = stringIndices.get(s);
+
+        return index != null ? index.intValue() : -1;
+    }
+
+    /**
+     * Reads and decodes the given column from the segment file.
+     *
+     * @param column A column.
+     * @return The decoded values of the given column of all rows.
+     * @throws IllegalStateException if the segment file could not be read
+     */
+    public int[] readColumn(
+            final Column column) {
+
+        return readBlock(columnPositions[column.ordinal()],
+                columnLengths[column.ordinal()],
+                rowCount,
+                column.isDeltaEncoded);
+    }
+
+    /**
+     * @param table A side table.
+     * @return The number of entries of the given side table.
+     */
+    public int getSideTableSize(
+            final SideTable table) {
+
+        return sideTableSizes[table.ordinal()];
+    }
+
+    /**
+     * Reads and decodes the given side table column from the segment file.
+     *
+     * @param table  A side table.
+     * @param column A column of the side table.
+     * @return The decoded values of the given column of all entries of the given
+     *         side table.
+     * @throws IllegalStateException if the segment file could not be read
+     */
+    public int[] readSideColumn(
+            final SideTable table, final SideColumn column) {
+
+        return readBlock(sideColumnPositions[table.ordinal()][column.ordinal()],
+                sideColumnLengths[table.ordinal()][column.ordinal()],
+                sideTableSizes[table.ordinal()],
+                column.isDeltaEncoded);
+    }
+
+    private int[] readBlock(
+            final long position, final int length, final int count, final boolean isDeltaEncoded) {
+
+        final ByteBuffer block = read(position, length);
+
+        final int[] values = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            final int value = VarInts.readSigned(block);
+            values[i] = isDeltaEncoded ? previous + value : value;
+            previous = values[i];
+        }
+
+        return values;
+    }
+
+    /**
+     * @param field       A search field.
+     * @param stringIndex An index into the string table of this segment.
+     * @return The ascending rows in whose given field the given string shows up.
+     * @throws IllegalStateException if the segment file could not be read
+     */
+    public int[] readPostings(
+            final SearchField field, final int stringIndex) {
+
+        final PostingsTerms terms = getPostingsTerms(field);
+        if (stringIndex < 0 || stringIndex >= terms.positions.length
+            || terms.positions[stringIndex] < 0) {
+            return new int[0];
+        }
+
+        return readBlock(terms.positions[stringIndex],
+                terms.lengths[stringIndex],
+                terms.counts[stringIndex],
+                true);
+    }
+
+    /**
+     * Returns where the postings of every string are stored in the inverted
+     * index of the given field, reading the term table of the index on first
+     * use. The postings themselves are skipped.
+     */
+    private synchronized PostingsTerms getPostingsTerms(
+            final SearchField field) {
+
+        PostingsTerms terms = postingsTerms[field.ordinal()];
+        if (terms == null) {
+            terms = new PostingsTerms(strings.length);
+            try (final FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.READ)) {
+                final ChannelReader reader = new ChannelReader(channel);
+                reader.seek(postingsPositions[field.ordinal()]);
+                final int termCount = reader.readUnsigned();
+                int stringIndex = 0;
+                for (int i = 0; i < termCount; i++) {
+                    stringIndex += reader.readUnsigned();
+                    terms.counts[stringIndex] = reader.readUnsigned();
+                    terms.lengths[stringIndex] = reader.readUnsigned();
+                    terms.positions[stringIndex] = skipBlock(reader, terms.lengths[stringIndex]);
+                }
+            } catch (final IOException e) {
+                throw new IllegalStateException(file.getName() + " could not be read.", e);
+            } catch (final BufferUnderflowException e) {
+                throw new IllegalStateException(file.getName() + " is truncated.");
+            }
+
+            postingsTerms[field.ordinal()] = terms;
+        }
+
+        return terms;
+    }
+
+    /**
+     * Finds all strings of this segment which contain every one of the given
+     * words, at least as the start of one of their words. The word dictionary
+     * of the string table is built on first use.
+     *
+     * @param queryWords Lowercased words, see {@link #toWords(String)}.
+     * @return The ascending indices of all matching strings.
+     */
+    synchronized int[] findStrings(
+            final List<String> queryWords) {
+
+        if (words == null) {
+            buildWordDictionary();
+        }
+
+        BitSet result = null;
+        for (final String queryWord : queryWords) {
+            final BitSet matches = new BitSet(strings.length);
+            // All words starting with the query word follow each other in the
+            // sorted dictionary.
+            int i = Arrays.binarySearch(words, queryWord);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            for (; i < words.length && words[i].startsWith(queryWord); i++) {
+                for (final int stringIndex : wordStrings[i]) {
+                    matches.set(stringIndex);
+                }
+            }
+
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+
+        if (result == null) {
+            return new int[0];
+        }
+        final int[] indices = new int[result.cardinality()];
+        int count = 0;
+        for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+            indices[count++] = i;
+        }
+
+        return indices;
+    }
+
+    private void buildWordDictionary() {
+
+        final Map<String, IntColumn> dictionary = new TreeMap<String, IntColumn>();
+        for (int i = 0; i < strings.length; i++) {
+            for (final String word : toWords(strings[i])) {
+                IntColumn stringIndices = dictionary.get(word);
+                if (stringIndices == null) {
+                    stringIndices = new IntColumn(4);
+                    dictionary.put(word, stringIndices);
+                }
+                // A word can show up twice in the same string.
+                if (stringIndices.size == 0 || stringIndices.values[stringIndices.size - 1] != i) {
+                    stringIndices.add(i);
+                }
+            }
+        }
+
+        final String[] newWords = new String[dictionary.size()];
+        final int[][] newWordStrings = new int[dictionary.size()][];
+        int i = 0;
+        for (final Map.Entry<String, IntColumn> entry : dictionary.entrySet()) {
+            newWords[i] = entry.getKey();
+            newWordStrings[i] = Arrays.copyOf(entry.getValue().values, entry.getValue().size);
+            i++;
+        }
+        wordStrings = newWordStrings;
+        words = newWords;
+    }
+
+    /**
+     * Splits the given text into lowercased words, which are runs of letters
+     * and digits.
+     *
+     * @param text A text.
+     * @return The words of the given text, in order.
+     */
+    static List<String> toWords(
+            final String text) {
+
+        final List<String> result = Lists.newArrayList(4);
+        final String lowercased = text.toLowerCase(Locale.ENGLISH);
+        int start = -1;
+        for (int i = 0; i <= lowercased.length(); i++) {
+            final boolean isWordCharacter = i < lowercased.length()
+                    && Character.isLetterOrDigit(lowercased.charAt(i));
+            if (isWordCharacter && start < 0) {
+                start = i;
+            } else if (!isWordCharacter && start >= 0) {
+                result.add(lowercased.substring(start, i));
+                start = -1;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param sortedValues Values sorted in ascending order.
+     * @param value        A value.
+     * @return The index of the first of the given values which isn't smaller
+     *         than the given value, or the length of the array if there is none.
+     */
+    static int lowerBound(
+            final int[] sortedValues, final int value) {
+
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (sortedValues[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * A growable array of ints.
+     */
+    private static final class IntColumn {
+        private int[] values;
+
+        private int size;
+
+        IntColumn() {
+
+            this(1024);
+        }
+
+        IntColumn(
+                final int capacity) {
+
+            values = new int[capacity];
+        }
+
+        void add(
+                final int value) {
+
+            if (size == values.length) {
+                final int[] newValues = new int[size * 2];
+                System.arraycopy(values, 0, newValues, 0, size);
+                values = newValues;
+            }
+            values[size++] = value;
+        }
+
+        void writeTo(
+                final DataOutputStream out, final boolean isDeltaEncoded, final boolean writeRange)
+                throws IOException {
+
+            final ByteArrayOutputStream block = new ByteArrayOutputStream(size * 2);
+            int min = size > 0 ? values[0] : 0;
+            int max = min;
+            int previous = 0;
+            for (int i = 0; i < size; i++) {
+                final int value = values[i];
+                VarInts.writeSigned(block, isDeltaEncoded ? value - previous : value);
+                previous = value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+
+            if (writeRange) {
+                VarInts.writeSigned(out, min);
+                VarInts.writeSigned(out, max);
+            }
+            VarInts.writeUnsigned(out, block.size());
+            block.writeTo(out);
+        }
+    }
+
+    /**
+     * Collects the rows of ascensions in memory and writes them as a segment
+     * file. Instances of this class are not thread-safe.
+     */
+    static final class Builder {
+        private final Map<String, Integer> stringIndices = Maps.newHashMap(4000);
+
+        private final List<String> strings = Lists.newArrayList(4000);
+
+        private final List<Ascension> ascensions = Lists.newArrayList();
+
+        private final IntColumn[] columns = new IntColumn[Column.values().length];
+
+        private final IntColumn[][] sideColumns = new IntColumn[SideTable.values().length][SideColumn
+                .values().length];
+
+        private int rowCount;
+
+        Builder() {
+
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new IntColumn();
+            }
+            for (final IntColumn[] table : sideColumns) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = new IntColumn();
+                }
+            }
+
+            // Index 0 is always the empty string, which is what side tables store
+            // in their unused string columns.
+            intern("");
+        }
+
+        /**
+         * @return The number of rows collected so far.
+         */
+        int getRowCount() {
+
+            return rowCount;
+        }
+
+        /**
+         * @return The ascensions collected so far.
+         */
+        List<Ascension> getAscensions() {
+
+            return ascensions;
+        }
+
+        /**
+         * Adds the rows of all encounters of the given log.
+         */
+        void add(
+                final LogDataHolder logData, final String sourceHash) {
+
+            final int firstRow = rowCount;
+            for (final TurnInterval ti : logData.getTurnIntervalsSpent()) {
+                for (final SingleTurn st : ti.getTurns()) {
+                    for (final Encounter e : st.getEncounters()) {
+                        addRow(e);
+                    }
+                }
+            }
+
+            ascensions.add(new Ascension(logData.getLogName(),
+                    logData.getCharacterClass().toString(),
+                    logData.getAscensionPath().toString(),
+                    logData.getGameMode().toString(),
+                    sourceHash,
+                    firstRow,
+                    rowCount - firstRow));
+        }
+
+        private void addRow(
+                final Encounter e) {
+
+            final int row = rowCount++;
+
+            columns[Column.TURN.ordinal()].add(e.getTurnNumber());
+            columns[Column.DAY.ordinal()].add(e.getDayNumber());
+            columns[Column.AREA.ordinal()].add(intern(e.getAreaName()));
+            columns[Column.ENCOUNTER.ordinal()].add(intern(e.getEncounterName()));
+            columns[Column.TURN_VERSION.ordinal()].add(intern(e.getTurnVersion().toString()));
+            columns[Column.MUSCLE.ordinal()].add(e.getStatGain().mus);
+            columns[Column.MYST.ordinal()].add(e.getStatGain().myst);
+            columns[Column.MOXIE.ordinal()].add(e.getStatGain().mox);
+            columns[Column.MEAT_GAINED.ordinal()].add(e.getMeat().encounterMeatGain
+                    + e.getMeat().otherMeatGain);
+            columns[Column.MEAT_SPENT.ordinal()].add(e.getMeat().meatSpent);
+            columns[Column.MP_GAINED.ordinal()].add(e.getMPGain().getTotalMPGains());
+
+            for (final Item i : e.getDroppedItems()) {
+                addSideEntry(SideTable.DROPS, row, i.getName(), i.getAmount(), "", 0);
+            }
+            for (final Skill s : e.getSkillsCast()) {
+                addSideEntry(SideTable.CASTS, row, s.getName(), s.getAmount(), "", s.getMpCost());
+            }
+            for (final Consumable c : e.getConsumablesUsed()) {
+                addSideEntry(SideTable.CONSUMABLES,
+                        row,
+                        c.getName(),
+                        c.getAmount(),
+                        c.getConsumableVersion().toString(),
+                        c.getAdventureGain());
+            }
+        }
+
+        private void addSideEntry(
+                final SideTable table, final int row, final String name, final int amount,
+                final String version, final int value) {
+
+            final IntColumn[] sideTable = sideColumns[table.ordinal()];
+            sideTable[SideColumn.ROW.ordinal()].add(row);
+            sideTable[SideColumn.NAME.ordinal()].add(intern(name));
+            sideTable[SideColumn.AMOUNT.ordinal()].add(amount);
+            sideTable[SideColumn.VERSION.ordinal()].add(intern(version));
+            sideTable[SideColumn.VALUE.ordinal()].add(value);
+        }
+
+        /**
+         * Copies the rows of the given ascensions of the given segment.
+         */
+        void add(
+                final FactSegment segment, final List<Ascension> segmentAscensions) {
+
+            final int[][] values = new int[Column.values().length][];
+            for (final Column c : Column.values()) {
+                values[c.ordinal()] = segment.readColumn(c);
+            }
+            final int[][][] sideValues = new int[SideTable.values().length][SideColumn.values().length][];
+            for (final SideTable t : SideTable.values()) {
+                for (final SideColumn c : SideColumn.values()) {
+                    sideValues[t.ordinal()][c.ordinal()] = segment.readSideColumn(t, c);
+                }
+            }
+
+            for (final Ascension ascension : segmentAscensions) {
+                final int firstRow = rowCount;
+                final int from = ascension.getFirstRow();
+                final int to = from + ascension.getRowCount();
+
+                // Rows are copied one by one, so that strings get the same indices
+                // as if the ascension was added from its log.
+                for (int i = from; i < to; i++) {
+                    for (final Column c : Column.values()) {
+                        final int value = values[c.ordinal()][i];
+                        columns[c.ordinal()].add(c.isString() ? intern(segment.getString(value))
+                                : value);
+                    }
+                }
+                rowCount += to - from;
+
+                for (final SideTable t : SideTable.values()) {
+                    final int[][] table = sideValues[t.ordinal()];
+                    final int[] rows = table[SideColumn.ROW.ordinal()];
+                    for (int i = lowerBound(rows, from); i < rows.length && rows[i] < to; i++) {
+                        addSideEntry(t,
+                                rows[i] - from + firstRow,
+                                segment.getString(table[SideColumn.NAME.ordinal()][i]),
+                                table[SideColumn.AMOUNT.ordinal()][i],
+                                segment.getString(table[SideColumn.VERSION.ordinal()][i]),
+                                table[SideColumn.VALUE.ordinal()][i]);
+                    }
+                }
+
+                ascensions.add(new Ascension(ascension.getLogName(),
+                        ascension.getCharacterClass(),
+                        ascension.getAscensionPath(),
+                        ascension.getGameMode(),
+                        ascension.getSourceHash(),
+                        firstRow,
+                        rowCount - firstRow));
+            }
+        }
+
+        /**
+         * Writes the inverted index of the given field: for every string used
+         * in it, the ascending rows it shows up in. The rows of the given names
+         * are the names' own indices if no rows are given.
+         */
+        private void writePostings(
+                final DataOutputStream out, final SearchField field, final IntColumn names,
+                final IntColumn rows)
+                throws IOException {
+
+            final IntColumn[] postings = new IntColumn[strings.size()];
+            for (int i = 0; i < names.size; i++) {
+                final int name = names.values[i];
+                final int row = rows != null ? rows.values[i] : i;
+                if (postings[name] == null) {
+                    postings[name] = new IntColumn(8);
+                }
+                // Entries are sorted by row, so duplicates are always adjacent.
+                final IntColumn rowsOfName = postings[name];
+                if (rowsOfName.size == 0 || rowsOfName.values[rowsOfName.size - 1] != row) {
+                    rowsOfName.add(row);
+                }
+            }
+
+            final ByteArrayOutputStream block = new ByteArrayOutputStream(names.size * 2);
+            final DataOutputStream blockOut = new DataOutputStream(block);
+            int termCount = 0;
+            for (final IntColumn rowsOfName : postings) {
+                if (rowsOfName != null) {
+                    termCount++;
+                }
+            }
+            VarInts.writeUnsigned(blockOut, termCount);
+            int previousName = 0;
+            for (int name = 0; name < postings.length; name++) {
+                if (postings[name] == null) {
+                    continue;
+                }
+                VarInts.writeUnsigned(blockOut, name - previousName);
+                previousName = name;
+                VarInts.writeUnsigned(blockOut, postings[name].size);
+                postings[name].writeTo(blockOut, true, false);
+            }
+            blockOut.flush();
+
+            VarInts.writeUnsigned(out, block.size());
+            block.writeTo(out);
+        }
+
+        private int intern(
+                final String s) {
+
+            Integer index = stringIndices.get(s);
+            if (index == null) {
+                index = strings.size();
+                strings.add(s);
+                stringIndices.put(s, index);
+            }
+
+            return index;
+        }
+
+        /**
+         * Writes the collected rows to the given file. The file is first written
+         * under a temporary name and then renamed, so that a partly written
+         * segment is never visible under the final name.
+         */
+        void write(
+                final File destination)
+                throws IOException {
+
+            final File temporary = new File(destination.getParentFile(),
+                    destination.getName() + ".tmp");
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temporary), 64 * 1024));
+            try {
+                // The ascension table refers to the string table as well.
+                for (final Ascension a : ascensions) {
+                    intern(a.getLogName());
+                    intern(a.getCharacterClass());
+                    intern(a.getAscensionPath());
+                    intern(a.getGameMode());
+                    intern(a.getSourceHash());
+                }
+
+                out.writeInt(MAGIC_NUMBER);
+                VarInts.writeUnsigned(out, FORMAT_VERSION);
+
+                VarInts.writeUnsigned(out, strings.size());
+                for (final String s : strings) {
+                    final byte[] bytes = s.getBytes(UTF8);
+                    VarInts.writeUnsigned(out, bytes.length);
+                    out.write(bytes);
+                }
+
+                VarInts.writeUnsigned(out, ascensions.size());
+                for (final Ascension a : ascensions) {
+                    VarInts.writeUnsigned(out, intern(a.getLogName()));
+                    VarInts.writeUnsigned(out, intern(a.getCharacterClass()));
+                    VarInts.writeUnsigned(out, intern(a.getAscensionPath()));
+                    VarInts.writeUnsigned(out, intern(a.getGameMode()));
+                    VarInts.writeUnsigned(out, intern(a.getSourceHash()));
+                    VarInts.writeUnsigned(out, a.getFirstRow());
+                    VarInts.writeUnsigned(out, a.getRowCount());
+                }
+
+                VarInts.writeUnsigned(out, rowCount);
+                for (final Column c : Column.values()) {
+                    columns[c.ordinal()].writeTo(out, c.isDeltaEncoded, true);
+                }
+                for (final SideTable t : SideTable.values()) {
+                    final IntColumn[] table = sideColumns[t.ordinal()];
+                    VarInts.writeUnsigned(out, table[0].size);
+                    for (final SideColumn c : SideColumn.values()) {
+                        table[c.ordinal()].writeTo(out, c.isDeltaEncoded, false);
+                    }
+                }
+                writePostings(out, SearchField.AREA, columns[Column.AREA.ordinal()], null);
+                writePostings(out, SearchField.ENCOUNTER, columns[Column.ENCOUNTER.ordinal()], null);
+                writePostings(out, SearchField.ITEM, sideColumns[SideTable.DROPS.ordinal()][SideColumn.NAME
+                        .ordinal()], sideColumns[SideTable.DROPS.ordinal()][SideColumn.ROW.ordinal()]);
+                writePostings(out, SearchField.SKILL, sideColumns[SideTable.CASTS.ordinal()][SideColumn.NAME
+                        .ordinal()], sideColumns[SideTable.CASTS.ordinal()][SideColumn.ROW.ordinal()]);
+                writePostings(out,
+                        SearchField.CONSUMABLE,
+                        sideColumns[SideTable.CONSUMABLES.ordinal()][SideColumn.NAME.ordinal()],
+                        sideColumns[SideTable.CONSUMABLES.ordinal()][SideColumn.ROW.ordinal()]);
+            } catch (final IOException e) {
+                out.close();
+                temporary.delete();
+                throw e;
+            }
+            out.close();
+
+            if (destination.exists() && !destination.delete() || !temporary.renameTo(destination)) {
+                temporary.delete();
+                throw new IOException("Segment file could not be moved to its destination.");
+            }
+        }
+    }
+}
@@ -0,0 +1,732 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.facts;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import com.googlecode.alv.creator.util.FileAccessException;
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.util.CacheFingerprint;
+import com.googlecode.alv.util.CacheManifest;
+import com.googlecode.alv.util.Constants;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.LogsCache;
+import com.googlecode.alv.util.Maps;
+import com.googlecode.alv.util.Sets;
+
+/**
+ * This class holds the turn data of all cached ascensions in one place, so that
+ * questions spanning many ascensions can be answered without reading every
+ * single log. It is fed by the {@link LogsCache} whenever it parses a log.
+ * <p>
+ * The turn data is stored in append-only, column-oriented segment files (see
+ * {@link FactSegment}). New ascensions are collected in memory and written as
+ * a new segment once enough rows came together or the store is flushed. A
+ * journal file keeps track of which segment holds the current version of every
+ * ascension: re-adding an ascension only appends a new version and a journal
+ * line, removing one only appends a journal line. Once too many rows in the
+ * segments are outdated or too many small segments piled up, the current rows
+ * of the affected segments are rewritten into new segments.
+ * <p>
+ * Scans (see {@link #scan(FactQuery, TurnFactHandler)}) skip segments whose
+ * column ranges can't match the query and only decode the columns they need.
+ * Searches by words (see {@link #search(String, Set, FactQuery, TurnFactHandler)})
+ * use the inverted indices of the segments to only look at matching rows.
+ * <p>
+ * This class is implemented as an enum to guarantee that there is only one
+ * instance present in the program at all times. It is thread-safe.
+ */
+public enum FactStore {
+    STORE;
+
+    /**
+     * Gets handed the turn rows matching a scan.
+     */
+    public interface TurnFactHandler {
+        /**
+         * @param fact The matching turn row. It is only valid during this call,
+         *             see {@link TurnFact}.
+         */
+        public void handle(
+                TurnFact fact);
+    }
+
+    // The number of rows at which the collected ascensions are written as a
+    // segment.
+    private static final int SEGMENT_ROWS = 64 * 1024;
+
+    // Compaction kicks in when there are more small segments than this.
+    private static final int MAX_SMALL_SEGMENTS = 8;
+
+    private static final String HEADER = "ALV fact store " + FactSegment.FORMAT_VERSION;
+
+    private static final String JOURNAL_NAME = "journal.txt";
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    /**
+     * Where the current version of an ascension is stored.
+     */
+    private static final class Location {
+        final String segmentName;
+
+        final String sourceHash;
+
+        Location(
+                final String segmentName, final String sourceHash) {
+
+            this.segmentName = segmentName;
+            this.sourceHash = sourceHash;
+        }
+    }
+
+    // Note that static fields of an enum are initialised after its constants, so
+    // the constructor can only rely on instance fields.
+    private final Charset charset = Charset.forName("UTF-8");
+
+    private final Pattern tabPattern = Pattern.compile("\t");
+
+    private final File directory = new File(Constants.CACHE_LOCATION, "facts");
+
+    private final File journal = new File(directory, JOURNAL_NAME);
+
+    private final Map<String, Location> locations = Maps.newHashMap();
+
+    private final Map<String, FactSegment> segments = new TreeMap<String, FactSegment>();
+
+    private FactSegment.Builder pending = new FactSegment.Builder();
+
+    private final Map<String, String> pendingSourceHashes = Maps.newHashMap();
+
+    private int nextSegmentNumber = 1;
+
+    private FactStore() {
+
+        load();
+    }
+
+    /**
+     * Adds the turn data of the given log. An earlier version of the same
+     * ascension is replaced. The data is only written to disk once enough rows
+     * came together or {@link #flush()} is called.
+     *
+     * @param logData     A detailed log.
+     * @param fingerprint The fingerprint of the source of the given log.
+     * @throws IllegalArgumentException if the given log is not a detailed log
+     *                                  (see {@link LogDataHolder#isDetailedLog()})
+     */
+    public synchronized void add(
+            final LogDataHolder logData, final CacheFingerprint fingerprint) {
+
+        if (logData == null) {
+            throw new NullPointerException("The log data must not be null.");
+        }
+        if (fingerprint == null) {
+            throw new NullPointerException("The fingerprint must not be null.");
+        }
+        if (!logData.isDetailedLog()) {
+            throw new IllegalArgumentException("Only detailed logs can be added to the fact store.");
+        }
+
+        pending.add(logData, fingerprint.getSourceHash());
+        pendingSourceHashes.put(logData.getLogName(), fingerprint.getSourceHash());
+        if (pending.getRowCount() >= SEGMENT_ROWS) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all added ascensions which aren't written yet to disk.
+     */
+    public synchronized void flush() {
+
+        if (pending.getAscensions().isEmpty()) {
+            return;
+        }
+
+        final FactSegment.Builder builder = pending;
+        pending = new FactSegment.Builder();
+        pendingSourceHashes.clear();
+        try {
+            final FactSegment segment = writeSegment(builder);
+            segments.put(segment.getFile().getName(), segment);
+            final List<String> lines = Lists.newArrayList(builder.getAscensions().size());
+            for (final FactSegment.Ascension a : segment.getAscensions()) {
+                lines.add("+\t" + a.getLogName() + "\t" + segment.getFile().getName() + "\t"
+                        + a.getSourceHash());
+            }
+            appendToJournal(lines);
+            for (final FactSegment.Ascension a : segment.getAscensions()) {
+                locations.put(a.getLogName(),
+                        new Location(segment.getFile().getName(), a.getSourceHash()));
+            }
+        } catch (final IOException e) {
+            // The ascensions are added again by the next update.
+            e.printStackTrace();
+            return;
+        } catch (final FileAccessException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        compactIfNecessary();
+    }
+
+    /**
+     * Removes all ascensions which aren't among the given ones.
+     *
+     * @param logNames The log names of the ascensions to keep, see
+     *                 {@link LogDataHolder#getLogName()}.
+     */
+    public synchronized void retainAll(
+            final Collection<String> logNames) {
+
+        if (logNames == null) {
+            throw new NullPointerException("The log names must not be null.");
+        }
+
+        flush();
+
+        final Set<String> keptNames = Sets.newHashSet(logNames);
+        final List<String> lines = Lists.newArrayList();
+        for (final String logName : locations.keySet()) {
+            if (!keptNames.contains(logName)) {
+                lines.add("-\t" + logName);
+            }
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        try {
+            appendToJournal(lines);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        locations.keySet().retainAll(keptNames);
+
+        compactIfNecessary();
+    }
+
+    /**
+     * Deletes all data of the fact store.
+     */
+    public synchronized void clear() {
+
+        pending = new FactSegment.Builder();
+        pendingSourceHashes.clear();
+        locations.clear();
+        segments.clear();
+        for (final File f : listFiles()) {
+            f.delete();
+        }
+        // Created again once there is something to store.
+        directory.delete();
+    }
+
+    /**
+     * @param logName     The log name of an ascension, see
+     *                    {@link LogDataHolder#getLogName()}.
+     * @param fingerprint The fingerprint of the source of the ascension.
+     * @return True if the fact store holds the version of the given ascension
+     *         with the given fingerprint.
+     */
+    public synchronized boolean isUpToDate(
+            final String logName, final CacheFingerprint fingerprint) {
+
+        final String pendingSourceHash = pendingSourceHashes.get(logName);
+        if (pendingSourceHash != null) {
+            return pendingSourceHash.equals(fingerprint.getSourceHash());
+        }
+        final Location location = locations.get(logName);
+
+        return location != null && location.sourceHash.equals(fingerprint.getSourceHash());
+    }
+
+    /**
+     * @return The number of ascensions in the fact store.
+     */
+    public synchronized int getAscensionCount() {
+
+        flush();
+
+        return locations.size();
+    }
+
+    /**
+     * Brings the fact store up to date with the {@link LogsCache}. Ascensions
+     * missing in the store or which changed since they were added are loaded
+     * from the cache and added, ascensions which are no longer cached are
+     * removed.
+     */
+    public void update() {
+
+        // The logs cache calls this store while holding its own lock, so this
+        // method must not hold the lock of the store while calling the cache.
+        final List<CacheManifest.Entry> entries = LogsCache.CACHE.getEntries();
+        final List<String> logNames = Lists.newArrayList(entries.size());
+        for (final CacheManifest.Entry entry : entries) {
+            logNames.add(entry.getLogName());
+            if (!isUpToDate(entry.getLogName(), entry.getFingerprint())) {
+                try {
+                    add(LogsCache.CACHE.loadLog(entry.getFile()), entry.getFingerprint());
+                } catch (final FileAccessException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        retainAll(logNames);
+        flush();
+    }
+
+    /**
+     * Hands every current turn row matching the given query to the given
+     * handler, ascension by ascension and in the order of the turns of each
+     * ascension.
+     *
+     * @param query   The conditions of the rows.
+     * @param handler The handler of the matching rows.
+     */
+    public synchronized void scan(
+            final FactQuery query, final TurnFactHandler handler) {
+
+        if (query == null) {
+            throw new NullPointerException("The query must not be null.");
+        }
+        if (handler == null) {
+            throw new NullPointerException("The handler must not be null.");
+        }
+
+        flush();
+
+        final TurnFact fact = new TurnFact();
+        for (final FactSegment segment : segments.values()) {
+            if (!query.matches(segment)) {
+                continue;
+            }
+
+            final int areaIndex = query.getAreaName() != null ? segment.indexOf(query.getAreaName())
+                    : -1;
+            final int encounterIndex = query.getEncounterName() != null ? segment.indexOf(query
+                    .getEncounterName()) : -1;
+            fact.setSegment(segment);
+
+            for (final FactSegment.Ascension a : segment.getAscensions()) {
+                if (!isCurrent(a, segment) || !query.matches(a)) {
+                    continue;
+                }
+
+                final int end = a.getFirstRow() + a.getRowCount();
+                for (int row = a.getFirstRow(); row < end; row++) {
+                    fact.setRow(a, row);
+                    if (matches(query, fact, areaIndex, encounterIndex)) {
+                        handler.handle(fact);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands every current turn row matching the given query in which one of the
+     * names of the given fields contains all words of the given text to the
+     * given handler, ascension by ascension and in the order of the turns of
+     * each ascension. The words of the text only have to match the start of
+     * words of the names, and case is ignored, so "bar tur" matches the
+     * encounter "Baron von Ratsworth's turtle".
+     * <p>
+     * Only the rows of matching names are looked at, see {@link FactSegment}.
+     *
+     * @param text    The words to search for.
+     * @param fields  The fields to search in. A row matches if any of them
+     *                matches.
+     * @param query   The conditions the matching rows also have to fulfil.
+     * @param handler The handler of the matching rows.
+     */
+    public synchronized void search(
+            final String text, final Set<SearchField> fields, final FactQuery query,
+            final TurnFactHandler handler) {
+
+        if (text == null) {
+            throw new NullPointerException("The search text must not be null.");
+        }
+        if (fields == null) {
+            throw new NullPointerException("The search fields must not be null.");
+        }
+        if (query == null) {
+            throw new NullPointerException("The query must not be null.");
+        }
+        if (handler == null) {
+            throw new NullPointerException("The handler must not be null.");
+        }
+
+        final List<String> words = FactSegment.toWords(text);
+        if (words.isEmpty() || fields.isEmpty()) {
+            return;
+        }
+
+        flush();
+
+        final TurnFact fact = new TurnFact();
+        for (final FactSegment segment : segments.values()) {
+            if (!query.matches(segment)) {
+                continue;
+            }
+
+            final int[] stringIndices = segment.findStrings(words);
+            if (stringIndices.length == 0) {
+                continue;
+            }
+            final BitSet rows = new BitSet(segment.getRowCount());
+            for (final SearchField field : fields) {
+                for (final int stringIndex : stringIndices) {
+                    for (final int row : segment.readPostings(field, stringIndex)) {
+                        rows.set(row);
+                    }
+                }
+            }
+            if (rows.isEmpty()) {
+                continue;
+            }
+
+            final int areaIndex = query.getAreaName() != null ? segment.indexOf(query.getAreaName())
+                    : -1;
+            final int encounterIndex = query.getEncounterName() != null ? segment.indexOf(query
+                    .getEncounterName()) : -1;
+            fact.setSegment(segment);
+
+            for (final FactSegment.Ascension a : segment.getAscensions()) {
+                if (!isCurrent(a, segment) || !query.matches(a)) {
+                    continue;
+                }
+
+                final int end = a.getFirstRow() + a.getRowCount();
+                for (int row = rows.nextSetBit(a.getFirstRow()); row >= 0 && row < end; row = rows
+                        .nextSetBit(row + 1)) {
+                    fact.setRow(a, row);
+                    if (matches(query, fact, areaIndex, encounterIndex)) {
+                        handler.handle(fact);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if the current row of the given fact matches the row
+     *         conditions of the given query. The area and encounter are given as
+     *         indices into the string table of the current segment, -1 if the
+     *         query doesn't restrict them.
+     */
+    private static boolean matches(
+            final FactQuery query, final TurnFact fact, final int areaIndex,
+            final int encounterIndex) {
+
+        if (areaIndex >= 0 && fact.getValue(FactSegment.Column.AREA) != areaIndex
+                || encounterIndex >= 0
+                && fact.getValue(FactSegment.Column.ENCOUNTER) != encounterIndex) {
+            return false;
+        }
+
+        final int turn = fact.getTurnNumber();
+        final int day = fact.getDayNumber();
+
+        return turn >= query.getFromTurn() && turn <= query.getToTurn()
+                && day >= query.getFromDay() && day <= query.getToDay();
+    }
+
+    /**
+     * Rewrites the current rows of all small segments and all segments with
+     * outdated rows into new segments and deletes the old ones, if more than a
+     * third of the rows in the segments are outdated or too many small segments
+     * piled up. Full segments without outdated rows are left alone.
+     */
+    private void compactIfNecessary() {
+
+        int rowCount = 0;
+        int outdatedRowCount = 0;
+        int smallSegmentCount = 0;
+        final List<FactSegment> candidates = Lists.newArrayList();
+        for (final FactSegment segment : segments.values()) {
+            int segmentOutdatedRowCount = segment.getRowCount();
+            for (final FactSegment.Ascension a : segment.getAscensions()) {
+                if (isCurrent(a, segment)) {
+                    segmentOutdatedRowCount -= a.getRowCount();
+                }
+            }
+
+            rowCount += segment.getRowCount();
+            outdatedRowCount += segmentOutdatedRowCount;
+            if (segment.getRowCount() < SEGMENT_ROWS / 4) {
+                smallSegmentCount++;
+                candidates.add(segment);
+            } else if (segmentOutdatedRowCount > 0) {
+                candidates.add(segment);
+            }
+        }
+        if (outdatedRowCount * 3 <= rowCount && smallSegmentCount <= MAX_SMALL_SEGMENTS) {
+            return;
+        }
+
+        try {
+            final List<FactSegment> newSegments = Lists.newArrayList();
+            FactSegment.Builder builder = new FactSegment.Builder();
+            for (final FactSegment segment : candidates) {
+                final List<FactSegment.Ascension> current = Lists.newArrayList();
+                for (final FactSegment.Ascension a : segment.getAscensions()) {
+                    if (isCurrent(a, segment)) {
+                        current.add(a);
+                    }
+                }
+                if (!current.isEmpty()) {
+                    builder.add(segment, current);
+                }
+                if (builder.getRowCount() >= SEGMENT_ROWS) {
+                    newSegments.add(writeSegment(builder));
+                    builder = new FactSegment.Builder();
+                }
+            }
+            if (!builder.getAscensions().isEmpty()) {
+                newSegments.add(writeSegment(builder));
+            }
+
+            final Map<String, Location> newLocations = Maps.newHashMap(locations.entrySet());
+            for (final FactSegment segment : newSegments) {
+                for (final FactSegment.Ascension a : segment.getAscensions()) {
+                    newLocations.put(a.getLogName(),
+                            new Location(segment.getFile().getName(), a.getSourceHash()));
+                }
+            }
+            writeJournal(newLocations);
+
+            for (final FactSegment segment : candidates) {
+                segments.remove(segment.getFile().getName());
+                segment.getFile().delete();
+            }
+            for (final FactSegment segment : newSegments) {
+                segments.put(segment.getFile().getName(), segment);
+            }
+            locations.clear();
+            locations.putAll(newLocations);
+        } catch (final IOException e) {
+            // The store still works without compaction, the new segments which
+            // might have been written are deleted by the next load.
+            e.printStackTrace();
+        } catch (final FileAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean isCurrent(
+            final FactSegment.Ascension ascension, final FactSegment segment) {
+
+        final Location location = locations.get(ascension.getLogName());
+
+        return location != null && location.segmentName.equals(segment.getFile().getName())
+                && location.sourceHash.equals(ascension.getSourceHash());
+    }
+
+    private FactSegment writeSegment(
+            final FactSegment.Builder builder)
+            throws IOException, FileAccessException {
+
+        directory.mkdirs();
+        final File segmentFile = new File(directory, String.format("%s%06d%s",
+                SEGMENT_PREFIX,
+                nextSegmentNumber++,
+                FactSegment.FILE_EXTENSION));
+        builder.write(segmentFile);
+
+        return FactSegment.open(segmentFile);
+    }
+
+    private void appendToJournal(
+            final List<String> lines)
+            throws IOException {
+
+        if (!journal.isFile()) {
+            writeJournal(locations);
+        }
+
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(journal,
+                true), charset));
+        try {
+            for (final String line : lines) {
+                writer.println(line);
+            }
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            throw new IOException("The fact store journal could not be written.");
+        }
+    }
+
+    /**
+     * Replaces the journal with one holding only the given locations.
+     */
+    private void writeJournal(
+            final Map<String, Location> currentLocations)
+            throws IOException {
+
+        directory.mkdirs();
+        final File temporary = new File(directory, JOURNAL_NAME + ".tmp");
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temporary),
+                charset));
+        try {
+            writer.println(HEADER);
+            for (final Map.Entry<String, Location> entry : currentLocations.entrySet()) {
+                writer.println("+\t" + entry.getKey() + "\t" + entry.getValue().segmentName + "\t"
+                        + entry.getValue().sourceHash);
+            }
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            temporary.delete();
+            throw new IOException("The fact store journal could not be written.");
+        }
+
+        try {
+            Files.move(temporary.toPath(),
+                    journal.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), journal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the journal and opens all segments it refers to. Files which aren't
+     * referred to, like segments of an interrupted compaction, are deleted. If
+     * the journal is missing or of a different format version, the whole store
+     * is deleted and filled again by the next {@link #update()}.
+     */
+    private void load() {
+
+        directory.mkdirs();
+        if (!readJournal()) {
+            clear();
+            return;
+        }
+
+        final Set<String> segmentNames = Sets.newHashSet();
+        for (final Location location : locations.values()) {
+            segmentNames.add(location.segmentName);
+        }
+        for (final File f : listFiles()) {
+            final String name = f.getName();
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(FactSegment.FILE_EXTENSION)) {
+                try {
+                    final int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - FactSegment.FILE_EXTENSION.length()));
+                    nextSegmentNumber = Math.max(nextSegmentNumber, number + 1);
+                } catch (final NumberFormatException e) {
+                    // Not a segment of this store, it gets deleted below.
+                }
+            }
+            if (!name.equals(JOURNAL_NAME) && !segmentNames.contains(name)) {
+                f.delete();
+            }
+        }
+
+        for (final String segmentName : segmentNames) {
+            try {
+                segments.put(segmentName, FactSegment.open(new File(directory, segmentName)));
+            } catch (final FileAccessException e) {
+                e.printStackTrace();
+            }
+        }
+        // Ascensions of missing segments are added again by the next update.
+        for (final Map.Entry<String, Location> entry : Lists.newArrayList(locations.entrySet())) {
+            if (!segments.containsKey(entry.getValue().segmentName)) {
+                locations.remove(entry.getKey());
+            }
+        }
+    }
+
+    private boolean readJournal() {
+
+        if (!journal.isFile()) {
+            return false;
+        }
+
+        try {
+            final BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(journal),
+                    charset));
+            try {
+                if (!HEADER.equals(br.readLine())) {
+                    return false;
+                }
+
+                String line;
+                while ((line = br.readLine()) != null) {
+                    final String[] fields = tabPattern.split(line, -1);
+                    if (fields.length == 4 && fields[0].equals("+")) {
+                        locations.put(fields[1], new Location(fields[2], fields[3]));
+                    } else if (fields.length == 2 && fields[0].equals("-")) {
+                        locations.remove(fields[1]);
+                    }
+                    // Anything else is a line torn by a crash, which is ignored.
+                }
+            } finally {
+                br.close();
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        return true;
+    }
+
+    private File[] listFiles() {
+
+        final File[] files = directory.listFiles();
+
+        return files != null ? files : new File[0];
+    }
+}
@@ -0,0 +1,86 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.facts;
+
+/**
+ * The names of turn rows which can be searched by words, see
+ * {@link FactStore#search(String, java.util.Set, FactQuery, FactStore.TurnFactHandler)}.
+ */
+public enum SearchField {
+    /**
+     * The area name.
+     */
+    AREA("area"),
+    /**
+     * The encounter name.
+     */
+    ENCOUNTER("encounter"),
+    /**
+     * The names of the dropped items.
+     */
+    ITEM("item"),
+    /**
+     * The names of the skills cast.
+     */
+    SKILL("skill"),
+    /**
+     * The names of the consumables used.
+     */
+    CONSUMABLE("consumable");
+
+    private final String name;
+
+    private SearchField(
+            final String name) {
+
+        this.name = name;
+    }
+
+    /**
+     * @param name The name of a search field, case is ignored.
+     * @return The search field of the given name, or {@code null} if there is
+     *         none.
+     */
+    public static SearchField fromString(
+            final String name) {
+
+        for (final SearchField f : values()) {
+            if (f.name.equalsIgnoreCase(name)) {
+                return f;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The lowercase name of this search field.
+     */
+    @Override
+    public String toString() {
+
+        return name;
+    }
+}
@@ -0,0 +1,295 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.facts;
+
+import java.util.List;
+
+import com.googlecode.alv.logdata.Item;
+import com.googlecode.alv.logdata.Skill;
+import com.googlecode.alv.logdata.Statgain;
+import com.googlecode.alv.logdata.consumables.Consumable;
+import com.googlecode.alv.logdata.consumables.Consumable.ConsumableVersion;
+import com.googlecode.alv.logdata.turn.TurnVersion;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.facts.FactSegment.Column;
+import com.googlecode.alv.util.facts.FactSegment.SideColumn;
+import com.googlecode.alv.util.facts.FactSegment.SideTable;
+
+/**
+ * A view of a single turn row of the {@link FactStore} during a scan.
+ * <p>
+ * To keep scans cheap, the same instance is moved from row to row, so it is
+ * only valid while it is handed to the {@link FactStore.TurnFactHandler}.
+ * Columns of a segment are only decoded once a row of the segment asks for
+ * them.
+ */
+public final class TurnFact {
+    private FactSegment segment;
+
+    private FactSegment.Ascension ascension;
+
+    private int row;
+
+    private int[][] columns;
+
+    private int[][][] sideColumns;
+
+    private int[][] sideTableStarts;
+
+    TurnFact() {}
+
+    /**
+     * Moves this view to the given segment, dropping all decoded columns of the
+     * previous one.
+     */
+    void setSegment(
+            final FactSegment segment) {
+
+        this.segment = segment;
+        columns = new int[Column.values().length][];
+        sideColumns = new int[SideTable.values().length][][];
+        sideTableStarts = new int[SideTable.values().length][];
+    }
+
+    void setRow(
+            final FactSegment.Ascension ascension, final int row) {
+
+        this.ascension = ascension;
+        this.row = row;
+    }
+
+    /**
+     * @param column A column.
+     * @return The value of the given column in the current row.
+     */
+    int getValue(
+            final Column column) {
+
+        int[] values = columns[column.ordinal()];
+        if (values == null) {
+            values = segment.readColumn(column);
+            columns[column.ordinal()] = values;
+        }
+
+        return values[row];
+    }
+
+    private String getString(
+            final Column column) {
+
+        return segment.getString(getValue(column));
+    }
+
+    /**
+     * @return The ascension of the current row.
+     */
+    public FactSegment.Ascension getAscension() {
+
+        return ascension;
+    }
+
+    /**
+     * @return The turn number.
+     */
+    public int getTurnNumber() {
+
+        return getValue(Column.TURN);
+    }
+
+    /**
+     * @return The day number.
+     */
+    public int getDayNumber() {
+
+        return getValue(Column.DAY);
+    }
+
+    /**
+     * @return The area name.
+     */
+    public String getAreaName() {
+
+        return getString(Column.AREA);
+    }
+
+    /**
+     * @return The encounter name.
+     */
+    public String getEncounterName() {
+
+        return getString(Column.ENCOUNTER);
+    }
+
+    /**
+     * @return The turn version.
+     */
+    public TurnVersion getTurnVersion() {
+
+        return TurnVersion.fromString(getString(Column.TURN_VERSION));
+    }
+
+    /**
+     * @return The stat gain.
+     */
+    public Statgain getStatGain() {
+
+        return new Statgain(getValue(Column.MUSCLE), getValue(Column.MYST), getValue(Column.MOXIE));
+    }
+
+    /**
+     * @return The meat gained in and out of the encounter.
+     */
+    public int getMeatGained() {
+
+        return getValue(Column.MEAT_GAINED);
+    }
+
+    /**
+     * @return The meat spent.
+     */
+    public int getMeatSpent() {
+
+        return getValue(Column.MEAT_SPENT);
+    }
+
+    /**
+     * @return The total MP gained.
+     */
+    public int getMPGained() {
+
+        return getValue(Column.MP_GAINED);
+    }
+
+    /**
+     * @return The items dropped.
+     */
+    public List<Item> getDroppedItems() {
+
+        final int[][] table = getSideTable(SideTable.DROPS);
+        final int[] starts = sideTableStarts[SideTable.DROPS.ordinal()];
+        final List<Item> items = Lists.newArrayList(starts[row + 1] - starts[row]);
+        for (int i = starts[row]; i < starts[row + 1]; i++) {
+            items.add(new Item(segment.getString(table[SideColumn.NAME.ordinal()][i]),
+                    table[SideColumn.AMOUNT.ordinal()][i],
+                    getTurnNumber()));
+        }
+
+        return items;
+    }
+
+    /**
+     * @return The skills cast.
+     */
+    public List<Skill> getSkillsCast() {
+
+        final int[][] table = getSideTable(SideTable.CASTS);
+        final int[] starts = sideTableStarts[SideTable.CASTS.ordinal()];
+        final List<Skill> skills = Lists.newArrayList(starts[row + 1] - starts[row]);
+        for (int i = starts[row]; i < starts[row + 1]; i++) {
+            final Skill skill = new Skill(segment.getString(table[SideColumn.NAME.ordinal()][i]),
+                    getTurnNumber());
+            skill.setCasts(table[SideColumn.AMOUNT.ordinal()][i], 0);
+            skill.setMpCost(table[SideColumn.VALUE.ordinal()][i]);
+            skills.add(skill);
+        }
+
+        return skills;
+    }
+
+    /**
+     * Returns the consumables used. Their stat gains aren't part of the fact
+     * store and thus always zero.
+     *
+     * @return The consumables used.
+     */
+    public List<Consumable> getConsumablesUsed() {
+
+        final int[][] table = getSideTable(SideTable.CONSUMABLES);
+        final int[] starts = sideTableStarts[SideTable.CONSUMABLES.ordinal()];
+        final List<Consumable> consumables = Lists.newArrayList(starts[row + 1] - starts[row]);
+        for (int i = starts[row]; i < starts[row + 1]; i++) {
+            final String name = segment.getString(table[SideColumn.NAME.ordinal()][i]);
+            final int amount = table[SideColumn.AMOUNT.ordinal()][i];
+            final int adventureGain = table[SideColumn.VALUE.ordinal()][i];
+            final Consumable consumable;
+            switch (ConsumableVersion.fromString(segment.getString(table[SideColumn.VERSION
+                    .ordinal()][i]))) {
+            case FOOD:
+                consumable = Consumable.newFoodConsumable(name, adventureGain, amount, getTurnNumber());
+                break;
+            case BOOZE:
+                consumable = Consumable.newBoozeConsumable(name, adventureGain, amount, getTurnNumber());
+                break;
+            case SPLEEN:
+                consumable = Consumable.newSpleenConsumable(name, adventureGain, amount, getTurnNumber());
+                break;
+            default:
+                consumable = Consumable.newOtherConsumable(name, adventureGain, amount, getTurnNumber());
+                break;
+            }
+            consumable.setDayNumberOfUsage(getDayNumber());
+            consumables.add(consumable);
+        }
+
+        return consumables;
+    }
+
+    /**
+     * @return The current row in the style of the turns of the turn rundown,
+     *         like "[42] The Spooky Forest -- Arboreal Respite".
+     */
+    @Override
+    public String toString() {
+
+        return "[" + getTurnNumber() + "] " + getAreaName() + " -- " + getEncounterName();
+    }
+
+    /**
+     * Decodes the given side table of the current segment if necessary, together
+     * with the index of the first entry of every row.
+     */
+    private int[][] getSideTable(
+            final SideTable table) {
+
+        int[][] values = sideColumns[table.ordinal()];
+        if (values == null) {
+            values = new int[SideColumn.values().length][];
+            for (final SideColumn c : SideColumn.values()) {
+                values[c.ordinal()] = segment.readSideColumn(table, c);
+            }
+
+            final int[] rows = values[SideColumn.ROW.ordinal()];
+            final int[] starts = new int[segment.getRowCount() + 1];
+            for (int r = 0; r <= segment.getRowCount(); r++) {
+                starts[r] = FactSegment.lowerBound(rows, r);
+            }
+
+            sideColumns[table.ordinal()] = values;
+            sideTableStarts[table.ordinal()] = starts;
+        }
+
+        return values;
+    }
+}
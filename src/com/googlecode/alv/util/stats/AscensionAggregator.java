@@ -0,0 +1,384 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.googlecode.alv.creator.util.FileAccessException;
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.LogsCache;
+import com.googlecode.alv.util.Maps;
+
+/**
+ * This class folds many ascension logs into {@link AscensionStatistics},
+ * grouped by ascension path, character class and/or game mode.
+ * <p>
+ * The logs are streamed: every worker thread loads one log at a time, folds it
+ * into statistics of its own and drops it before loading the next one. At most
+ * as many logs as there are workers are thus held in memory at once, no matter
+ * how many logs are aggregated. The statistics of the workers are merged once
+ * all logs are done.
+ * <p>
+ * All methods in this class throw a {@link NullPointerException} if a null
+ * object reference is passed in any parameter.
+ */
+public final class AscensionAggregator {
+    /**
+     * The properties by which ascensions can be grouped.
+     */
+    public enum GroupBy {
+        ASCENSION_PATH, CHARACTER_CLASS, GAME_MODE;
+    }
+
+    /**
+     * Loads the log of an ascension. Implementations have to be thread-safe.
+     */
+    public interface LogLoader {
+        /**
+         * @param log The file of an ascension log.
+         * @return The log data of the given file, with its log summary created.
+         * @throws IOException         if the file could not be read or parsed
+         * @throws FileAccessException if the file could not be read
+         */
+        public LogDataHolder load(
+                File log)
+                throws IOException, FileAccessException;
+    }
+
+    /**
+     * Loads logs of the {@link LogsCache}.
+     */
+    public static final LogLoader CACHED_LOGS = new LogLoader() {
+        @Override
+        public LogDataHolder load(
+                final File log)
+                throws FileAccessException {
+
+            return LogsCache.CACHE.loadLog(log);
+        }
+    };
+
+    /**
+     * A group of ascensions sharing the properties they were grouped by. The
+     * properties ascensions weren't grouped by are {@code null}.
+     */
+    public static final class Group implements Comparable<Group> {
+        private final String ascensionPath;
+
+        private final String characterClass;
+
+        private final String gameMode;
+
+        Group(
+                final String ascensionPath, final String characterClass, final String gameMode) {
+
+            this.ascensionPath = ascensionPath;
+            this.characterClass = characterClass;
+            this.gameMode = gameMode;
+        }
+
+        /**
+         * @return The name of the ascension path of this group, or {@code null}
+         *         if ascensions weren't grouped by path.
+         */
+        public String getAscensionPath() {
+
+            return ascensionPath;
+        }
+
+        /**
+         * @return The name of the character class of this group, or {@code null}
+         *         if ascensions weren't grouped by class.
+         */
+        public String getCharacterClass() {
+
+            return characterClass;
+        }
+
+        /**
+         * @return The name of the game mode of this group, or {@code null} if
+         *         ascensions weren't grouped by game mode.
+         */
+        public String getGameMode() {
+
+            return gameMode;
+        }
+
+        @Override
+        public int compareTo(
+                final Group other) {
+
+            int result = compare(ascensionPath, other.ascensionPath);
+            if (result == 0) {
+                result = compare(characterClass, other.characterClass);
+            }
+            if (result == 0) {
+                result = compare(gameMode, other.gameMode);
+            }
+
+            return result;
+        }
+
+        private static int compare(
+                final String s1, final String s2) {
+
+            if (s1 == null || s2 == null) {
+                return s1 == null ? s2 == null ? 0 : -1 : 1;
+            }
+
+            return s1.compareTo(s2);
+        }
+
+        @Override
+        public boolean equals(
+                final Object o) {
+
+            return o instanceof Group && compareTo((Group) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+
+            int result = 17;
+            result = 31 * result + (ascensionPath != null ? ascensionPath.hashCode() : 0);
+            result = 31 * result + (characterClass != null ? characterClass.hashCode() : 0);
+            result = 31 * result + (gameMode != null ? gameMode.hashCode() : 0);
+
+            return result;
+        }
+
+        @Override
+        public String toString() {
+
+            final List<String> parts = Lists.newArrayList(3);
+            for (final String part : new String[] {
+                    ascensionPath, characterClass, gameMode
+            }) {
+                if (part != null) {
+                    parts.add(part);
+                }
+            }
+
+            if (parts.isEmpty()) {
+                return "All ascensions";
+            }
+
+            final StringBuilder str = new StringBuilder(50);
+            for (final String part : parts) {
+                if (str.length() > 0) {
+                    str.append(", ");
+                }
+                str.append(part);
+            }
+
+            return str.toString();
+        }
+    }
+
+    /**
+     * The result of an aggregation.
+     */
+    public static final class Result {
+        private final SortedMap<Group, AscensionStatistics> groups;
+
+        private final List<File> failedLogs;
+
+        Result(
+                final SortedMap<Group, AscensionStatistics> groups, final List<File> failedLogs) {
+
+            this.groups = Collections.unmodifiableSortedMap(groups);
+            this.failedLogs = Collections.unmodifiableList(failedLogs);
+        }
+
+        /**
+         * @return The statistics of every group of ascensions, sorted by group.
+         */
+        public SortedMap<Group, AscensionStatistics> getGroups() {
+
+            return groups;
+        }
+
+        /**
+         * @return The logs which couldn't be loaded.
+         */
+        public List<File> getFailedLogs() {
+
+            return failedLogs;
+        }
+    }
+
+    private AscensionAggregator() {}
+
+    /**
+     * Aggregates all cached ascensions of the given character, see
+     * {@link LogsCache#getLogsByCharacter()}, using one worker per processor.
+     *
+     * @param characterName The name of the character.
+     * @param grouping      The properties by which the ascensions should be
+     *                      grouped. If it is empty, all ascensions end up in a
+     *                      single group.
+     * @return The result of the aggregation.
+     */
+    public static Result aggregateCachedLogs(
+            final String characterName, final Set<GroupBy> grouping) {
+
+        if (characterName == null) {
+            throw new NullPointerException("The character name must not be null.");
+        }
+
+        final List<File> logs = LogsCache.CACHE.getLogsByCharacter().get(characterName);
+
+        return aggregate(logs != null ? logs : Collections.<File> emptyList(),
+                CACHED_LOGS,
+                grouping,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Aggregates the given logs.
+     *
+     * @param logs        The logs to aggregate.
+     * @param loader      The loader of the given logs.
+     * @param grouping    The properties by which the ascensions should be
+     *                    grouped. If it is empty, all ascensions end up in a
+     *                    single group.
+     * @param workerCount The number of logs loaded and folded in parallel, which
+     *                    is also the maximum number of logs held in memory at
+     *                    once.
+     * @return The result of the aggregation.
+     * @throws IllegalArgumentException if workerCount is below 1
+     */
+    public static Result aggregate(
+            final List<File> logs, final LogLoader loader, final Set<GroupBy> grouping,
+            final int workerCount) {
+
+        if (logs == null) {
+            throw new NullPointerException("The logs must not be null.");
+        }
+        if (loader == null) {
+            throw new NullPointerException("The loader must not be null.");
+        }
+        if (grouping == null) {
+            throw new NullPointerException("The grouping must not be null.");
+        }
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("There has to be at least one worker.");
+        }
+
+        final Set<GroupBy> groupBy = grouping.isEmpty() ? EnumSet.noneOf(GroupBy.class)
+                : EnumSet.copyOf(grouping);
+        final List<File> failedLogs = Collections.synchronizedList(new ArrayList<File>());
+        final AtomicInteger nextLog = new AtomicInteger();
+        final int threadCount = Math.min(workerCount, Math.max(logs.size(), 1));
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        final List<Future<Map<Group, AscensionStatistics>>> partialResults = Lists
+                .newArrayList(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            partialResults.add(executor.submit(new Callable<Map<Group, AscensionStatistics>>() {
+                @Override
+                public Map<Group, AscensionStatistics> call() {
+
+                    final Map<Group, AscensionStatistics> groups = Maps.newHashMap();
+                    int index;
+                    while ((index = nextLog.getAndIncrement()) < logs.size()) {
+                        final File log = logs.get(index);
+                        final LogDataHolder logData;
+                        try {
+                            logData = loader.load(log);
+                        } catch (final IOException e) {
+                            e.printStackTrace();
+                            failedLogs.add(log);
+                            continue;
+                        } catch (final FileAccessException e) {
+                            e.printStackTrace();
+                            failedLogs.add(log);
+                            continue;
+                        }
+
+                        getStatistics(groups, toGroup(logData, groupBy)).add(logData);
+                    }
+
+                    return groups;
+                }
+            }));
+        }
+        executor.shutdown();
+
+        final SortedMap<Group, AscensionStatistics> result = new TreeMap<Group, AscensionStatistics>();
+        for (final Future<Map<Group, AscensionStatistics>> partialResult : partialResults) {
+            try {
+                for (final Map.Entry<Group, AscensionStatistics> entry : partialResult.get().entrySet()) {
+                    getStatistics(result, entry.getKey()).merge(entry.getValue());
+                }
+            } catch (final InterruptedException e) {
+                e.printStackTrace();
+            } catch (final ExecutionException e) {
+                // Errors while folding a log are bugs and shouldn't go unnoticed.
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        return new Result(result, Lists.sort(Lists.newArrayList(failedLogs), LogsCache.FILE_COMPARATOR));
+    }
+
+    private static Group toGroup(
+            final LogDataHolder logData, final Set<GroupBy> grouping) {
+
+        return new Group(grouping.contains(GroupBy.ASCENSION_PATH) ? logData.getAscensionPath()
+                .toString() : null,
+                grouping.contains(GroupBy.CHARACTER_CLASS) ? logData.getCharacterClass().toString()
+                        : null,
+                grouping.contains(GroupBy.GAME_MODE) ? logData.getGameMode().toString() : null);
+    }
+
+    private static AscensionStatistics getStatistics(
+            final Map<Group, AscensionStatistics> groups, final Group group) {
+
+        AscensionStatistics statistics = groups.get(group);
+        if (statistics == null) {
+            statistics = new AscensionStatistics();
+            groups.put(group, statistics);
+        }
+
+        return statistics;
+    }
+}
@@ -0,0 +1,240 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.stats;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.logdata.summary.LevelData;
+import com.googlecode.alv.logdata.summary.LogSummaryData;
+import com.googlecode.alv.logdata.summary.QuestTurncounts;
+import com.googlecode.alv.logdata.turn.action.DayChange;
+import com.googlecode.alv.util.DataNumberPair;
+
+/**
+ * Summary statistics of a set of ascensions. Every ascension added to it is
+ * folded into a {@link Distribution} per metric, after which the ascension
+ * itself isn't needed anymore. Statistics of different sets of ascensions can
+ * be merged.
+ * <p>
+ * The metrics are organised in sections: overall totals, the quest turncounts
+ * (see {@link QuestTurncounts}), the turns spent per level (see
+ * {@link LevelData}), the consumption totals (see
+ * {@link com.googlecode.alv.logdata.summary.ConsumptionSummary}) and the combat
+ * turns per familiar. Levels and familiars only count the ascensions which
+ * reached the level or used the familiar.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class AscensionStatistics {
+    /**
+     * The name of the section of overall totals.
+     */
+    public static final String TOTALS = "Totals";
+
+    /**
+     * The name of the section of quest turncounts.
+     */
+    public static final String QUEST_TURNS = "Quest turns";
+
+    /**
+     * The name of the section of turns spent per level.
+     */
+    public static final String LEVEL_TURNS = "Turns per level";
+
+    /**
+     * The name of the section of consumption totals.
+     */
+    public static final String CONSUMPTION = "Consumption";
+
+    /**
+     * The name of the section of combat turns per familiar.
+     */
+    public static final String FAMILIARS = "Familiars";
+
+    private static final Comparator<String> LEVEL_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(
+                final String o1, final String o2) {
+
+            return Integer.compare(parseLevel(o1), parseLevel(o2));
+        }
+
+        private int parseLevel(
+                final String metric) {
+
+            return Integer.parseInt(metric.substring(metric.lastIndexOf(' ') + 1));
+        }
+    };
+
+    private final Map<String, Map<String, Distribution>> sections = new LinkedHashMap<String, Map<String, Distribution>>();
+
+    private int ascensionCount;
+
+    /**
+     * Creates empty statistics.
+     */
+    public AscensionStatistics() {
+
+        sections.put(TOTALS, new LinkedHashMap<String, Distribution>());
+        sections.put(QUEST_TURNS, new LinkedHashMap<String, Distribution>());
+        // Levels and familiars show up in different orders in different
+        // ascensions, so they are kept sorted.
+        sections.put(LEVEL_TURNS, new TreeMap<String, Distribution>(LEVEL_ORDER));
+        sections.put(CONSUMPTION, new LinkedHashMap<String, Distribution>());
+        sections.put(FAMILIARS, new TreeMap<String, Distribution>());
+    }
+
+    /**
+     * Folds the given ascension into these statistics.
+     *
+     * @param logData The log of the ascension. Its log summary has to be created
+     *                already, see {@link LogDataHolder#createLogSummary()}.
+     */
+    public void add(
+            final LogDataHolder logData) {
+
+        if (logData == null) {
+            throw new NullPointerException("The log data must not be null.");
+        }
+
+        final LogSummaryData summary = logData.getLogSummary();
+        ascensionCount++;
+
+        final DayChange lastDay = logData.getLastDayChange();
+        add(TOTALS, "Turns", logData.getLastTurnSpent().getTurnNumber());
+        add(TOTALS, "Days", lastDay != null ? lastDay.getDayNumber() : 1);
+        add(TOTALS, "Combat turns", summary.getTotalTurnsCombat());
+        add(TOTALS, "Noncombat turns", summary.getTotalTurnsNoncombat());
+        add(TOTALS, "Other turns", summary.getTotalTurnsOther());
+        add(TOTALS, "Meat gained", summary.getTotalMeatGain());
+        add(TOTALS, "Meat spent", summary.getTotalMeatSpent());
+        add(TOTALS, "MP used", summary.getTotalMPUsed());
+
+        // The labels follow the quest turns section of the text log.
+        final QuestTurncounts quests = summary.getQuestTurncounts();
+        add(QUEST_TURNS, "Mosquito Larva", quests.mosquitoQuestTurns);
+        add(QUEST_TURNS, "Spooky Forest", quests.templeOpeningTurns);
+        add(QUEST_TURNS, "Tavern quest", quests.tavernQuestTurns);
+        add(QUEST_TURNS, "Bat quest", quests.batQuestTurns);
+        add(QUEST_TURNS, "Cobb's Knob quest", quests.knobQuestTurns);
+        add(QUEST_TURNS, "Friars' quest", quests.friarsQuestTurns);
+        add(QUEST_TURNS, "Pandamonium quest", quests.pandamoniumQuestTurns);
+        add(QUEST_TURNS, "Defiled Cyrpt quest", quests.cyrptQuestTurns);
+        add(QUEST_TURNS, "Trapzor quest", quests.trapzorQuestTurns);
+        add(QUEST_TURNS, "Orc Chasm quest", quests.chasmQuestTurns);
+        add(QUEST_TURNS, "Airship", quests.airshipQuestTurns);
+        add(QUEST_TURNS, "Giant's Castle", quests.castleQuestTurns);
+        add(QUEST_TURNS, "Pirate quest", quests.pirateQuestTurns);
+        add(QUEST_TURNS, "Copperhead Club", quests.copperheadClubTurns);
+        add(QUEST_TURNS, "Red Zeppelin", quests.redZeppelinTurns);
+        add(QUEST_TURNS, "Black Forest quest", quests.blackForrestQuestTurns);
+        add(QUEST_TURNS, "Desert Oasis quest", quests.desertOasisQuestTurns);
+        add(QUEST_TURNS, "Spookyraven First Floor", quests.spookyravenFirstFloor);
+        add(QUEST_TURNS, "Spookyraven Second Floor", quests.spookyravenSecondFloor);
+        add(QUEST_TURNS, "Spookyraven Cellar", quests.spookyravenQuestTurns);
+        add(QUEST_TURNS, "Hidden City quest", quests.templeCityQuestTurns);
+        add(QUEST_TURNS, "Palindome quest", quests.palindomeQuestTurns);
+        add(QUEST_TURNS, "Pyramid quest", quests.pyramidQuestTurns);
+        add(QUEST_TURNS, "Starting the War", quests.warIslandOpeningTurns);
+        add(QUEST_TURNS, "War Island quest", quests.warIslandQuestTurns);
+        add(QUEST_TURNS, "DoD quest", quests.dodQuestTurns);
+        add(QUEST_TURNS, "Daily Dungeon", quests.dailyDungeonTurns);
+        add(QUEST_TURNS, "Naughty Sorceress", quests.nsTurns);
+
+        for (final LevelData level : summary.getLevelData()) {
+            add(LEVEL_TURNS, "Level " + level.getLevelNumber(), level.getTotalTurns());
+        }
+
+        add(CONSUMPTION, "Turns from food", summary.getTotalTurnsFromFood());
+        add(CONSUMPTION, "Turns from booze", summary.getTotalTurnsFromBooze());
+        add(CONSUMPTION, "Turns from other", summary.getTotalTurnsFromOther());
+        add(CONSUMPTION, "Turns from rollover", summary.getTotalTurnsFromRollover());
+
+        for (final DataNumberPair<String> familiar : summary.getFamiliarUsage()) {
+            add(FAMILIARS, familiar.getData(), familiar.getNumber());
+        }
+    }
+
+    private void add(
+            final String section, final String metric, final int value) {
+
+        getDistribution(section, metric).add(value);
+    }
+
+    private Distribution getDistribution(
+            final String section, final String metric) {
+
+        final Map<String, Distribution> metrics = sections.get(section);
+        Distribution distribution = metrics.get(metric);
+        if (distribution == null) {
+            distribution = new Distribution();
+            metrics.put(metric, distribution);
+        }
+
+        return distribution;
+    }
+
+    /**
+     * Adds all ascensions folded into the given statistics to these ones.
+     *
+     * @param other The statistics to merge into these ones.
+     */
+    public void merge(
+            final AscensionStatistics other) {
+
+        if (other == null) {
+            throw new NullPointerException("The other statistics must not be null.");
+        }
+
+        ascensionCount += other.ascensionCount;
+        for (final Map.Entry<String, Map<String, Distribution>> section : other.sections.entrySet()) {
+            for (final Map.Entry<String, Distribution> metric : section.getValue().entrySet()) {
+                getDistribution(section.getKey(), metric.getKey()).merge(metric.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return The number of ascensions folded into these statistics.
+     */
+    public int getAscensionCount() {
+
+        return ascensionCount;
+    }
+
+    /**
+     * @return A read-only map of all sections by their names, each being a map of
+     *         the distributions of its metrics by their names.
+     */
+    public Map<String, Map<String, Distribution>> getSections() {
+
+        return Collections.unmodifiableMap(sections);
+    }
+}
@@ -0,0 +1,267 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+import com.googlecode.alv.util.JSONStrings;
+import com.googlecode.alv.util.stats.AscensionAggregator.Group;
+import com.googlecode.alv.util.stats.AscensionAggregator.Result;
+
+/**
+ * Writes the {@link Result} of an aggregation as a report, either as CSV with
+ * one row per group and metric, or as JSON with one object per group.
+ * <p>
+ * Every metric is reported with the number of ascensions it covers, its
+ * minimum, median, 90th percentile, maximum and mean.
+ * <p>
+ * All methods in this class throw a {@link NullPointerException} if a null
+ * object reference is passed in any parameter.
+ */
+public final class AscensionStatisticsReport {
+    /**
+     * The header row of CSV reports.
+     */
+    public static final String CSV_HEADER = "path,class,mode,ascensions,section,metric,count,min,median,p90,max,mean";
+
+    /**
+     * The report formats.
+     */
+    public enum Format {
+        CSV(".csv"), JSON(".json");
+
+        private final String fileExtension;
+
+        Format(
+                final String fileExtension) {
+
+            this.fileExtension = fileExtension;
+        }
+
+        /**
+         * @return The file extension of reports of this format, including the
+         *         leading dot.
+         */
+        public String getFileExtension() {
+
+            return fileExtension;
+        }
+
+        /**
+         * @param name The name of a format, case-insensitive.
+         * @return The format of the given name, or {@code null} if there is none.
+         */
+        public static Format fromString(
+                final String name) {
+
+            for (final Format f : values()) {
+                if (f.name().equalsIgnoreCase(name)) {
+                    return f;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private AscensionStatisticsReport() {}
+
+    /**
+     * Writes the given result in the given format. The writer is not closed.
+     *
+     * @param result The result of an aggregation.
+     * @param format The report format.
+     * @param writer The writer to write the report to.
+     * @throws IOException if the report could not be written
+     */
+    public static void write(
+            final Result result, final Format format, final Writer writer)
+            throws IOException {
+
+        if (format == null) {
+            throw new NullPointerException("The format must not be null.");
+        }
+
+        if (format == Format.JSON) {
+            writeJSON(result, writer);
+        } else {
+            writeCSV(result, writer);
+        }
+    }
+
+    /**
+     * Writes the given result as CSV, starting with {@link #CSV_HEADER}. Group
+     * properties the ascensions weren't grouped by are left empty. The writer is
+     * not closed.
+     *
+     * @param result The result of an aggregation.
+     * @param writer The writer to write the report to.
+     * @throws IOException if the report could not be written
+     */
+    public static void writeCSV(
+            final Result result, final Writer writer)
+            throws IOException {
+
+        checkArguments(result, writer);
+
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        for (final Map.Entry<Group, AscensionStatistics> group : result.getGroups().entrySet()) {
+            final StringBuilder groupColumns = new StringBuilder(100);
+            groupColumns.append(toCSVField(group.getKey().getAscensionPath())).append(',');
+            groupColumns.append(toCSVField(group.getKey().getCharacterClass())).append(',');
+            groupColumns.append(toCSVField(group.getKey().getGameMode())).append(',');
+            groupColumns.append(group.getValue().getAscensionCount()).append(',');
+
+            for (final Map.Entry<String, Map<String, Distribution>> section : group.getValue()
+                    .getSections().entrySet()) {
+                for (final Map.Entry<String, Distribution> metric : section.getValue().entrySet()) {
+                    final Distribution d = metric.getValue();
+                    final StringBuilder row = new StringBuilder(groupColumns);
+                    row.append(toCSVField(section.getKey())).append(',');
+                    row.append(toCSVField(metric.getKey())).append(',');
+                    row.append(d.getCount()).append(',');
+                    row.append(d.getMinimum()).append(',');
+                    row.append(format(d.getMedian())).append(',');
+                    row.append(format(d.getPercentile(90))).append(',');
+                    row.append(d.getMaximum()).append(',');
+                    row.append(format(d.getMean())).append('\n');
+                    writer.write(row.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the given result as a JSON object holding an array of groups and an
+     * array of the paths of the logs which couldn't be loaded. Group properties
+     * the ascensions weren't grouped by are left out. The writer is not closed.
+     *
+     * @param result The result of an aggregation.
+     * @param writer The writer to write the report to.
+     * @throws IOException if the report could not be written
+     */
+    public static void writeJSON(
+            final Result result, final Writer writer)
+            throws IOException {
+
+        checkArguments(result, writer);
+
+        writer.write("{\n  \"groups\": [");
+        boolean isFirstGroup = true;
+        for (final Map.Entry<Group, AscensionStatistics> group : result.getGroups().entrySet()) {
+            writer.write(isFirstGroup ? "\n" : ",\n");
+            isFirstGroup = false;
+
+            final StringBuilder str = new StringBuilder(200);
+            str.append("    {");
+            appendJSONMember(str, "path", group.getKey().getAscensionPath());
+            appendJSONMember(str, "class", group.getKey().getCharacterClass());
+            appendJSONMember(str, "mode", group.getKey().getGameMode());
+            str.append("\"ascensions\": ").append(group.getValue().getAscensionCount());
+            str.append(", \"sections\": {");
+            writer.write(str.toString());
+
+            boolean isFirstSection = true;
+            for (final Map.Entry<String, Map<String, Distribution>> section : group.getValue()
+                    .getSections().entrySet()) {
+                str.setLength(0);
+                str.append(isFirstSection ? "\n" : ",\n");
+                isFirstSection = false;
+                str.append("      ").append(JSONStrings.quote(section.getKey())).append(": {");
+
+                boolean isFirstMetric = true;
+                for (final Map.Entry<String, Distribution> metric : section.getValue().entrySet()) {
+                    final Distribution d = metric.getValue();
+                    str.append(isFirstMetric ? "\n" : ",\n");
+                    isFirstMetric = false;
+                    str.append("        ").append(JSONStrings.quote(metric.getKey())).append(": {");
+                    str.append("\"count\": ").append(d.getCount());
+                    str.append(", \"min\": ").append(d.getMinimum());
+                    str.append(", \"median\": ").append(format(d.getMedian()));
+                    str.append(", \"p90\": ").append(format(d.getPercentile(90)));
+                    str.append(", \"max\": ").append(d.getMaximum());
+                    str.append(", \"mean\": ").append(format(d.getMean()));
+                    str.append('}');
+                }
+                str.append(isFirstMetric ? "}" : "\n      }");
+                writer.write(str.toString());
+            }
+            writer.write(isFirstSection ? "}}" : "\n    }}");
+        }
+        writer.write(isFirstGroup ? "],\n" : "\n  ],\n");
+
+        writer.write("  \"failedLogs\": [");
+        boolean isFirstLog = true;
+        for (final File log : result.getFailedLogs()) {
+            writer.write(isFirstLog ? "" : ", ");
+            isFirstLog = false;
+            JSONStrings.write(writer, log.getPath());
+        }
+        writer.write("]\n}\n");
+    }
+
+    private static void checkArguments(
+            final Result result, final Writer writer) {
+
+        if (result == null) {
+            throw new NullPointerException("The result must not be null.");
+        }
+        if (writer == null) {
+            throw new NullPointerException("The writer must not be null.");
+        }
+    }
+
+    private static String format(
+            final double value) {
+
+        return String.format(Locale.ENGLISH, "%.2f", value);
+    }
+
+    static String toCSVField(
+            final String value) {
+
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static void appendJSONMember(
+            final StringBuilder str, final String name, final String value) {
+
+        if (value != null) {
+            str.append('"').append(name).append("\": ").append(JSONStrings.quote(value)).append(", ");
+        }
+    }
+}
@@ -0,0 +1,676 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.stats;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.googlecode.alv.creator.util.FileAccessException;
+import com.googlecode.alv.logdata.Item;
+import com.googlecode.alv.logdata.LogDataHolder;
+import com.googlecode.alv.logdata.MPGain;
+import com.googlecode.alv.logdata.MeatGain;
+import com.googlecode.alv.logdata.Skill;
+import com.googlecode.alv.logdata.Statgain;
+import com.googlecode.alv.logdata.consumables.Consumable;
+import com.googlecode.alv.logdata.summary.LevelData;
+import com.googlecode.alv.logdata.turn.SingleTurn;
+import com.googlecode.alv.logdata.turn.action.DayChange;
+import com.googlecode.alv.logdata.turn.action.EquipmentChange;
+import com.googlecode.alv.logdata.turn.action.Pull;
+import com.googlecode.alv.util.Lists;
+import com.googlecode.alv.util.LogsCache;
+import com.googlecode.alv.util.Sets;
+import com.googlecode.alv.util.data.DataTablesHandler;
+import com.googlecode.alv.util.stats.AscensionAggregator.LogLoader;
+
+/**
+ * Exports the data of many ascension logs as a set of CSV tables for analysis
+ * in spreadsheets and notebooks, see {@link Table}.
+ * <p>
+ * Every row starts with the name of the log of its ascension and the name of
+ * the character, so the tables can be joined on them. The rows of one
+ * ascension are always written together and the ascensions are written in the
+ * order they are given in, even though they are loaded in parallel. Like
+ * {@link AscensionAggregator}, only a few logs are held in memory at once, no
+ * matter how many logs are exported.
+ * <p>
+ * When appending, the ascensions already listed in {@link Table#ASCENSIONS}
+ * are skipped, so that an export can be brought up to date by only adding the
+ * new ascensions. An ascension is listed there once all its other rows have
+ * been written. Rows at the end of the other tables whose ascension isn't
+ * listed, as left behind by an interrupted export, are cut off before
+ * appending, so that appending again after an interruption doesn't duplicate
+ * them.
+ * <p>
+ * All methods in this class throw a {@link NullPointerException} if a null
+ * object reference is passed in any parameter.
+ */
+public final class AscensionTablesExporter {
+    /**
+     * The tables of an export.
+     */
+    public enum Table {
+        /**
+         * One row per ascension.
+         */
+        ASCENSIONS("ascensions.csv",
+                "ascension,character,class,path,mode,start_date,turns,days"),
+        /**
+         * One row per turn with its area, encounter, familiar, equipment and
+         * stat, meat and MP gains.
+         */
+        TURNS("ascension turns.csv",
+                "ascension,character,turn,day,version,area,encounter,familiar,"
+                        + "hat,weapon,offhand,shirt,pants,acc1,acc2,acc3,famequip,"
+                        + "muscle,myst,moxie,encounter_meat,other_meat,meat_spent,"
+                        + "encounter_mp,starfish_mp,resting_mp,out_of_encounter_mp,consumable_mp,"
+                        + "free_runaways,disintegrated,banished"),
+        /**
+         * One row per item drop.
+         */
+        DROPS("ascension drops.csv", "ascension,character,turn,day,item,amount"),
+        /**
+         * One row per skill cast.
+         */
+        CASTS("ascension casts.csv", "ascension,character,turn,day,skill,amount,mp_cost"),
+        /**
+         * One row per consumable used.
+         */
+        CONSUMABLES("ascension consumables.csv",
+                "ascension,character,turn,day,consumable,version,amount,adventure_gain,organ_hit"),
+        /**
+         * One row per pull.
+         */
+        PULLS("ascension pulls.csv", "ascension,character,turn,day,item,amount"),
+        /**
+         * One row per level reached.
+         */
+        LEVELS("ascension levels.csv",
+                "ascension,character,level,turn,combat_turns,noncombat_turns,other_turns,"
+                        + "muscle,myst,moxie,mainstat_gain_per_turn");
+
+        private final String fileName;
+
+        private final String header;
+
+        Table(
+                final String fileName, final String header) {
+
+            this.fileName = fileName;
+            this.header = header;
+        }
+
+        /**
+         * @return The name of the file of this table.
+         */
+        public String getFileName() {
+
+            return fileName;
+        }
+
+        /**
+         * @return The header row of this table.
+         */
+        public String getHeader() {
+
+            return header;
+        }
+    }
+
+    /**
+     * The result of an export.
+     */
+    public static final class Result {
+        private final int exportedCount;
+
+        private final int skippedCount;
+
+        private final List<File> failedLogs;
+
+        Result(
+                final int exportedCount, final int skippedCount, final List<File> failedLogs) {
+
+            this.exportedCount = exportedCount;
+            this.skippedCount = skippedCount;
+            this.failedLogs = Collections.unmodifiableList(failedLogs);
+        }
+
+        /**
+         * @return The number of ascensions written to the tables.
+         */
+        public int getExportedCount() {
+
+            return exportedCount;
+        }
+
+        /**
+         * @return The number of ascensions left out because they had already
+         *         been exported.
+         */
+        public int getSkippedCount() {
+
+            return skippedCount;
+        }
+
+        /**
+         * @return The logs which couldn't be loaded.
+         */
+        public List<File> getFailedLogs() {
+
+            return failedLogs;
+        }
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private AscensionTablesExporter() {}
+
+    /**
+     * Exports all cached ascensions, see {@link LogsCache#getLogs()}, using one
+     * worker per processor.
+     *
+     * @param characterName The name of the character whose ascensions should
+     *                      be exported, or {@code null} to export the
+     *                      ascensions of all characters.
+     * @param exportDir     The directory to write the tables to.
+     * @param append        Whether the ascensions should be added to the
+     *                      tables already in the given directory.
+     * @return The result of the export.
+     * @throws IOException if the tables could not be read or written
+     */
+    public static Result exportCachedLogs(
+            final String characterName, final File exportDir, final boolean append)
+            throws IOException {
+
+        final List<File> logs;
+        if (characterName == null) {
+            logs = LogsCache.CACHE.getLogs();
+        } else {
+            final List<File> characterLogs = LogsCache.CACHE.getLogsByCharacter().get(characterName);
+            logs = characterLogs != null ? characterLogs : Collections.<File> emptyList();
+        }
+
+        return export(logs,
+                AscensionAggregator.CACHED_LOGS,
+                exportDir,
+                append,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Exports the given logs. The file names of the logs, without their file
+     * extensions, have to be the log names of their ascensions, as is the case
+     * for cached logs and condensed mafia logs.
+     *
+     * @param logs        The logs to export, in the order they should be written.
+     * @param loader      The loader of the given logs.
+     * @param exportDir   The directory to write the tables to.
+     * @param append      Whether the ascensions should be added to the tables
+     *                    already in the given directory. Ascensions already
+     *                    in them are skipped. Otherwise, the tables are
+     *                    replaced.
+     * @param workerCount The number of logs loaded in parallel.
+     * @return The result of the export.
+     * @throws IllegalArgumentException if the given directory isn't a
+     *                                  directory; if workerCount is below 1
+     * @throws IOException              if the tables could not be read or
+     *                                  written, or if the tables to append to
+     *                                  have other columns than the current
+     *                                  ones
+     */
+    public static Result export(
+            final List<File> logs, final LogLoader loader, final File exportDir,
+            final boolean append, final int workerCount)
+            throws IOException {
+
+        if (logs == null) {
+            throw new NullPointerException("The logs must not be null.");
+        }
+        if (loader == null) {
+            throw new NullPointerException("The loader must not be null.");
+        }
+        if (exportDir == null) {
+            throw new NullPointerException("The export directory must not be null.");
+        }
+        if (!exportDir.isDirectory()) {
+            throw new IllegalArgumentException("The export directory must be a directory.");
+        }
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("There has to be at least one worker.");
+        }
+
+        final Set<String> exportedLogNames = append ? readExportedLogNames(exportDir)
+                : Collections.<String> emptySet();
+        final List<File> logsToExport = Lists.newArrayList(logs.size());
+        for (final File log : logs) {
+            if (!exportedLogNames.contains(getLogName(log))) {
+                logsToExport.add(log);
+            }
+        }
+
+        final Writer[] writers = new Writer[Table.values().length];
+        final ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            for (final Table table : Table.values()) {
+                writers[table.ordinal()] = openTable(exportDir, table, append, exportedLogNames);
+            }
+
+            // Only a window of logs is loaded ahead of the one written next,
+            // which bounds the memory used by logs waiting to be written.
+            final List<File> failedLogs = Lists.newArrayList();
+            final Deque<Future<CharSequence[]>> pendingRows = new ArrayDeque<Future<CharSequence[]>>();
+            int nextLog = 0;
+            int writtenLog = 0;
+            while (writtenLog < logsToExport.size()) {
+                while (nextLog < logsToExport.size() && pendingRows.size() < workerCount * 2) {
+                    pendingRows.add(executor.submit(createRowsTask(logsToExport.get(nextLog), loader)));
+                    nextLog++;
+                }
+
+                final CharSequence[] rows = getRows(pendingRows.removeFirst());
+                if (rows != null) {
+                    // The ascension row comes last, so that it is only listed
+                    // once all of its rows are written.
+                    for (final Table table : Table.values()) {
+                        if (table != Table.ASCENSIONS) {
+                            writers[table.ordinal()].append(rows[table.ordinal()]);
+                            writers[table.ordinal()].flush();
+                        }
+                    }
+                    writers[Table.ASCENSIONS.ordinal()].append(rows[Table.ASCENSIONS.ordinal()]);
+                    writers[Table.ASCENSIONS.ordinal()].flush();
+                } else {
+                    failedLogs.add(logsToExport.get(writtenLog));
+                }
+                writtenLog++;
+            }
+
+            return new Result(logsToExport.size() - failedLogs.size(),
+                    logs.size() - logsToExport.size(),
+                    failedLogs);
+        } finally {
+            executor.shutdownNow();
+            IOException closeException = null;
+            for (final Writer writer : writers) {
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (final IOException e) {
+                        closeException = e;
+                    }
+                }
+            }
+            if (closeException != null) {
+                throw closeException;
+            }
+        }
+    }
+
+    private static Callable<CharSequence[]> createRowsTask(
+            final File log, final LogLoader loader) {
+
+        return new Callable<CharSequence[]>() {
+            @Override
+            public CharSequence[] call() {
+
+                final LogDataHolder logData;
+                try {
+                    logData = loader.load(log);
+                } catch (final IOException e) {
+                    e.printStackTrace();
+                    return null;
+                } catch (final FileAccessException e) {
+                    e.printStackTrace();
+                    return null;
+                }
+
+                return createRows(logData);
+            }
+        };
+    }
+
+    /**
+     * @return The rows of the given task, or {@code null} if its log couldn't
+     *         be loaded.
+     */
+    private static CharSequence[] getRows(
+            final Future<CharSequence[]> task)
+            throws IOException {
+
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The export was interrupted.", e);
+        } catch (final ExecutionException e) {
+            // Errors while creating the rows of a log are bugs and shouldn't
+            // go unnoticed.
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Creates the rows of all tables for the given log, indexed by the ordinals
+     * of the tables.
+     */
+    private static CharSequence[] createRows(
+            final LogDataHolder logData) {
+
+        final StringBuilder[] rows = new StringBuilder[Table.values().length];
+        for (final Table table : Table.values()) {
+            rows[table.ordinal()] = new StringBuilder(table == Table.TURNS ? 200000 : 10000);
+        }
+
+        final String logName = logData.getLogName();
+        final int delimiterIndex = logName.lastIndexOf('-');
+        final String characterName = delimiterIndex > 0 ? logName.substring(0, delimiterIndex)
+                : logName;
+        final String keys = AscensionStatisticsReport.toCSVField(logName) + ',' + AscensionStatisticsReport.toCSVField(characterName) + ',';
+
+        final DayChange lastDay = logData.getLastDayChange();
+        rows[Table.ASCENSIONS.ordinal()].append(keys)
+                .append(AscensionStatisticsReport.toCSVField(logData.getCharacterClass().toString())).append(',')
+                .append(AscensionStatisticsReport.toCSVField(logData.getAscensionPath().toString())).append(',')
+                .append(AscensionStatisticsReport.toCSVField(logData.getGameMode().toString())).append(',')
+                .append(delimiterIndex > 0 ? logName.substring(delimiterIndex + 1) : "").append(',')
+                .append(logData.getLastTurnSpent().getTurnNumber()).append(',')
+                .append(lastDay != null ? lastDay.getDayNumber() : 1).append('\n');
+
+        for (final SingleTurn st : logData.getTurnsSpent()) {
+            final String turnKeys = keys + st.getTurnNumber() + ',' + st.getDayNumber() + ',';
+            final EquipmentChange equipment = st.getUsedEquipment();
+            final Statgain stats = st.getStatGain();
+            final MeatGain meat = st.getMeat();
+            final MPGain mp = st.getMPGain();
+
+            rows[Table.TURNS.ordinal()].append(turnKeys)
+                    .append(st.getTurnVersion()).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(st.getAreaName())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(st.getEncounterName())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(st.getUsedFamiliar().getFamiliarName())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(equipment.getHat())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(equipment.getWeapon())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(equipment.getOffhand())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(equipment.getShirt())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(equipment.getPants())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(equipment.getAcc1())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(equipment.getAcc2())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(equipment.getAcc3())).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(equipment.getFamEquip())).append(',')
+                    .append(stats.mus).append(',')
+                    .append(stats.myst).append(',')
+                    .append(stats.mox).append(',')
+                    .append(meat.encounterMeatGain).append(',')
+                    .append(meat.otherMeatGain).append(',')
+                    .append(meat.meatSpent).append(',')
+                    .append(mp.encounterMPGain).append(',')
+                    .append(mp.starfishMPGain).append(',')
+                    .append(mp.restingMPGain).append(',')
+                    .append(mp.outOfEncounterMPGain).append(',')
+                    .append(mp.consumableMPGain).append(',')
+                    .append(st.getFreeRunaways()).append(',')
+                    .append(st.isDisintegrated()).append(',')
+                    .append(st.isBanished()).append('\n');
+
+            for (final Item i : st.getDroppedItems()) {
+                rows[Table.DROPS.ordinal()].append(turnKeys)
+                        .append(AscensionStatisticsReport.toCSVField(i.getName())).append(',')
+                        .append(i.getAmount()).append('\n');
+            }
+
+            for (final Skill s : st.getSkillsCast()) {
+                rows[Table.CASTS.ordinal()].append(turnKeys)
+                        .append(AscensionStatisticsReport.toCSVField(s.getName())).append(',')
+                        .append(s.getAmount()).append(',')
+                        .append(s.getMpCost()).append('\n');
+            }
+
+            for (final Consumable c : st.getConsumablesUsed()) {
+                rows[Table.CONSUMABLES.ordinal()].append(turnKeys)
+                        .append(AscensionStatisticsReport.toCSVField(c.getName())).append(',')
+                        .append(c.getConsumableVersion()).append(',')
+                        .append(c.getAmount()).append(',')
+                        .append(c.getAdventureGain()).append(',')
+                        .append(getOrganHit(c)).append('\n');
+            }
+        }
+
+        for (final Pull p : logData.getPulls()) {
+            rows[Table.PULLS.ordinal()].append(keys)
+                    .append(p.getTurnNumber()).append(',')
+                    .append(p.getDayNumber()).append(',')
+                    .append(AscensionStatisticsReport.toCSVField(p.getItemName())).append(',')
+                    .append(p.getAmount()).append('\n');
+        }
+
+        for (final LevelData ld : logData.getLevels()) {
+            final Statgain stats = ld.getStatsAtLevelReached();
+            rows[Table.LEVELS.ordinal()].append(keys)
+                    .append(ld.getLevelNumber()).append(',')
+                    .append(ld.getLevelReachedOnTurn()).append(',')
+                    .append(ld.getCombatTurns()).append(',')
+                    .append(ld.getNoncombatTurns()).append(',')
+                    .append(ld.getOtherTurns()).append(',')
+                    .append(stats.mus).append(',')
+                    .append(stats.myst).append(',')
+                    .append(stats.mox).append(',')
+                    .append(String.format(Locale.ENGLISH, "%.2f", ld.getStatGainPerTurn()))
+                    .append('\n');
+        }
+
+        return rows;
+    }
+
+    private static int getOrganHit(
+            final Consumable consumable) {
+
+        switch (consumable.getConsumableVersion()) {
+        case FOOD:
+            return DataTablesHandler.HANDLER.getFullnessHit(consumable.getName());
+        case BOOZE:
+            return DataTablesHandler.HANDLER.getDrunkennessHit(consumable.getName());
+        case SPLEEN:
+            return DataTablesHandler.HANDLER.getSpleenHit(consumable.getName());
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * Opens the given table for writing. New or replaced tables start with
+     * their header row, while tables which are appended to have to start with
+     * it already.
+     */
+    private static Writer openTable(
+            final File exportDir, final Table table, final boolean append,
+            final Set<String> exportedLogNames)
+            throws IOException {
+
+        final File file = new File(exportDir, table.getFileName());
+        final boolean isAppending = append && file.length() > 0;
+        if (isAppending) {
+            final String header;
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                    UTF_8))) {
+                header = reader.readLine();
+            }
+            if (!table.getHeader().equals(header)) {
+                throw new IOException(file.getName()
+                        + " has other columns than the current version writes, export it without appending.");
+            }
+            if (table != Table.ASCENSIONS) {
+                truncateUnlistedRows(file, exportedLogNames);
+            }
+        }
+
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file,
+                isAppending),
+                UTF_8),
+                64 * 1024);
+        if (!isAppending) {
+            writer.write(table.getHeader());
+            writer.write('\n');
+        }
+
+        return writer;
+    }
+
+    /**
+     * Cuts off the rows at the end of the given table whose ascensions aren't
+     * listed in the ascensions table. Quoted fields can span several lines, so
+     * rows only end at line breaks outside of quotes.
+     */
+    private static void truncateUnlistedRows(
+            final File file, final Set<String> exportedLogNames)
+            throws IOException {
+
+        long keptLength = 0;
+        try (final InputStream in = new FileInputStream(file)) {
+            final byte[] buffer = new byte[64 * 1024];
+            final ByteArrayOutputStream row = new ByteArrayOutputStream(1024);
+            boolean isHeader = true;
+            boolean isQuoted = false;
+            long position = 0;
+            int count;
+            while ((count = in.read(buffer)) >= 0) {
+                int rowStart = 0;
+                for (int i = 0; i < count; i++) {
+                    if (buffer[i] == '"') {
+                        isQuoted = !isQuoted;
+                    } else if (buffer[i] == '\n' && !isQuoted) {
+                        row.write(buffer, rowStart, i - rowStart);
+                        rowStart = i + 1;
+                        if (isHeader
+                            || exportedLogNames.contains(readFirstCSVField(new String(row.toByteArray(),
+                                    UTF_8)))) {
+                            keptLength = position + i + 1;
+                        }
+                        isHeader = false;
+                        row.reset();
+                    }
+                }
+                row.write(buffer, rowStart, count - rowStart);
+                position += count;
+            }
+        }
+
+        if (keptLength < file.length()) {
+            try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(keptLength);
+            }
+        }
+    }
+
+    /**
+     * @return The log names of the ascensions listed in the ascensions table of
+     *         the given directory.
+     */
+    private static Set<String> readExportedLogNames(
+            final File exportDir)
+            throws IOException {
+
+        final File file = new File(exportDir, Table.ASCENSIONS.getFileName());
+        final Set<String> logNames = Sets.newHashSet();
+        if (!file.isFile()) {
+            return logNames;
+        }
+
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                UTF_8))) {
+            // Skip the header row.
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    logNames.add(readFirstCSVField(line));
+                }
+            }
+        }
+
+        return logNames;
+    }
+
+    /**
+     * @param log A cached log or a condensed mafia log.
+     * @return The file name of the given log without its file extension.
+     */
+    private static String getLogName(
+            final File log) {
+
+        final String fileName = log.getName();
+        final int extensionIndex = fileName.lastIndexOf('.');
+
+        return extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+    }
+
+    private static String readFirstCSVField(
+            final String line) {
+
+        if (!line.startsWith("\"")) {
+            final int end = line.indexOf(',');
+
+            return end >= 0 ? line.substring(0, end) : line;
+        }
+
+        final StringBuilder field = new StringBuilder(line.length());
+        for (int i = 1; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == '"') {
+                if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            field.append(c);
+        }
+
+        return field.toString();
+    }
+}
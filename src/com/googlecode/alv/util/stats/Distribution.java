@@ -0,0 +1,183 @@
+/* Copyright (c) 2008-2020, developers of the Ascension Log Visualizer
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom
+ * the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.googlecode.alv.util.stats;
+
+import java.util.Arrays;
+
+/**
+ * The distribution of a whole-numbered value over many ascensions, with one
+ * value per ascension. Distributions can be merged, so that parts of a bigger
+ * set of ascensions can be looked at independently and put together
+ * afterwards.
+ * <p>
+ * All values are kept, which costs four bytes per ascension, so that medians
+ * and other percentiles are exact.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class Distribution {
+    private int[] values = new int[16];
+
+    private int count;
+
+    private long sum;
+
+    private boolean isSorted = true;
+
+    /**
+     * Adds the given value to this distribution.
+     *
+     * @param value The value to add.
+     */
+    public void add(
+            final int value) {
+
+        ensureCapacity(count + 1);
+        if (count > 0 && values[count - 1] > value) {
+            isSorted = false;
+        }
+        values[count++] = value;
+        sum += value;
+    }
+
+    /**
+     * Adds all values of the given distribution to this one.
+     *
+     * @param other The distribution to merge into this one.
+     */
+    public void merge(
+            final Distribution other) {
+
+        if (other == null) {
+            throw new NullPointerException("The other distribution must not be null.");
+        }
+        if (other.count == 0) {
+            return;
+        }
+
+        ensureCapacity(count + other.count);
+        if (count > 0 && (!other.isSorted || values[count - 1] > other.values[0])) {
+            isSorted = false;
+        }
+        isSorted &= other.isSorted;
+        System.arraycopy(other.values, 0, values, count, other.count);
+        count += other.count;
+        sum += other.sum;
+    }
+
+    private void ensureCapacity(
+            final int capacity) {
+
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+        }
+    }
+
+    private void sort() {
+
+        if (!isSorted) {
+            Arrays.sort(values, 0, count);
+            isSorted = true;
+        }
+    }
+
+    /**
+     * @return The number of values.
+     */
+    public int getCount() {
+
+        return count;
+    }
+
+    /**
+     * @return The sum of all values.
+     */
+    public long getSum() {
+
+        return sum;
+    }
+
+    /**
+     * @return The mean of all values, or 0 if there are no values.
+     */
+    public double getMean() {
+
+        return count > 0 ? (double) sum / count : 0;
+    }
+
+    /**
+     * @return The smallest value, or 0 if there are no values.
+     */
+    public int getMinimum() {
+
+        sort();
+
+        return count > 0 ? values[0] : 0;
+    }
+
+    /**
+     * @return The largest value, or 0 if there are no values.
+     */
+    public int getMaximum() {
+
+        sort();
+
+        return count > 0 ? values[count - 1] : 0;
+    }
+
+    /**
+     * @return The median of all values, or 0 if there are no values.
+     */
+    public double getMedian() {
+
+        return getPercentile(50);
+    }
+
+    /**
+     * Returns the given percentile of all values, linearly interpolated between
+     * the two closest values if it falls in between them.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The given percentile, or 0 if there are no values.
+     * @throws IllegalArgumentException if percentile is below 0 or above 100
+     */
+    public double getPercentile(
+            final double percentile) {
+
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        sort();
+        final double position = percentile / 100 * (count - 1);
+        final int lower = (int) Math.floor(position);
+        final int upper = (int) Math.ceil(position);
+
+        return values[lower] + (values[upper] - values[lower]) * (position - lower);
+    }
+}